@@ -4,6 +4,10 @@ import org.locationtech.jts.jump.io.EndianDataInputStream;
 
 import java.io.*;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 
@@ -31,17 +35,32 @@ public class DbfFile implements DbfConsts {
     int last_rec;
     int data_offset;
     int rec_size;
+    int next_rec; // the row dFile is positioned at
     boolean hasmemo;
     public EndianDataInputStream dFile;
     RandomAccessFile rFile;
     int filesize;
     int numfields;
     public DbfFieldDef[] fielddef;
+    Charset charset = Charset.defaultCharset();
+    ByteBuffer[] data; // memory mapped records, see getData
+    int rows_per_segment;
+    /**
+     * Not thread-safe, like any SimpleDateFormat; use #getDateParser.
+     */
     public static final SimpleDateFormat DATE_PARSER = new SimpleDateFormat("yyyyMMdd") {
         {
             setLenient(false);
         }
     };
+    private static final ThreadLocal DATE_PARSERS = new ThreadLocal() {
+        protected Object initialValue() {
+            SimpleDateFormat parser = new SimpleDateFormat("yyyyMMdd");
+            parser.setLenient(false);
+
+            return parser;
+        }
+    };
 
     protected DbfFile() {
         //for testing.
@@ -70,6 +89,18 @@ public class DbfFile implements DbfConsts {
         init(sfile);
     }
 
+    /**
+     * Sets the character set used to decode text columns. The default is
+     * the platform's default character set.
+     */
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
     /**
             * Returns the date of the last update of the file as a string.
             */
@@ -105,6 +136,20 @@ public class DbfFile implements DbfConsts {
         return (fielddef[row].fieldname).toString();
     }
 
+    /**
+            * Returns the number of the column with the given name (ignoring
+            * case), or -1 if there is no such column.
+            */
+    public int getFieldIndex(String name) {
+        for (int i = 0; i < numfields; i++) {
+            if (getFieldName(i).trim().equalsIgnoreCase(name.trim())) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
     public String getFieldType(int row) {
         char type = fielddef[row].fieldtype;
         String realtype = "";
@@ -196,19 +241,25 @@ public class DbfFile implements DbfConsts {
     }
 
     /**
-     * fetches the <i>row</i>th row of the file
+     * fetches the <i>row</i>th row of the file. Rows may be fetched in any
+     * order, but fetching them in order is fastest.
      * @param row - the row to fetch
      * @exception java.io.IOException on read error.
      */
-    public StringBuffer GetDbfRec(int row) throws java.io.IOException {
+    public synchronized StringBuffer GetDbfRec(int row) throws java.io.IOException {
         StringBuffer record = new StringBuffer(rec_size + numfields);
 
-        rFile.seek(data_offset + (rec_size * row));
-
         //Multi byte character modification thanks to Hisaji ONO
         byte[] strbuf = new byte[rec_size]; // <---- byte array buffer fo storing string's byte data
 
-        dFile.readByteLEnum(strbuf);
+        if (row == next_rec) {
+            // reading the rows in order, use the buffered stream
+            dFile.readByteLEnum(strbuf);
+            next_rec++;
+        } else {
+            rFile.seek(data_offset + ((long) rec_size * row));
+            rFile.readFully(strbuf);
+        }
         record.append(new String(strbuf)); // <- append byte array to String Buffer
 
         //record.append(strbuf);
@@ -278,6 +329,201 @@ public class DbfFile implements DbfConsts {
         }
     }
 
+    /**
+     * Parses one column of the <i>row</i>th row straight from a memory mapped
+     * view of the file. Returns the same values as
+     * <code>ParseRecordColumn(GetDbfRec(row), wantedCol)</code>, but only the
+     * bytes of the wanted column are looked at: numbers are parsed without
+     * creating Strings and text is decoded (with the charset of this file)
+     * only for this column. Rows may be fetched in any order and by several
+     * threads at once.
+     * @param row - the row to fetch
+     * @param wantedCol - the column to parse
+     */
+    public Object ParseRecordColumn(int row, int wantedCol)
+        throws Exception {
+        if ((row < 0) || (row >= last_rec)) {
+            throw new DbfFileException("DbFi>No Such Row in file: " + row);
+        }
+
+        ByteBuffer buffer = getData(row);
+        int start = ((row % rows_per_segment) * rec_size) +
+            fielddef[wantedCol].fieldstart;
+        int end = start + fielddef[wantedCol].fieldlen;
+
+        switch (fielddef[wantedCol].fieldtype) {
+        case 'F': //same as numeric, more or less
+        case 'N': //numeric
+
+            // fields of type 'F' are always represented as Doubles
+            if ((fielddef[wantedCol].fieldnumdec == 0) &&
+                    (fielddef[wantedCol].fieldtype == 'N')) {
+                return parseInteger(buffer, start, end);
+            }
+
+            return parseDouble(buffer, start, end);
+
+        case 'D': //date.
+            return parseDate(decode(buffer, start, end));
+
+        default:
+            return decode(buffer, start, end);
+        }
+    }
+
+    /**
+     * Returns the mapped buffer that holds the given row. Rows are mapped in
+     * segments of up to 1GB, because a single mapping is limited to 2GB.
+     */
+    private synchronized ByteBuffer getData(int row) throws IOException {
+        if (data == null) {
+            rows_per_segment = Math.max(1, (1 << 30) / Math.max(1, rec_size));
+
+            FileChannel channel = rFile.getChannel();
+            long available = Math.max(0, channel.size() - data_offset);
+            int rows = (int) Math.min(last_rec, available / Math.max(1, rec_size));
+
+            data = new ByteBuffer[(rows + rows_per_segment - 1) / rows_per_segment];
+
+            for (int i = 0; i < data.length; i++) {
+                long first = (long) i * rows_per_segment;
+                long count = Math.min(rows_per_segment, rows - first);
+                data[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        data_offset + (first * rec_size), count * rec_size);
+            }
+        }
+
+        int segment = row / rows_per_segment;
+
+        if (segment >= data.length) {
+            throw new EOFException("DbFi>row " + row + " is past the end of the file");
+        }
+
+        return data[segment];
+    }
+
+    private String decode(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+
+        return new String(bytes, charset);
+    }
+
+    // Parses like new Integer(s) would after skipping leading blanks:
+    // anything that isn't a plain (signed) int becomes 0.
+    private static Integer parseInteger(ByteBuffer buffer, int start, int end) {
+        while ((start < end) && (buffer.get(start) == ' '))
+            start++;
+
+        boolean negative = false;
+
+        if ((start < end) &&
+                ((buffer.get(start) == '-') || (buffer.get(start) == '+'))) {
+            negative = buffer.get(start) == '-';
+            start++;
+        }
+
+        if (start == end) {
+            return Integer.valueOf(0);
+        }
+
+        long value = 0;
+
+        for (int i = start; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+
+            if ((digit < 0) || (digit > 9)) {
+                return Integer.valueOf(0);
+            }
+
+            value = (value * 10) + digit;
+
+            if (value > (1L + Integer.MAX_VALUE)) {
+                return Integer.valueOf(0);
+            }
+        }
+
+        if (negative) {
+            value = -value;
+        }
+
+        if (value > Integer.MAX_VALUE) {
+            return Integer.valueOf(0);
+        }
+
+        return Integer.valueOf((int) value);
+    }
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Parses like new Double(s) would: anything that isn't a number becomes NaN.
+    // Plain decimals that fit in a double exactly are converted directly,
+    // which gives the same (correctly rounded) result; others go through
+    // Double.valueOf.
+    private Double parseDouble(ByteBuffer buffer, int start, int end) {
+        int first = start;
+        int last = end;
+
+        while ((first < last) && ((buffer.get(first) & 0xff) <= ' '))
+            first++;
+
+        while ((last > first) && ((buffer.get(last - 1) & 0xff) <= ' '))
+            last--;
+
+        int i = first;
+        boolean negative = false;
+
+        if ((i < last) && ((buffer.get(i) == '-') || (buffer.get(i) == '+'))) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int decimals = -1;
+
+        for (; i < last; i++) {
+            byte b = buffer.get(i);
+
+            if ((b == '.') && (decimals < 0)) {
+                decimals = 0;
+            } else if ((b >= '0') && (b <= '9') && (mantissa < (1L << 53) / 10)) {
+                mantissa = (mantissa * 10) + (b - '0');
+                digits++;
+
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else {
+                break;
+            }
+        }
+
+        if ((i == last) && (digits > 0) &&
+                (decimals < POWERS_OF_TEN.length)) {
+            double value = (double) mantissa;
+
+            if (decimals > 0) {
+                value = value / POWERS_OF_TEN[decimals];
+            }
+
+            return new Double(negative ? -value : value);
+        }
+
+        try {
+            return Double.valueOf(decode(buffer, start, end));
+        } catch (java.lang.NumberFormatException e) {
+            // dBase can have numbers that look like '********' !! This isn't ideal but at least reads them
+            return new Double(Double.NaN);
+        }
+    }
+
     /**
             * Parses the record stored in the StringBuffer rec into a vector of
             * objects
@@ -710,6 +956,14 @@ public class DbfFile implements DbfConsts {
         }
     }
 
+    /**
+     * Returns the calling thread's own copy of #DATE_PARSER, which parses and
+     * formats dates as they are stored in a .dbf file.
+     */
+    public static SimpleDateFormat getDateParser() {
+        return (SimpleDateFormat) DATE_PARSERS.get();
+    }
+
     protected Date parseDate(String s) throws ParseException {
         if (s.trim().length() == 0) {
             return null;
@@ -717,9 +971,9 @@ public class DbfFile implements DbfConsts {
         if (s.equals("00000000")) {
             //Not sure if Jan 1, 0001 is the most appropriate value.
             //Year 0000 gives me a ParseException. [Jon Aquino]
-            return DATE_PARSER.parse("00010101");
+            return getDateParser().parse("00010101");
         }
-        return DATE_PARSER.parse(s);
+        return getDateParser().parse(s);
     }
 
     public static void main(String[] args) throws Exception {
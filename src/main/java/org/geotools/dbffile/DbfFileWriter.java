@@ -1,6 +1,7 @@
 package org.geotools.dbffile;
 
 import java.io.*;
+import java.nio.charset.Charset;
 import java.util.*;
 
 import org.geotools.misc.FormatedString;
@@ -37,6 +38,8 @@ public class DbfFileWriter implements DbfConsts{
 
 	private boolean header = false;
 
+  Charset charset = null;
+
   public DbfFileWriter(String file) throws IOException{
 
 	if(DEBUG)System.out.println("---->uk.ac.leeds.ccg.dbffile.DbfFileWriter constructed. Will identify itself as "+DBC);
@@ -45,6 +48,18 @@ public class DbfFileWriter implements DbfConsts{
 
   }
 
+  /**
+   * Sets the character set used to encode text columns. By default the low
+   * byte of each character is written, which is only right for ISO-8859-1.
+   * The width of a column is in bytes, so encoded text that is longer than
+   * its column is cut off.
+   */
+  public void setCharset(Charset charset){
+
+    this.charset = charset;
+
+  }
+
   public void writeHeader(DbfFieldDef f[], int nrecs) throws IOException{
 
     NoFields = f.length;
@@ -196,6 +211,22 @@ public class DbfFileWriter implements DbfConsts{
 
           //chars
 
+                    if (charset != null) {
+
+                      byte[] bytes = ((String) o).getBytes(charset);
+
+                      byte[] field = new byte[len];
+
+                      Arrays.fill(field, (byte) ' ');
+
+                      System.arraycopy(bytes, 0, field, 0, Math.min(bytes.length, len));
+
+                      ls.write(field, 0, len);
+
+                      break;
+
+                    }
+
                     String ss = (String) o;
 
                     while  (ss.length() < fields[i].fieldlen)
@@ -0,0 +1,419 @@
+package org.geotools.shapefile;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.locationtech.jts.geom.*;
+import org.locationtech.jts.jump.io.EndianDataInputStream;
+
+/**
+ * A read-only, random access view of a Shapefile on disk.<p>
+ * The .shp file is memory-mapped and the record offsets are taken from the
+ * .shx index file next to it (if there is no .shx file the offsets are
+ * collected with a single scan over the record headers). Geometries are only
+ * decoded when they are asked for, so unlike {@link Shapefile#read} the heap
+ * used does not grow with the size of the file.<p>
+ * Reading geometries from several threads at once is allowed.
+ */
+public class MappedShapefile {
+
+    static final int HEADER_LENGTH = 100; // bytes
+    static final int RECORD_HEADER_LENGTH = 8; // bytes
+
+    /** Files are mapped in segments of this size, a mapping is limited to 2GB */
+    static final long SEGMENT_SIZE = 1L << 30;
+
+    /** The number of records decoded by one task of {@link #readGeometries} */
+    static final int CHUNK_SIZE = 1024;
+
+    private File shpFile;
+    private FileChannel shpChannel;
+    private MappedByteBuffer[] segments;
+    private long shpLength;
+
+    private FileChannel shxChannel;
+    private ByteBuffer shxBuffer;
+    private int[] wordOffsets; // only used when there is no .shx file
+
+    private ShapefileHeader header;
+    private ShapeHandler handler;
+    private int numRecords;
+
+    private ShapefileIndex index; // null if there is no usable index file
+    private boolean indexOpened;
+
+    /**
+     * Opens and maps the given .shp file and the .shx file beside it.
+     * @param shpFile the .shp file
+     */
+    public MappedShapefile(File shpFile) throws IOException, ShapefileException, Exception {
+        this.shpFile = shpFile;
+        shpChannel = new RandomAccessFile(shpFile, "r").getChannel();
+        try {
+            shpLength = shpChannel.size();
+
+            int numSegments = (int) ((shpLength + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            segments = new MappedByteBuffer[numSegments];
+            for (int i = 0; i < numSegments; i++) {
+                long start = i * SEGMENT_SIZE;
+                segments[i] = shpChannel.map(FileChannel.MapMode.READ_ONLY, start,
+                        Math.min(SEGMENT_SIZE, shpLength - start));
+            }
+
+            header = new ShapefileHeader(new EndianDataInputStream(readBytes(0, HEADER_LENGTH)));
+            handler = Shapefile.getShapeHandler(header.getShapeType());
+            if (handler == null) {
+                throw new ShapeTypeNotSupportedException("Unsuported shape type:" + header.getShapeType());
+            }
+
+            File shxFile = getSiblingFile(shpFile, ".shx");
+            if (shxFile != null) {
+                shxChannel = new RandomAccessFile(shxFile, "r").getChannel();
+                shxBuffer = shxChannel.map(FileChannel.MapMode.READ_ONLY, 0, shxChannel.size());
+                numRecords = (int) ((shxChannel.size() - HEADER_LENGTH) / 8);
+            } else {
+                scanRecords();
+            }
+        } catch (Exception e) {
+            // don't leak the channels opened so far
+            try {
+                close();
+            } catch (IOException closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the file with the same name as <code>file</code> but with the
+     * given extension, trying both lower and upper case, or null if it doesn't exist.
+     */
+    public static File getSiblingFile(File file, String extension) {
+        String name = file.getName();
+        int loc = name.lastIndexOf('.');
+        String base = loc == -1 ? name : name.substring(0, loc);
+        File lower = new File(file.getParentFile(), base + extension.toLowerCase());
+        if (lower.exists()) {
+            return lower;
+        }
+        File upper = new File(file.getParentFile(), base + extension.toUpperCase());
+        if (upper.exists()) {
+            return upper;
+        }
+        return null;
+    }
+
+    /**
+     * Collects the record offsets by hopping over the record headers.
+     */
+    private void scanRecords() throws IOException {
+        int[] offsets = new int[1024];
+        int count = 0;
+        long pos = HEADER_LENGTH;
+        while (pos + RECORD_HEADER_LENGTH <= shpLength) {
+            if (count == offsets.length) {
+                int[] grown = new int[offsets.length * 2];
+                System.arraycopy(offsets, 0, grown, 0, count);
+                offsets = grown;
+            }
+            offsets[count++] = (int) (pos / 2);
+            int contentLength = readBytes(pos, RECORD_HEADER_LENGTH).getInt(4);
+            pos += RECORD_HEADER_LENGTH + 2L * contentLength;
+        }
+        wordOffsets = new int[count];
+        System.arraycopy(offsets, 0, wordOffsets, 0, count);
+        numRecords = count;
+    }
+
+    public ShapefileHeader getHeader() {
+        return header;
+    }
+
+    public File getFile() {
+        return shpFile;
+    }
+
+    /**
+     * Returns the number of records (shapes) in the file.
+     */
+    public int getNumRecords() {
+        return numRecords;
+    }
+
+    /**
+     * Returns the length of the .shp file in bytes.
+     */
+    public long getLength() {
+        return shpLength;
+    }
+
+    /**
+     * Returns the position in bytes of the header of the given (zero-based) record.
+     */
+    public long getRecordOffset(int recordIndex) {
+        int words;
+        if (shxBuffer != null) {
+            words = shxBuffer.getInt(HEADER_LENGTH + 8 * recordIndex);
+        } else {
+            words = wordOffsets[recordIndex];
+        }
+        return 2L * (words & 0xffffffffL);
+    }
+
+    /**
+     * Returns a buffer holding the record header and content of the given
+     * record. The buffer starts at the record header and does not share its
+     * position with other callers.
+     */
+    public ByteBuffer getRecordBuffer(int recordIndex) throws IOException {
+        long offset = getRecordOffset(recordIndex);
+        int contentLength = readBytes(offset, RECORD_HEADER_LENGTH).getInt(4);
+        return readBytes(offset, RECORD_HEADER_LENGTH + 2 * contentLength);
+    }
+
+    /**
+     * Returns whether the bounding box stored in the given record intersects
+     * the envelope. Only the start of the record is read; the geometry is not
+     * decoded. Null shapes never intersect.
+     */
+    public boolean intersects(int recordIndex, Envelope envelope) throws IOException {
+        long offset = getRecordOffset(recordIndex) + RECORD_HEADER_LENGTH;
+        int length = (int) Math.min(Shapefile.RECORD_BOUNDS_LENGTH, shpLength - offset);
+        return Shapefile.readBoundsAndTest(new EndianDataInputStream(readBytes(offset, length)), envelope) < 0;
+    }
+
+    /**
+     * Expands the envelope to include the bounding box stored in the given
+     * record, without decoding the record.
+     */
+    public void expandToInclude(int recordIndex, Envelope envelope) throws IOException {
+        double[] bounds = new double[4];
+        if (readRecordBounds(recordIndex, bounds)) {
+            envelope.expandToInclude(bounds[0], bounds[1]);
+            envelope.expandToInclude(bounds[2], bounds[3]);
+        }
+    }
+
+    /**
+     * Copies the bounding box stored in the given record into
+     * <code>bounds</code> as minx, miny, maxx, maxy, without decoding the
+     * record. The values are not checked, so minx may be larger than maxx.
+     * @return false if the record is a null shape, which has no bounds
+     */
+    boolean readRecordBounds(int recordIndex, double[] bounds) throws IOException {
+        long offset = getRecordOffset(recordIndex) + RECORD_HEADER_LENGTH;
+        int length = (int) Math.min(Shapefile.RECORD_BOUNDS_LENGTH, shpLength - offset);
+        ByteBuffer record = readBytes(offset, length).order(ByteOrder.LITTLE_ENDIAN);
+        switch (record.getInt(0)) {
+            case Shapefile.NULL:
+                return false;
+            case Shapefile.POINT:
+            case Shapefile.POINTZ:
+            case Shapefile.POINTM:
+                bounds[0] = bounds[2] = record.getDouble(4);
+                bounds[1] = bounds[3] = record.getDouble(12);
+                return true;
+            default:
+                bounds[0] = record.getDouble(4);
+                bounds[1] = record.getDouble(12);
+                bounds[2] = record.getDouble(20);
+                bounds[3] = record.getDouble(28);
+                return true;
+        }
+    }
+
+    /**
+     * Returns the (zero-based) indexes, in file order, of the records whose
+     * stored bounding box intersects the envelope. If there is an up to date
+     * {@link ShapefileIndex} beside the .shp file only the matching part of
+     * that index is read, otherwise every record is tested.
+     * @see #intersects(int, Envelope)
+     */
+    public int[] query(Envelope envelope) throws IOException {
+        ShapefileIndex index = getIndex();
+        if (index != null) {
+            return index.query(envelope);
+        }
+        int[] result = new int[64];
+        int count = 0;
+        for (int i = 0; i < numRecords; i++) {
+            if (!intersects(i, envelope)) {
+                continue;
+            }
+            if (count == result.length) {
+                int[] grown = new int[result.length * 2];
+                System.arraycopy(result, 0, grown, 0, count);
+                result = grown;
+            }
+            result[count++] = i;
+        }
+        int[] trimmed = new int[count];
+        System.arraycopy(result, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    /**
+     * Opens the spatial index on first use.
+     */
+    private synchronized ShapefileIndex getIndex() throws IOException {
+        if (!indexOpened) {
+            index = ShapefileIndex.open(this);
+            indexOpened = true;
+        }
+        return index;
+    }
+
+    /**
+     * Decodes the geometry of the given (zero-based) record. Records that
+     * can't be decoded are returned as an empty GeometryCollection, just like
+     * {@link Shapefile#read}; unexpected errors are also logged as warnings.
+     */
+    public Geometry readGeometry(int recordIndex, GeometryFactory geometryFactory) throws IOException {
+        return readGeometry(recordIndex, geometryFactory, handler);
+    }
+
+    /**
+     * Decodes the geometry of the given record using the given ShapeHandler.
+     */
+    Geometry readGeometry(int recordIndex, GeometryFactory geometryFactory, ShapeHandler handler)
+        throws IOException {
+        ByteBuffer record = getRecordBuffer(recordIndex);
+        int contentLength = record.getInt(4);
+        record.position(RECORD_HEADER_LENGTH);
+        try {
+            return handler.read(new EndianDataInputStream(record), geometryFactory, contentLength);
+        } catch (IllegalArgumentException r2d2) {
+            return new GeometryCollection(null, null, -1);
+        } catch (Exception c3p0) {
+            Logger.getLogger(MappedShapefile.class.getName()).log(Level.WARNING,
+                "Error processing record " + (recordIndex + 1), c3p0);
+            return new GeometryCollection(null, null, -1);
+        }
+    }
+
+    /**
+     * Decodes the geometries of the given records on a fork-join pool. The
+     * records are split into chunks that are decoded by separate tasks, each
+     * with its own ShapeHandler. The result is the same as calling
+     * {@link #readGeometry(int, GeometryFactory)} for each record in turn.
+     * @param records the (zero-based) record numbers, or null for all records
+     * @param parallelism the number of threads to use
+     * @return the geometries, in the same order as <code>records</code>
+     */
+    public Geometry[] readGeometries(int[] records, GeometryFactory geometryFactory,
+        int parallelism) throws IOException {
+        if (records == null) {
+            records = new int[numRecords];
+            for (int i = 0; i < numRecords; i++) {
+                records[i] = i;
+            }
+        }
+        Geometry[] geometries = new Geometry[records.length];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new ReadTask(records, geometries, geometryFactory, 0, records.length));
+        } catch (RuntimeException e) {
+            // the pool may wrap the exception thrown by the task once more
+            for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+            }
+            throw e;
+        } finally {
+            pool.shutdown();
+        }
+        return geometries;
+    }
+
+    /**
+     * Decodes <code>records[from..to)</code> into the same positions of
+     * <code>geometries</code>, splitting the range until it fits in a chunk.
+     */
+    private class ReadTask extends RecursiveAction {
+        private int[] records;
+        private Geometry[] geometries;
+        private GeometryFactory geometryFactory;
+        private int from;
+        private int to;
+
+        ReadTask(int[] records, Geometry[] geometries, GeometryFactory geometryFactory,
+            int from, int to) {
+            this.records = records;
+            this.geometries = geometries;
+            this.geometryFactory = geometryFactory;
+            this.from = from;
+            this.to = to;
+        }
+
+        protected void compute() {
+            if (to - from > CHUNK_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ReadTask(records, geometries, geometryFactory, from, middle),
+                    new ReadTask(records, geometries, geometryFactory, middle, to));
+                return;
+            }
+            try {
+                // handlers keep state while reading, so every chunk gets its own
+                ShapeHandler chunkHandler = Shapefile.getShapeHandler(header.getShapeType());
+                for (int i = from; i < to; i++) {
+                    geometries[i] = readGeometry(records[i], geometryFactory, chunkHandler);
+                }
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Returns a big-endian buffer over <code>length</code> bytes of the file at
+     * <code>position</code>, with its own position starting at zero. Uses the
+     * mapped segment if the bytes lie within one, otherwise the bytes are
+     * copied from the file.
+     */
+    private ByteBuffer readBytes(long position, int length) throws IOException {
+        if (position < 0 || position + length > shpLength) {
+            throw new EOFException("Record out of range: " + position + " in " + shpFile);
+        }
+        int segment = (int) (position / SEGMENT_SIZE);
+        int start = (int) (position - segment * SEGMENT_SIZE);
+        if (start + length <= segments[segment].capacity()) {
+            ByteBuffer buffer = segments[segment].duplicate();
+            buffer.limit(start + length);
+            buffer.position(start);
+            return buffer.slice();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (shpChannel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of " + shpFile);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Closes the underlying files. The mapped memory is released once it is
+     * garbage collected.
+     */
+    public void close() throws IOException {
+        shpChannel.close();
+        if (shxChannel != null) {
+            shxChannel.close();
+        }
+        if (index != null) {
+            index.close();
+        }
+    }
+}
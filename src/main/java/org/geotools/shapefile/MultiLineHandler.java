@@ -6,6 +6,7 @@
 package org.geotools.shapefile;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.locationtech.jts.geom.*;
 import org.locationtech.jts.jump.io.EndianDataInputStream;
@@ -77,13 +78,11 @@ public class MultiLineHandler implements ShapeHandler{
         }
         
         LineString lines[] = new LineString[numParts];
-        Coordinate[] coords = new Coordinate[numPoints];
+        double[] xy = new double[2*numPoints];
+        double[] z = null;
         
-        for (int t =0;t<numPoints; t++)
-        {
-            coords[t] = new Coordinate(file.readDoubleLE(),file.readDoubleLE());
-			actualReadWords += 8;
-        }
+        file.readDoublesLE(xy, 0, 2*numPoints);
+        actualReadWords += 8*numPoints;
         
         
         
@@ -93,11 +92,9 @@ public class MultiLineHandler implements ShapeHandler{
              junk =file.readDoubleLE();
 			 actualReadWords += 8;
             
-            for (int t =0;t<numPoints; t++)
-            {
-              coords[t].z =   file.readDoubleLE(); //z value
-		   	  actualReadWords += 4;
-            }
+            z = new double[numPoints];
+            file.readDoublesLE(z, 0, numPoints); //z values
+            actualReadWords += 4*numPoints;
         }
         
         if (myShapeType >=13)
@@ -120,11 +117,8 @@ public class MultiLineHandler implements ShapeHandler{
                  junk =file.readDoubleLE();
 				 actualReadWords += 8;
 
-                for (int t =0;t<numPoints; t++)
-                {
-                     junk =file.readDoubleLE(); //m value
-					 actualReadWords += 4;
-                }
+                file.skipBytes(8 * numPoints); //m values
+                actualReadWords += 4*numPoints;
             }
         }
         
@@ -148,11 +142,8 @@ public class MultiLineHandler implements ShapeHandler{
                 finish=partOffsets[part+1];
             }
             length = finish-start;
-            Coordinate points[] = new Coordinate[length];
-            for(int i=0;i<length;i++){
-                points[i]=coords[offset];
-                offset++;
-            }
+            CoordinateSequence points = ShapeCoordinates.create(geometryFactory, xy, z, offset, offset+length);
+            offset += length;
             lines[part] = geometryFactory.createLineString(points);
             
         }
@@ -192,11 +183,13 @@ public class MultiLineHandler implements ShapeHandler{
         }
         
         coords = multi.getCoordinates();
+        double[] values = new double[2*npoints];
         for(int t=0;t<npoints;t++)
         {
-               file.writeDoubleLE(coords[t].x);
-               file.writeDoubleLE(coords[t].y);
+               values[2*t] = coords[t].x;
+               values[2*t+1] = coords[t].y;
         }
+        file.writeDoublesLE(values, 0, 2*npoints);
         
         if (myShapeType == 13)
         {
@@ -216,10 +209,11 @@ public class MultiLineHandler implements ShapeHandler{
             {
                 double z = coords[t].z;
                 if (Double.isNaN(z))
-                     file.writeDoubleLE(0.0);
+                     values[t] = 0.0;
                 else
-                     file.writeDoubleLE(z);
+                     values[t] = z;
             }
+            file.writeDoublesLE(values, 0, npoints);
         }
         
         if (myShapeType >=13)
@@ -227,10 +221,8 @@ public class MultiLineHandler implements ShapeHandler{
                 //m
             file.writeDoubleLE(-10E40);
             file.writeDoubleLE(-10E40);
-            for(int t=0;t<npoints;t++)
-            {
-                   file.writeDoubleLE(-10E40);
-            }
+            Arrays.fill(values, 0, npoints, -10E40);
+            file.writeDoublesLE(values, 0, npoints);
         }
         
     }
@@ -7,6 +7,7 @@
 package org.geotools.shapefile;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.locationtech.jts.geom.*;
 import org.locationtech.jts.jump.io.EndianDataInputStream;
@@ -57,26 +58,18 @@ public class MultiPointHandler  implements ShapeHandler  {
         int numpoints = file.readIntLE(); 
 		actualReadWords += 2;
 	 
-        Coordinate[] coords = new Coordinate[numpoints];
-        for (int t=0;t<numpoints;t++)
-        {    
-          
-                double x = file.readDoubleLE();
-                double y = file.readDoubleLE();
-				actualReadWords += 8;
-                coords[t] = new Coordinate(x,y);
-        }
+        double[] xy = new double[2*numpoints];
+        double[] z = null;
+        file.readDoublesLE(xy, 0, 2*numpoints);
+        actualReadWords += 8*numpoints;
         if (myShapeType == 18)
         {
             file.readDoubleLE(); //z min/max
             file.readDoubleLE();
 			actualReadWords += 8;
-            for (int t=0;t<numpoints;t++)
-            { 
-                       double z =  file.readDoubleLE();//z
-						actualReadWords += 4;
-                       coords[t].z = z;
-            }
+            z = new double[numpoints];
+            file.readDoublesLE(z, 0, numpoints); //z
+            actualReadWords += 4*numpoints;
         }
         
         
@@ -100,11 +93,8 @@ public class MultiPointHandler  implements ShapeHandler  {
                 file.readDoubleLE(); //m min/max
                 file.readDoubleLE();
 				actualReadWords += 8;
-                for (int t=0;t<numpoints;t++)
-                { 
-                            file.readDoubleLE();//m
-							actualReadWords += 4;
-                }
+                file.skipBytes(8 * numpoints); //m
+                actualReadWords += 4*numpoints;
             }
         }
         
@@ -115,7 +105,7 @@ public class MultiPointHandler  implements ShapeHandler  {
 		  actualReadWords += 1;
 	}
 	
-        return geometryFactory.createMultiPoint(coords);
+        return geometryFactory.createMultiPoint(ShapeCoordinates.create(geometryFactory, xy, z, 0, numpoints));
     }
     
     double[] zMinMax(Geometry g)
@@ -176,12 +166,14 @@ public class MultiPointHandler  implements ShapeHandler  {
         file.writeIntLE(numParts);
         
         
-        for (int t=0;t<mp.getNumGeometries(); t++)
+        double[] values = new double[2*numParts];
+        for (int t=0;t<numParts; t++)
         {
             Coordinate c = (mp.getGeometryN(t)).getCoordinate();
-            file.writeDoubleLE(c.x);
-            file.writeDoubleLE(c.y);            
+            values[2*t] = c.x;
+            values[2*t+1] = c.y;
         }
+        file.writeDoublesLE(values, 0, 2*numParts);
         if (myShapeType == 18)
         {
             double[] zExtreame = zMinMax(mp);
@@ -195,24 +187,23 @@ public class MultiPointHandler  implements ShapeHandler  {
                 file.writeDoubleLE(zExtreame[0]);
                 file.writeDoubleLE(zExtreame[1]);
             }
-            for (int t=0;t<mp.getNumGeometries(); t++)
+            for (int t=0;t<numParts; t++)
             {
                 Coordinate c = (mp.getGeometryN(t)).getCoordinate();
                 double z = c.z;
                 if (Double.isNaN(z))
-                     file.writeDoubleLE(0.0);
+                     values[t] = 0.0;
                 else
-                     file.writeDoubleLE(z);
+                     values[t] = z;
             }
+            file.writeDoublesLE(values, 0, numParts);
         }
         if (myShapeType >= 18)
         {
                 file.writeDoubleLE(-10E40);
                 file.writeDoubleLE(-10E40);
-                 for (int t=0;t<mp.getNumGeometries(); t++)
-                 {   
-                     file.writeDoubleLE(-10E40);
-                 }
+                Arrays.fill(values, 0, numParts, -10E40);
+                file.writeDoublesLE(values, 0, numParts);
         }
     }
     
@@ -59,7 +59,8 @@ public class PointHandler implements ShapeHandler{
 		  actualReadWords += 1;
 	}
         
-        return geometryFactory.createPoint(new Coordinate(x,y,z));
+        double[] zs = (shapeType == 11) ? new double[] {z} : null;
+        return geometryFactory.createPoint(ShapeCoordinates.create(geometryFactory, new double[] {x,y}, zs, 0, 1));
     }
     
     public void write(Geometry geometry,EndianDataOutputStream file)throws IOException{
@@ -3,10 +3,15 @@ package org.geotools.shapefile;
 import java.io.IOException;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.locationtech.jts.algorithm.CGAlgorithms;
+import org.locationtech.jts.algorithm.locate.IndexedPointInAreaLocator;
+import org.locationtech.jts.algorithm.locate.PointOnGeometryLocator;
 
 import org.locationtech.jts.geom.*;
+import org.locationtech.jts.index.strtree.STRtree;
 import org.locationtech.jts.jump.io.EndianDataInputStream;
 import org.locationtech.jts.jump.io.EndianDataOutputStream;
 
@@ -30,26 +35,6 @@ public class PolygonHandler implements ShapeHandler{
             myShapeType = type;
     }
     
-    //returns true if testPoint is a point in the pointList list.
-    boolean pointInList(Coordinate testPoint, Coordinate[] pointList)
-    {
-        int t, numpoints;
-        Coordinate  p;
-        
-        numpoints = Array.getLength( pointList) ;
-        for (t=0;t<numpoints; t++)
-        {
-            p = pointList[t];
-            if ( (testPoint.x == p.x) && (testPoint.y == p.y) &&
-                    ((testPoint.z == p.z) || (!(testPoint.z == testPoint.z))  )  //nan test; x!=x iff x is nan
-                    )
-            {
-                return true;
-            }
-        }
-        return false;
-    }
-    
     public Geometry read( EndianDataInputStream file , GeometryFactory geometryFactory, int contentLength)
     throws IOException, InvalidShapefileException
     {
@@ -95,13 +80,11 @@ public class PolygonHandler implements ShapeHandler{
         //LinearRing[] rings = new LinearRing[numParts];
         ArrayList shells = new ArrayList();
         ArrayList holes = new ArrayList();
-        Coordinate[] coords = new Coordinate[numPoints];
+        double[] xy = new double[2*numPoints];
+        double[] z = null;
         
-        for(int t=0;t<numPoints;t++)
-        {
-            coords[t]= new Coordinate(file.readDoubleLE(),file.readDoubleLE());
-			actualReadWords += 8;
-        }
+        file.readDoublesLE(xy, 0, 2*numPoints);
+        actualReadWords += 8*numPoints;
         
         if (myShapeType == 15)
         {
@@ -109,11 +92,9 @@ public class PolygonHandler implements ShapeHandler{
             file.readDoubleLE();  //zmin
             file.readDoubleLE();  //zmax
 			actualReadWords += 8;
-             for(int t=0;t<numPoints;t++)
-            {
-                coords[t].z = file.readDoubleLE();
-				actualReadWords += 4;
-            }
+            z = new double[numPoints];
+            file.readDoublesLE(z, 0, numPoints);
+            actualReadWords += 4*numPoints;
         }
       
         if (myShapeType >= 15)
@@ -135,11 +116,8 @@ public class PolygonHandler implements ShapeHandler{
                     file.readDoubleLE();  //mmin
                     file.readDoubleLE();  //mmax
 					actualReadWords += 8;
-                    for(int t=0;t<numPoints;t++)
-                    {
-                         file.readDoubleLE();
-					     actualReadWords += 4;
-                    }
+                    file.skipBytes(8 * numPoints); //m values, not used
+                    actualReadWords += 4*numPoints;
             }            
         }
         
@@ -161,13 +139,10 @@ public class PolygonHandler implements ShapeHandler{
                 finish=partOffsets[part+1];
             }
             length = finish-start;
-            Coordinate points[] = new Coordinate[length];
-            for(int i=0;i<length;i++){
-                points[i]=coords[offset];
-                offset++;
-            }
+            CoordinateSequence points = ShapeCoordinates.create(geometryFactory, xy, z, offset, offset+length);
+            offset += length;
             LinearRing ring = geometryFactory.createLinearRing(points);
-            if(cga.isCCW(points)){
+            if(ShapeCoordinates.isCCW(points)){
                 holes.add(ring);
             }
             else{
@@ -182,40 +157,18 @@ public class PolygonHandler implements ShapeHandler{
         }
         
         //find homes
+        ShellIndex shellIndex = new ShellIndex(shells);
         for(int i=0;i<holes.size();i++){
             LinearRing testRing = (LinearRing)holes.get(i);
-            LinearRing minShell = null;
-            Envelope minEnv = null;
-            Envelope testEnv = testRing.getEnvelopeInternal();
-            Coordinate testPt = testRing.getCoordinateN(0);
-            LinearRing tryRing;
-            for(int j=0;j<shells.size();j++){
-                tryRing = (LinearRing) shells.get(j);
-                Envelope tryEnv = tryRing.getEnvelopeInternal();
-                if (minShell != null) minEnv = minShell.getEnvelopeInternal();
-                boolean isContained = false;
-                Coordinate[] coordList = tryRing.getCoordinates() ;
-                
-                if (tryEnv.contains(testEnv)
-                        && (cga.isPointInRing(testPt,coordList ) || (pointInList(testPt, coordList)))
-                   )
-                    isContained = true;
-                // check if this new containing ring is smaller than the current minimum ring
-                if (isContained) {
-                    if (minShell == null
-                    || minEnv.contains(tryEnv)) {
-                        minShell = tryRing;
-                    }
-                }
-            }
+            int minShell = shellIndex.findShell(testRing);
             
-            if (minShell == null)
+            if (minShell == -1)
             {
                 System.out.println("polygon found with a hole thats not inside a shell");
             }
             else
             {
-              ((ArrayList)holesForShells.get(shells.indexOf(minShell))).add(testRing);
+              ((ArrayList)holesForShells.get(minShell)).add(testRing);
             }
         }
         
@@ -302,11 +255,13 @@ public class PolygonHandler implements ShapeHandler{
         Coordinate[] coords = multi.getCoordinates();
         int num;
         num = Array.getLength(coords);
+        double[] values = new double[2*num];
         for(int t=0;t<num;t++)
         {
-            file.writeDoubleLE(coords[t].x);
-            file.writeDoubleLE(coords[t].y);
+            values[2*t] = coords[t].x;
+            values[2*t+1] = coords[t].y;
         }       
+        file.writeDoublesLE(values, 0, 2*num);
         
         if (myShapeType == 15)
         {
@@ -326,10 +281,11 @@ public class PolygonHandler implements ShapeHandler{
             {
                 double z = coords[t].z;
                 if (Double.isNaN(z))
-                     file.writeDoubleLE(0.0);
+                     values[t] = 0.0;
                 else
-                     file.writeDoubleLE(z);
+                     values[t] = z;
             }
+            file.writeDoublesLE(values, 0, npoints);
         }
         
         if (myShapeType >=15)
@@ -337,10 +293,8 @@ public class PolygonHandler implements ShapeHandler{
                 //m
             file.writeDoubleLE(-10E40);
             file.writeDoubleLE(-10E40);
-            for(int t=0;t<npoints;t++)
-            {
-                   file.writeDoubleLE(-10E40);
-            }
+            Arrays.fill(values, 0, npoints, -10E40);
+            file.writeDoublesLE(values, 0, npoints);
         }
     }
     
@@ -348,6 +302,90 @@ public class PolygonHandler implements ShapeHandler{
     public int getShapeType(){
         return myShapeType;
     }
+    
+    /**
+     * Finds the shell a hole belongs to: the smallest shell whose envelope
+     * contains the envelope of the hole and that contains (or touches) the
+     * first point of the hole. Shells are looked up through an STRtree over
+     * their envelopes once there are more than a few, and each shell gets
+     * an IndexedPointInAreaLocator, so polygons with thousands of rings
+     * don't need holes x shells x vertices work.
+     */
+    static class ShellIndex {
+        /** Below this number of shells all of them are simply tested */
+        static final int MIN_INDEXED_SHELLS = 8;
+        
+        private ArrayList shells;
+        private STRtree tree;
+        private PointOnGeometryLocator[] locators;
+        
+        ShellIndex(ArrayList shells) {
+            this.shells = shells;
+            locators = new PointOnGeometryLocator[shells.size()];
+        }
+        
+        /**
+         * Returns the index of the shell the hole belongs to, or -1 if the
+         * hole is not inside any shell.
+         */
+        int findShell(LinearRing hole) {
+            Envelope testEnv = hole.getEnvelopeInternal();
+            Coordinate testPt = hole.getCoordinateN(0);
+            int[] candidates = getCandidates(testEnv);
+            
+            int minShell = -1;
+            Envelope minEnv = null;
+            // candidates are in shell order, so ties between equally sized
+            // shells go the same way as when testing all shells in turn
+            for (int i = 0; i < candidates.length; i++) {
+                int j = candidates[i];
+                LinearRing tryRing = (LinearRing) shells.get(j);
+                Envelope tryEnv = tryRing.getEnvelopeInternal();
+                if (!tryEnv.contains(testEnv)) {
+                    continue;
+                }
+                if (minShell != -1 && !minEnv.contains(tryEnv)) {
+                    continue;
+                }
+                if (getLocator(j).locate(testPt) != Location.EXTERIOR) {
+                    minShell = j;
+                    minEnv = tryEnv;
+                }
+            }
+            return minShell;
+        }
+        
+        private int[] getCandidates(Envelope testEnv) {
+            if (shells.size() < MIN_INDEXED_SHELLS) {
+                int[] all = new int[shells.size()];
+                for (int j = 0; j < all.length; j++) {
+                    all[j] = j;
+                }
+                return all;
+            }
+            if (tree == null) {
+                tree = new STRtree();
+                for (int j = 0; j < shells.size(); j++) {
+                    LinearRing shell = (LinearRing) shells.get(j);
+                    tree.insert(shell.getEnvelopeInternal(), new Integer(j));
+                }
+            }
+            List found = tree.query(testEnv);
+            int[] candidates = new int[found.size()];
+            for (int i = 0; i < candidates.length; i++) {
+                candidates[i] = ((Integer) found.get(i)).intValue();
+            }
+            Arrays.sort(candidates);
+            return candidates;
+        }
+        
+        private PointOnGeometryLocator getLocator(int shell) {
+            if (locators[shell] == null) {
+                locators[shell] = new IndexedPointInAreaLocator((LinearRing) shells.get(shell));
+            }
+            return locators[shell];
+        }
+    }
     public int getLength(Geometry geometry){
         
            MultiPolygon multi;
@@ -0,0 +1,121 @@
+package org.geotools.shapefile;
+
+import org.locationtech.jts.algorithm.CGAlgorithms;
+
+import org.locationtech.jts.geom.*;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
+
+/**
+ * Builds the coordinate sequences of decoded shapes from the x,y (and z)
+ * values as they are read from the file.<p>
+ * If the GeometryFactory uses a {@link PackedCoordinateSequenceFactory} the
+ * values are copied into its <code>double[]</code> directly, without creating
+ * a Coordinate object per vertex. Otherwise Coordinates are created just like
+ * the handlers always did.
+ */
+class ShapeCoordinates {
+
+    private ShapeCoordinates() {
+    }
+
+    /**
+     * Returns whether sequences for this factory are built from packed values.
+     */
+    static boolean isPacked(GeometryFactory geometryFactory) {
+        return geometryFactory.getCoordinateSequenceFactory() instanceof PackedCoordinateSequenceFactory;
+    }
+
+    /**
+     * Creates a sequence of points <code>start</code> (inclusive) to
+     * <code>end</code> (exclusive).
+     * @param xy the x and y of all points, interleaved
+     * @param z the z of all points, or null if the shape has no z
+     */
+    static CoordinateSequence create(GeometryFactory geometryFactory, double[] xy, double[] z,
+        int start, int end) {
+        CoordinateSequenceFactory csf = geometryFactory.getCoordinateSequenceFactory();
+        int length = end - start;
+
+        if (csf instanceof PackedCoordinateSequenceFactory) {
+            int dimension = (z == null) ? 2 : 3;
+            double[] packed;
+            if (z == null) {
+                packed = new double[2 * length];
+                System.arraycopy(xy, 2 * start, packed, 0, 2 * length);
+            } else {
+                packed = new double[3 * length];
+                for (int i = 0; i < length; i++) {
+                    packed[3 * i] = xy[2 * (start + i)];
+                    packed[3 * i + 1] = xy[2 * (start + i) + 1];
+                    packed[3 * i + 2] = z[start + i];
+                }
+            }
+            return ((PackedCoordinateSequenceFactory) csf).create(packed, dimension);
+        }
+
+        Coordinate[] coords = new Coordinate[length];
+        for (int i = 0; i < length; i++) {
+            coords[i] = new Coordinate(xy[2 * (start + i)], xy[2 * (start + i) + 1]);
+            if (z != null) {
+                coords[i].z = z[start + i];
+            }
+        }
+        return csf.create(coords);
+    }
+
+    /**
+     * Tests whether a ring is oriented counter-clockwise, exactly like
+     * {@link CGAlgorithms#isCCW(Coordinate[])} but without turning the
+     * sequence into an array of Coordinates.
+     */
+    static boolean isCCW(CoordinateSequence ring) {
+        // # of points without closing endpoint
+        int nPts = ring.size() - 1;
+        if (nPts < 3) {
+            throw new IllegalArgumentException(
+                "Ring has fewer than 4 points, so orientation cannot be determined");
+        }
+
+        // find highest point
+        int hiIndex = 0;
+        for (int i = 1; i <= nPts; i++) {
+            if (ring.getY(i) > ring.getY(hiIndex)) {
+                hiIndex = i;
+            }
+        }
+
+        // find distinct point before highest point
+        int iPrev = hiIndex;
+        do {
+            iPrev = iPrev - 1;
+            if (iPrev < 0) {
+                iPrev = nPts;
+            }
+        } while (equals2D(ring, iPrev, hiIndex) && iPrev != hiIndex);
+
+        // find distinct point after highest point
+        int iNext = hiIndex;
+        do {
+            iNext = (iNext + 1) % nPts;
+        } while (equals2D(ring, iNext, hiIndex) && iNext != hiIndex);
+
+        if (equals2D(ring, iPrev, hiIndex) || equals2D(ring, iNext, hiIndex) ||
+                equals2D(ring, iPrev, iNext)) {
+            return false;
+        }
+
+        int disc = CGAlgorithms.computeOrientation(ring.getCoordinate(iPrev),
+                ring.getCoordinate(hiIndex), ring.getCoordinate(iNext));
+
+        if (disc == 0) {
+            // poly is CCW if prev x is right of next x
+            return ring.getX(iPrev) > ring.getX(iNext);
+        }
+        // if area is positive, points are ordered CCW
+        return disc > 0;
+    }
+
+    private static boolean equals2D(CoordinateSequence seq, int i, int j) {
+        return seq.getX(i) == seq.getX(j) && seq.getY(i) == seq.getY(j);
+    }
+}
@@ -50,6 +50,9 @@ public class Shapefile  {
     public static final int    MULTIPOINTM = 28;
     public static final int    MULTIPOINTZ = 18;
     public static final int    UNDEFINED = -1;
+    
+    /** bytes of shape type and bounding box at the start of a record's content */
+    static final int RECORD_BOUNDS_LENGTH = 36;
     //Types 2,4,6,7 and 9 were undefined at time or writeing
     
     private URL baseURL;
@@ -114,6 +117,16 @@ public class Shapefile  {
      * @param file A LEDataInputStream that conects to the shapefile to read
      */
     public GeometryCollection read(GeometryFactory geometryFactory) throws IOException,ShapefileException,Exception{
+        return geometryFactory.createGeometryCollection(readGeometries(geometryFactory, null));
+    }
+    
+    /**
+     * Reads the geometries of all records, one array element per record.
+     * If a filter is given, records whose stored bounding box does not
+     * intersect it are skipped without being decoded and their element is null.
+     * @param filter the envelope to keep records for, or null to read all records
+     */
+    public Geometry[] readGeometries(GeometryFactory geometryFactory, Envelope filter) throws IOException,ShapefileException,Exception{
        EndianDataInputStream file = getInputStream();
         if(file==null) throw new IOException("Failed connection or no content for "+baseURL);
         ShapefileHeader mainHeader = new ShapefileHeader(file);
@@ -133,6 +146,17 @@ public class Shapefile  {
                // file.setLittleEndianMode(false);
                 recordNumber=file.readIntBE();
                 contentLength=file.readIntBE();
+                if (filter != null) {
+                    file.mark(RECORD_BOUNDS_LENGTH);
+                    int boundsLength = readBoundsAndTest(file, filter);
+                    if (boundsLength >= 0) {
+                        // no intersection, seek past the rest of the record
+                        file.skipBytes(2*contentLength - boundsLength);
+                        list.add(null);
+                        continue;
+                    }
+                    file.reset();
+                }
                 try{
                     body = handler.read(file,geometryFactory,contentLength); 
                     list.add(body);
@@ -151,7 +175,45 @@ public class Shapefile  {
         }catch(EOFException e){
             
         }
-        return geometryFactory.createGeometryCollection((Geometry[])list.toArray(new Geometry[]{}));
+        return (Geometry[])list.toArray(new Geometry[list.size()]);
+    }
+    
+    /**
+     * Reads the shape type and the bounding box at the start of a record's
+     * content and tests it against the filter. For points the bounding box is
+     * the point itself; null shapes never pass the filter.
+     * @return -1 if the record intersects the filter, otherwise the number of
+     *      bytes that were read
+     */
+    static int readBoundsAndTest(EndianDataInputStream file, Envelope filter) throws IOException {
+        int shapeType = file.readIntLE();
+        switch (shapeType) {
+            case NULL:
+                return 4;
+            case POINT:
+            case POINTZ:
+            case POINTM:
+                double x = file.readDoubleLE();
+                double y = file.readDoubleLE();
+                return intersects(filter, x, y, x, y) ? -1 : 20;
+            default:
+                double minx = file.readDoubleLE();
+                double miny = file.readDoubleLE();
+                double maxx = file.readDoubleLE();
+                double maxy = file.readDoubleLE();
+                return intersects(filter, minx, miny, maxx, maxy) ? -1 : RECORD_BOUNDS_LENGTH;
+        }
+    }
+    
+    /**
+     * Same as Envelope#intersects(Envelope), without creating an Envelope.
+     */
+    static boolean intersects(Envelope filter, double minx, double miny, double maxx, double maxy) {
+        if (filter.isNull()) {
+            return false;
+        }
+        return !(minx > filter.getMaxX() || maxx < filter.getMinX()
+                || miny > filter.getMaxY() || maxy < filter.getMinY());
     }
     
     /**
@@ -184,12 +246,13 @@ public class Shapefile  {
         for(int i=0;i<numShapes;i++){
             body = geometries.getGeometryN(i);
             //file.setLittleEndianMode(false);
+            int length = handler.getLength(body);
             file.writeIntBE(i+1);
-            file.writeIntBE(handler.getLength(body));
+            file.writeIntBE(length);
             // file.setLittleEndianMode(true);
             pos+=4; // length of header in WORDS
             handler.write(body,file);
-            pos+=handler.getLength(body); // length of shape in WORDS
+            pos+=length; // length of shape in WORDS
         }
         file.flush();
         file.close();
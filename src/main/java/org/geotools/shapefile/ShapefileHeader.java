@@ -44,10 +44,12 @@ public class ShapefileHeader{
         version=file.readIntLE();
         shapeType=file.readIntLE();
        
-        //read in and for now ignore the bounding box
-        for(int i = 0;i<4;i++){
-            file.readDoubleLE();
-        }
+        //bounding box, stored as xmin, ymin, xmax, ymax
+        double minx = file.readDoubleLE();
+        double miny = file.readDoubleLE();
+        double maxx = file.readDoubleLE();
+        double maxy = file.readDoubleLE();
+        bounds = new Envelope(minx, maxx, miny, maxy);
         
         //skip remaining unused bytes
        // file.setLittleEndianMode(false);//well they may not be unused forever...
@@ -79,6 +81,22 @@ public class ShapefileHeader{
         indexLength = 50+(4*numShapes);
     }
     
+    /**
+     * Creates a header for a file whose contents are already known, e.g. to
+     * rewrite the header once all records have been written.
+     * @param fileLength the length of the .shp file in 16 bit words
+     * @param indexLength the length of the .shx file in 16 bit words
+     */
+    public ShapefileHeader(int shapeType, Envelope bounds, int fileLength, int indexLength)
+    {
+        this.shapeType = shapeType;
+        this.bounds = bounds;
+        this.fileLength = fileLength;
+        this.indexLength = indexLength;
+        version = Shapefile.VERSION;
+        fileCode = Shapefile.SHAPEFILE_ID;
+    }
+
     public void setFileLength(int fileLength){
         this.fileLength = fileLength;
     }
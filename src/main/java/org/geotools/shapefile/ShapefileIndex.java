@@ -0,0 +1,331 @@
+package org.geotools.shapefile;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.locationtech.jts.geom.Envelope;
+
+/**
+ * A packed R-tree over the bounding boxes of the records of a Shapefile,
+ * stored in a file beside it (<code>hills.shp</code> -> <code>hills.rtx</code>).
+ * The tree is built once with {@link #write} (or by running this class with
+ * the .shp files as arguments) and from then on {@link MappedShapefile#query}
+ * uses it to find the records in an envelope without reading every record
+ * header.<p>
+ * The tree is bulk loaded with the Sort-Tile-Recursive algorithm. The file
+ * is a header followed by the entries of each level of the tree, starting
+ * with the leaves:
+ * <pre>
+ *   int    magic
+ *   int    node capacity
+ *   long   length of the .shp file
+ *   int    number of records in the .shp file
+ *   int    number of leaf entries (records that are not null shapes)
+ *   int    number of levels
+ *   int    unused
+ *   entries of 36 bytes: double minx, miny, maxx, maxy; int child
+ * </pre>
+ * All values are big-endian. For a leaf <code>child</code> is the
+ * (zero-based) record number; the children of the n'th entry of a level are
+ * entries <code>n*capacity</code> up to <code>(n+1)*capacity</code> of the
+ * level below it.<p>
+ * An index file is ignored if the .shp file has changed since it was built.
+ */
+public class ShapefileIndex {
+
+    public static final String EXTENSION = ".rtx";
+
+    static final int MAGIC = 0x52545831; // "RTX1"
+    static final int HEADER_LENGTH = 32; // bytes
+    static final int ENTRY_LENGTH = 36; // bytes
+    static final int DEFAULT_NODE_CAPACITY = 16;
+
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private int nodeCapacity;
+    private int[] levelStarts; // position of the first entry of each level, leaves first
+    private int[] levelSizes;
+
+    private ShapefileIndex(FileChannel channel, ByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+        nodeCapacity = buffer.getInt(4);
+        int numLevels = buffer.getInt(24);
+        levelStarts = new int[numLevels];
+        levelSizes = new int[numLevels];
+        int start = HEADER_LENGTH;
+        int size = buffer.getInt(20);
+        for (int level = 0; level < numLevels; level++) {
+            levelStarts[level] = start;
+            levelSizes[level] = size;
+            start += size * ENTRY_LENGTH;
+            size = (size + nodeCapacity - 1) / nodeCapacity;
+        }
+    }
+
+    /**
+     * Returns the index file that belongs to the given .shp file, which need
+     * not exist.
+     */
+    public static File getIndexFile(File shpFile) {
+        String name = shpFile.getName();
+        int loc = name.lastIndexOf('.');
+        String base = loc == -1 ? name : name.substring(0, loc);
+        return new File(shpFile.getParentFile(), base + EXTENSION);
+    }
+
+    /**
+     * Opens the index file of the Shapefile.
+     * @return the index, or null if there is no index file or it does not
+     *      match the current contents of the .shp file
+     */
+    public static ShapefileIndex open(MappedShapefile shapefile) throws IOException {
+        File indexFile = getIndexFile(shapefile.getFile());
+        if (!indexFile.exists() || indexFile.lastModified() < shapefile.getFile().lastModified()) {
+            return null;
+        }
+        FileChannel channel = new RandomAccessFile(indexFile, "r").getChannel();
+        try {
+            if (channel.size() < HEADER_LENGTH) {
+                channel.close();
+                return null;
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getLong(8) != shapefile.getLength()
+                    || buffer.getInt(16) != shapefile.getNumRecords()) {
+                Logger.getLogger(ShapefileIndex.class.getName()).log(Level.FINE,
+                    "Ignoring out of date spatial index {0}", indexFile);
+                channel.close();
+                return null;
+            }
+            return new ShapefileIndex(channel, buffer);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Builds the index of the Shapefile and writes it to its index file.
+     */
+    public static void write(MappedShapefile shapefile) throws IOException {
+        write(shapefile, DEFAULT_NODE_CAPACITY);
+    }
+
+    /**
+     * Builds the index of the Shapefile, with at most
+     * <code>nodeCapacity</code> children per node, and writes it to its
+     * index file.
+     */
+    public static void write(MappedShapefile shapefile, int nodeCapacity) throws IOException {
+        if (nodeCapacity < 2) {
+            throw new IllegalArgumentException("Node capacity must be at least 2");
+        }
+
+        // the leaves: one entry per record that has a bounding box
+        int numRecords = shapefile.getNumRecords();
+        double[] bounds = new double[4 * numRecords];
+        int[] records = new int[numRecords];
+        double[] record = new double[4];
+        int numEntries = 0;
+        for (int i = 0; i < numRecords; i++) {
+            if (shapefile.readRecordBounds(i, record)) {
+                System.arraycopy(record, 0, bounds, 4 * numEntries, 4);
+                records[numEntries++] = i;
+            }
+        }
+
+        Integer[] order = sortTileRecursive(bounds, numEntries, nodeCapacity);
+
+        long fileLength = HEADER_LENGTH;
+        int numLevels = 0;
+        for (int size = numEntries; ; size = (size + nodeCapacity - 1) / nodeCapacity) {
+            fileLength += (long) size * ENTRY_LENGTH;
+            numLevels++;
+            if (size <= 1) {
+                break;
+            }
+        }
+        if (fileLength > Integer.MAX_VALUE) {
+            throw new IOException("Too many records for a spatial index: " + numEntries);
+        }
+
+        File indexFile = getIndexFile(shapefile.getFile());
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(indexFile)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(nodeCapacity);
+            out.writeLong(shapefile.getLength());
+            out.writeInt(numRecords);
+            out.writeInt(numEntries);
+            out.writeInt(numLevels);
+            out.writeInt(0);
+
+            // leaves in STR order, then each level of nodes over the one below it
+            double[] level = new double[4 * numEntries];
+            for (int i = 0; i < numEntries; i++) {
+                int entry = order[i].intValue();
+                System.arraycopy(bounds, 4 * entry, level, 4 * i, 4);
+                writeEntry(out, level, i, records[entry]);
+            }
+            int size = numEntries;
+            while (size > 1) {
+                int parents = (size + nodeCapacity - 1) / nodeCapacity;
+                double[] upper = new double[4 * parents];
+                for (int p = 0; p < parents; p++) {
+                    int first = p * nodeCapacity;
+                    int last = Math.min(first + nodeCapacity, size);
+                    System.arraycopy(level, 4 * first, upper, 4 * p, 4);
+                    for (int c = first + 1; c < last; c++) {
+                        upper[4 * p] = Math.min(upper[4 * p], level[4 * c]);
+                        upper[4 * p + 1] = Math.min(upper[4 * p + 1], level[4 * c + 1]);
+                        upper[4 * p + 2] = Math.max(upper[4 * p + 2], level[4 * c + 2]);
+                        upper[4 * p + 3] = Math.max(upper[4 * p + 3], level[4 * c + 3]);
+                    }
+                    writeEntry(out, upper, p, first);
+                }
+                level = upper;
+                size = parents;
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void writeEntry(DataOutputStream out, double[] bounds, int entry, int child)
+        throws IOException {
+        for (int j = 0; j < 4; j++) {
+            out.writeDouble(bounds[4 * entry + j]);
+        }
+        out.writeInt(child);
+    }
+
+    /**
+     * Returns the order in which the entries are stored in the leaves: sorted
+     * on the x of their centres, cut in vertical slices of whole nodes, and
+     * each slice sorted on the y of the centres.
+     */
+    private static Integer[] sortTileRecursive(final double[] bounds, int numEntries,
+        int nodeCapacity) {
+        Integer[] order = new Integer[numEntries];
+        for (int i = 0; i < numEntries; i++) {
+            order[i] = Integer.valueOf(i);
+        }
+        Arrays.sort(order, new CentreComparator(bounds, 0));
+
+        int numNodes = (numEntries + nodeCapacity - 1) / nodeCapacity;
+        int numSlices = (int) Math.ceil(Math.sqrt(numNodes));
+        int sliceSize = Math.max(1, (numNodes + numSlices - 1) / numSlices) * nodeCapacity;
+        Comparator byY = new CentreComparator(bounds, 1);
+        for (int start = 0; start < numEntries; start += sliceSize) {
+            Arrays.sort(order, start, Math.min(start + sliceSize, numEntries), byY);
+        }
+        return order;
+    }
+
+    private static class CentreComparator implements Comparator {
+        private double[] bounds;
+        private int axis; // 0 for x, 1 for y
+
+        CentreComparator(double[] bounds, int axis) {
+            this.bounds = bounds;
+            this.axis = axis;
+        }
+
+        public int compare(Object o1, Object o2) {
+            int e1 = 4 * ((Integer) o1).intValue() + axis;
+            int e2 = 4 * ((Integer) o2).intValue() + axis;
+            return Double.compare(bounds[e1] + bounds[e1 + 2], bounds[e2] + bounds[e2 + 2]);
+        }
+    }
+
+    /**
+     * Returns the (zero-based) indexes, in file order, of the records whose
+     * bounding box intersects the envelope. The result is the same as testing
+     * every record with {@link MappedShapefile#intersects}.
+     */
+    public int[] query(Envelope envelope) {
+        if (levelSizes[0] == 0 || envelope.isNull()) {
+            return new int[0];
+        }
+        int[] result = new int[64];
+        int count = 0;
+
+        // the entries still to visit, as pairs of level and entry number
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = levelStarts.length - 1;
+        stack[top++] = 0;
+        while (top > 0) {
+            int entry = stack[--top];
+            int level = stack[--top];
+            int pos = levelStarts[level] + entry * ENTRY_LENGTH;
+            if (!Shapefile.intersects(envelope, buffer.getDouble(pos), buffer.getDouble(pos + 8),
+                    buffer.getDouble(pos + 16), buffer.getDouble(pos + 24))) {
+                continue;
+            }
+            int child = buffer.getInt(pos + 32);
+            if (level == 0) {
+                if (count == result.length) {
+                    result = grow(result);
+                }
+                result[count++] = child;
+                continue;
+            }
+            int last = Math.min(child + nodeCapacity, levelSizes[level - 1]);
+            for (int c = child; c < last; c++) {
+                if (top + 2 > stack.length) {
+                    stack = grow(stack);
+                }
+                stack[top++] = level - 1;
+                stack[top++] = c;
+            }
+        }
+
+        int[] trimmed = new int[count];
+        System.arraycopy(result, 0, trimmed, 0, count);
+        Arrays.sort(trimmed);
+        return trimmed;
+    }
+
+    private static int[] grow(int[] array) {
+        int[] grown = new int[array.length * 2];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+
+    /**
+     * Closes the index file. The mapped memory is released once it is
+     * garbage collected.
+     */
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Builds the index files of the .shp files given as arguments.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: ShapefileIndex file.shp ...");
+            System.exit(1);
+        }
+        for (int i = 0; i < args.length; i++) {
+            File shpFile = new File(args[i]);
+            MappedShapefile shapefile = new MappedShapefile(shpFile);
+            try {
+                write(shapefile);
+            } finally {
+                shapefile.close();
+            }
+            System.out.println("Wrote " + getIndexFile(shpFile) + " for " +
+                shapefile.getNumRecords() + " records");
+        }
+    }
+}
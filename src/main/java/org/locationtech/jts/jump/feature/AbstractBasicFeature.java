@@ -30,6 +30,10 @@
  * www.vividsolutions.com
  */
 package org.locationtech.jts.jump.feature;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 
 import org.locationtech.jts.geom.Geometry;
@@ -41,8 +45,14 @@ import org.locationtech.jts.util.Assert;
  */
 public abstract class AbstractBasicFeature implements Feature, Serializable {
     private static final long serialVersionUID = 4215477286292970800L;
+    //The ID used to be an int named "id". It is written under another name,
+    //so that Features serialized before it became a long can still be read.
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("schema", FeatureSchema.class),
+        new ObjectStreamField("longID", long.class)
+    };
     private FeatureSchema schema;
-    private int id;
+    private long id;
     /**
      * A low-level accessor that is not normally used.
      */
@@ -59,12 +69,30 @@ public abstract class AbstractBasicFeature implements Feature, Serializable {
         id = FeatureUtil.nextID();
         this.schema = featureSchema;
     }
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("schema", schema);
+        fields.put("longID", id);
+        out.writeFields();
+    }
+    private void readObject(ObjectInputStream in)
+        throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        schema = (FeatureSchema) fields.get("schema", null);
+        if (!fields.defaulted("longID")) {
+            id = fields.get("longID", 0L);
+        } else if (fields.getObjectStreamClass().getField("id") != null) {
+            id = fields.get("id", 0);
+        } else {
+            id = FeatureUtil.nextID();
+        }
+    }
     /**
      * Returns a number that uniquely identifies this feature. This number is not
      * persistent.
      * @return n, where this feature is the nth Feature created by this application
      */
-    public int getID() {
+    public long getID() {
         return id;
     }
     /**
@@ -207,7 +235,7 @@ public abstract class AbstractBasicFeature implements Feature, Serializable {
         if (geometryComparison != 0) { return geometryComparison; }
         if (a == b) { return 0; }
         //The features do not refer to the same object, so try to return something consistent. [Jon Aquino]
-        if (a.getID() != ((Feature) b).getID()) { return a.getID() - ((Feature) b).getID(); }
+        if (a.getID() != ((Feature) b).getID()) { return a.getID() < ((Feature) b).getID() ? -1 : 1; }
         //The ID is hosed. Last gasp: hope the hash codes are different. [Jon Aquino]
         if (a.hashCode() != b.hashCode()) { return a.hashCode() - b.hashCode(); }
         Assert.shouldNeverReachHere();
@@ -0,0 +1,135 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+package org.locationtech.jts.jump.feature;
+
+import java.io.Serializable;
+
+
+/**
+ * Reads the attribute with a given name from many Features. The name is
+ * looked up in the FeatureSchema once, rather than for every Feature as
+ * Feature#getAttribute(String) does; after that each access is by index.
+ * The index is looked up again when a Feature with another FeatureSchema
+ * comes along.
+ * <p>
+ * An AttributeAccessor may be used by several threads at once.</p>
+ */
+public class AttributeAccessor implements Serializable {
+    private static final long serialVersionUID = 3187240765317712894L;
+    private String attributeName;
+    private transient volatile Resolution resolution = null;
+
+    /**
+     * Creates an AttributeAccessor for the attribute with the given
+     * (case-sensitive) name.
+     */
+    public AttributeAccessor(String attributeName) {
+        this.attributeName = attributeName;
+    }
+
+    public String getAttributeName() {
+        return attributeName;
+    }
+
+    /**
+     * Returns the index of the attribute in the given schema, or -1 if the
+     * schema has no attribute with this name.
+     */
+    public int getIndex(FeatureSchema schema) {
+        Resolution resolution = this.resolution;
+
+        if ((resolution == null) || (resolution.schema != schema) ||
+                (resolution.attributeCount != schema.getAttributeCount())) {
+            resolution = new Resolution(schema,
+                    schema.hasAttribute(attributeName)
+                    ? schema.getAttributeIndex(attributeName) : (-1));
+            this.resolution = resolution;
+        }
+
+        return resolution.index;
+    }
+
+    /**
+     * Returns whether the Feature has an attribute with this name.
+     */
+    public boolean hasAttribute(Feature feature) {
+        return getIndex(feature.getSchema()) != -1;
+    }
+
+    /**
+     * Returns the attribute of the Feature.
+     * @throws IllegalArgumentException if the Feature has no attribute with
+     *      this name
+     */
+    public Object getAttribute(Feature feature) {
+        return feature.getAttribute(checkedIndex(feature));
+    }
+
+    /**
+     * Returns the attribute of the Feature, which must be a Double.
+     * @throws IllegalArgumentException if the Feature has no attribute with
+     *      this name
+     */
+    public double getDouble(Feature feature) {
+        return feature.getDouble(checkedIndex(feature));
+    }
+
+    private int checkedIndex(Feature feature) {
+        int index = getIndex(feature.getSchema());
+
+        if (index == -1) {
+            throw new IllegalArgumentException("Unrecognized attribute name: " +
+                attributeName);
+        }
+
+        return index;
+    }
+
+    /**
+     * A schema and the index of the attribute in it, replaced as a whole so
+     * that threads never see the index of one schema with another schema.
+     * The attribute count is kept because attributes can be added to a
+     * schema.
+     */
+    private static class Resolution {
+        private FeatureSchema schema;
+        private int attributeCount;
+        private int index;
+
+        Resolution(FeatureSchema schema, int index) {
+            this.schema = schema;
+            this.attributeCount = schema.getAttributeCount();
+            this.index = index;
+        }
+    }
+}
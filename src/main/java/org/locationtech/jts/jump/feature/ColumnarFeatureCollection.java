@@ -0,0 +1,1060 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+package org.locationtech.jts.jump.feature;
+
+import java.io.Serializable;
+import java.util.*;
+
+import org.locationtech.jts.geom.*;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
+
+
+/**
+ * A FeatureCollection for very large layers that are only read, which stores
+ * each attribute as a column instead of one object per Feature: INTEGER,
+ * DOUBLE and DATE attributes in primitive arrays, STRING attributes as codes
+ * into a dictionary of distinct values, and the geometries as one array of
+ * coordinates plus offsets. The bounding box of each Feature is kept too, so
+ * #query only has to loop over an array of doubles.
+ * <p>
+ * Features are copied in when they are added; they cannot be removed or
+ * modified afterwards (an UnsupportedOperationException is thrown). The
+ * Features returned by #getFeatures, #iterator and #query are lightweight
+ * views of a row, created as they are asked for. Two views of the same row
+ * are equal and have the same ID. #clone returns a modifiable BasicFeature.</p>
+ * <p>
+ * The Geometries are rebuilt with the GeometryFactory of the collection, so
+ * their SRID and user data are not kept. The attribute values of a single row
+ * can also be read without creating a Feature, e.g. with #getDouble.</p>
+ */
+public class ColumnarFeatureCollection implements FeatureCollection, Serializable {
+    private static final long serialVersionUID = -6829167201482765193L;
+
+    //Rows get their IDs in blocks of this many (a power of two)
+    private static final int ID_BLOCK_SIZE = 4096;
+
+    //Kinds of shapes, see #writeShape
+    private static final int NULL = 0;
+    private static final int POINT = 1;
+    private static final int LINESTRING = 2;
+    private static final int LINEARRING = 3;
+    private static final int POLYGON = 4;
+    private static final int MULTIPOINT = 5;
+    private static final int MULTILINESTRING = 6;
+    private static final int MULTIPOLYGON = 7;
+    private static final int GEOMETRYCOLLECTION = 8;
+
+    private FeatureSchema featureSchema;
+    private GeometryFactory geometryFactory;
+    private int size = 0;
+    private int capacity = 0;
+
+    //One per attribute; null for the geometry
+    private Column[] columns;
+
+    //Values that don't fit the column of their attribute, e.g. a String in
+    //an INTEGER attribute: Long(row * attribute count + index) -> value.
+    //Null until there is one.
+    private HashMap mismatches = null;
+
+    //The geometries: for each row, the start of its shape (see #writeShape)
+    //and of its coordinates; x and y interleaved, and z only once a
+    //coordinate with a z has been added
+    private int[] shapes = new int[0];
+    private int shapesSize = 0;
+    private int[] shapeStarts = new int[0];
+    private double[] xy = new double[0];
+    private double[] z = null;
+    private int coordinateCount = 0;
+    private int[] coordinateStarts = new int[0];
+
+    //minx, miny, maxx, maxy of each row; minx > maxx for an empty geometry
+    private double[] bounds = new double[0];
+    private Envelope envelope = new Envelope();
+
+    private long[] idBlocks = new long[0];
+
+    /**
+     * Creates an empty ColumnarFeatureCollection, whose Geometries use
+     * packed coordinate sequences.
+     * @param featureSchema the types of the attributes of the features in this collection
+     */
+    public ColumnarFeatureCollection(FeatureSchema featureSchema) {
+        this(featureSchema, new GeometryFactory(PackedCoordinateSequenceFactory.DOUBLE_FACTORY));
+    }
+
+    /**
+     * Creates an empty ColumnarFeatureCollection.
+     * @param featureSchema the types of the attributes of the features in this collection
+     * @param geometryFactory creates the Geometries of the Features
+     */
+    public ColumnarFeatureCollection(FeatureSchema featureSchema,
+        GeometryFactory geometryFactory) {
+        this.featureSchema = featureSchema;
+        this.geometryFactory = geometryFactory;
+        columns = new Column[featureSchema.getAttributeCount()];
+
+        for (int i = 0; i < columns.length; i++) {
+            AttributeType type = featureSchema.getAttributeType(i);
+
+            if (type == AttributeType.GEOMETRY) {
+                continue;
+            } else if (type == AttributeType.INTEGER) {
+                columns[i] = new IntegerColumn();
+            } else if (type == AttributeType.DOUBLE) {
+                columns[i] = new DoubleColumn();
+            } else if (type == AttributeType.DATE) {
+                columns[i] = new DateColumn();
+            } else if (type == AttributeType.STRING) {
+                columns[i] = new StringColumn();
+            } else {
+                columns[i] = new ObjectColumn();
+            }
+        }
+    }
+
+    /**
+     * Creates a ColumnarFeatureCollection with a copy of the Features of the
+     * given FeatureCollection.
+     */
+    public ColumnarFeatureCollection(FeatureCollection featureCollection) {
+        this(featureCollection.getFeatureSchema());
+        ensureCapacity(featureCollection.size());
+        addAll(featureCollection.getFeatures());
+        trimToSize();
+    }
+
+    public FeatureSchema getFeatureSchema() {
+        return featureSchema;
+    }
+
+    public Envelope getEnvelope() {
+        return envelope;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns a view of the Feature at the given index (zero-based).
+     */
+    public Feature getFeature(int index) {
+        if ((index < 0) || (index >= size)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        return new Row(index);
+    }
+
+    public List getFeatures() {
+        return new FeatureList();
+    }
+
+    public Iterator iterator() {
+        return getFeatures().iterator();
+    }
+
+    /**
+     *@return    a List containing the features whose envelopes intersect the
+     *      given envelope
+     */
+    public List query(Envelope envelope) {
+        ArrayList queryResult = new ArrayList();
+
+        if (!envelope.intersects(this.envelope)) {
+            return queryResult;
+        }
+
+        double minX = envelope.getMinX();
+        double minY = envelope.getMinY();
+        double maxX = envelope.getMaxX();
+        double maxY = envelope.getMaxY();
+
+        for (int row = 0, i = 0; row < size; row++, i += 4) {
+            if ((bounds[i] <= bounds[i + 2]) && (bounds[i] <= maxX) &&
+                    (bounds[i + 2] >= minX) && (bounds[i + 1] <= maxY) &&
+                    (bounds[i + 3] >= minY)) {
+                queryResult.add(new Row(row));
+            }
+        }
+
+        return queryResult;
+    }
+
+    /**
+     * Adds a copy of the Feature to the end of this collection.
+     */
+    public void add(Feature feature) {
+        ensureCapacity(size + 1);
+
+        int row = size;
+
+        if ((row % ID_BLOCK_SIZE) == 0) {
+            long[] grown = new long[idBlocks.length + 1];
+            System.arraycopy(idBlocks, 0, grown, 0, idBlocks.length);
+            grown[idBlocks.length] = FeatureUtil.nextIDs(ID_BLOCK_SIZE);
+            idBlocks = grown;
+        }
+
+        //The mismatches are only recorded once the whole row is written, so
+        //that a failure part-way does not leave them to the next row added
+        HashMap rowMismatches = null;
+
+        for (int i = 0; i < columns.length; i++) {
+            Object value = feature.getAttribute(i);
+
+            if (columns[i] == null) {
+                writeGeometry(row, (Geometry) value);
+            } else if (!columns[i].set(row, value)) {
+                columns[i].set(row, null);
+
+                if (rowMismatches == null) {
+                    rowMismatches = new HashMap();
+                }
+
+                rowMismatches.put(new Long(((long) row * columns.length) + i), value);
+            }
+        }
+
+        if (rowMismatches != null) {
+            if (mismatches == null) {
+                mismatches = new HashMap();
+            }
+
+            mismatches.putAll(rowMismatches);
+        }
+
+        size++;
+    }
+
+    public void addAll(Collection features) {
+        ensureCapacity(size + features.size());
+
+        for (Iterator i = features.iterator(); i.hasNext();) {
+            add((Feature) i.next());
+        }
+    }
+
+    public void addAll(Collection features, int sizeHint) {
+        ensureCapacity(sizeHint);
+        addAll(features);
+    }
+
+    public void remove(Feature feature) {
+        throw new UnsupportedOperationException(
+            "Features cannot be removed from a ColumnarFeatureCollection");
+    }
+
+    public void removeAll(Collection features) {
+        throw new UnsupportedOperationException(
+            "Features cannot be removed from a ColumnarFeatureCollection");
+    }
+
+    public Collection remove(Envelope env) {
+        throw new UnsupportedOperationException(
+            "Features cannot be removed from a ColumnarFeatureCollection");
+    }
+
+    public void clear() {
+        throw new UnsupportedOperationException(
+            "Features cannot be removed from a ColumnarFeatureCollection");
+    }
+
+    /**
+     * Returns the value of an attribute of a row, as the Feature at that row
+     * would.
+     */
+    public Object getAttribute(int row, int attributeIndex) {
+        checkRow(row);
+
+        if (columns[attributeIndex] == null) {
+            return getGeometry(row);
+        }
+
+        if (mismatches != null) {
+            Object mismatch = mismatches.get(new Long(((long) row * columns.length) +
+                        attributeIndex));
+
+            if (mismatch != null) {
+                return mismatch;
+            }
+        }
+
+        return columns[attributeIndex].get(row);
+    }
+
+    /**
+     * Returns whether an attribute of a row is null, without boxing the
+     * value of a numeric attribute.
+     */
+    public boolean isNull(int row, int attributeIndex) {
+        checkRow(row);
+
+        if (columns[attributeIndex] instanceof PrimitiveColumn && (mismatches == null)) {
+            return ((PrimitiveColumn) columns[attributeIndex]).isNull(row);
+        }
+
+        return getAttribute(row, attributeIndex) == null;
+    }
+
+    /**
+     * Returns a double attribute of a row. For a DOUBLE attribute the value
+     * is read straight from its column, so looping over the rows with this
+     * method is much faster than reading the attribute of each Feature.
+     */
+    public double getDouble(int row, int attributeIndex) {
+        checkRow(row);
+
+        if (columns[attributeIndex] instanceof DoubleColumn && (mismatches == null)) {
+            DoubleColumn column = (DoubleColumn) columns[attributeIndex];
+
+            if (!column.isNull(row)) {
+                return column.values[row];
+            }
+        }
+
+        return ((Double) getAttribute(row, attributeIndex)).doubleValue();
+    }
+
+    /**
+     * Returns an integer attribute of a row, reading an INTEGER attribute
+     * straight from its column.
+     */
+    public int getInteger(int row, int attributeIndex) {
+        checkRow(row);
+
+        if (columns[attributeIndex] instanceof IntegerColumn && (mismatches == null)) {
+            IntegerColumn column = (IntegerColumn) columns[attributeIndex];
+
+            if (!column.isNull(row)) {
+                return column.values[row];
+            }
+        }
+
+        return ((Integer) getAttribute(row, attributeIndex)).intValue();
+    }
+
+    /**
+     * Builds the Geometry of a row.
+     */
+    public Geometry getGeometry(int row) {
+        checkRow(row);
+
+        int[] cursor = new int[] { shapeStarts[row], coordinateStarts[row] };
+
+        return readShape(cursor);
+    }
+
+    /**
+     * Returns the ID of the Feature at a row.
+     */
+    public long getID(int row) {
+        return idBlocks[row / ID_BLOCK_SIZE] + (row % ID_BLOCK_SIZE);
+    }
+
+    /**
+     * Releases the memory that was reserved for Features that were not added.
+     * Call this method when all Features have been added.
+     */
+    public void trimToSize() {
+        setCapacity(size);
+        shapes = copyOf(shapes, shapesSize);
+        xy = copyOf(xy, 2 * coordinateCount);
+
+        if (z != null) {
+            z = copyOf(z, coordinateCount);
+        }
+    }
+
+    /**
+     * Reserves memory for the given number of Features.
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > capacity) {
+            setCapacity(Math.max(minCapacity, Math.max(16, capacity + (capacity >> 1))));
+        }
+    }
+
+    private void setCapacity(int newCapacity) {
+        shapeStarts = copyOf(shapeStarts, newCapacity);
+        coordinateStarts = copyOf(coordinateStarts, newCapacity);
+        bounds = copyOf(bounds, 4 * newCapacity);
+
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] != null) {
+                columns[i].setCapacity(newCapacity);
+            }
+        }
+
+        capacity = newCapacity;
+    }
+
+    private void checkRow(int row) {
+        if ((row < 0) || (row >= size)) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+        }
+    }
+
+    private void writeGeometry(int row, Geometry geometry) {
+        shapeStarts[row] = shapesSize;
+        coordinateStarts[row] = coordinateCount;
+        writeShape(geometry);
+
+        Envelope rowEnvelope = (geometry == null) ? new Envelope()
+                                                  : geometry.getEnvelopeInternal();
+
+        if (rowEnvelope.isNull()) {
+            bounds[4 * row] = 0;
+            bounds[(4 * row) + 1] = 0;
+            bounds[(4 * row) + 2] = -1;
+            bounds[(4 * row) + 3] = -1;
+        } else {
+            bounds[4 * row] = rowEnvelope.getMinX();
+            bounds[(4 * row) + 1] = rowEnvelope.getMinY();
+            bounds[(4 * row) + 2] = rowEnvelope.getMaxX();
+            bounds[(4 * row) + 3] = rowEnvelope.getMaxY();
+            envelope.expandToInclude(rowEnvelope);
+        }
+    }
+
+    /**
+     * Appends a Geometry: its kind, then for a Point, LineString or
+     * LinearRing the number of coordinates, for a Polygon the number of
+     * rings (shell first) each followed by its number of coordinates, and
+     * for a collection the number of elements each followed by its shape.
+     * The coordinates are appended in the same order.
+     */
+    private void writeShape(Geometry geometry) {
+        if (geometry == null) {
+            writeInt(NULL);
+        } else if (geometry instanceof Point) {
+            writeInt(POINT);
+            writeCoordinates(((Point) geometry).getCoordinateSequence());
+        } else if (geometry instanceof LinearRing) {
+            writeInt(LINEARRING);
+            writeCoordinates(((LinearRing) geometry).getCoordinateSequence());
+        } else if (geometry instanceof LineString) {
+            writeInt(LINESTRING);
+            writeCoordinates(((LineString) geometry).getCoordinateSequence());
+        } else if (geometry instanceof Polygon) {
+            Polygon polygon = (Polygon) geometry;
+            writeInt(POLYGON);
+
+            if (polygon.isEmpty()) {
+                writeInt(0);
+
+                return;
+            }
+
+            writeInt(1 + polygon.getNumInteriorRing());
+            writeCoordinates(polygon.getExteriorRing().getCoordinateSequence());
+
+            for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+                writeCoordinates(polygon.getInteriorRingN(i).getCoordinateSequence());
+            }
+        } else if (geometry instanceof GeometryCollection) {
+            if (geometry instanceof MultiPoint) {
+                writeInt(MULTIPOINT);
+            } else if (geometry instanceof MultiLineString) {
+                writeInt(MULTILINESTRING);
+            } else if (geometry instanceof MultiPolygon) {
+                writeInt(MULTIPOLYGON);
+            } else {
+                writeInt(GEOMETRYCOLLECTION);
+            }
+
+            writeInt(geometry.getNumGeometries());
+
+            for (int i = 0; i < geometry.getNumGeometries(); i++) {
+                writeShape(geometry.getGeometryN(i));
+            }
+        } else {
+            throw new IllegalArgumentException("Unsupported geometry: " +
+                geometry.getGeometryType());
+        }
+    }
+
+    private void writeInt(int value) {
+        if (shapesSize == shapes.length) {
+            shapes = copyOf(shapes, Math.max(64, shapes.length * 2));
+        }
+
+        shapes[shapesSize++] = value;
+    }
+
+    private void writeCoordinates(CoordinateSequence sequence) {
+        int n = sequence.size();
+        writeInt(n);
+
+        if (2L * (coordinateCount + (long) n) > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException(
+                "Too many coordinates for a ColumnarFeatureCollection");
+        }
+
+        if (2 * (coordinateCount + n) > xy.length) {
+            int newLength = (int) Math.min(Integer.MAX_VALUE - 8,
+                    Math.max(2L * (coordinateCount + n), 2L * xy.length));
+            xy = copyOf(xy, Math.max(64, newLength));
+
+            if (z != null) {
+                z = copyOf(z, xy.length / 2, Double.NaN);
+            }
+        }
+
+        boolean hasZ = sequence.getDimension() >= 3;
+
+        for (int i = 0; i < n; i++) {
+            xy[2 * coordinateCount] = sequence.getOrdinate(i, CoordinateSequence.X);
+            xy[(2 * coordinateCount) + 1] = sequence.getOrdinate(i, CoordinateSequence.Y);
+
+            if (hasZ) {
+                double value = sequence.getOrdinate(i, CoordinateSequence.Z);
+
+                if ((z == null) && !Double.isNaN(value)) {
+                    z = copyOf(new double[0], xy.length / 2, Double.NaN);
+                }
+
+                if (z != null) {
+                    z[coordinateCount] = value;
+                }
+            }
+
+            coordinateCount++;
+        }
+    }
+
+    //cursor[0] is the position in shapes, cursor[1] the next coordinate
+    private Geometry readShape(int[] cursor) {
+        int kind = shapes[cursor[0]++];
+
+        switch (kind) {
+        case NULL:
+            return null;
+
+        case POINT:
+            return geometryFactory.createPoint(readCoordinates(cursor));
+
+        case LINESTRING:
+            return geometryFactory.createLineString(readCoordinates(cursor));
+
+        case LINEARRING:
+            return geometryFactory.createLinearRing(readCoordinates(cursor));
+
+        case POLYGON: {
+            int rings = shapes[cursor[0]++];
+
+            if (rings == 0) {
+                return geometryFactory.createPolygon((LinearRing) null, null);
+            }
+
+            LinearRing shell = geometryFactory.createLinearRing(readCoordinates(cursor));
+            LinearRing[] holes = new LinearRing[rings - 1];
+
+            for (int i = 0; i < holes.length; i++) {
+                holes[i] = geometryFactory.createLinearRing(readCoordinates(cursor));
+            }
+
+            return geometryFactory.createPolygon(shell, holes);
+        }
+
+        default:
+
+            int n = shapes[cursor[0]++];
+
+            if (kind == MULTIPOINT) {
+                Point[] points = new Point[n];
+
+                for (int i = 0; i < n; i++) {
+                    points[i] = (Point) readShape(cursor);
+                }
+
+                return geometryFactory.createMultiPoint(points);
+            }
+
+            if (kind == MULTILINESTRING) {
+                LineString[] lineStrings = new LineString[n];
+
+                for (int i = 0; i < n; i++) {
+                    lineStrings[i] = (LineString) readShape(cursor);
+                }
+
+                return geometryFactory.createMultiLineString(lineStrings);
+            }
+
+            if (kind == MULTIPOLYGON) {
+                Polygon[] polygons = new Polygon[n];
+
+                for (int i = 0; i < n; i++) {
+                    polygons[i] = (Polygon) readShape(cursor);
+                }
+
+                return geometryFactory.createMultiPolygon(polygons);
+            }
+
+            Geometry[] geometries = new Geometry[n];
+
+            for (int i = 0; i < n; i++) {
+                geometries[i] = readShape(cursor);
+            }
+
+            return geometryFactory.createGeometryCollection(geometries);
+        }
+    }
+
+    private CoordinateSequence readCoordinates(int[] cursor) {
+        int n = shapes[cursor[0]++];
+        int start = cursor[1];
+        cursor[1] += n;
+
+        CoordinateSequenceFactory csf = geometryFactory.getCoordinateSequenceFactory();
+
+        if (csf instanceof PackedCoordinateSequenceFactory) {
+            if (z == null) {
+                double[] packed = new double[2 * n];
+                System.arraycopy(xy, 2 * start, packed, 0, 2 * n);
+
+                return ((PackedCoordinateSequenceFactory) csf).create(packed, 2);
+            }
+
+            double[] packed = new double[3 * n];
+
+            for (int i = 0; i < n; i++) {
+                packed[3 * i] = xy[2 * (start + i)];
+                packed[(3 * i) + 1] = xy[(2 * (start + i)) + 1];
+                packed[(3 * i) + 2] = z[start + i];
+            }
+
+            return ((PackedCoordinateSequenceFactory) csf).create(packed, 3);
+        }
+
+        Coordinate[] coordinates = new Coordinate[n];
+
+        for (int i = 0; i < n; i++) {
+            coordinates[i] = new Coordinate(xy[2 * (start + i)], xy[(2 * (start + i)) + 1],
+                    (z == null) ? Double.NaN : z[start + i]);
+        }
+
+        return csf.create(coordinates);
+    }
+
+    private static int[] copyOf(int[] array, int length) {
+        int[] copy = new int[length];
+        System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+
+        return copy;
+    }
+
+    private static long[] copyOf(long[] array, int length) {
+        long[] copy = new long[length];
+        System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+
+        return copy;
+    }
+
+    private static double[] copyOf(double[] array, int length) {
+        double[] copy = new double[length];
+        System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+
+        return copy;
+    }
+
+    private static double[] copyOf(double[] array, int length, double fill) {
+        double[] copy = copyOf(array, length);
+        Arrays.fill(copy, Math.min(array.length, length), length, fill);
+
+        return copy;
+    }
+
+    private static Object[] copyOf(Object[] array, int length) {
+        Object[] copy = new Object[length];
+        System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+
+        return copy;
+    }
+
+    /**
+     * The values of one attribute of every row.
+     */
+    private abstract static class Column implements Serializable {
+        /**
+         * Stores the value of a row.
+         * @return false if the value is not of the class of this column; the
+         *      value is then not stored
+         */
+        abstract boolean set(int row, Object value);
+
+        abstract Object get(int row);
+
+        abstract void setCapacity(int capacity);
+    }
+
+    /**
+     * A column of primitives, with a bit per row that is set if it is null.
+     */
+    private abstract static class PrimitiveColumn extends Column {
+        private long[] nulls = new long[0];
+
+        boolean isNull(int row) {
+            return (nulls[row >> 6] & (1L << row)) != 0;
+        }
+
+        void setNull(int row, boolean isNull) {
+            if (isNull) {
+                nulls[row >> 6] |= (1L << row);
+            } else {
+                nulls[row >> 6] &= ~(1L << row);
+            }
+        }
+
+        void setCapacity(int capacity) {
+            nulls = copyOf(nulls, (capacity + 63) / 64);
+        }
+    }
+
+    private static class IntegerColumn extends PrimitiveColumn {
+        private static final long serialVersionUID = -1544716289870542158L;
+        private int[] values = new int[0];
+
+        boolean set(int row, Object value) {
+            if ((value != null) && !(value instanceof Integer)) {
+                return false;
+            }
+
+            setNull(row, value == null);
+            values[row] = (value == null) ? 0 : ((Integer) value).intValue();
+
+            return true;
+        }
+
+        Object get(int row) {
+            return isNull(row) ? null : Integer.valueOf(values[row]);
+        }
+
+        void setCapacity(int capacity) {
+            super.setCapacity(capacity);
+            values = copyOf(values, capacity);
+        }
+    }
+
+    private static class DoubleColumn extends PrimitiveColumn {
+        private static final long serialVersionUID = 7062553940715458420L;
+        private double[] values = new double[0];
+
+        boolean set(int row, Object value) {
+            if ((value != null) && !(value instanceof Double)) {
+                return false;
+            }
+
+            setNull(row, value == null);
+            values[row] = (value == null) ? 0 : ((Double) value).doubleValue();
+
+            return true;
+        }
+
+        Object get(int row) {
+            return isNull(row) ? null : Double.valueOf(values[row]);
+        }
+
+        void setCapacity(int capacity) {
+            super.setCapacity(capacity);
+            values = copyOf(values, capacity);
+        }
+    }
+
+    /**
+     * Stores Dates as milliseconds. #get returns a new Date each time, as
+     * Dates can be modified.
+     */
+    private static class DateColumn extends PrimitiveColumn {
+        private static final long serialVersionUID = 2380664283570093658L;
+        private long[] values = new long[0];
+
+        boolean set(int row, Object value) {
+            //Subclasses such as java.sql.Timestamp would lose information
+            if ((value != null) && (value.getClass() != Date.class)) {
+                return false;
+            }
+
+            setNull(row, value == null);
+            values[row] = (value == null) ? 0 : ((Date) value).getTime();
+
+            return true;
+        }
+
+        Object get(int row) {
+            return isNull(row) ? null : new Date(values[row]);
+        }
+
+        void setCapacity(int capacity) {
+            super.setCapacity(capacity);
+            values = copyOf(values, capacity);
+        }
+    }
+
+    /**
+     * Stores each distinct String once, and for each row the index of its
+     * String (-1 for null). If most Strings turn out to be distinct the
+     * dictionary is only overhead, and the Strings are stored per row instead.
+     */
+    private static class StringColumn extends Column {
+        private static final long serialVersionUID = -4731840623109522097L;
+        private static final int MIN_DICTIONARY_CHECK = 1 << 16;
+        private int[] codes = new int[0];
+        private ArrayList dictionary = new ArrayList();
+        private HashMap dictionaryCodes = new HashMap();
+
+        //Used instead of the codes once the dictionary has been dropped
+        private Object[] values = null;
+
+        boolean set(int row, Object value) {
+            if ((value != null) && !(value instanceof String)) {
+                return false;
+            }
+
+            if (values != null) {
+                values[row] = value;
+
+                return true;
+            }
+
+            if (value == null) {
+                codes[row] = -1;
+
+                return true;
+            }
+
+            Integer code = (Integer) dictionaryCodes.get(value);
+
+            if (code == null) {
+                code = new Integer(dictionary.size());
+                dictionary.add(value);
+                dictionaryCodes.put(value, code);
+
+                if ((dictionary.size() >= MIN_DICTIONARY_CHECK) && (dictionary.size() > (row / 2))) {
+                    codes[row] = code.intValue();
+                    dropDictionary(row + 1);
+
+                    return true;
+                }
+            }
+
+            codes[row] = code.intValue();
+
+            return true;
+        }
+
+        private void dropDictionary(int rows) {
+            values = new Object[codes.length];
+
+            for (int row = 0; row < rows; row++) {
+                values[row] = (codes[row] == -1) ? null : dictionary.get(codes[row]);
+            }
+
+            codes = null;
+            dictionary = null;
+            dictionaryCodes = null;
+        }
+
+        Object get(int row) {
+            if (values != null) {
+                return values[row];
+            }
+
+            return (codes[row] == -1) ? null : dictionary.get(codes[row]);
+        }
+
+        void setCapacity(int capacity) {
+            if (values != null) {
+                values = copyOf(values, capacity);
+            } else {
+                codes = copyOf(codes, capacity);
+            }
+        }
+    }
+
+    private static class ObjectColumn extends Column {
+        private static final long serialVersionUID = 5838019740468001962L;
+        private Object[] values = new Object[0];
+
+        boolean set(int row, Object value) {
+            values[row] = value;
+
+            return true;
+        }
+
+        Object get(int row) {
+            return values[row];
+        }
+
+        void setCapacity(int capacity) {
+            values = copyOf(values, capacity);
+        }
+    }
+
+    /**
+     * The Features of this collection, created as they are asked for.
+     */
+    private class FeatureList extends AbstractList implements RandomAccess {
+        public Object get(int index) {
+            return getFeature(index);
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * A read-only view of a row. The Geometry is built the first time it is
+     * asked for.
+     */
+    private class Row implements Feature {
+        private int row;
+        private Geometry geometry;
+
+        Row(int row) {
+            this.row = row;
+        }
+
+        public void setAttributes(Object[] attributes) {
+            throw new UnsupportedOperationException(
+                "Features of a ColumnarFeatureCollection cannot be modified");
+        }
+
+        public void setSchema(FeatureSchema schema) {
+            throw new UnsupportedOperationException(
+                "Features of a ColumnarFeatureCollection cannot be modified");
+        }
+
+        public long getID() {
+            return ColumnarFeatureCollection.this.getID(row);
+        }
+
+        public void setAttribute(int attributeIndex, Object newAttribute) {
+            throw new UnsupportedOperationException(
+                "Features of a ColumnarFeatureCollection cannot be modified");
+        }
+
+        public void setAttribute(String attributeName, Object newAttribute) {
+            throw new UnsupportedOperationException(
+                "Features of a ColumnarFeatureCollection cannot be modified");
+        }
+
+        public void setGeometry(Geometry geometry) {
+            throw new UnsupportedOperationException(
+                "Features of a ColumnarFeatureCollection cannot be modified");
+        }
+
+        public Object getAttribute(int i) {
+            if (columns[i] == null) {
+                return getGeometry();
+            }
+
+            return ColumnarFeatureCollection.this.getAttribute(row, i);
+        }
+
+        public Object getAttribute(String name) {
+            return getAttribute(featureSchema.getAttributeIndex(name));
+        }
+
+        public String getString(int attributeIndex) {
+            Object result = getAttribute(attributeIndex);
+
+            return (result != null) ? result.toString() : "";
+        }
+
+        public int getInteger(int attributeIndex) {
+            return ColumnarFeatureCollection.this.getInteger(row, attributeIndex);
+        }
+
+        public double getDouble(int attributeIndex) {
+            return ColumnarFeatureCollection.this.getDouble(row, attributeIndex);
+        }
+
+        public String getString(String attributeName) {
+            return getString(featureSchema.getAttributeIndex(attributeName));
+        }
+
+        public Geometry getGeometry() {
+            if (geometry == null) {
+                geometry = ColumnarFeatureCollection.this.getGeometry(row);
+            }
+
+            return geometry;
+        }
+
+        public FeatureSchema getSchema() {
+            return featureSchema;
+        }
+
+        public Object clone() {
+            return clone(true);
+        }
+
+        public Feature clone(boolean deep) {
+            return AbstractBasicFeature.clone(this, deep);
+        }
+
+        public Object[] getAttributes() {
+            Object[] attributes = new Object[columns.length];
+
+            for (int i = 0; i < attributes.length; i++) {
+                attributes[i] = getAttribute(i);
+            }
+
+            return attributes;
+        }
+
+        public int compareTo(Object o) {
+            return AbstractBasicFeature.compare(this, (Feature) o);
+        }
+
+        public boolean equals(Object o) {
+            return (o instanceof Row) && (((Row) o).row == row) &&
+            (((Row) o).getCollection() == ColumnarFeatureCollection.this);
+        }
+
+        public int hashCode() {
+            return row ^ System.identityHashCode(ColumnarFeatureCollection.this);
+        }
+
+        private ColumnarFeatureCollection getCollection() {
+            return ColumnarFeatureCollection.this;
+        }
+    }
+}
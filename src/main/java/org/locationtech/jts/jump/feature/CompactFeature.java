@@ -0,0 +1,287 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+package org.locationtech.jts.jump.feature;
+
+import java.io.Serializable;
+
+
+/**
+ * A Feature that keeps its INTEGER and DOUBLE attributes in primitive arrays
+ * instead of as Integer and Double objects, and shares equal STRING values
+ * with the other Features of its CompactFeatureFactory. For layers with many
+ * numeric attributes this takes much less memory than a BasicFeature.
+ * <p>
+ * It behaves like a BasicFeature: any attribute can be null, and a value of
+ * another class than the schema says is kept as it is. The only difference
+ * is that #getAttribute returns an Integer or Double for numeric
+ * attributes that is equal to, but not always the same object as, the one
+ * that was set;
+ * #getInteger and #getDouble return the stored value without creating an
+ * object.</p>
+ * @see CompactFeatureFactory#createFeature()
+ */
+public class CompactFeature extends AbstractBasicFeature implements Serializable {
+    private static final long serialVersionUID = 6617219583047526133L;
+
+    private CompactFeatureFactory factory;
+
+    //INTEGER values as longs and DOUBLE values as their raw bits, in one
+    //array to save the overhead of a second one
+    private long[] numbers;
+    private Object[] objects;
+
+    //A set bit means the numeric attribute in that slot is null. Bits beyond
+    //the first 64 slots are in moreNulls.
+    private long nulls;
+    private long[] moreNulls;
+
+    //Values that don't fit their numeric slot, e.g. a String in an INTEGER
+    //attribute. Null until there is one.
+    private Object[] mismatches;
+
+    CompactFeature(CompactFeatureFactory factory) {
+        super(factory.getFeatureSchema());
+        init(factory);
+    }
+
+    private void init(CompactFeatureFactory factory) {
+        this.factory = factory;
+        numbers = new long[factory.numberCount];
+        objects = new Object[factory.objectCount];
+        mismatches = null;
+        nulls = 0;
+        moreNulls = (factory.numberCount > 64)
+            ? new long[(factory.numberCount - 1) / 64] : null;
+
+        for (int i = 0; i < factory.numberCount; i++) {
+            setNull(i, true);
+        }
+    }
+
+    /**
+     * A low-level accessor that is not normally used. As with a BasicFeature,
+     * the attributes keep their index. If the schema is not the one of this
+     * Feature's factory, the Feature moves to a factory for the new schema,
+     * which it shares with the other Features moved to that schema.
+     */
+    public void setSchema(FeatureSchema schema) {
+        if (schema == factory.getFeatureSchema()) {
+            super.setSchema(schema);
+
+            return;
+        }
+
+        Object[] attributes = getAttributes();
+        super.setSchema(schema);
+        init(factory.getFactory(schema));
+
+        for (int i = 0; i < Math.min(attributes.length, factory.kinds.length); i++) {
+            setAttribute(i, attributes[i]);
+        }
+    }
+
+    /**
+     *  Sets the specified attribute.
+     *
+     *@param  attributeIndex  the array index at which to put the new attribute
+     *@param  newAttribute    the new attribute
+     */
+    public void setAttribute(int attributeIndex, Object newAttribute) {
+        int slot = factory.slots[attributeIndex];
+
+        switch (factory.kinds[attributeIndex]) {
+        case CompactFeatureFactory.INTEGER:
+
+            if ((newAttribute == null) || newAttribute instanceof Integer) {
+                clearMismatch(attributeIndex);
+                setNull(slot, newAttribute == null);
+
+                if (newAttribute != null) {
+                    numbers[slot] = ((Integer) newAttribute).intValue();
+                }
+
+                return;
+            }
+
+            break;
+
+        case CompactFeatureFactory.DOUBLE:
+
+            if ((newAttribute == null) || newAttribute instanceof Double) {
+                clearMismatch(attributeIndex);
+                setNull(slot, newAttribute == null);
+
+                if (newAttribute != null) {
+                    numbers[slot] = Double.doubleToRawLongBits(((Double) newAttribute).doubleValue());
+                }
+
+                return;
+            }
+
+            break;
+
+        case CompactFeatureFactory.STRING:
+            objects[slot] = (newAttribute instanceof String)
+                ? factory.share((String) newAttribute) : newAttribute;
+
+            return;
+
+        default:
+            objects[slot] = newAttribute;
+
+            return;
+        }
+
+        if (mismatches == null) {
+            mismatches = new Object[factory.kinds.length];
+        }
+
+        mismatches[attributeIndex] = newAttribute;
+    }
+
+    /**
+     *  Returns the specified attribute.
+     *
+     *@param  i the index of the attribute to get
+     *@return the attribute
+     */
+    public Object getAttribute(int i) {
+        if ((mismatches != null) && (mismatches[i] != null)) {
+            return mismatches[i];
+        }
+
+        int slot = factory.slots[i];
+
+        switch (factory.kinds[i]) {
+        case CompactFeatureFactory.INTEGER:
+            return isNull(slot) ? null : Integer.valueOf((int) numbers[slot]);
+
+        case CompactFeatureFactory.DOUBLE:
+            return isNull(slot) ? null : Double.valueOf(Double.longBitsToDouble(numbers[slot]));
+
+        default:
+            return objects[slot];
+        }
+    }
+
+    public int getInteger(int attributeIndex) {
+        int slot = factory.slots[attributeIndex];
+
+        if ((factory.kinds[attributeIndex] == CompactFeatureFactory.INTEGER) &&
+                !isNull(slot) && !isMismatch(attributeIndex)) {
+            return (int) numbers[slot];
+        }
+
+        return super.getInteger(attributeIndex);
+    }
+
+    public double getDouble(int attributeIndex) {
+        int slot = factory.slots[attributeIndex];
+
+        if ((factory.kinds[attributeIndex] == CompactFeatureFactory.DOUBLE) &&
+                !isNull(slot) && !isMismatch(attributeIndex)) {
+            return Double.longBitsToDouble(numbers[slot]);
+        }
+
+        return super.getDouble(attributeIndex);
+    }
+
+    /**
+     * A low-level accessor that is not normally used. Returns a copy of the
+     * attributes; changing the array does not change this Feature.
+     */
+    public Object[] getAttributes() {
+        Object[] attributes = new Object[factory.kinds.length];
+
+        for (int i = 0; i < attributes.length; i++) {
+            attributes[i] = getAttribute(i);
+        }
+
+        return attributes;
+    }
+
+    /**
+     * A low-level accessor that is not normally used. It is called by ViewSchemaPlugIn.
+     */
+    public void setAttributes(Object[] attributes) {
+        for (int i = 0; i < attributes.length; i++) {
+            setAttribute(i, attributes[i]);
+        }
+    }
+
+    /**
+     * Clones this Feature, as a CompactFeature of the same factory.
+     * @param deep whether or not to clone the geometry
+     * @return a new Feature with the same attributes as this Feature
+     */
+    public Feature clone(boolean deep) {
+        CompactFeature clone = factory.createFeature();
+
+        for (int i = 0; i < factory.kinds.length; i++) {
+            if (getSchema().getAttributeType(i) == AttributeType.GEOMETRY) {
+                clone.setAttribute(i, deep ? getGeometry().clone() : getGeometry());
+            } else {
+                clone.setAttribute(i, getAttribute(i));
+            }
+        }
+
+        return clone;
+    }
+
+    private boolean isNull(int slot) {
+        long bits = (slot < 64) ? nulls : moreNulls[(slot >> 6) - 1];
+
+        return (bits & (1L << slot)) != 0;
+    }
+
+    private void setNull(int slot, boolean isNull) {
+        long mask = 1L << slot;
+
+        if (slot < 64) {
+            nulls = isNull ? (nulls | mask) : (nulls & ~mask);
+        } else {
+            int i = (slot >> 6) - 1;
+            moreNulls[i] = isNull ? (moreNulls[i] | mask) : (moreNulls[i] & ~mask);
+        }
+    }
+
+    private boolean isMismatch(int attributeIndex) {
+        return (mismatches != null) && (mismatches[attributeIndex] != null);
+    }
+
+    private void clearMismatch(int attributeIndex) {
+        if (mismatches != null) {
+            mismatches[attributeIndex] = null;
+        }
+    }
+}
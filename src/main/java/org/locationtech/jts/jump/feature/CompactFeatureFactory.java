@@ -0,0 +1,180 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+package org.locationtech.jts.jump.feature;
+
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Creates CompactFeatures for one FeatureSchema. The factory works out once
+ * where each attribute is stored, and holds the dictionary of String values
+ * shared by all the Features it creates, so that equal Strings (e.g. the
+ * same street name on many address points) are stored only once.
+ * <p>
+ * The schema should not be changed after the first Feature has been created.</p>
+ * @see CompactFeature
+ */
+public class CompactFeatureFactory implements Serializable {
+    private static final long serialVersionUID = -2386010581950393815L;
+
+    /**
+     * Beyond this many distinct Strings, new values are no longer shared. If
+     * by then fewer than half of the Strings looked up were already in the
+     * dictionary (e.g. a column of unique names), it is dropped altogether.
+     */
+    public static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+    static final int OBJECT = 0;
+    static final int STRING = 1;
+    static final int INTEGER = 2;
+    static final int DOUBLE = 3;
+
+    private FeatureSchema schema;
+
+    //How and where each attribute is stored: in the number or Object array
+    //of a CompactFeature
+    int[] kinds;
+    int[] slots;
+    int numberCount = 0;
+    int objectCount = 0;
+
+    private volatile ConcurrentHashMap dictionary = new ConcurrentHashMap();
+
+    //Only used to decide whether the dictionary is worth keeping, so an
+    //update lost between threads does not matter
+    private int lookups = 0;
+    private int hits = 0;
+
+    //The factory that Features of this one move to when their schema is
+    //changed
+    private transient CompactFeatureFactory successor;
+
+    /**
+     * Creates a factory for Features with the given schema.
+     */
+    public CompactFeatureFactory(FeatureSchema schema) {
+        this.schema = schema;
+
+        int attributeCount = schema.getAttributeCount();
+        kinds = new int[attributeCount];
+        slots = new int[attributeCount];
+
+        for (int i = 0; i < attributeCount; i++) {
+            AttributeType type = schema.getAttributeType(i);
+
+            if (type == AttributeType.INTEGER) {
+                kinds[i] = INTEGER;
+                slots[i] = numberCount++;
+            } else if (type == AttributeType.DOUBLE) {
+                kinds[i] = DOUBLE;
+                slots[i] = numberCount++;
+            } else {
+                kinds[i] = (type == AttributeType.STRING) ? STRING : OBJECT;
+                slots[i] = objectCount++;
+            }
+        }
+    }
+
+    public FeatureSchema getFeatureSchema() {
+        return schema;
+    }
+
+    /**
+     * Creates a Feature whose attributes are all null.
+     */
+    public CompactFeature createFeature() {
+        return new CompactFeature(this);
+    }
+
+    /**
+     * Returns the factory for the Features of this factory whose schema is
+     * changed to the given one. Each time the schema of all Features is
+     * changed (e.g. by ViewSchemaPlugIn), they all move to the same factory,
+     * so that they keep sharing one dictionary.
+     */
+    synchronized CompactFeatureFactory getFactory(FeatureSchema schema) {
+        if (schema == this.schema) {
+            return this;
+        }
+
+        if ((successor == null) || (successor.schema != schema)) {
+            successor = new CompactFeatureFactory(schema);
+        }
+
+        return successor;
+    }
+
+    /**
+     * Returns the number of distinct Strings being shared.
+     */
+    public int getDictionarySize() {
+        ConcurrentHashMap dictionary = this.dictionary;
+
+        return (dictionary == null) ? 0 : dictionary.size();
+    }
+
+    /**
+     * Returns the String in the dictionary equal to the given one, adding it
+     * if there is none yet.
+     */
+    String share(String value) {
+        ConcurrentHashMap dictionary = this.dictionary;
+
+        if (dictionary == null) {
+            return value;
+        }
+
+        lookups++;
+
+        String shared = (String) dictionary.get(value);
+
+        if (shared != null) {
+            hits++;
+
+            return shared;
+        }
+
+        if (dictionary.size() >= MAX_DICTIONARY_SIZE) {
+            if (hits < (lookups / 2)) {
+                this.dictionary = null;
+            }
+
+            return value;
+        }
+
+        shared = (String) dictionary.putIfAbsent(value, value);
+
+        return (shared == null) ? value : shared;
+    }
+}
@@ -58,7 +58,7 @@ public interface Feature extends Cloneable, Comparable {
 	 * persistent. (Implementors can obtain an ID from FeatureUtil#nextID).
 	 * @return n, where this feature is the nth Feature created by this application
 	 */
-	public abstract int getID();
+	public abstract long getID();
 	/**
 	 *  Sets the specified attribute.
 	 *
@@ -99,6 +99,19 @@ public interface FeatureCollection {
      */
     void addAll(Collection features);
 
+    /**
+     * Adds multiple features while a dataset is being loaded. Like #addAll,
+     * but the collection is told how many features it is expected to hold
+     * once loading is finished, so that it can make room for them once
+     * rather than growing as each batch is added. By default the hint is
+     * ignored.
+     * @param sizeHint the expected number of features after loading; a
+     *      wrong guess only costs some memory or some resizing
+     */
+    default void addAll(Collection features, int sizeHint) {
+        addAll(features);
+    }
+
     /**
      * Removes multiple features from this collection. To be preferred over #remove for
      * removing multiple features, because in some systems (like the JUMP Workbench)
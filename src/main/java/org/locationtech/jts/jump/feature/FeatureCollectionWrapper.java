@@ -131,6 +131,24 @@ public abstract class FeatureCollectionWrapper implements FeatureCollection {
         return fc.iterator();
     }
 
+    /**
+     * Returns an unmodifiable List of the features, which later changes to
+     * this collection do not affect. For a FeatureDataset this takes
+     * constant time (see FeatureDataset#snapshot); other collections are
+     * copied.
+     */
+    public List snapshot() {
+        if (fc instanceof FeatureCollectionWrapper) {
+            return ((FeatureCollectionWrapper) fc).snapshot();
+        }
+
+        if (fc instanceof FeatureDataset) {
+            return ((FeatureDataset) fc).snapshot();
+        }
+
+        return Collections.unmodifiableList(new ArrayList(fc.getFeatures()));
+    }
+
     public List query(Envelope envelope) {
         return fc.query(envelope);
     }
@@ -147,12 +165,16 @@ public abstract class FeatureCollectionWrapper implements FeatureCollection {
         fc.addAll(features);
     }
 
+    public void addAll(Collection features, int sizeHint) {
+        fc.addAll(features, sizeHint);
+    }
+
     public void removeAll(Collection features) {
         fc.removeAll(features);
     }
 
     public void clear() {
-        //Create a new ArrayList to avoid a ConcurrentModificationException. [Jon Aquino]
-        removeAll(new ArrayList(getFeatures()));
+        //Use a snapshot to avoid a ConcurrentModificationException
+        removeAll(snapshot());
     }
 }
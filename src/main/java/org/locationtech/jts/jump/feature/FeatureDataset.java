@@ -33,6 +33,10 @@
 
 package org.locationtech.jts.jump.feature;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.*;
 
@@ -44,19 +48,32 @@ import org.locationtech.jts.geom.Envelope;
  */
 public class FeatureDataset implements FeatureCollection, Serializable {
     private static final long serialVersionUID = 5573446944516446540L;
+    //The Features are written as an ArrayList, as they were before they were
+    //kept in a SegmentedList
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("featureSchema", FeatureSchema.class),
+        new ObjectStreamField("features", ArrayList.class),
+        new ObjectStreamField("envelope", Envelope.class),
+        new ObjectStreamField("boundaryCounts", int[].class)
+    };
     private FeatureSchema featureSchema;
 
-    //<<TODO>> Possibly use hashtable to do spatial indexing [Jon Aquino]
-    private ArrayList features;
+    //IndexedFeatureDataset adds spatial indexing
+    private SegmentedList features;
     private Envelope envelope = null;
 
+    //The number of Features lying on each side of the envelope (minx, miny,
+    //maxx, maxy), so that removing a Feature only forces the envelope to be
+    //recomputed when it was the last one on a side
+    private int[] boundaryCounts = new int[4];
+
     /**
      * Creates a FeatureDataset, initialized with a group of Features.
      * @param newFeatures an initial group of features to add to this FeatureDataset
      * @param featureSchema the types of the attributes of the features in this collection
      */
     public FeatureDataset(Collection newFeatures, FeatureSchema featureSchema) {
-        features = new ArrayList(newFeatures);
+        features = new SegmentedList(newFeatures);
         this.featureSchema = featureSchema;
     }
 
@@ -68,6 +85,27 @@ public class FeatureDataset implements FeatureCollection, Serializable {
         this(new ArrayList(), featureSchema);
     }
 
+    /**
+     * Creates a FeatureDataset with room for the given number of Features,
+     * for readers that know how many Features they will add.
+     * @param featureSchema the types of the attributes of the features in this collection
+     * @param initialCapacity the number of Features that can be added before
+     *      the list of Features has to grow
+     */
+    public FeatureDataset(FeatureSchema featureSchema, int initialCapacity) {
+        features = new SegmentedList();
+        features.ensureCapacity(initialCapacity);
+        this.featureSchema = featureSchema;
+    }
+
+    /**
+     * Makes room for at least the given number of Features, so that adding
+     * them one at a time does not repeatedly grow the list of Features.
+     */
+    public void ensureCapacity(int minCapacity) {
+        features.ensureCapacity(minCapacity);
+    }
+
     /**
      * Returns the Feature at the given index (zero-based).
      */
@@ -89,18 +127,95 @@ public class FeatureDataset implements FeatureCollection, Serializable {
 
             for (Iterator i = features.iterator(); i.hasNext();) {
                 Feature feature = (Feature) i.next();
-                envelope.expandToInclude(feature.getGeometry()
-                                                .getEnvelopeInternal());
+                expandEnvelope(feature.getGeometry().getEnvelopeInternal());
             }
         }
 
         return envelope;
     }
 
+    private void expandEnvelope(Envelope added) {
+        if (added.isNull()) {
+            return;
+        }
+
+        if (envelope.isNull()) {
+            envelope.init(added);
+            Arrays.fill(boundaryCounts, 1);
+
+            return;
+        }
+
+        countBoundary(0, added.getMinX(), envelope.getMinX(), -1);
+        countBoundary(1, added.getMinY(), envelope.getMinY(), -1);
+        countBoundary(2, added.getMaxX(), envelope.getMaxX(), 1);
+        countBoundary(3, added.getMaxY(), envelope.getMaxY(), 1);
+        envelope.expandToInclude(added);
+    }
+
+    //direction is -1 for a minimum, 1 for a maximum
+    private void countBoundary(int side, double added, double current, int direction) {
+        if (added == current) {
+            boundaryCounts[side]++;
+        } else if ((added - current) * direction > 0) {
+            boundaryCounts[side] = 1;
+        }
+    }
+
+    /**
+     * Updates the cached envelope after a Feature with the given envelope has
+     * been removed, or clears it if it may have shrunk.
+     */
+    private void shrinkEnvelope(Envelope removed) {
+        if ((envelope == null) || removed.isNull()) {
+            return;
+        }
+
+        if (!envelope.contains(removed)) {
+            //The geometry was modified after the envelope was cached
+            envelope = null;
+
+            return;
+        }
+
+        boolean shrunk = uncountBoundary(0, removed.getMinX(), envelope.getMinX());
+        shrunk = uncountBoundary(1, removed.getMinY(), envelope.getMinY()) || shrunk;
+        shrunk = uncountBoundary(2, removed.getMaxX(), envelope.getMaxX()) || shrunk;
+        shrunk = uncountBoundary(3, removed.getMaxY(), envelope.getMaxY()) || shrunk;
+
+        if (shrunk) {
+            envelope = null;
+        }
+    }
+
+    //Returns whether no Feature is left on the side
+    private boolean uncountBoundary(int side, double removed, double current) {
+        return (removed == current) && (--boundaryCounts[side] == 0);
+    }
+
     public List getFeatures() {
         return Collections.unmodifiableList(features);
     }
 
+    /**
+     * Returns an unmodifiable List of the Features currently in this
+     * collection, which later changes to the collection do not affect. The
+     * List can therefore be iterated in another thread (a renderer, for
+     * example) while Features are added and removed. Take the snapshot in
+     * the thread that modifies the collection.
+     * <p>
+     * The Features are kept in segments of 1024. A snapshot copies only the
+     * table of segments (one entry per 1024 Features), and repeated snapshots
+     * of an unchanged collection return the same List. The first change to a
+     * segment after a snapshot copies that segment, so a change after every
+     * snapshot costs about 1024 references plus the table, however large the
+     * collection is. Removing a Feature also updates the start of every
+     * later segment in the table.</p>
+     */
+    public List snapshot() {
+        return features.snapshot();
+    }
+
     public boolean isEmpty() {
         return size() == 0;
     }
@@ -135,7 +250,7 @@ public class FeatureDataset implements FeatureCollection, Serializable {
     public void add(Feature feature) {
         features.add(feature);
         if (envelope != null) {
-            envelope.expandToInclude(feature.getGeometry().getEnvelopeInternal());
+            expandEnvelope(feature.getGeometry().getEnvelopeInternal());
         }
     }
 
@@ -159,15 +274,32 @@ public class FeatureDataset implements FeatureCollection, Serializable {
     }
 
     public void remove(Feature feature) {
-        features.remove(feature);
-        invalidateEnvelope();
+        int index = features.indexOf(feature);
+
+        if (index == -1) {
+            return;
+        }
+
+        Feature removed = (Feature) features.remove(index);
+        shrinkEnvelope(removed.getGeometry().getEnvelopeInternal());
+        featureRemoved(removed);
+    }
+
+    /**
+     * Called after #remove or #removeAll has taken a Feature out of this
+     * dataset, once for each time it was in it. The Feature is the object
+     * that was in the dataset, which need not be the one passed to #remove:
+     * Features are matched with #equals, and some Feature classes consider
+     * distinct objects equal.
+     */
+    protected void featureRemoved(Feature feature) {
     }
 
     /**
      * Removes all features from this collection.
      */
     public void clear() {
-        invalidateEnvelope();
+        envelope = new Envelope();
         features.clear();
     }
 
@@ -175,8 +307,13 @@ public class FeatureDataset implements FeatureCollection, Serializable {
         return features.size();
     }
 
+    /**
+     * Returns an Iterator over the Features. Iterator#remove calls
+     * #remove(Feature), so that the envelope (and any index of a subclass)
+     * stays up to date.
+     */
     public Iterator iterator() {
-        return features.iterator();
+        return new FeatureIterator();
     }
 
     /**
@@ -192,13 +329,125 @@ public class FeatureDataset implements FeatureCollection, Serializable {
         if (envelope != null) {
             for (Iterator i = features.iterator(); i.hasNext(); ) {
                 Feature feature = (Feature) i.next();
-                envelope.expandToInclude(feature.getGeometry().getEnvelopeInternal());
+                expandEnvelope(feature.getGeometry().getEnvelopeInternal());
             }            
         }
     }
 
+    public void addAll(Collection features, int sizeHint) {
+        ensureCapacity(sizeHint);
+        addAll(features);
+    }
+
     public void removeAll(Collection features) {
-        this.features.removeAll(features);
-        invalidateEnvelope();
+        HashSet featuresToRemove = new HashSet(features);
+        ArrayList removed = new ArrayList();
+        ArrayList removedIndexes = new ArrayList();
+
+        for (int i = 0; i < this.features.size(); i++) {
+            Feature feature = (Feature) this.features.get(i);
+
+            if (featuresToRemove.contains(feature)) {
+                removed.add(feature);
+                removedIndexes.add(new Integer(i));
+            }
+        }
+
+        if (removed.isEmpty()) {
+            return;
+        }
+
+        //Removing by index shifts the rest of a segment, which costs about
+        //as much as refilling the list once a segment's worth of Features
+        //are removed for each Feature removed
+        if ((removed.size() == 1) ||
+                ((removed.size() * SegmentedList.SEGMENT_SIZE) <= this.features.size())) {
+            //Back to front, so that the indexes still to be removed stay put
+            for (int i = removedIndexes.size() - 1; i >= 0; i--) {
+                this.features.remove(((Integer) removedIndexes.get(i)).intValue());
+            }
+        } else {
+            ArrayList featuresToKeep = new ArrayList(this.features.size() - removed.size());
+
+            for (Iterator i = this.features.iterator(); i.hasNext();) {
+                Feature feature = (Feature) i.next();
+
+                if (!featuresToRemove.contains(feature)) {
+                    featuresToKeep.add(feature);
+                }
+            }
+
+            //Refilling the list puts the Features in new segments, which
+            //leaves any snapshot untouched
+            this.features.clear();
+            this.features.addAll(featuresToKeep);
+        }
+
+        for (Iterator i = removed.iterator(); i.hasNext();) {
+            Feature feature = (Feature) i.next();
+            shrinkEnvelope(feature.getGeometry().getEnvelopeInternal());
+            featureRemoved(feature);
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("featureSchema", featureSchema);
+        fields.put("features", new ArrayList(features));
+        fields.put("envelope", envelope);
+        fields.put("boundaryCounts", boundaryCounts);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        featureSchema = (FeatureSchema) fields.get("featureSchema", null);
+        features = new SegmentedList((ArrayList) fields.get("features", null));
+        boundaryCounts = (int[]) fields.get("boundaryCounts", null);
+
+        //Without the boundary counts the envelope cannot be shrunk, so it is
+        //recomputed
+        envelope = (boundaryCounts == null) ? null : (Envelope) fields.get("envelope", null);
+
+        if (boundaryCounts == null) {
+            boundaryCounts = new int[4];
+        }
+    }
+
+    private class FeatureIterator implements Iterator {
+        private Iterator iterator = features.iterator();
+
+        //The index of the next Feature, and the last one returned
+        private int next = 0;
+        private Feature last = null;
+
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        public Object next() {
+            last = (Feature) iterator.next();
+            next++;
+
+            return last;
+        }
+
+        public void remove() {
+            if (last == null) {
+                throw new IllegalStateException();
+            }
+
+            int oldSize = size();
+            FeatureDataset.this.remove(last);
+            last = null;
+
+            //#remove takes out the first equal Feature, which is this one or
+            //one before it, so either way the next Feature moves up one place
+            if (size() < oldSize) {
+                next--;
+            }
+
+            iterator = features.listIterator(next);
+        }
     }
 }
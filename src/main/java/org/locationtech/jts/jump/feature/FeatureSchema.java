@@ -42,8 +42,8 @@ import org.locationtech.jts.jump.coordsys.CoordinateSystem;
  */
 public class FeatureSchema implements Cloneable, Serializable {
     private static final long serialVersionUID = -8627306219650589202L;
-    //<<TODO:QUESTION>> Is this an efficient implementation? Must cast the Integer to
-    //an int. [Jon Aquino]
+    //Code that reads the same attribute of many Features should look its
+    //index up once, with an AttributeAccessor
     private CoordinateSystem coordinateSystem = CoordinateSystem.UNSPECIFIED;
     private HashMap attributeNameToIndexMap = new HashMap();
     private int geometryIndex = -1;
@@ -36,6 +36,7 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.locationtech.jts.geom.Geometry;
 
@@ -94,13 +95,23 @@ public class FeatureUtil {
 		}
 	}	
 	
-	private static int lastID = 0;
+	private static final AtomicLong lastID = new AtomicLong();
 	
     /**
-     * Increments and returns the feature-ID counter
+     * Increments and returns the feature-ID counter. Safe to call from
+     * several threads at once: no two calls return the same ID, and no lock
+     * is taken.
      * @see Feature#getID()
      */
-	public static int nextID() { return ++lastID; }
+	public static long nextID() { return lastID.incrementAndGet(); }
+
+    /**
+     * Reserves <code>count</code> consecutive feature-IDs, for classes that
+     * hand out the IDs of many Features at once.
+     * @return the first of the reserved IDs
+     * @see #nextID()
+     */
+	public static long nextIDs(int count) { return lastID.getAndAdd(count) + 1; }
 
     /**
      * Although Feature implements Cloneable, this method is useful
@@ -0,0 +1,359 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+package org.locationtech.jts.jump.feature;
+
+import java.io.Serializable;
+import java.util.*;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.quadtree.Quadtree;
+import org.locationtech.jts.index.strtree.STRtree;
+
+
+/**
+ * A FeatureDataset that keeps a spatial index of its Features, so that
+ * #query does not have to test every Feature. Unlike IndexedFeatureCollection,
+ * Features can be added and removed; the index is updated as they are.
+ * <p>
+ * #query returns the same Features, in the same order, as FeatureDataset would.
+ * When the Geometry of a Feature is modified the index must be told, like the
+ * cached envelope: call #geometryModified with the modified Features, or
+ * #invalidateEnvelope, after which the next query re-checks every Feature.</p>
+ * <p>
+ * The index holds the Feature objects that were added, so two distinct
+ * Features that are equal (RecordFeatures with the same ID, for example) are
+ * both returned by #query, as by FeatureDataset. #remove and #removeAll match
+ * Features with #equals, like FeatureDataset, and unindex the objects they
+ * actually removed. #geometryModified must be given the objects in the
+ * dataset.</p>
+ * <p>
+ * Features are indexed when the next query needs them, not as they are added.
+ * The Features there are at the first query are bulk loaded into an STRtree;
+ * Features added or modified later go into a Quadtree, which can be updated.
+ * Loading a dataset therefore costs a single index build.</p>
+ */
+public class IndexedFeatureDataset extends FeatureDataset {
+    private static final long serialVersionUID = -3027562931843905426L;
+    //Where an Entry is indexed
+    private static final int NOT_INDEXED = 0; //it has an empty geometry
+    private static final int PENDING = 1;
+    private static final int PACKED = 2;
+    private static final int QUADTREE = 3;
+
+    private STRtree packedTree = null;
+    private Quadtree quadtree = new Quadtree();
+
+    //Entries that have not been put in either tree yet. An Entry that is
+    //unindexed while pending is not removed, but skipped by #indexPending.
+    private ArrayList pending = new ArrayList();
+
+    //Feature -> Entry, by identity: some Features (RecordFeature, the rows
+    //of a ColumnarFeatureCollection) are equal to other objects, and each
+    //object in the dataset needs its own Entry so that #query returns it
+    private IdentityHashMap entries = new IdentityHashMap();
+    private long nextSequence = 0;
+    private boolean indexChecked = true;
+
+    /**
+     * Creates an IndexedFeatureDataset, initialized with a group of Features.
+     * @param newFeatures an initial group of features to add to this IndexedFeatureDataset
+     * @param featureSchema the types of the attributes of the features in this collection
+     */
+    public IndexedFeatureDataset(Collection newFeatures, FeatureSchema featureSchema) {
+        super(newFeatures, featureSchema);
+        entries = new IdentityHashMap(newFeatures.size());
+        pending.ensureCapacity(newFeatures.size());
+
+        for (Iterator i = iterator(); i.hasNext();) {
+            insert((Feature) i.next());
+        }
+    }
+
+    /**
+     * Creates an IndexedFeatureDataset.
+     * @param featureSchema the types of the attributes of the features in this collection
+     */
+    public IndexedFeatureDataset(FeatureSchema featureSchema) {
+        this(new ArrayList(), featureSchema);
+    }
+
+    /**
+     * Returns an IndexedFeatureDataset with the Features of the given
+     * FeatureDataset, or the given FeatureCollection itself if it is not a
+     * plain FeatureDataset (it may already be indexed, or be backed by a file
+     * or database with its own means of querying).
+     */
+    public static FeatureCollection index(FeatureCollection featureCollection) {
+        if (featureCollection == null || featureCollection.getClass() != FeatureDataset.class) {
+            return featureCollection;
+        }
+
+        return new IndexedFeatureDataset(featureCollection.getFeatures(),
+            featureCollection.getFeatureSchema());
+    }
+
+    /**
+     *@return    a List containing the features whose envelopes intersect the
+     *      given envelope, in the order they were added
+     */
+    public List query(Envelope envelope) {
+        if (!envelope.intersects(getEnvelope())) {
+            return new ArrayList();
+        }
+
+        checkIndex();
+        indexPending();
+
+        // the index returns candidates, so test their envelopes as FeatureDataset does
+        ArrayList found = new ArrayList();
+        List candidates = quadtree.query(envelope);
+
+        if (packedTree != null) {
+            candidates.addAll(packedTree.query(envelope));
+        }
+
+        for (Iterator i = candidates.iterator(); i.hasNext();) {
+            Entry entry = (Entry) i.next();
+
+            if (entry.feature.getGeometry().getEnvelopeInternal().intersects(envelope)) {
+                found.add(entry);
+            }
+        }
+
+        Collections.sort(found);
+
+        ArrayList queryResult = new ArrayList(found.size());
+
+        for (Iterator i = found.iterator(); i.hasNext();) {
+            queryResult.add(((Entry) i.next()).feature);
+        }
+
+        return queryResult;
+    }
+
+    public void add(Feature feature) {
+        super.add(feature);
+        insert(feature);
+    }
+
+    public void addAll(Collection features) {
+        super.addAll(features);
+
+        for (Iterator i = features.iterator(); i.hasNext();) {
+            insert((Feature) i.next());
+        }
+    }
+
+    /**
+     * Unindexes the object that was removed, which may be equal to, but not
+     * the same as, the Feature passed to #remove or #removeAll.
+     */
+    protected void featureRemoved(Feature feature) {
+        Entry entry = (Entry) entries.get(feature);
+
+        if ((entry != null) && (--entry.count == 0)) {
+            delete(entry);
+        }
+    }
+
+    public void clear() {
+        super.clear();
+        packedTree = null;
+        quadtree = new Quadtree();
+        pending.clear();
+        entries.clear();
+    }
+
+    /**
+     * Clears the cached envelope and has the next query bring the index up to
+     * date with the Geometries of all Features. Call this method when a
+     * Feature's Geometry is modified, or #geometryModified if you know which
+     * Features were modified.
+     */
+    public void invalidateEnvelope() {
+        super.invalidateEnvelope();
+        indexChecked = false;
+    }
+
+    /**
+     * Updates the index after the Geometries of the given Features have been
+     * modified.
+     */
+    public void geometryModified(Collection features) {
+        super.invalidateEnvelope();
+
+        for (Iterator i = features.iterator(); i.hasNext();) {
+            Feature feature = (Feature) i.next();
+            Entry entry = (Entry) entries.get(feature);
+
+            if (entry != null) {
+                update(entry);
+            }
+        }
+    }
+
+    private void checkIndex() {
+        if (indexChecked) {
+            return;
+        }
+
+        for (Iterator i = entries.values().iterator(); i.hasNext();) {
+            update((Entry) i.next());
+        }
+
+        indexChecked = true;
+    }
+
+    private void insert(Feature feature) {
+        Entry entry = (Entry) entries.get(feature);
+
+        if (entry != null) {
+            //the same Feature was added twice
+            entry.count++;
+
+            return;
+        }
+
+        entry = new Entry(feature,
+                new Envelope(feature.getGeometry().getEnvelopeInternal()), nextSequence++);
+        entries.put(feature, entry);
+        index(entry);
+    }
+
+    private void update(Entry entry) {
+        Envelope current = entry.feature.getGeometry().getEnvelopeInternal();
+
+        if (current.equals(entry.envelope)) {
+            return;
+        }
+
+        unindex(entry);
+        entry.envelope = new Envelope(current);
+        index(entry);
+    }
+
+    private void delete(Entry entry) {
+        unindex(entry);
+        entries.remove(entry.feature);
+    }
+
+    private void index(Entry entry) {
+        if (entry.location != PENDING) {
+            entry.location = PENDING;
+            pending.add(entry);
+        }
+    }
+
+    private void unindex(Entry entry) {
+        switch (entry.location) {
+        case PENDING:
+            //skipped when the pending Entries are indexed
+            break;
+        case PACKED:
+            packedTree.remove(entry.envelope, entry);
+            break;
+        case QUADTREE:
+            quadtree.remove(entry.envelope, entry);
+            break;
+        }
+
+        entry.location = NOT_INDEXED;
+    }
+
+    /**
+     * Puts the pending Entries in the STRtree if it has not been built yet,
+     * otherwise in the Quadtree.
+     */
+    private void indexPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        boolean packing = packedTree == null;
+
+        if (packing) {
+            //IndexedFeatureCollection found 10 to be a good node capacity
+            packedTree = new STRtree(10);
+        }
+
+        for (Iterator i = pending.iterator(); i.hasNext();) {
+            Entry entry = (Entry) i.next();
+
+            if (entry.location != PENDING) {
+                continue;
+            }
+
+            //Empty geometries have a null envelope, which never intersects a query
+            if (entry.envelope.isNull()) {
+                entry.location = NOT_INDEXED;
+            } else if (packing) {
+                packedTree.insert(entry.envelope, entry);
+                entry.location = PACKED;
+            } else {
+                quadtree.insert(entry.envelope, entry);
+                entry.location = QUADTREE;
+            }
+        }
+
+        pending.clear();
+
+        if (packing) {
+            packedTree.build();
+        }
+    }
+
+    /**
+     * The envelope a Feature was indexed with, and its position in the dataset.
+     * These are the items in the Quadtree.
+     */
+    private static class Entry implements Comparable, Serializable {
+        private static final long serialVersionUID = 4925375219842460316L;
+        private Feature feature;
+        private Envelope envelope;
+        private long sequence;
+        private int count = 1;
+        private int location = NOT_INDEXED;
+
+        Entry(Feature feature, Envelope envelope, long sequence) {
+            this.feature = feature;
+            this.envelope = envelope;
+            this.sequence = sequence;
+        }
+
+        public int compareTo(Object o) {
+            long other = ((Entry) o).sequence;
+
+            return (sequence < other) ? (-1) : ((sequence == other) ? 0 : 1);
+        }
+    }
+}
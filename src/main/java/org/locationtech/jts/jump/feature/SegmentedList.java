@@ -0,0 +1,298 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.feature;
+
+import java.io.Serializable;
+import java.util.*;
+
+
+/**
+ * The List of Features of a FeatureDataset. The elements are stored in
+ * segments of at most #SEGMENT_SIZE, so that a snapshot only has to copy the
+ * table of segments, and the first change to a segment after a snapshot only
+ * copies that segment (copy-on-write).
+ * <p>
+ * Only appending, removing by index and clearing are supported. Removing an
+ * element shifts the rest of its segment; a segment that becomes empty is
+ * dropped from the table. A snapshot is itself a SegmentedList that cannot
+ * be modified.</p>
+ */
+class SegmentedList extends AbstractList implements RandomAccess, Serializable {
+    private static final long serialVersionUID = 3127394519327618014L;
+
+    /** The most elements a segment holds */
+    static final int SEGMENT_SIZE = 1024;
+
+    private Object[][] segments = new Object[0][];
+
+    //The number of elements in each segment, and the index of its first one
+    private int[] counts = new int[0];
+    private int[] starts = new int[0];
+
+    //The generation in which each segment was last copied. A segment of an
+    //older generation may be shared with a snapshot.
+    private int[] generations = new int[0];
+    private int generation = 0;
+    private int segmentCount = 0;
+    private int size = 0;
+    private boolean frozen = false;
+
+    //The last snapshot, as long as nothing has changed since
+    private transient SegmentedList snapshot = null;
+
+    //The segment last looked up by #get, to speed up sequential access
+    private transient int lastSegment = 0;
+
+    public SegmentedList() {
+    }
+
+    public SegmentedList(Collection c) {
+        addAll(c);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Object get(int index) {
+        if ((index < 0) || (index >= size)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        int segment = findSegment(index);
+
+        return segments[segment][index - starts[segment]];
+    }
+
+    private int findSegment(int index) {
+        int segment = lastSegment;
+
+        if ((segment < segmentCount) && (index >= starts[segment]) &&
+                (index < (starts[segment] + counts[segment]))) {
+            return segment;
+        }
+
+        if (((segment + 1) < segmentCount) && (index >= starts[segment + 1]) &&
+                (index < (starts[segment + 1] + counts[segment + 1]))) {
+            lastSegment = segment + 1;
+
+            return segment + 1;
+        }
+
+        int low = 0;
+        int high = segmentCount - 1;
+
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+
+            if (starts[middle] <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        lastSegment = low;
+
+        return low;
+    }
+
+    public boolean add(Object o) {
+        checkNotFrozen();
+
+        int last = segmentCount - 1;
+
+        if ((last < 0) || (counts[last] == SEGMENT_SIZE)) {
+            addSegment(new Object[(size < SEGMENT_SIZE) ? 10 : SEGMENT_SIZE]);
+            last++;
+        } else if (counts[last] == segments[last].length) {
+            Object[] grown = new Object[Math.min(SEGMENT_SIZE, 2 * counts[last])];
+            System.arraycopy(segments[last], 0, grown, 0, counts[last]);
+            segments[last] = grown;
+            generations[last] = generation;
+        }
+
+        writableSegment(last)[counts[last]++] = o;
+        size++;
+        changed();
+
+        return true;
+    }
+
+    public boolean addAll(Collection c) {
+        ensureCapacity(size + c.size());
+
+        for (Iterator i = c.iterator(); i.hasNext();) {
+            add(i.next());
+        }
+
+        return !c.isEmpty();
+    }
+
+    public Object remove(int index) {
+        checkNotFrozen();
+
+        Object removed = get(index);
+        int segment = findSegment(index);
+        Object[] elements = writableSegment(segment);
+        int offset = index - starts[segment];
+        System.arraycopy(elements, offset + 1, elements, offset, counts[segment] - offset - 1);
+        elements[--counts[segment]] = null;
+        size--;
+
+        for (int i = segment + 1; i < segmentCount; i++) {
+            starts[i]--;
+        }
+
+        if (counts[segment] == 0) {
+            removeSegment(segment);
+        }
+
+        changed();
+
+        return removed;
+    }
+
+    public void clear() {
+        checkNotFrozen();
+        segments = new Object[0][];
+        counts = new int[0];
+        starts = new int[0];
+        generations = new int[0];
+        segmentCount = 0;
+        size = 0;
+        lastSegment = 0;
+        changed();
+    }
+
+    /**
+     * Makes room in the table of segments for the given number of elements.
+     */
+    public void ensureCapacity(int minCapacity) {
+        int minSegments = (minCapacity + SEGMENT_SIZE - 1) / SEGMENT_SIZE;
+
+        if (minSegments > segments.length) {
+            setTableLength(minSegments);
+        }
+    }
+
+    /**
+     * Returns an unmodifiable copy of this list. Only the table of segments is
+     * copied, and not at all if nothing has changed since the last snapshot.
+     */
+    public SegmentedList snapshot() {
+        if (frozen) {
+            return this;
+        }
+
+        if (snapshot == null) {
+            snapshot = new SegmentedList();
+            snapshot.segments = copyOf(segments, segmentCount);
+            snapshot.counts = copyOf(counts, segmentCount);
+            snapshot.starts = copyOf(starts, segmentCount);
+            snapshot.generations = new int[segmentCount];
+            snapshot.segmentCount = segmentCount;
+            snapshot.size = size;
+            snapshot.frozen = true;
+
+            //Every segment is now shared with the snapshot
+            generation++;
+        }
+
+        return snapshot;
+    }
+
+    private Object[] writableSegment(int segment) {
+        if (generations[segment] != generation) {
+            segments[segment] = segments[segment].clone();
+            generations[segment] = generation;
+        }
+
+        return segments[segment];
+    }
+
+    private void addSegment(Object[] elements) {
+        if (segmentCount == segments.length) {
+            setTableLength(Math.max(4, 2 * segmentCount));
+        }
+
+        segments[segmentCount] = elements;
+        counts[segmentCount] = 0;
+        starts[segmentCount] = size;
+        generations[segmentCount] = generation;
+        segmentCount++;
+    }
+
+    private void removeSegment(int segment) {
+        int moved = segmentCount - segment - 1;
+        System.arraycopy(segments, segment + 1, segments, segment, moved);
+        System.arraycopy(counts, segment + 1, counts, segment, moved);
+        System.arraycopy(starts, segment + 1, starts, segment, moved);
+        System.arraycopy(generations, segment + 1, generations, segment, moved);
+        segmentCount--;
+        segments[segmentCount] = null;
+    }
+
+    private void setTableLength(int length) {
+        segments = copyOf(segments, length);
+        counts = copyOf(counts, length);
+        starts = copyOf(starts, length);
+        generations = copyOf(generations, length);
+    }
+
+    private void changed() {
+        modCount++;
+        snapshot = null;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("A snapshot cannot be modified");
+        }
+    }
+
+    private static Object[][] copyOf(Object[][] array, int length) {
+        Object[][] copy = new Object[length][];
+        System.arraycopy(array, 0, copy, 0, Math.min(length, array.length));
+
+        return copy;
+    }
+
+    private static int[] copyOf(int[] array, int length) {
+        int[] copy = new int[length];
+        System.arraycopy(array, 0, copy, 0, Math.min(length, array.length));
+
+        return copy;
+    }
+}
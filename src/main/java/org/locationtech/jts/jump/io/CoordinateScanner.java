@@ -0,0 +1,369 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.io;
+
+import java.util.List;
+
+import org.locationtech.jts.geom.Coordinate;
+
+
+/**
+ * Parses the coordinates in the body of a gml:coordinates, gml:posList or
+ * gml:pos element straight from the character buffers that SAX hands to
+ * ContentHandler#characters, without building a String for the body or for
+ * each number. The buffers may split the body anywhere, even in the middle
+ * of a number. The ordinates are collected in a double array that is reused
+ * for every element.
+ * <p>
+ * Numbers of up to 15 or 16 digits with a small exponent, which is what
+ * coordinates usually look like, are converted exactly without going
+ * through Double#parseDouble; others are handed to Double#parseDouble.</p>
+ */
+class CoordinateScanner {
+    //Powers of ten that are exact doubles
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    //Largest mantissa that is an exact double
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private char coordinateSeparator;
+    private char tupleSeparator;
+    private char decimal;
+    private boolean tupleSeparatorIsWhitespace;
+
+    //0 for gml:coordinates, where the separators delimit the tuples;
+    //otherwise the number of ordinates in each (whitespace separated) tuple
+    private int dimension;
+
+    //x, y and z of each tuple; z is NaN when a tuple has no z
+    private double[] ordinates = new double[3 * 64];
+    private int tupleCount = 0;
+
+    //ordinates read so far in the current tuple of gml:coordinates, or in
+    //all tuples of gml:posList
+    private int ordinateCount = 0;
+
+    private char[] number = new char[32];
+    private int numberLength = 0;
+
+    /**
+     * Starts the body of a gml:coordinates element.
+     * @param cs the separator between the ordinates of a tuple
+     * @param ts the separator between tuples
+     * @param decimal the decimal point
+     */
+    public void startCoordinates(char cs, char ts, char decimal) {
+        if ((cs == ts) || (cs == decimal) || (ts == decimal)) {
+            throw new IllegalArgumentException(
+                "GML error - the cs, ts and decimal attributes must differ");
+        }
+
+        coordinateSeparator = cs;
+        tupleSeparator = ts;
+        this.decimal = decimal;
+        tupleSeparatorIsWhitespace = Character.isWhitespace(ts);
+        dimension = 0;
+        clear();
+    }
+
+    /**
+     * Starts the body of a gml:posList (or, with a dimension of 0, a
+     * gml:pos) element, in which all numbers are separated by whitespace.
+     * @param dimension the number of ordinates in each tuple, or 0 if the
+     *      body is a single tuple
+     */
+    public void startPositions(int dimension) {
+        if ((dimension < 0) || (dimension > 3)) {
+            throw new IllegalArgumentException(
+                "GML error - only 2 and 3 dimensional coordinates are supported, got " +
+                dimension);
+        }
+
+        coordinateSeparator = ' ';
+        tupleSeparator = ' ';
+        decimal = '.';
+        tupleSeparatorIsWhitespace = true;
+        this.dimension = (dimension == 0) ? Integer.MAX_VALUE : dimension;
+        clear();
+    }
+
+    private void clear() {
+        tupleCount = 0;
+        ordinateCount = 0;
+        numberLength = 0;
+    }
+
+    /**
+     * Parses part of the element body.
+     */
+    public void scan(char[] ch, int start, int length) {
+        for (int i = start; i < (start + length); i++) {
+            char c = ch[i];
+
+            if (dimension != 0) {
+                if (isWhitespace(c)) {
+                    endNumber();
+                } else {
+                    appendToNumber(c);
+                }
+            } else if ((c == tupleSeparator) ||
+                    (tupleSeparatorIsWhitespace && isWhitespace(c))) {
+                endNumber();
+                endTuple();
+            } else if (c == coordinateSeparator) {
+                endNumber();
+            } else if (!isWhitespace(c)) {
+                appendToNumber((c == decimal) ? '.' : c);
+            }
+        }
+    }
+
+    private static boolean isWhitespace(char c) {
+        return (c == ' ') || (c == '\n') || (c == '\r') || (c == '\t');
+    }
+
+    private void appendToNumber(char c) {
+        if (numberLength == number.length) {
+            char[] newNumber = new char[number.length * 2];
+            System.arraycopy(number, 0, newNumber, 0, numberLength);
+            number = newNumber;
+        }
+
+        number[numberLength++] = c;
+    }
+
+    private void endNumber() {
+        if (numberLength == 0) {
+            return;
+        }
+
+        double value = parseDouble(number, numberLength);
+        numberLength = 0;
+
+        if (dimension == 0) {
+            //like the StringTokenizer this replaces, ignore ordinates after z
+            if (ordinateCount < 3) {
+                ensureTupleCapacity();
+                ordinates[(3 * tupleCount) + ordinateCount] = value;
+            }
+
+            ordinateCount++;
+
+            return;
+        }
+
+        int tupleOrdinate = ordinateCount % dimension;
+
+        if (tupleOrdinate == 0) {
+            ensureTupleCapacity();
+            ordinates[(3 * tupleCount) + 2] = Double.NaN;
+            tupleCount++;
+        }
+
+        if (tupleOrdinate >= 3) {
+            throw new IllegalArgumentException(
+                "GML error - only 2 and 3 dimensional coordinates are supported");
+        }
+
+        ordinates[(3 * (tupleCount - 1)) + tupleOrdinate] = value;
+        ordinateCount++;
+    }
+
+    private void endTuple() {
+        if (ordinateCount == 0) {
+            return;
+        }
+
+        if (ordinateCount < 2) {
+            throw new IllegalArgumentException(
+                "GML error - coordinate list isnt valid GML. Watch your spaces and commas!");
+        }
+
+        if (ordinateCount == 2) {
+            ordinates[(3 * tupleCount) + 2] = Double.NaN;
+        }
+
+        tupleCount++;
+        ordinateCount = 0;
+    }
+
+    private void ensureTupleCapacity() {
+        if ((3 * (tupleCount + 1)) > ordinates.length) {
+            double[] newOrdinates = new double[ordinates.length * 2];
+            System.arraycopy(ordinates, 0, newOrdinates, 0, 3 * tupleCount);
+            ordinates = newOrdinates;
+        }
+    }
+
+    /**
+     * Finishes the element body and adds a Coordinate for each tuple to the
+     * list.
+     */
+    public void end(List coordinates) {
+        endNumber();
+
+        if (dimension == 0) {
+            endTuple();
+        } else if (dimension == Integer.MAX_VALUE) {
+            if (ordinateCount == 1) {
+                throw new IllegalArgumentException(
+                    "GML error - a position needs at least 2 ordinates");
+            }
+        } else if ((ordinateCount % dimension) != 0) {
+            throw new IllegalArgumentException("GML error - the number of ordinates (" +
+                ordinateCount + ") is not a multiple of the dimension (" + dimension + ")");
+        }
+
+        for (int i = 0; i < tupleCount; i++) {
+            coordinates.add(new Coordinate(ordinates[3 * i], ordinates[(3 * i) + 1],
+                    ordinates[(3 * i) + 2]));
+        }
+
+        clear();
+    }
+
+    /**
+     * Converts the characters to a double as Double#parseDouble would.
+     * Decimal numbers with a mantissa below 2^53 and an exponent of at most
+     * 22 are exact doubles divided or multiplied by an exact power of ten,
+     * which IEEE arithmetic rounds correctly (Clinger's fast path).
+     */
+    static double parseDouble(char[] chars, int length) {
+        int i = 0;
+        boolean negative = false;
+
+        if ((i < length) && ((chars[i] == '-') || (chars[i] == '+'))) {
+            negative = chars[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigits = false;
+        boolean point = false;
+
+        for (; i < length; i++) {
+            char c = chars[i];
+
+            if ((c >= '0') && (c <= '9')) {
+                anyDigits = true;
+
+                if ((mantissa == 0) && (c == '0')) {
+                    //leading zeros are not significant
+                } else if (digits < 18) {
+                    mantissa = (mantissa * 10) + (c - '0');
+                    digits++;
+                } else {
+                    return slowParseDouble(chars, length);
+                }
+
+                if (point) {
+                    exponent--;
+                }
+            } else if ((c == '.') && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+
+        if (!anyDigits) {
+            return slowParseDouble(chars, length);
+        }
+
+        if (i < length) {
+            if ((chars[i] != 'e') && (chars[i] != 'E')) {
+                return slowParseDouble(chars, length);
+            }
+
+            i++;
+
+            boolean negativeExponent = false;
+
+            if ((i < length) && ((chars[i] == '-') || (chars[i] == '+'))) {
+                negativeExponent = chars[i] == '-';
+                i++;
+            }
+
+            if ((i == length) || ((length - i) > 3)) {
+                return slowParseDouble(chars, length);
+            }
+
+            int explicitExponent = 0;
+
+            for (; i < length; i++) {
+                char c = chars[i];
+
+                if ((c < '0') || (c > '9')) {
+                    return slowParseDouble(chars, length);
+                }
+
+                explicitExponent = (explicitExponent * 10) + (c - '0');
+            }
+
+            exponent += (negativeExponent ? (-explicitExponent) : explicitExponent);
+        }
+
+        if (mantissa >= MAX_EXACT_MANTISSA) {
+            return slowParseDouble(chars, length);
+        }
+
+        double value;
+
+        if (mantissa == 0) {
+            value = 0;
+        } else if ((exponent >= 0) && (exponent < POWERS_OF_TEN.length)) {
+            value = mantissa * POWERS_OF_TEN[exponent];
+        } else if ((exponent < 0) && (-exponent < POWERS_OF_TEN.length)) {
+            value = mantissa / POWERS_OF_TEN[-exponent];
+        } else {
+            return slowParseDouble(chars, length);
+        }
+
+        return negative ? (-value) : value;
+    }
+
+    private static double slowParseDouble(char[] chars, int length) {
+        return Double.parseDouble(new String(chars, 0, length));
+    }
+}
@@ -0,0 +1,503 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+package org.locationtech.jts.jump.io;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+import org.locationtech.jts.geom.*;
+import org.locationtech.jts.io.WKBReader;
+import org.locationtech.jts.io.WKBWriter;
+import org.locationtech.jts.jump.feature.*;
+
+
+/**
+ * A FeatureCollection that keeps its Features in a temporary file instead of
+ * on the heap, for datasets that are larger than the heap. Readers can add
+ * Features to it one at a time as they are parsed (see the SpillToDisk
+ * property of {@link GMLReader}).
+ * <p>
+ * Each Feature is serialized when it is added: the Geometry as WKB and the
+ * other attributes in a simple binary form. A second file holds the offset
+ * and bounding box of every Feature, and for every block of
+ * {@link #BLOCK_SIZE} Features the bounds of the block are kept on the heap,
+ * so that #query only reads the boxes of the blocks that intersect the
+ * envelope. Both files are read through memory-mapped chunks. Like
+ * {@link ShapefileFeatureCollection}, the most recently used Features are
+ * cached and Features are otherwise decoded on demand, so the same Feature
+ * may be returned as different objects. These objects have the same ID and
+ * are equal.</p>
+ * <p>
+ * Features can be added but not removed. The returned Features cannot be
+ * modified (an UnsupportedOperationException is thrown); #clone returns a
+ * modifiable BasicFeature. The files are deleted by #close, or else when the
+ * virtual machine exits.</p>
+ */
+public class DiskFeatureCollection implements FeatureCollection, Closeable {
+    /** The default number of decoded Features kept on the heap */
+    public static final int DEFAULT_CACHE_SIZE = 10000;
+
+    /** The number of Features whose bounds are combined on the heap */
+    public static final int BLOCK_SIZE = 256;
+
+    //Per Feature in the index file: long offset, double minx, miny, maxx, maxy
+    private static final int ENTRY_LENGTH = 40;
+
+    //Features get their IDs in blocks of this many
+    private static final int ID_BLOCK_SIZE = 4096;
+
+    //Tags of the attribute values
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int INTEGER = 2;
+    private static final int DOUBLE = 3;
+    private static final int DATE = 4;
+    private static final int GEOMETRY = 5;
+    private static final int OBJECT = 6;
+
+    private FeatureSchema featureSchema;
+    private GeometryFactory geometryFactory;
+    private MappedStore data;
+    private MappedStore index;
+    private int size = 0;
+    private Envelope envelope = new Envelope();
+
+    //minx, miny, maxx, maxy of each block; the empty block is +inf, +inf, -inf, -inf
+    private double[] blockBounds = new double[0];
+    private long[] idBlocks = new long[0];
+    private Map cache;
+    private List features = new FeatureList();
+    private ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+    private DataOutputStream record = new DataOutputStream(recordBytes);
+
+    /**
+     * Creates an empty DiskFeatureCollection in the default temporary-file
+     * directory.
+     */
+    public DiskFeatureCollection(FeatureSchema featureSchema) throws IOException {
+        this(featureSchema, new GeometryFactory(), null, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates an empty DiskFeatureCollection.
+     * @param geometryFactory creates the Geometries when Features are decoded
+     * @param directory where to put the files, or null for the default
+     *      temporary-file directory
+     * @param cacheSize the number of decoded Features to keep on the heap
+     */
+    public DiskFeatureCollection(FeatureSchema featureSchema,
+        GeometryFactory geometryFactory, File directory, final int cacheSize)
+        throws IOException {
+        this.featureSchema = featureSchema;
+        this.geometryFactory = geometryFactory;
+        data = new MappedStore(File.createTempFile("features", ".dat", directory), 1 << 26);
+        try {
+            index = new MappedStore(File.createTempFile("features", ".idx", directory),
+                    ENTRY_LENGTH * BLOCK_SIZE * 4096);
+        } catch (IOException e) {
+            data.close();
+            throw e;
+        }
+        cache = new LinkedHashMap(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public FeatureSchema getFeatureSchema() {
+        return featureSchema;
+    }
+
+    public synchronized Envelope getEnvelope() {
+        return new Envelope(envelope);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns a read-only List that decodes its Features on demand.
+     */
+    public List getFeatures() {
+        return features;
+    }
+
+    public Iterator iterator() {
+        return features.iterator();
+    }
+
+    /**
+     * Returns the Feature at the given index (zero-based).
+     */
+    public synchronized Feature getFeature(int i) {
+        if ((i < 0) || (i >= size)) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+        Integer key = new Integer(i);
+        Feature feature = (Feature) cache.get(key);
+        if (feature == null) {
+            try {
+                feature = readFeature(i);
+            } catch (Exception e) {
+                throw new RuntimeException("Error reading feature " + i + " from " +
+                    data.getFile(), e);
+            }
+            cache.put(key, feature);
+        }
+        return feature;
+    }
+
+    public synchronized List query(Envelope envelope) {
+        ArrayList queryResult = new ArrayList();
+        if (!envelope.intersects(this.envelope)) {
+            return queryResult;
+        }
+        try {
+            for (int block = 0; (block * BLOCK_SIZE) < size; block++) {
+                if (!intersects(envelope, blockBounds, 4 * block)) {
+                    continue;
+                }
+                int first = block * BLOCK_SIZE;
+                int count = Math.min(BLOCK_SIZE, size - first);
+                ByteBuffer entries = index.read((long) first * ENTRY_LENGTH,
+                        count * ENTRY_LENGTH);
+                for (int i = 0; i < count; i++) {
+                    int pos = (i * ENTRY_LENGTH) + 8;
+                    if (entries.getDouble(pos) <= envelope.getMaxX() &&
+                            entries.getDouble(pos + 16) >= envelope.getMinX() &&
+                            entries.getDouble(pos + 8) <= envelope.getMaxY() &&
+                            entries.getDouble(pos + 24) >= envelope.getMinY()) {
+                        queryResult.add(getFeature(first + i));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return queryResult;
+    }
+
+    private static boolean intersects(Envelope envelope, double[] bounds, int i) {
+        return bounds[i] <= envelope.getMaxX() && bounds[i + 2] >= envelope.getMinX() &&
+            bounds[i + 1] <= envelope.getMaxY() && bounds[i + 3] >= envelope.getMinY();
+    }
+
+    /**
+     * Writes the Feature to the end of the file. The Feature itself is not
+     * kept.
+     */
+    public synchronized void add(Feature feature) {
+        Geometry geometry = feature.getGeometry();
+        Envelope bounds = geometry == null ? new Envelope() : geometry.getEnvelopeInternal();
+        try {
+            recordBytes.reset();
+            for (int i = 0; i < featureSchema.getAttributeCount(); i++) {
+                writeValue(feature.getAttribute(i));
+            }
+            long offset = data.append(ByteBuffer.wrap(recordBytes.toByteArray()));
+
+            ByteBuffer entry = ByteBuffer.allocate(ENTRY_LENGTH);
+            entry.putLong(offset);
+            if (bounds.isNull()) {
+                entry.putDouble(Double.POSITIVE_INFINITY).putDouble(Double.POSITIVE_INFINITY)
+                     .putDouble(Double.NEGATIVE_INFINITY).putDouble(Double.NEGATIVE_INFINITY);
+            } else {
+                entry.putDouble(bounds.getMinX()).putDouble(bounds.getMinY())
+                     .putDouble(bounds.getMaxX()).putDouble(bounds.getMaxY());
+            }
+            entry.flip();
+            index.append(entry);
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing to " + data.getFile(), e);
+        }
+
+        int block = size / BLOCK_SIZE;
+        if ((size % BLOCK_SIZE) == 0) {
+            double[] grown = new double[4 * (block + 1)];
+            System.arraycopy(blockBounds, 0, grown, 0, blockBounds.length);
+            grown[4 * block] = grown[4 * block + 1] = Double.POSITIVE_INFINITY;
+            grown[4 * block + 2] = grown[4 * block + 3] = Double.NEGATIVE_INFINITY;
+            blockBounds = grown;
+        }
+        if ((size % ID_BLOCK_SIZE) == 0) {
+            long[] grown = new long[idBlocks.length + 1];
+            System.arraycopy(idBlocks, 0, grown, 0, idBlocks.length);
+            grown[idBlocks.length] = FeatureUtil.nextIDs(ID_BLOCK_SIZE);
+            idBlocks = grown;
+        }
+        if (!bounds.isNull()) {
+            blockBounds[4 * block] = Math.min(blockBounds[4 * block], bounds.getMinX());
+            blockBounds[4 * block + 1] = Math.min(blockBounds[4 * block + 1], bounds.getMinY());
+            blockBounds[4 * block + 2] = Math.max(blockBounds[4 * block + 2], bounds.getMaxX());
+            blockBounds[4 * block + 3] = Math.max(blockBounds[4 * block + 3], bounds.getMaxY());
+            envelope.expandToInclude(bounds);
+        }
+        size++;
+    }
+
+    public void addAll(Collection features) {
+        for (Iterator i = features.iterator(); i.hasNext();) {
+            add((Feature) i.next());
+        }
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            record.writeByte(NULL);
+        } else if (value instanceof String) {
+            byte[] bytes = ((String) value).getBytes("UTF-8");
+            record.writeByte(STRING);
+            record.writeInt(bytes.length);
+            record.write(bytes);
+        } else if (value instanceof Integer) {
+            record.writeByte(INTEGER);
+            record.writeInt(((Integer) value).intValue());
+        } else if (value instanceof Double) {
+            record.writeByte(DOUBLE);
+            record.writeDouble(((Double) value).doubleValue());
+        } else if (value.getClass() == Date.class) {
+            record.writeByte(DATE);
+            record.writeLong(((Date) value).getTime());
+        } else if (value instanceof Geometry) {
+            Geometry geometry = (Geometry) value;
+            byte[] bytes = new WKBWriter(hasZ(geometry) ? 3 : 2, true).write(geometry);
+            record.writeByte(GEOMETRY);
+            record.writeInt(bytes.length);
+            record.write(bytes);
+        } else {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(value);
+            out.close();
+            record.writeByte(OBJECT);
+            record.writeInt(bytes.size());
+            bytes.writeTo(record);
+        }
+    }
+
+    private static boolean hasZ(Geometry geometry) {
+        final boolean[] hasZ = new boolean[] { false };
+        geometry.apply(new CoordinateSequenceFilter() {
+            public void filter(CoordinateSequence seq, int i) {
+                if (seq.getDimension() > 2 && !Double.isNaN(seq.getOrdinate(i, CoordinateSequence.Z))) {
+                    hasZ[0] = true;
+                }
+            }
+
+            public boolean isDone() {
+                return hasZ[0];
+            }
+
+            public boolean isGeometryChanged() {
+                return false;
+            }
+        });
+        return hasZ[0];
+    }
+
+    private Feature readFeature(int i) throws Exception {
+        long offset = index.read((long) i * ENTRY_LENGTH, 8).getLong(0);
+        long end = (i + 1 < size) ? index.read((long) (i + 1) * ENTRY_LENGTH, 8).getLong(0)
+                                  : data.getLength();
+        ByteBuffer buffer = data.read(offset, (int) (end - offset));
+
+        Object[] attributes = new Object[featureSchema.getAttributeCount()];
+        for (int j = 0; j < attributes.length; j++) {
+            attributes[j] = readValue(buffer);
+        }
+        return new RecordFeature(this, i,
+            idBlocks[i / ID_BLOCK_SIZE] + (i % ID_BLOCK_SIZE), attributes);
+    }
+
+    private Object readValue(ByteBuffer buffer) throws Exception {
+        int tag = buffer.get();
+        switch (tag) {
+        case NULL:
+            return null;
+        case STRING:
+            return new String(readBytes(buffer), "UTF-8");
+        case INTEGER:
+            return new Integer(buffer.getInt());
+        case DOUBLE:
+            return new Double(buffer.getDouble());
+        case DATE:
+            return new Date(buffer.getLong());
+        case GEOMETRY:
+            return new WKBReader(geometryFactory).read(readBytes(buffer));
+        case OBJECT:
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(readBytes(buffer)));
+            try {
+                return in.readObject();
+            } finally {
+                in.close();
+            }
+        default:
+            throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Closes and deletes the files. The collection cannot be used afterwards.
+     */
+    public synchronized void close() throws IOException {
+        cache.clear();
+        try {
+            data.close();
+        } finally {
+            index.close();
+        }
+    }
+
+    public void removeAll(Collection features) {
+        throw new UnsupportedOperationException("DiskFeatureCollection is append-only");
+    }
+
+    public void remove(Feature feature) {
+        throw new UnsupportedOperationException("DiskFeatureCollection is append-only");
+    }
+
+    public void clear() {
+        throw new UnsupportedOperationException("DiskFeatureCollection is append-only");
+    }
+
+    public Collection remove(Envelope env) {
+        throw new UnsupportedOperationException("DiskFeatureCollection is append-only");
+    }
+
+    private class FeatureList extends AbstractList implements RandomAccess {
+        public Object get(int index) {
+            return getFeature(index);
+        }
+
+        public int size() {
+            return DiskFeatureCollection.this.size();
+        }
+    }
+
+    /**
+     * A file that is appended to, and read through memory-mapped chunks of a
+     * fixed size. A chunk is mapped once it has been written completely;
+     * reads from the last chunk, or across two chunks, go through the
+     * channel.
+     */
+    private static class MappedStore {
+        private File file;
+        private RandomAccessFile raf;
+        private FileChannel channel;
+        private int chunkSize;
+        private ArrayList chunks = new ArrayList();
+        private long length = 0;
+
+        MappedStore(File file, int chunkSize) throws IOException {
+            this.file = file;
+            this.chunkSize = chunkSize;
+            file.deleteOnExit();
+            raf = new RandomAccessFile(file, "rw");
+            channel = raf.getChannel();
+        }
+
+        File getFile() {
+            return file;
+        }
+
+        long getLength() {
+            return length;
+        }
+
+        /**
+         * Writes the remaining bytes of the buffer to the end of the file.
+         * @return the position they were written at
+         */
+        long append(ByteBuffer buffer) throws IOException {
+            long offset = length;
+            while (buffer.hasRemaining()) {
+                length += channel.write(buffer, length);
+            }
+            return offset;
+        }
+
+        /**
+         * Returns a buffer with the given bytes, positioned at 0.
+         */
+        ByteBuffer read(long offset, int count) throws IOException {
+            int chunk = (int) (offset / chunkSize);
+            long chunkStart = (long) chunk * chunkSize;
+            if (offset + count <= chunkStart + chunkSize && chunkStart + chunkSize <= length) {
+                while (chunks.size() <= chunk) {
+                    chunks.add(null);
+                }
+                ByteBuffer mapped = (ByteBuffer) chunks.get(chunk);
+                if (mapped == null) {
+                    mapped = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkSize);
+                    chunks.set(chunk, mapped);
+                }
+                ByteBuffer slice = mapped.duplicate();
+                slice.position((int) (offset - chunkStart));
+                slice.limit((int) (offset - chunkStart) + count);
+                return slice.slice();
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(count);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new EOFException("Unexpected end of " + file);
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        /**
+         * Closes and deletes the file. The mapped memory is released once it
+         * is garbage collected, so on some platforms the file is only deleted
+         * on exit.
+         */
+        void close() throws IOException {
+            chunks.clear();
+            raf.close();
+            file.delete();
+        }
+    }
+}
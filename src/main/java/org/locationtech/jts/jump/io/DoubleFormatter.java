@@ -0,0 +1,164 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.io;
+
+
+/**
+ * Writes doubles into a char array as Double#toString would, for writers
+ * that output many coordinates and should not build a String for each.
+ * <p>
+ * A number between 0.001 and 10^7 that has a short exact decimal form (as
+ * coordinates with a fixed number of decimals do) is written directly. The
+ * decimal is found by scaling by a power of ten and rounding, and is
+ * checked by dividing back, which IEEE arithmetic does exactly for these
+ * sizes (the reverse of Clinger's fast path in CoordinateScanner). Other
+ * numbers are formatted by a StringBuilder that is reused for every number.
+ * </p>
+ * A DoubleFormatter is not thread-safe.
+ */
+class DoubleFormatter {
+    /** The most chars #format writes */
+    static final int MAX_LENGTH = 26;
+
+    //Powers of ten that are exact doubles
+    private static final double[] POWERS_OF_TEN = new double[23];
+    private static final long[] LONG_POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        LONG_POWERS_OF_TEN[0] = 1;
+
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+
+        for (int i = 1; i < LONG_POWERS_OF_TEN.length; i++) {
+            LONG_POWERS_OF_TEN[i] = LONG_POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    //Below 2^50 the values that round to a double, scaled by the power of ten,
+    //span less than 1/4, so at most one integer is among them and rounding
+    //the scaled double finds it
+    private static final double MAX_SCALED = (double) (1L << 50);
+
+    //Largest number of decimals looked for
+    private static final int MAX_DECIMALS = 17;
+
+    private StringBuilder scratch = new StringBuilder(MAX_LENGTH);
+
+    /**
+     * Writes the double at the offset, which must leave room for
+     * #MAX_LENGTH chars, and returns the offset after it.
+     */
+    int format(double d, char[] buffer, int offset) {
+        double abs = Math.abs(d);
+
+        if ((abs >= 1e-3) && (abs < 1e7)) {
+            int decimals = MAX_DECIMALS;
+
+            while ((decimals > 0) && ((abs * POWERS_OF_TEN[decimals]) >= MAX_SCALED)) {
+                decimals--;
+            }
+
+            if ((decimals > 0) && isExact(abs, decimals)) {
+                //A decimal with k places that is exact also is with k + 1, so
+                //search for the fewest
+                int low = 1;
+
+                while (low < decimals) {
+                    int middle = (low + decimals) >>> 1;
+
+                    if (isExact(abs, middle)) {
+                        decimals = middle;
+                    } else {
+                        low = middle + 1;
+                    }
+                }
+
+                if (d < 0) {
+                    buffer[offset++] = '-';
+                }
+
+                return writeDecimal((long) Math.rint(abs * POWERS_OF_TEN[decimals]),
+                    decimals, buffer, offset);
+            }
+        }
+
+        scratch.setLength(0);
+        scratch.append(d);
+        scratch.getChars(0, scratch.length(), buffer, offset);
+
+        return offset + scratch.length();
+    }
+
+    /**
+     * Returns whether the number with the given number of decimals reads back
+     * as the double.
+     */
+    private static boolean isExact(double abs, int decimals) {
+        return (Math.rint(abs * POWERS_OF_TEN[decimals]) / POWERS_OF_TEN[decimals]) == abs;
+    }
+
+    private static int writeDecimal(long scaled, int decimals, char[] buffer,
+        int offset) {
+        long integerPart = scaled / LONG_POWERS_OF_TEN[decimals];
+        long fraction = scaled - (integerPart * LONG_POWERS_OF_TEN[decimals]);
+
+        offset = writeDigits(integerPart, 1, buffer, offset);
+        buffer[offset++] = '.';
+
+        return writeDigits(fraction, decimals, buffer, offset);
+    }
+
+    //Writes the number with at least the given number of digits (zero-padded)
+    private static int writeDigits(long value, int minDigits, char[] buffer,
+        int offset) {
+        int digits = 1;
+
+        while ((digits < LONG_POWERS_OF_TEN.length) &&
+                (value >= LONG_POWERS_OF_TEN[digits])) {
+            digits++;
+        }
+
+        digits = Math.max(digits, minDigits);
+
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + (value % 10));
+            value /= 10;
+        }
+
+        return offset + digits;
+    }
+}
@@ -38,123 +38,219 @@
 
 package org.locationtech.jts.jump.io;
 
-import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
-import java.io.BufferedInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.InvalidMarkException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 
 /**
  *  A class that gives most of the functionality of DataInputStream, but is endian aware.
- *  Uses a real java.io.DataInputStream to actually do the writing.
+ *  Reads through a ByteBuffer, switching its ByteOrder for big and little
+ *  endian values, that is refilled from the underlying stream when it runs
+ *  out. Runs of doubles (coordinates) can be read in one call with
+ *  {@link #readDoublesLE(double[], int, int)}.
  */
 public class EndianDataInputStream {
-    private java.io.DataInputStream inputStream;
-    private byte[] workSpace = new byte[8]; //chars are 16 bits, so we always quash the 1st 8 bits
+    /** Size of the buffer used when reading from a stream */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private ReadableByteChannel channel; // null when reading from a ByteBuffer
+    private ByteBuffer buffer;
 
     /** Creates new EndianDataInputStream */
     public EndianDataInputStream(java.io.InputStream in) {
-        inputStream = new DataInputStream(new BufferedInputStream(in));
+        channel = Channels.newChannel(in);
+        // not a direct buffer: many of these streams are short-lived, and
+        // direct memory is only released by the garbage collector
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        buffer.limit(0);
+    }
+
+    /**
+     * Creates new EndianDataInputStream that reads the remaining bytes of
+     * the given buffer, starting at its current position. The position and
+     * byte order of the given buffer are not changed.
+     */
+    public EndianDataInputStream(ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+    }
+
+    /**
+     * Makes sure at least <code>n</code> bytes (at most the size of the
+     * buffer) can be read from the buffer.
+     * @exception EOFException if the end of the stream comes first
+     */
+    private void require(int n) throws IOException {
+        if (buffer.remaining() < n && fill(n) < n) {
+            throw new EOFException();
+        }
+    }
+
+    /**
+     * Reads from the stream until at least <code>n</code> bytes are buffered
+     * or the end of the stream is reached.
+     * @return the number of bytes buffered
+     */
+    private int fill(int n) throws IOException {
+        if (channel == null) {
+            return buffer.remaining();
+        }
+        buffer.compact();
+        try {
+            while (buffer.position() < n) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+        } finally {
+            buffer.flip();
+        }
+        return buffer.remaining();
     }
 
     /** close the stream**/
     public void close() throws IOException {
-        inputStream.close();
+        if (channel != null) {
+            channel.close();
+        }
     }
 
     /** read a byte in BigEndian - the same as LE because its only 1 byte*/
     public byte readByteBE() throws IOException {
-        return inputStream.readByte();
+        require(1);
+        return buffer.get();
     }
 
     /** read a byte in LittleEndian - the same as BE because its only 1 byte*/
     public byte readByteLE() throws IOException {
-        return inputStream.readByte();
+        require(1);
+        return buffer.get();
     }
     
      /** read a byte in LittleEndian - the same as BE because its only 1 byte*/
     public void readByteLEnum(byte[] b) throws IOException {
-        inputStream.readFully(b);
+        int off = 0;
+        while (off < b.length) {
+            require(1);
+            int n = Math.min(b.length - off, buffer.remaining());
+            buffer.get(b, off, n);
+            off += n;
+        }
     }
     
 
     /** read a byte in BigEndian - the same as LE because its only 1 byte.  returns int as per java.io.DataStream*/
     public int readUnsignedByteBE() throws IOException {
-        return inputStream.readUnsignedByte();
+        require(1);
+        return buffer.get() & 0xff;
     }
 
     /** read a byte in LittleEndian - the same as BE because its only 1 byte.  returns int as per java.io.DataStream*/
     public int readUnsignedByteLE() throws IOException {
-        return inputStream.readUnsignedByte();
+        require(1);
+        return buffer.get() & 0xff;
     }
 
     /** read a 16bit short in BE*/
     public short readShortBE() throws IOException {
-        return inputStream.readShort();
+        require(2);
+        return buffer.order(ByteOrder.BIG_ENDIAN).getShort();
     }
 
     /** read a 16bit short in LE*/
     public short readShortLE() throws IOException {
-        inputStream.readFully(workSpace, 0, 2);
-
-        return (short) (((workSpace[1] & 0xff) << 8) | (workSpace[0] & 0xff));
+        require(2);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN).getShort();
     }
 
     /** read a 32bit int in BE*/
     public int readIntBE() throws IOException {
-        return inputStream.readInt();
+        require(4);
+        return buffer.order(ByteOrder.BIG_ENDIAN).getInt();
     }
 
     /** read a 32bit int in LE*/
     public int readIntLE() throws IOException {
-        inputStream.readFully(workSpace, 0, 4);
-
-        return ((workSpace[3] & 0xff) << 24) | ((workSpace[2] & 0xff) << 16) |
-        ((workSpace[1] & 0xff) << 8) | (workSpace[0] & 0xff);
+        require(4);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN).getInt();
     }
 
     /** read a 64bit long  in BE*/
     public long readLongBE() throws IOException {
-        return inputStream.readLong();
+        require(8);
+        return buffer.order(ByteOrder.BIG_ENDIAN).getLong();
     }
 
     /** read a 64bit long  in LE*/
     public long readLongLE() throws IOException {
-        inputStream.readFully(workSpace, 0, 8);
-
-        return ((long) (workSpace[7] & 0xff) << 56) |
-        ((long) (workSpace[6] & 0xff) << 48) |
-        ((long) (workSpace[5] & 0xff) << 40) |
-        ((long) (workSpace[4] & 0xff) << 32) |
-        ((long) (workSpace[3] & 0xff) << 24) |
-        ((long) (workSpace[2] & 0xff) << 16) |
-        ((long) (workSpace[1] & 0xff) << 8) | ((long) (workSpace[0] & 0xff));
+        require(8);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN).getLong();
     }
 
     /** read a 64bit double  in BE*/
     public double readDoubleBE() throws IOException {
-        return inputStream.readDouble();
+        require(8);
+        return buffer.order(ByteOrder.BIG_ENDIAN).getDouble();
     }
 
     /** read a 64bit double  in LE*/
     public double readDoubleLE() throws IOException {
-        long l;
+        require(8);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN).getDouble();
+    }
 
-        inputStream.readFully(workSpace, 0, 8);
-        l = ((long) (workSpace[7] & 0xff) << 56) |
-            ((long) (workSpace[6] & 0xff) << 48) |
-            ((long) (workSpace[5] & 0xff) << 40) |
-            ((long) (workSpace[4] & 0xff) << 32) |
-            ((long) (workSpace[3] & 0xff) << 24) |
-            ((long) (workSpace[2] & 0xff) << 16) |
-            ((long) (workSpace[1] & 0xff) << 8) |
-            ((long) (workSpace[0] & 0xff));
+    /**
+     * read <code>len</code> 64bit doubles in LE into <code>dst</code>,
+     * starting at <code>dst[off]</code>
+     */
+    public void readDoublesLE(double[] dst, int off, int len) throws IOException {
+        while (len > 0) {
+            require(8);
+            int n = Math.min(len, buffer.remaining() / 8);
+            buffer.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(dst, off, n);
+            buffer.position(buffer.position() + 8 * n);
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Marks the current position, so that {@link #reset()} can return to it
+     * as long as no more than readLimit bytes have been read.
+     */
+    public void mark(int readLimit) throws IOException {
+        if (buffer.remaining() < readLimit) {
+            fill(Math.min(readLimit, buffer.capacity()));
+        }
+        buffer.mark();
+    }
 
-        return Double.longBitsToDouble(l);
+    /** return to the position of the last call to {@link #mark(int)} */
+    public void reset() throws IOException {
+        try {
+            buffer.reset();
+        } catch (InvalidMarkException e) {
+            throw new IOException("Resetting to invalid mark");
+        }
     }
 
     /** skip ahead in the stream
      * @param num number of bytes to read ahead
+     * @return the number of bytes skipped, less than num at the end of the stream
      */
     public int skipBytes(int num) throws IOException {
-        return inputStream.skipBytes(num);
+        int skipped = 0;
+        while (skipped < num) {
+            if (!buffer.hasRemaining() && fill(1) == 0) {
+                break;
+            }
+            int n = Math.min(num - skipped, buffer.remaining());
+            buffer.position(buffer.position() + n);
+            skipped += n;
+        }
+        return skipped;
     }
 }
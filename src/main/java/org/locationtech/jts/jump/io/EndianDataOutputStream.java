@@ -33,105 +33,169 @@
 
 package org.locationtech.jts.jump.io;
 
-import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 
 
 /**
  *  A class that gives most of the functionality of DataOutputStream, but is endian aware.
- *  Uses a real java.io.DataOutputStream to actually do the writing.
+ *  Writes into a ByteBuffer, switching its ByteOrder for big and little
+ *  endian values, that is written to the underlying stream when it is full
+ *  and on {@link #flush()}. Runs of doubles (coordinates) can be written in
+ *  one call with {@link #writeDoublesLE(double[], int, int)}.
  */
 public class EndianDataOutputStream {
-    private java.io.DataOutputStream outputStream;
+    /** Size of the buffer the values are written to */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private OutputStream outputStream;
+    private WritableByteChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE); // on the heap, see EndianDataInputStream
 
     /** Creates new EndianDataOutputStream */
     public EndianDataOutputStream(java.io.OutputStream out) {
-        outputStream = new DataOutputStream(out);
+        outputStream = out;
+        channel = Channels.newChannel(out);
+    }
+
+    /**
+     * Makes room for at least <code>n</code> bytes in the buffer.
+     */
+    private void require(int n) throws IOException {
+        if (buffer.remaining() < n) {
+            drain();
+        }
+    }
+
+    /** write the buffered bytes to the underlying stream */
+    private void drain() throws IOException {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            buffer.clear();
+        }
     }
 
     /** close stream**/
     public void close() throws IOException {
+        drain();
         outputStream.close();
     }
 
     /** write bytes */
     public void write(byte[] b, int off, int len) throws IOException {
-        outputStream.write(b, off, len);
+        while (len > 0) {
+            require(1);
+            int n = Math.min(len, buffer.remaining());
+            buffer.put(b, off, n);
+            off += n;
+            len -= n;
+        }
     }
 
     /** flush stream**/
     public void flush() throws IOException {
+        drain();
         outputStream.flush();
     }
 
     /** write a byte in LittleEndian  - this is exactly the same as the BigEndian version since there's no endian in a single byte */
     public void writeByteLE(int b) throws IOException {
-        outputStream.writeByte(b);
+        require(1);
+        buffer.put((byte) b);
     }
 
     /** write a byte in BigEndian  - this is exactly the same as the LittleEndian version since there's no endian in a single byte */
     public void writeByteBE(int b) throws IOException {
-        outputStream.writeByte(b);
+        require(1);
+        buffer.put((byte) b);
     }
 
     /** write a set of bytes in LittleEndian  - this is exactly the same as the BigEndian version since there's no endian in a single byte */
     public void writeBytesLE(String s) throws IOException {
-        outputStream.writeBytes(s);
+        writeBytes(s);
     }
 
     /** write a set of bytes in BigEndian  - this is exactly the same as the LittleEndian version since there's no endian in a single byte */
     public void writeBytesBE(String s) throws IOException {
-        outputStream.writeBytes(s);
+        writeBytes(s);
+    }
+
+    /** write the low byte of each char, as DataOutputStream.writeBytes does */
+    private void writeBytes(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            require(1);
+            buffer.put((byte) s.charAt(i));
+        }
     }
 
     /** write a 16bit short in BigEndian*/
     public void writeShortBE(int s) throws IOException {
-        outputStream.writeShort(s);
+        require(2);
+        buffer.order(ByteOrder.BIG_ENDIAN).putShort((short) s);
     }
 
     /** write a 16bit short in LittleEndian*/
     public void writeShortLE(int s) throws IOException {
-        outputStream.writeByte(s);
-        outputStream.writeByte(s >> 8);
+        require(2);
+        buffer.order(ByteOrder.LITTLE_ENDIAN).putShort((short) s);
     }
 
     /** write a 32bit int in BigEndian*/
     public void writeIntBE(int i) throws IOException {
-        outputStream.writeInt(i);
+        require(4);
+        buffer.order(ByteOrder.BIG_ENDIAN).putInt(i);
     }
 
     /** write a 32bit int in  LittleEndian*/
     public void writeIntLE(int i) throws IOException {
-        outputStream.writeByte(i);
-        outputStream.writeByte(i >> 8);
-        outputStream.writeByte(i >> 16);
-        outputStream.writeByte(i >> 24);
+        require(4);
+        buffer.order(ByteOrder.LITTLE_ENDIAN).putInt(i);
     }
 
     /** write a 64bit long in BigEndian*/
     public void writeLongBE(long l) throws IOException {
-        outputStream.writeLong(l);
+        require(8);
+        buffer.order(ByteOrder.BIG_ENDIAN).putLong(l);
     }
 
     /** write a 64bit long in LittleEndian*/
     public void writeLongLE(long l) throws IOException {
-        outputStream.writeByte((byte) (l));
-        outputStream.writeByte((byte) (l >> 8));
-        outputStream.writeByte((byte) (l >> 16));
-        outputStream.writeByte((byte) (l >> 24));
-        outputStream.writeByte((byte) (l >> 32));
-        outputStream.writeByte((byte) (l >> 40));
-        outputStream.writeByte((byte) (l >> 48));
-        outputStream.writeByte((byte) (l >> 56));
+        require(8);
+        buffer.order(ByteOrder.LITTLE_ENDIAN).putLong(l);
     }
 
     /** write a 64bit double in BigEndian*/
     public void writeDoubleBE(double d) throws IOException {
-        outputStream.writeDouble(d);
+        require(8);
+        buffer.order(ByteOrder.BIG_ENDIAN).putDouble(d);
     }
 
     /** write a 64bit double in LittleEndian*/
     public void writeDoubleLE(double d) throws IOException {
-        this.writeLongLE(Double.doubleToLongBits(d));
+        require(8);
+        buffer.order(ByteOrder.LITTLE_ENDIAN).putDouble(d);
+    }
+
+    /**
+     * write <code>len</code> 64bit doubles in LittleEndian, starting at
+     * <code>src[off]</code>
+     */
+    public void writeDoublesLE(double[] src, int off, int len) throws IOException {
+        while (len > 0) {
+            require(8);
+            int n = Math.min(len, buffer.remaining() / 8);
+            buffer.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().put(src, off, n);
+            buffer.position(buffer.position() + 8 * n);
+            off += n;
+            len -= n;
+        }
     }
 }
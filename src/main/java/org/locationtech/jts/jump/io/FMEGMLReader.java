@@ -38,7 +38,10 @@ package org.locationtech.jts.jump.io;
 
 import org.locationtech.jts.jump.feature.FeatureCollection;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 
 
@@ -69,66 +72,87 @@ public class FMEGMLReader implements JUMPReader {
      */
     public FeatureCollection read(DriverProperties dp)
         throws IllegalParametersException, Exception {
-        FeatureCollection result;
-        java.io.Reader r;
-        GMLInputTemplate inputTemplate;
-        GMLReader gmlReader = new GMLReader();
-        String inputfname;
-        boolean isCompressed;
-
-        isCompressed = (dp.getProperty("CompressedFile") != null);
-
-        //dp.relabel("InputFMEGMLFile","File");
-        inputfname = dp.getProperty("DefaultValue");
+        GMLReader gmlReader = createGMLReader(dp);
+        java.io.Reader r = open(dp);
 
-        if (inputfname == null) {
-            inputfname = dp.getProperty("File");
+        try {
+            return gmlReader.read(r, inputFileName(dp));
+        } finally {
+            r.close();
         }
+    }
 
-        if (inputfname == null) {
-            throw new IllegalParametersException(
-                "call to FMEReader.read() has DataProperties w/o a InputFile specified");
-        }
+    /**
+     * Reads the FMEGML file specified in the DriverProperties, passing each
+     * feature to the sink as soon as it has been parsed.
+     *
+     * @param dp {@link DriverProperties} to specify the file to read ('InputFile' or 'DefaultValue')
+     * @see GMLReader#read(java.io.Reader, String, FeatureSink)
+     */
+    public void read(DriverProperties dp, FeatureSink sink)
+        throws IllegalParametersException, Exception {
+        GMLReader gmlReader = createGMLReader(dp);
+        java.io.Reader r = open(dp);
 
-        if (isCompressed) {
-            r = new BufferedReader(new InputStreamReader(
-                        CompressedFile.openFile(inputfname,
-                            dp.getProperty("CompressedFile"))));
-        } else {
-            r = new BufferedReader(new java.io.FileReader(inputfname));
+        try {
+            gmlReader.read(r, inputFileName(dp), sink);
+        } finally {
+            r.close();
         }
+    }
+
+    /**
+     * Makes a GMLReader with the GMLInputTemplate described by the schema in
+     * the file.
+     */
+    private GMLReader createGMLReader(DriverProperties dp)
+        throws IllegalParametersException, Exception {
+        GMLReader gmlReader = new GMLReader();
+        java.io.Reader r = open(dp);
 
         try {
-            try {
-                inputTemplate = getGMLInputTemplate(r, inputfname);
-            } finally {
-                r.close();
-            }
+            gmlReader.setInputTemplate(getGMLInputTemplate(r, inputFileName(dp)));
         } finally {
             r.close();
         }
 
-        if (isCompressed) {
-            r = new BufferedReader(new InputStreamReader(
-                        CompressedFile.openFile(inputfname,
-                            dp.getProperty("CompressedFile"))));
+        return gmlReader;
+    }
+
+    /**
+     * Opens the file with the encoding declared in its XML prolog.
+     * @see GMLReader#readEncoding
+     */
+    private java.io.Reader open(DriverProperties dp)
+        throws IllegalParametersException, Exception {
+        String inputfname = inputFileName(dp);
+        InputStream in;
+
+        if (dp.getProperty("CompressedFile") != null) {
+            in = new BufferedInputStream(CompressedFile.openFile(inputfname,
+                        dp.getProperty("CompressedFile")));
         } else {
-            r = new BufferedReader(new java.io.FileReader(inputfname));
+            in = new BufferedInputStream(new FileInputStream(inputfname));
         }
 
-        try {
-            gmlReader.setInputTemplate(inputTemplate);
+        return new BufferedReader(new InputStreamReader(in, GMLReader.readEncoding(in)));
+    }
 
-            try {
-                result = gmlReader.read(r, inputfname);
-            } finally {
-                r.close();
-            }
-        } finally {
-            r.close();
+    private String inputFileName(DriverProperties dp)
+        throws IllegalParametersException {
+        //dp.relabel("InputFMEGMLFile","File");
+        String inputfname = dp.getProperty("DefaultValue");
+
+        if (inputfname == null) {
+            inputfname = dp.getProperty("File");
         }
 
-        return result;
+        if (inputfname == null) {
+            throw new IllegalParametersException(
+                "call to FMEReader.read() has DataProperties w/o a InputFile specified");
+        }
+
+        return inputfname;
     }
 
     /**
@@ -0,0 +1,98 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+
+package org.locationtech.jts.jump.io;
+
+import java.util.ArrayList;
+
+import org.locationtech.jts.jump.feature.Feature;
+import org.locationtech.jts.jump.feature.FeatureCollection;
+import org.locationtech.jts.jump.feature.FeatureSchema;
+
+
+/**
+ * A FeatureSink that adds the features a reader passes it to a
+ * FeatureCollection in batches, through FeatureCollection#addAll(Collection,
+ * int), so that the collection makes room for the expected number of
+ * features once and fires one event per batch rather than per feature.
+ * Call #flush after the last feature.
+ */
+class FeatureLoader implements FeatureSink {
+    static final int BATCH_SIZE = 4096;
+    private FeatureCollection featureCollection;
+    private int sizeHint;
+    private ArrayList batch = new ArrayList(BATCH_SIZE);
+
+    /**
+     * @param sizeHint the number of features expected, or 0 if unknown
+     */
+    FeatureLoader(FeatureCollection featureCollection, int sizeHint) {
+        this.featureCollection = featureCollection;
+        this.sizeHint = sizeHint;
+    }
+
+    /**
+     * Updates the number of features expected, for readers that can only
+     * estimate it once they have read part of the file.
+     */
+    void setSizeHint(int sizeHint) {
+        this.sizeHint = sizeHint;
+    }
+
+    public void start(FeatureSchema featureSchema) {
+    }
+
+    public void add(Feature feature) {
+        batch.add(feature);
+
+        if (batch.size() == BATCH_SIZE) {
+            flush();
+        }
+    }
+
+    /**
+     * Adds the features that have not been added yet.
+     */
+    void flush() {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        //A new list for each batch, because listeners may keep the one they
+        //are given
+        featureCollection.addAll(batch,
+            Math.max(sizeHint, featureCollection.size() + batch.size()));
+        batch = new ArrayList(BATCH_SIZE);
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.io;
+
+import org.locationtech.jts.jump.feature.Feature;
+import org.locationtech.jts.jump.feature.FeatureSchema;
+
+
+/**
+ * Receives features one at a time from a reader as they are parsed, rather
+ * than in a FeatureCollection once the whole file has been read. A reader
+ * keeps no reference to a feature after passing it on, so a file can be
+ * converted (to a Shapefile, for example, see ShapefileStreamWriter#toSink)
+ * in memory that does not depend on its size.
+ * @see GMLReader#read(java.io.Reader, String, FeatureSink)
+ */
+public interface FeatureSink {
+    /**
+     * Called once, before the first feature.
+     * @param featureSchema the schema of the features that will be added
+     */
+    public void start(FeatureSchema featureSchema) throws Exception;
+
+    public void add(Feature feature) throws Exception;
+}
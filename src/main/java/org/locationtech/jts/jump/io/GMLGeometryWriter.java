@@ -32,6 +32,7 @@
 package org.locationtech.jts.jump.io;
 
 import org.locationtech.jts.geom.*;
+import org.locationtech.jts.util.Assert;
 import java.io.*;
 
 /**
@@ -39,36 +40,34 @@ import java.io.*;
  * representation of a JTS Geometry.
  * Supports a user-defined line prefix and a user-defined maximum number of coordinates per line.
  * Indents components of Geometries to provide a nicely-formatted representation.
+ * <p>
+ * The text is put together in a char buffer that is reused for every
+ * Geometry and emptied into the Writer (or StringBuffer) whenever it fills
+ * up, and the coordinates are formatted straight into the buffer, so
+ * writing a Geometry to a Writer creates no Strings. A GMLGeometryWriter is
+ * therefore not thread-safe.
  */
 public class GMLGeometryWriter
 {
-
-  /**
-   *  Returns a <code>String</code> of repeated characters.
-   *
-   *@param  ch     the character to repeat
-   *@param  count  the number of times to repeat the character
-   *@return        a <code>String</code> of characters
-   */
-  private static String stringOfChar(char ch, int count) {
-    StringBuffer buf = new StringBuffer();
-    for (int i = 0; i < count; i++) {
-      buf.append(ch);
-    }
-    return buf.toString();
-  }
-
-
   private final int INDENT_SIZE = 2;
   // these could be make settable
-  private static final String coordinateSeparator = ",";
-  private static final String tupleSeparator = " ";
+  private static final char coordinateSeparator = ',';
+  private static final char tupleSeparator = ' ';
+  private static final int BUFFER_SIZE = 8192;
 
   private String linePrefix = null;
   private int maxCoordinatesPerLine = 10;
   private String srsName = null;
   private String gid = null;
 
+  private char[] buffer = new char[BUFFER_SIZE];
+  private int length = 0;
+  private DoubleFormatter formatter = new DoubleFormatter();
+
+  // where the buffer is emptied to - one of them is set during a write
+  private Writer writer = null;
+  private StringBuffer stringBuffer = null;
+
   public GMLGeometryWriter() {
   }
 
@@ -113,74 +112,130 @@ public class GMLGeometryWriter
     return buf.toString();
   }
 
+  /**
+   * Writes the GML representation of a JTS Geometry straight to the Writer.
+   * @param geometry Geometry to output
+   */
   public void write(Geometry geometry, Writer writer)
     throws IOException
   {
-    writer.write(write(geometry));
+    this.writer = writer;
+    try {
+      writeGeometry(geometry, attributeString(), 0);
+      flush();
+    } finally {
+      this.writer = null;
+      length = 0;
+    }
   }
 
-
-
   /**
    * Generates the GML representation of a JTS Geometry.
    * @param g Geometry to output
    */
   public void write(Geometry g, StringBuffer buf)
   {
-    writeGeometry(g, attributeString(), 0, buf);
+    stringBuffer = buf;
+    try {
+      writeGeometry(g, attributeString(), 0);
+      flush();
+    } catch (IOException e) {
+      // only a Writer throws IOExceptions
+      Assert.shouldNeverReachHere(e.toString());
+    } finally {
+      stringBuffer = null;
+      length = 0;
+    }
   }
 
   /**
    * Generates the GML representation of a JTS Geometry.
    * @param g Geometry to output
    */
-  private void writeGeometry(Geometry g, String attributes, int level, StringBuffer buf) {
+  private void writeGeometry(Geometry g, String attributes, int level) throws IOException {
     /*
      * order is important in this if-else list.
      * E.g. homogeneous collections need to come before GeometryCollection
     */
       if (g instanceof Point) {
-          writePoint((Point) g, attributes, level, buf);
+          writePoint((Point) g, attributes, level);
       } else if (g instanceof LinearRing) {
-          writeLinearRing((LinearRing) g, attributes, level, buf);
+          writeLinearRing((LinearRing) g, attributes, level);
       } else if (g instanceof LineString) {
-          writeLineString((LineString) g, attributes, level, buf);
+          writeLineString((LineString) g, attributes, level);
       } else if (g instanceof Polygon) {
-          writePolygon((Polygon) g, attributes, level, buf);
+          writePolygon((Polygon) g, attributes, level);
       } else if (g instanceof MultiPoint) {
-          writeMultiPoint((MultiPoint) g, attributes, level, buf);
+          writeMultiPoint((MultiPoint) g, attributes, level);
       } else if (g instanceof MultiLineString) {
-          writeMultiLineString((MultiLineString) g, attributes, level, buf);
+          writeMultiLineString((MultiLineString) g, attributes, level);
       } else if (g instanceof MultiPolygon) {
-          writeMultiPolygon((MultiPolygon) g, attributes, level, buf);
+          writeMultiPolygon((MultiPolygon) g, attributes, level);
       } else if (g instanceof GeometryCollection) {
-        writeGeometryCollection((GeometryCollection) g, attributes, level, buf);
+        writeGeometryCollection((GeometryCollection) g, attributes, level);
       }
       // throw an error for an unknown type?
   }
 
-  private void startLine(StringBuffer buf, int level, String text)
+  private void flush() throws IOException
   {
-    if (linePrefix != null) buf.append(linePrefix);
-    buf.append(stringOfChar(' ', INDENT_SIZE * level));
-    buf.append(text);
+    if (writer != null) {
+      writer.write(buffer, 0, length);
+    } else {
+      stringBuffer.append(buffer, 0, length);
+    }
+    length = 0;
   }
 
-  private String geometryTag(String geometryName, String attributes)
+  private void append(char c) throws IOException
   {
-    StringBuffer buf = new StringBuffer();
-    buf.append("<gml:");
-    buf.append(geometryName);
+    if (length == buffer.length) flush();
+    buffer[length++] = c;
+  }
+
+  private void append(String text) throws IOException
+  {
+    int n = text.length();
+    if (n > buffer.length - length) flush();
+    if (n > buffer.length) {
+      if (writer != null) writer.write(text);
+      else stringBuffer.append(text);
+      return;
+    }
+    text.getChars(0, n, buffer, length);
+    length += n;
+  }
+
+  private void append(double ordinate) throws IOException
+  {
+    if (buffer.length - length < DoubleFormatter.MAX_LENGTH) flush();
+    length = formatter.format(ordinate, buffer, length);
+  }
+
+  private void startLine(int level, String text) throws IOException
+  {
+    if (linePrefix != null) append(linePrefix);
+    for (int i = 0; i < INDENT_SIZE * level; i++) {
+      append(' ');
+    }
+    append(text);
+  }
+
+  // the start tag of a Geometry, on a line of its own
+  private void startGeometry(int level, String geometryName, String attributes) throws IOException
+  {
+    startLine(level, "<gml:");
+    append(geometryName);
     if (attributes != null && attributes.length() > 0) {
-      buf.append(" ");
-      buf.append(attributes);
+      append(' ');
+      append(attributes);
     }
-    buf.append(">");
-    return buf.toString();
+    append(">\n");
   }
 
   private String attributeString()
   {
+    if (gid == null && srsName == null) return "";
     StringBuffer buf = new StringBuffer();
     if (gid != null) {
       buf.append(" gid='");
@@ -196,80 +251,80 @@ public class GMLGeometryWriter
   }
 
   //<gml:Point><gml:coordinates>1195156.78946687,382069.533723461</gml:coordinates></gml:Point>
-  private void writePoint(Point p, String attributes, int level, StringBuffer buf) {
-      startLine(buf, level, geometryTag("Point", attributes) + "\n");
-      write(new Coordinate[] { p.getCoordinate() }, level + 1, buf);
-      startLine(buf, level, "</gml:Point>\n");
+  private void writePoint(Point p, String attributes, int level) throws IOException {
+      startGeometry(level, "Point", attributes);
+      write(new Coordinate[] { p.getCoordinate() }, level + 1);
+      startLine(level, "</gml:Point>\n");
   }
 
   //<gml:LineString><gml:coordinates>1195123.37289257,381985.763974674 1195120.22369473,381964.660533343 1195118.14929823,381942.597718511</gml:coordinates></gml:LineString>
-  private void writeLineString(LineString ls, String attributes, int level, StringBuffer buf) {
-    startLine(buf, level, geometryTag("LineString", attributes) + "\n");
-    write(ls.getCoordinates(), level + 1, buf);
-    startLine(buf, level, "</gml:LineString>\n");
+  private void writeLineString(LineString ls, String attributes, int level) throws IOException {
+    startGeometry(level, "LineString", attributes);
+    write(ls.getCoordinates(), level + 1);
+    startLine(level, "</gml:LineString>\n");
   }
 
   //<gml:LinearRing><gml:coordinates>1226890.26761027,1466433.47430292 1226880.59239079,1466427.03208053...></coordinates></gml:LinearRing>
-  private void writeLinearRing(LinearRing lr, String attributes, int level, StringBuffer buf) {
-    startLine(buf, level, geometryTag("LinearRing", attributes) + "\n");
-    write(lr.getCoordinates(), level + 1, buf);
-    startLine(buf, level, "</gml:LinearRing>\n");
+  private void writeLinearRing(LinearRing lr, String attributes, int level) throws IOException {
+    startGeometry(level, "LinearRing", attributes);
+    write(lr.getCoordinates(), level + 1);
+    startLine(level, "</gml:LinearRing>\n");
   }
 
-  private void writePolygon(Polygon p, String attributes, int level, StringBuffer buf) {
-    startLine(buf, level, geometryTag("Polygon", attributes) + "\n");
+  private void writePolygon(Polygon p, String attributes, int level) throws IOException {
+    startGeometry(level, "Polygon", attributes);
 
-    startLine(buf, level, "  <gml:outerBoundaryIs>\n");
-    writeLinearRing((LinearRing) p.getExteriorRing(), null, level + 1, buf);
-    startLine(buf, level, "  </gml:outerBoundaryIs>\n");
+    startLine(level, "  <gml:outerBoundaryIs>\n");
+    writeLinearRing((LinearRing) p.getExteriorRing(), null, level + 1);
+    startLine(level, "  </gml:outerBoundaryIs>\n");
 
     for (int t = 0; t < p.getNumInteriorRing(); t++) {
-      startLine(buf, level, "  <gml:innerBoundaryIs>\n");
-      writeLinearRing((LinearRing) p.getInteriorRingN(t), null, level + 1, buf);
-      startLine(buf, level, "  </gml:innerBoundaryIs>\n");
+      startLine(level, "  <gml:innerBoundaryIs>\n");
+      writeLinearRing((LinearRing) p.getInteriorRingN(t), null, level + 1);
+      startLine(level, "  </gml:innerBoundaryIs>\n");
     }
 
-    startLine(buf, level, "</gml:Polygon>\n");
+    startLine(level, "</gml:Polygon>\n");
   }
 
-  private void writeMultiPoint(MultiPoint mp, String attributes, int level, StringBuffer buf) {
-    startLine(buf, level, geometryTag("MultiPoint", attributes) + "\n");
+  private void writeMultiPoint(MultiPoint mp, String attributes, int level) throws IOException {
+    startGeometry(level, "MultiPoint", attributes);
     for (int t = 0; t < mp.getNumGeometries(); t++) {
-      startLine(buf, level, "  <gml:pointMember>\n");
-      writePoint((Point) mp.getGeometryN(t), null, level + 1, buf);
-      startLine(buf, level, "  </gml:pointMember>\n");
+      startLine(level, "  <gml:pointMember>\n");
+      writePoint((Point) mp.getGeometryN(t), null, level + 1);
+      startLine(level, "  </gml:pointMember>\n");
     }
-    startLine(buf, level, "</gml:MultiPoint>\n");
+    startLine(level, "</gml:MultiPoint>\n");
   }
 
-  private void writeMultiLineString(MultiLineString mls, String attributes, int level, StringBuffer buf) {
-    startLine(buf, level, geometryTag("MultiLineString", attributes) + "\n");
+  private void writeMultiLineString(MultiLineString mls, String attributes, int level) throws IOException {
+    startGeometry(level, "MultiLineString", attributes);
     for (int t = 0; t < mls.getNumGeometries(); t++) {
-      startLine(buf, level, "  <gml:lineStringMember>\n");
-      writeLineString((LineString) mls.getGeometryN(t), null, level + 1, buf);
-      startLine(buf, level, "  </gml:lineStringMember>\n");
+      startLine(level, "  <gml:lineStringMember>\n");
+      writeLineString((LineString) mls.getGeometryN(t), null, level + 1);
+      startLine(level, "  </gml:lineStringMember>\n");
     }
-    startLine(buf, level, "</gml:MultiLineString>\n");
+    startLine(level, "</gml:MultiLineString>\n");
   }
 
-  private void writeMultiPolygon(MultiPolygon mp, String attributes, int level, StringBuffer buf) {
-    startLine(buf, level, geometryTag("MultiPolygon", attributes) + "\n");
+  private void writeMultiPolygon(MultiPolygon mp, String attributes, int level) throws IOException {
+    startGeometry(level, "MultiPolygon", attributes);
     for (int t = 0; t < mp.getNumGeometries(); t++) {
-      startLine(buf, level, "  <gml:polygonMember>\n");
-      writePolygon((Polygon) mp.getGeometryN(t), null, level + 1, buf);
-      startLine(buf, level, "  </gml:polygonMember>\n");
+      startLine(level, "  <gml:polygonMember>\n");
+      writePolygon((Polygon) mp.getGeometryN(t), null, level + 1);
+      startLine(level, "  </gml:polygonMember>\n");
     }
-    startLine(buf, level, "</gml:MultiPolygon>\n");
+    startLine(level, "</gml:MultiPolygon>\n");
   }
 
-  private void writeGeometryCollection(GeometryCollection gc, String attributes, int level, StringBuffer buf) {
-    startLine(buf, level, geometryTag("MultiGeometry", attributes) + "\n");
+  private void writeGeometryCollection(GeometryCollection gc, String attributes, int level) throws IOException {
+    startGeometry(level, "MultiGeometry", attributes);
     for (int t = 0; t < gc.getNumGeometries(); t++) {
-      startLine(buf, level, "  <gml:geometryMember>\n");
-      writeGeometry(gc.getGeometryN(t), null, level + 1, buf);
-      startLine(buf, level, "  </gml:geometryMember>\n");
+      startLine(level, "  <gml:geometryMember>\n");
+      writeGeometry(gc.getGeometryN(t), null, level + 1);
+      startLine(level, "  </gml:geometryMember>\n");
     }
-    startLine(buf, level, "</gml:MultiGeometry>\n");
+    startLine(level, "</gml:MultiGeometry>\n");
   }
 
   /**
@@ -278,8 +333,8 @@ public class GMLGeometryWriter
    * Terminates the coordinate output with a newline.
    *@param cs array of coordinates
    */
-  private void write(Coordinate[] coords, int level, StringBuffer buf) {
-    startLine(buf, level, "<gml:coordinates>");
+  private void write(Coordinate[] coords, int level) throws IOException {
+    startLine(level, "<gml:coordinates>");
     int dim = 2;
 
     if (coords.length > 0) {
@@ -290,29 +345,25 @@ public class GMLGeometryWriter
     boolean isNewLine = false;
     for (int i = 0; i < coords.length; i++) {
       if (isNewLine) {
-        startLine(buf, level, "  ");
+        startLine(level, "  ");
         isNewLine = false;
       }
-      if (dim == 2) {
-        buf.append(coords[i].x);
-        buf.append(coordinateSeparator);
-        buf.append(coords[i].y);
-      } else if (dim == 3) {
-        buf.append(coords[i].x);
-        buf.append(coordinateSeparator);
-        buf.append(coords[i].y);
-        buf.append(coordinateSeparator);
-        buf.append(coords[i].z);
+      append(coords[i].x);
+      append(coordinateSeparator);
+      append(coords[i].y);
+      if (dim == 3) {
+        append(coordinateSeparator);
+        append(coords[i].z);
       }
-      buf.append(tupleSeparator);
+      append(tupleSeparator);
 
       // break output lines to prevent them from getting too long
       if ((i + 1) % maxCoordinatesPerLine == 0 && i < coords.length - 1) {
-        buf.append("\n");
+        append('\n');
         isNewLine = true;
       }
     }
 
-    buf.append("</gml:coordinates>\n");
+    append("</gml:coordinates>\n");
   }
 }
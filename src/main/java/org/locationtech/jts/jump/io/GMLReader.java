@@ -36,15 +36,28 @@ import org.locationtech.jts.geom.*;
 import org.locationtech.jts.jump.feature.*;
 
 import org.xml.sax.*;
+import org.xml.sax.helpers.AttributesImpl;
 import org.xml.sax.helpers.DefaultHandler;
 
 import java.io.*;
 
+import java.nio.charset.Charset;
+
 import java.util.List;
 import java.util.ArrayList;
-import java.util.StringTokenizer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import javax.xml.parsers.ParserConfigurationException;
 
 
@@ -93,6 +106,25 @@ import javax.xml.parsers.ParserConfigurationException;
  *        with the input template in (specified by InputTemplateFile)
  *      </td>
  *    </tr>
+ *
+ *    <tr>
+ *      <td>SpillToDisk</td>
+ *      <td>
+ *        'true' to write the features to a temporary file as they are
+ *        read, and return a {@link DiskFeatureCollection}, for files that
+ *        would not fit on the heap
+ *      </td>
+ *    </tr>
+ *
+ *    <tr>
+ *      <td>Parallel</td>
+ *      <td>
+ *        'true' to parse the file with one thread per processor, or the
+ *        number of threads to use. The features are the same, and in the
+ *        same order, as when read by a single thread. Ignored for
+ *        compressed files.
+ *      </td>
+ *    </tr>
  *  </table>
  * </p>
  *
@@ -113,6 +145,11 @@ import javax.xml.parsers.ParserConfigurationException;
  *     gmlReader.setInputTemplate( GMLInputTemplate);
  *     gmlReader.load( <Reader> , <stream name> );
  *  </pre>
+ *  To handle each feature as soon as it is parsed, instead of getting them
+ *  all in a FeatureCollection, pass a {@link FeatureSink}:
+ *  <pre>
+ *     gmlReader.read( DriverProperties, FeatureSink );
+ *  </pre>
  *  <br>
  *  <br>
  *  Internal Details - This is based on a small finite state machine with these
@@ -254,7 +291,17 @@ public class GMLReader extends DefaultHandler implements JUMPReader {
     Point apoint;
     Feature currentFeature;
     int currentGeometryNumb = 1;
-    FeatureCollection fc;
+    FeatureSink sink;
+    boolean spillToDisk = false;
+
+    //Bytes of the file each thread parses at a time when reading in parallel
+    static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+    private static final int PROLOG_LENGTH = 1024;
+    private static final Pattern ENCODING = Pattern.compile(
+            "encoding\\s*=\\s*([\"'])([A-Za-z][A-Za-z0-9._-]*)\\1");
+    int chunkSize = DEFAULT_CHUNK_SIZE;
+    private static final int SEARCH_BUFFER_SIZE = 64 * 1024;
+    int parallelism = 1;
     FeatureSchema fcmd; // list of geometries
     Geometry finalGeometry; //list of geometrycollections - list of list of geometry
     ArrayList geometry;
@@ -278,7 +325,12 @@ public class GMLReader extends DefaultHandler implements JUMPReader {
     // low-level geometry objects
     Coordinate singleCoordinate = new Coordinate();
     String streamName; //result geometry  -
-    StringBuffer tagBody;
+    StringBuffer tagBody = new StringBuffer();
+
+    // parses the body of the gml:coordinates, gml:posList or gml:pos element
+    // being read, if any, instead of accumulating it in tagBody
+    CoordinateScanner coordinateScanner = new CoordinateScanner();
+    boolean scanningCoordinates = false;
     XMLReader xr; //see above
 
     int SRID =0; // srid to give the created geometries
@@ -349,7 +401,11 @@ public class GMLReader extends DefaultHandler implements JUMPReader {
     public void characters(char[] ch, int start, int length)
         throws SAXException {
         try {
-          tagBody.append(ch,start,length);
+            if (scanningCoordinates) {
+                coordinateScanner.scan(ch, start, length);
+            } else {
+                tagBody.append(ch,start,length);
+            }
         } catch (Exception e) {
             throw new SAXException(e.getMessage());
         }
@@ -379,7 +435,7 @@ public class GMLReader extends DefaultHandler implements JUMPReader {
 
             // System.out.println("End element: " + qName);
             if (STATE == STATE_INIT) {
-              tagBody = new StringBuffer();
+              tagBody.setLength(0);
 
                 return; //something wrong
             }
@@ -405,7 +461,7 @@ public class GMLReader extends DefaultHandler implements JUMPReader {
                 }
 
                 if (GMLinput.isGeometryElement(qName)) {
-                  tagBody = new StringBuffer();
+                  tagBody.setLength(0);
                     STATE = STATE_GET_COLUMNS;
 
                     finalGeometry = geometryFactory.buildGeometry(geometry);
@@ -434,10 +490,17 @@ public class GMLReader extends DefaultHandler implements JUMPReader {
                 // this corresponds to <gml:coordinates>1195156.78946687,382069.533723461</gml:coordinates>
                 else if ((qName.compareToIgnoreCase("COORDINATES") == 0) ||
                         (qName.compareToIgnoreCase("gml:coordinates") == 0)) {
-                    //tagBody has a wack-load of points in it - we need
-                    // to parse them into the pointList list.
-                    // assume that the x,y,z coordinate are "," separated, and the points are " " separated
-                    parsePoints(tagBody.toString(), geometryFactory);
+                    //the coordinateScanner has parsed a wack-load of points -
+                    // put them in the pointList list.
+                    endCoordinates();
+                }
+                // these correspond to <gml:posList srsDimension="2">1195156.78 382069.53 ...</gml:posList>
+                // and <gml:pos>1195156.78 382069.53</gml:pos>
+                else if ((qName.compareToIgnoreCase("gml:posList") == 0) ||
+                        (qName.compareToIgnoreCase("posList") == 0) ||
+                        (qName.compareToIgnoreCase("gml:pos") == 0) ||
+                        (qName.compareToIgnoreCase("pos") == 0)) {
+                    endCoordinates();
                 } else if ((qName.compareToIgnoreCase("linearring") == 0) ||
                         (qName.compareToIgnoreCase("gml:linearring") == 0)) {
                     Coordinate[] c = new Coordinate[0];
@@ -447,10 +510,12 @@ public class GMLReader extends DefaultHandler implements JUMPReader {
                     //c= (Coordinate[])l;
                     linearRing = geometryFactory.createLinearRing(c);
                 } else if ((qName.compareToIgnoreCase("outerBoundaryIs") == 0) ||
-                        (qName.compareToIgnoreCase("gml:outerBoundaryIs") == 0)) {
+                        (qName.compareToIgnoreCase("gml:outerBoundaryIs") == 0) ||
+                        (qName.compareToIgnoreCase("gml:exterior") == 0)) {
                     outerBoundary = linearRing;
                 } else if ((qName.compareToIgnoreCase("innerBoundaryIs") == 0) ||
-                        (qName.compareToIgnoreCase("gml:innerBoundaryIs") == 0)) {
+                        (qName.compareToIgnoreCase("gml:innerBoundaryIs") == 0) ||
+                        (qName.compareToIgnoreCase("gml:interior") == 0)) {
                     innerBoundaries.add(linearRing);
                 } else if ((qName.compareToIgnoreCase("polygon") == 0) ||
                         (qName.compareToIgnoreCase("gml:polygon") == 0)) {
@@ -476,7 +541,7 @@ public class GMLReader extends DefaultHandler implements JUMPReader {
                 }
             } else if (STATE == STATE_GET_COLUMNS) {
                 if (qName.compareTo(GMLinput.featureTag) == 0) {
-                    tagBody = new StringBuffer();
+                    tagBody.setLength(0);
                     STATE = STATE_WAIT_FEATURE_TAG;
 
                     //System.out.println("end feature");
@@ -492,7 +557,7 @@ public class GMLReader extends DefaultHandler implements JUMPReader {
                             "no geometry specified in feature");
                     }
 
-                    fc.add(currentFeature);
+                    sink.add(currentFeature);
                     currentFeature = null;
 
                     return;
@@ -540,19 +605,19 @@ public class GMLReader extends DefaultHandler implements JUMPReader {
                         e.printStackTrace();
                     }
 
-                    tagBody = new StringBuffer();
+                    tagBody.setLength(0);
                 }
             } else if (STATE == STATE_WAIT_FEATURE_TAG) {
                 if (qName.compareToIgnoreCase(GMLinput.collectionTag) == 0) {
                     STATE = STATE_INIT; //finish
 
                     //System.out.println("DONE!");
-                    tagBody = new StringBuffer();
+                    tagBody.setLength(0);
 
                     return;
                 }
             } else if (STATE == STATE_WAIT_COLLECTION_TAG) {
-                tagBody = new StringBuffer();
+                tagBody.setLength(0);
 
                 return; //still look for start collection tag
             }
@@ -580,17 +645,72 @@ public class GMLReader extends DefaultHandler implements JUMPReader {
      */
     public FeatureCollection read(DriverProperties dp)
         throws IllegalParametersException, Exception {
-        FeatureCollection fc;
-        GMLInputTemplate gmlTemplate;
-        String inputFname;
-        boolean isCompressed;
-        boolean isCompressed_template;
+        //The property applies to this read only
+        String spillToDiskProperty = dp.getProperty("SpillToDisk");
+        boolean spill = (spillToDiskProperty == null) ? spillToDisk
+                                                      : "true".equalsIgnoreCase(spillToDiskProperty.trim());
 
-        isCompressed_template = (dp.getProperty("CompressedFileTemplate") != null);
+        setParallelism(dp);
+        loadInputTemplate(dp);
 
-        isCompressed = (dp.getProperty("CompressedFile") != null);
+        FeatureSchema featureSchema = GMLinput.toFeatureSchema();
 
-        inputFname = dp.getProperty("File");
+        if (canReadInParallel(dp)) {
+            FeatureCollection fc = createFeatureCollection(featureSchema, spill);
+            FeatureLoader loader = new FeatureLoader(fc, 0);
+
+            try {
+                if (readInParallel(inputFileName(dp), loader, featureSchema)) {
+                    loader.flush();
+
+                    return fc;
+                }
+            } catch (ParseException e) {
+                //Read the file again in one piece, which also reports the
+                //right line number if the file really is malformed
+            }
+
+            closeIfOnDisk(fc);
+        }
+
+        java.io.Reader r = openInput(dp);
+
+        try {
+            return read(r, inputFileName(dp), featureSchema, spill);
+        } finally {
+            r.close();
+        }
+    }
+
+    /**
+     * Reads the file specified in the DriverProperties (see #read(DriverProperties))
+     * and passes each feature to the sink as soon as it has been parsed.
+     */
+    public void read(DriverProperties dp, FeatureSink sink)
+        throws IllegalParametersException, Exception {
+        setParallelism(dp);
+        loadInputTemplate(dp);
+
+        FeatureSchema featureSchema = GMLinput.toFeatureSchema();
+        sink.start(featureSchema);
+
+        if (canReadInParallel(dp) &&
+                readInParallel(inputFileName(dp), sink, featureSchema)) {
+            return;
+        }
+
+        java.io.Reader r = openInput(dp);
+
+        try {
+            parse(r, inputFileName(dp), sink, featureSchema);
+        } finally {
+            r.close();
+        }
+    }
+
+    private String inputFileName(DriverProperties dp)
+        throws IllegalParametersException {
+        String inputFname = dp.getProperty("File");
 
         if (inputFname == null) {
             inputFname = dp.getProperty("DefaultValue");
@@ -601,6 +721,25 @@ public class GMLReader extends DefaultHandler implements JUMPReader {
                 "call to GMLReader.read() has DataProperties w/o a InputFile specified");
         }
 
+        return inputFname;
+    }
+
+    /**
+     * Sets the input template specified by the DriverProperties.
+     */
+    private void loadInputTemplate(DriverProperties dp)
+        throws IllegalParametersException, Exception {
+        GMLInputTemplate gmlTemplate;
+        String inputFname;
+        boolean isCompressed;
+        boolean isCompressed_template;
+
+        isCompressed_template = (dp.getProperty("CompressedFileTemplate") != null);
+
+        isCompressed = (dp.getProperty("CompressedFile") != null);
+
+        inputFname = inputFileName(dp);
+
         if (dp.getProperty("TemplateFile") == null) {
             // load from .gml file
             if (isCompressed) {
@@ -641,22 +780,63 @@ public class GMLReader extends DefaultHandler implements JUMPReader {
             }
         }
 
-        java.io.Reader r;
-
         this.setInputTemplate(gmlTemplate);
+    }
+
+    private java.io.Reader openInput(DriverProperties dp)
+        throws IllegalParametersException, Exception {
+        String inputFname = inputFileName(dp);
+        InputStream in;
 
-        if (isCompressed) {
-            r = new BufferedReader(new InputStreamReader(
-                        CompressedFile.openFile(inputFname,
-                            dp.getProperty("CompressedFile"))));
+        if (dp.getProperty("CompressedFile") != null) {
+            in = new BufferedInputStream(CompressedFile.openFile(inputFname,
+                        dp.getProperty("CompressedFile")));
         } else {
-            r = new BufferedReader(new FileReader(inputFname));
+            in = new BufferedInputStream(new FileInputStream(inputFname));
         }
 
-        fc = read(r, inputFname);
-        r.close();
+        return new BufferedReader(new InputStreamReader(in, readEncoding(in)));
+    }
 
-        return fc;
+    /**
+     * Returns the character set named by the encoding declaration in the XML
+     * prolog at the start of the stream, or the platform default (which files
+     * were read with before the declaration was looked at) if there is none.
+     * A UTF-8 byte order mark is skipped. The stream must support mark.
+     */
+    static Charset readEncoding(InputStream in) throws IOException {
+        byte[] bytes = new byte[PROLOG_LENGTH];
+        int length = 0;
+        in.mark(PROLOG_LENGTH);
+
+        for (int read = 0; (read != -1) && (length < bytes.length);
+                read = in.read(bytes, length, bytes.length - length)) {
+            length += read;
+        }
+
+        in.reset();
+
+        if ((length >= 3) && ((bytes[0] & 0xFF) == 0xEF) &&
+                ((bytes[1] & 0xFF) == 0xBB) && ((bytes[2] & 0xFF) == 0xBF)) {
+            in.skip(3);
+
+            return Charset.forName("UTF-8");
+        }
+
+        String start = new String(bytes, 0, length, "ISO-8859-1");
+        int prologEnd = start.indexOf("?>");
+
+        if (!start.startsWith("<?xml") || (prologEnd == -1)) {
+            return Charset.defaultCharset();
+        }
+
+        Matcher matcher = ENCODING.matcher(start.substring(0, prologEnd));
+
+        if (matcher.find() && Charset.isSupported(matcher.group(2))) {
+            return Charset.forName(matcher.group(2));
+        }
+
+        return Charset.defaultCharset();
     }
 
     /**
@@ -683,17 +863,60 @@ public class GMLReader extends DefaultHandler implements JUMPReader {
      */
     public FeatureCollection read(java.io.Reader r, String readerName)
         throws Exception {
-        LineNumberReader myReader = new LineNumberReader(r);
+        if (GMLinput == null) {
+            throw new ParseException(
+                "you must set the GMLinput template first!");
+        }
+
+        return read(r, readerName, GMLinput.toFeatureSchema(), spillToDisk);
+    }
 
+    private FeatureCollection read(java.io.Reader r, String readerName,
+        FeatureSchema featureSchema, boolean spill) throws Exception {
+        FeatureCollection fc = createFeatureCollection(featureSchema, spill);
+        FeatureLoader loader = new FeatureLoader(fc, 0);
+
+        try {
+            parse(r, readerName, loader, featureSchema);
+            loader.flush();
+        } catch (Exception e) {
+            closeIfOnDisk(fc);
+            throw e;
+        }
+
+        return fc;
+    }
+
+    /**
+     *  Reads a GML file and passes each feature to the sink as soon as its
+     *  end tag has been parsed, so that the features need not all be in
+     *  memory at once. You should have already called setInputTemplate().
+     *
+     *@param  r              reader to read the GML File from
+     *@param  readerName     what to call the reader for error reporting
+     *@param  sink           receives the schema and then the features
+     *@exception  Exception  if the GML cannot be parsed, or the sink fails
+     */
+    public void read(java.io.Reader r, String readerName, FeatureSink sink)
+        throws Exception {
         if (GMLinput == null) {
             throw new ParseException(
                 "you must set the GMLinput template first!");
         }
 
+        FeatureSchema featureSchema = GMLinput.toFeatureSchema();
+        sink.start(featureSchema);
+        parse(r, readerName, sink, featureSchema);
+    }
+
+    private void parse(java.io.Reader r, String readerName, FeatureSink sink,
+        FeatureSchema featureSchema) throws Exception {
+        LineNumberReader myReader = new LineNumberReader(r);
+
         streamName = readerName;
 
-        fcmd = GMLinput.toFeatureSchema();
-        fc = new FeatureDataset(fcmd);
+        fcmd = featureSchema;
+        this.sink = sink;
 
         try {
             xr.parse(new InputSource(myReader));
@@ -706,9 +929,397 @@ public class GMLReader extends DefaultHandler implements JUMPReader {
         } catch (SAXException e) {
             throw new ParseException(e.getMessage() + "  Last Opened Tag: " +
                 lastStartTag_qName, streamName, myReader.getLineNumber(), 0);
+        } finally {
+            this.sink = null;
         }
+    }
 
-        return fc;
+    private FeatureCollection createFeatureCollection(
+        FeatureSchema featureSchema, boolean spill) throws IOException {
+        return spill
+            ? (FeatureCollection) new DiskFeatureCollection(featureSchema)
+            : new FeatureDataset(featureSchema);
+    }
+
+    private static FeatureSink collector(final FeatureCollection fc) {
+        return new FeatureSink() {
+                public void start(FeatureSchema schema) {
+                }
+
+                public void add(Feature feature) {
+                    fc.add(feature);
+                }
+            };
+    }
+
+    /**
+     * Whether #read writes the features to a temporary file rather than
+     * keeping them on the heap. The SpillToDisk property does the same for
+     * a single #read(DriverProperties).
+     * @see DiskFeatureCollection
+     */
+    public void setSpillToDisk(boolean spillToDisk) {
+        this.spillToDisk = spillToDisk;
+    }
+
+    private void closeIfOnDisk(FeatureCollection fc) throws IOException {
+        if (fc instanceof DiskFeatureCollection) {
+            ((DiskFeatureCollection) fc).close();
+        }
+    }
+
+    /**
+     * Sets the number of threads #read(DriverProperties) uses to parse an
+     * uncompressed file. The file is split into chunks just before feature
+     * start tags, the chunks are parsed at the same time, and the features
+     * come out in the order of the file. 1 (the default) parses the file in
+     * the calling thread.
+     */
+    public void setParallelism(int threads) {
+        parallelism = Math.max(1, threads);
+    }
+
+    /**
+     * Sets the number of bytes of the file that a thread parses at a time
+     * when reading in parallel (see #setParallelism). The default is 4 MB.
+     */
+    public void setChunkSize(int bytes) {
+        chunkSize = Math.max(1, bytes);
+    }
+
+    private void setParallelism(DriverProperties dp)
+        throws IllegalParametersException {
+        String parallel = dp.getProperty("Parallel");
+
+        if ((parallel == null) || (parallel.trim().length() == 0)) {
+            return;
+        }
+
+        if ("false".equalsIgnoreCase(parallel.trim())) {
+            setParallelism(1);
+        } else if ("true".equalsIgnoreCase(parallel.trim())) {
+            setParallelism(Runtime.getRuntime().availableProcessors());
+        } else {
+            try {
+                setParallelism(Integer.parseInt(parallel.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalParametersException(
+                    "Parallel must be 'true', 'false' or a number of threads, got '" +
+                    parallel + "'");
+            }
+        }
+    }
+
+    private boolean canReadInParallel(DriverProperties dp) {
+        return (parallelism > 1) && (dp.getProperty("CompressedFile") == null);
+    }
+
+    /**
+     * Parses the file in chunks on #parallelism threads, and passes the
+     * features to the sink in the order of the file. At most two chunks per
+     * thread are parsed ahead of the sink, so memory stays bounded.
+     *
+     * @return false if the file should be read in one piece instead, because
+     *      it is too small to split or it did not split into well-formed
+     *      chunks (nothing has been passed to the sink in that case)
+     * @throws ParseException if a chunk after the first features were passed
+     *      to the sink cannot be parsed
+     */
+    private boolean readInParallel(String fileName, FeatureSink sink,
+        FeatureSchema featureSchema) throws Exception {
+        Charset charset;
+        InputStream in = new BufferedInputStream(new FileInputStream(fileName));
+
+        try {
+            charset = readEncoding(in);
+        } finally {
+            in.close();
+        }
+
+        //The file is split at tags found as ASCII bytes
+        if (!Arrays.equals("<?xml".getBytes(charset), "<?xml".getBytes("US-ASCII"))) {
+            return false;
+        }
+
+        List chunks = splitAtFeatures(fileName);
+
+        if (chunks.size() < 2) {
+            return false;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        LinkedList parsing = new LinkedList();
+        int next = 0;
+        boolean started = false;
+
+        try {
+            while (true) {
+                while ((next < chunks.size()) &&
+                        (parsing.size() < (2 * parallelism))) {
+                    long[] chunk = (long[]) chunks.get(next++);
+                    parsing.add(executor.submit(chunkParser(fileName, chunk[0],
+                                chunk[1], charset, featureSchema)));
+                }
+
+                if (parsing.isEmpty()) {
+                    return true;
+                }
+
+                List features;
+
+                try {
+                    features = (List) ((Future) parsing.removeFirst()).get();
+                } catch (ExecutionException e) {
+                    if (!started && e.getCause() instanceof ParseException) {
+                        return false;
+                    }
+
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+
+                    throw (Error) e.getCause();
+                }
+
+                if (!started && (sink instanceof FeatureLoader)) {
+                    //The chunks are about the same size, so the first one
+                    //gives an estimate of the number of features
+                    ((FeatureLoader) sink).setSizeHint(features.size() * chunks.size());
+                }
+
+                for (Iterator i = features.iterator(); i.hasNext();) {
+                    sink.add((Feature) i.next());
+                    started = true;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Callable chunkParser(final String fileName, final long start,
+        final long end, final Charset charset, final FeatureSchema featureSchema) {
+        final GMLReader reader = new GMLReader();
+        reader.setInputTemplate(GMLinput);
+        reader.parseSRID = parseSRID;
+        reader.multiItemsAsLists = multiItemsAsLists;
+
+        return new Callable() {
+                public Object call() throws Exception {
+                    FeatureDataset chunk = new FeatureDataset(featureSchema);
+                    java.io.Reader r = reader.openChunk(fileName, start, end,
+                            charset);
+
+                    try {
+                        reader.parse(r,
+                            fileName + " (bytes " + start + "-" + end + ")",
+                            collector(chunk), featureSchema);
+                    } finally {
+                        r.close();
+                    }
+
+                    return chunk.getFeatures();
+                }
+            };
+    }
+
+    /**
+     * Returns the part of the file between the given offsets, wrapped in the
+     * collection tags so that it parses like a whole file.
+     * @param charset the encoding of the whole file, see #readEncoding
+     */
+    private java.io.Reader openChunk(String fileName, long start, long end,
+        Charset charset) throws IOException {
+        FileInputStream file = new FileInputStream(fileName);
+        file.getChannel().position(start);
+
+        InputStream in = new SequenceInputStream(Collections.enumeration(
+                    Arrays.asList(new InputStream[] {
+                            new ByteArrayInputStream(("<" +
+                                GMLinput.collectionTag + ">").getBytes(charset)),
+                            new RangeInputStream(file, end - start),
+                            new ByteArrayInputStream(("</" +
+                                GMLinput.collectionTag + ">").getBytes(charset))
+                        })));
+
+        return new BufferedReader(new InputStreamReader(in, charset));
+    }
+
+    /**
+     * Returns the [start, end) byte offsets of chunks of about #chunkSize
+     * bytes, each starting at a feature start tag, that together hold all
+     * the features of the file. The offsets are found by looking for the tags
+     * as bytes, not by parsing, so a tag in a comment or CDATA section can
+     * split the file in the wrong place; such chunks are not well-formed.
+     */
+    private List splitAtFeatures(String fileName) throws IOException {
+        List chunks = new ArrayList();
+        byte[] collectionStartTag = ("<" + GMLinput.collectionTag).getBytes();
+        byte[] collectionEndTag = ("</" + GMLinput.collectionTag).getBytes();
+        byte[] featureStartTag = ("<" + GMLinput.featureTag).getBytes();
+        RandomAccessFile file = new RandomAccessFile(fileName, "r");
+
+        try {
+            long collectionStart = find(file, 0, file.length(),
+                    collectionStartTag);
+
+            if (collectionStart == -1) {
+                return chunks;
+            }
+
+            long start = find(file, collectionStart + 1, file.length(),
+                    featureStartTag);
+            long end = findLast(file, collectionEndTag);
+
+            if ((start == -1) || (end < start)) {
+                return chunks;
+            }
+
+            while ((end - start) > chunkSize) {
+                long split = find(file, start + chunkSize, end,
+                        featureStartTag);
+
+                if (split == -1) {
+                    break;
+                }
+
+                chunks.add(new long[] { start, split });
+                start = split;
+            }
+
+            chunks.add(new long[] { start, end });
+        } finally {
+            file.close();
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Returns the offset of the first occurrence of the tag (compared without
+     * regard to case, and followed by whitespace, '>' or '/') between the
+     * given offsets, or -1.
+     */
+    private static long find(RandomAccessFile file, long from, long to,
+        byte[] tag) throws IOException {
+        byte[] buffer = new byte[SEARCH_BUFFER_SIZE];
+        long position = from;
+
+        while (position < to) {
+            file.seek(position);
+
+            int length = file.read(buffer, 0,
+                    (int) Math.min(buffer.length, to - position));
+
+            if (length <= tag.length) {
+                return -1;
+            }
+
+            for (int i = 0; (i + tag.length) < length; i++) {
+                if (isTagAt(buffer, i, tag)) {
+                    return position + i;
+                }
+            }
+
+            //Overlap the next read, so that a tag across the boundary is found
+            position += (length - tag.length);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the offset of the last occurrence of the tag in the last
+     * #SEARCH_BUFFER_SIZE bytes of the file, or -1.
+     */
+    private static long findLast(RandomAccessFile file, byte[] tag)
+        throws IOException {
+        byte[] buffer = new byte[SEARCH_BUFFER_SIZE];
+        long position = Math.max(0, file.length() - buffer.length);
+        file.seek(position);
+
+        int length = file.read(buffer);
+
+        for (int i = length - tag.length - 1; i >= 0; i--) {
+            if (isTagAt(buffer, i, tag)) {
+                return position + i;
+            }
+        }
+
+        return -1;
+    }
+
+    //The caller makes sure there is a byte after the tag
+    private static boolean isTagAt(byte[] buffer, int offset, byte[] tag) {
+        for (int i = 0; i < tag.length; i++) {
+            if (toLowerCase(buffer[offset + i]) != toLowerCase(tag[i])) {
+                return false;
+            }
+        }
+
+        byte next = buffer[offset + tag.length];
+
+        return (next == '>') || (next == '/') || (next == ' ') ||
+        (next == '\t') || (next == '\n') || (next == '\r');
+    }
+
+    private static byte toLowerCase(byte b) {
+        return ((b >= 'A') && (b <= 'Z')) ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    /**
+     * Reads a given number of bytes from an InputStream.
+     */
+    private static class RangeInputStream extends FilterInputStream {
+        private long remaining;
+
+        RangeInputStream(InputStream in, long length) {
+            super(new BufferedInputStream(in, 65536));
+            remaining = length;
+        }
+
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+
+            int b = in.read();
+
+            if (b != -1) {
+                remaining--;
+            }
+
+            return b;
+        }
+
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+
+            int n = in.read(b, off, (int) Math.min(len, remaining));
+
+            if (n > 0) {
+                remaining -= n;
+            }
+
+            return n;
+        }
+
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, remaining));
+            remaining -= skipped;
+
+            return skipped;
+        }
+
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        public boolean markSupported() {
+            return false;
+        }
     }
 
     ////////////////////////////////////////////////////////////////////
@@ -720,7 +1331,8 @@ public class GMLReader extends DefaultHandler implements JUMPReader {
      */
     public void startDocument() {
         //System.out.println("Start document");
-        tagBody = new StringBuffer();
+        tagBody.setLength(0);
+        scanningCoordinates = false;
         STATE = STATE_WAIT_COLLECTION_TAG;
     }
 
@@ -738,11 +1350,12 @@ public class GMLReader extends DefaultHandler implements JUMPReader {
         Attributes atts) throws SAXException {
         try {
             //System.out.println("Start element: " + qName);
-            tagBody = new StringBuffer();
+            tagBody.setLength(0);
             lastStartTag_uri = uri;
             lastStartTag_name = name;
             lastStartTag_qName = qName;
-            lastStartTag_atts = atts;
+            //The parser reuses atts once this method returns
+            lastStartTag_atts = new AttributesImpl(atts);
 
             if (STATE == STATE_INIT) {
                 return; //something wrong
@@ -819,10 +1432,16 @@ public class GMLReader extends DefaultHandler implements JUMPReader {
                     (qName.compareToIgnoreCase("z") == 0) ||
                     (qName.compareToIgnoreCase("gml:z") == 0) ||
                     (qName.compareToIgnoreCase("coord") == 0) ||
-                    (qName.compareToIgnoreCase("gml:coord") == 0)))) {
+                    (qName.compareToIgnoreCase("gml:coord") == 0) ||
+                    (qName.compareToIgnoreCase("pos") == 0) ||
+                    (qName.compareToIgnoreCase("gml:pos") == 0)))) {
                 pointList.clear(); //clear out any accumulated points
             }
 
+            if (STATE >= STATE_PARSE_GEOM_SIMPLE) {
+                startCoordinates(qName, atts);
+            }
+
             if ((STATE >= STATE_PARSE_GEOM_SIMPLE) &&
                     ((qName.compareToIgnoreCase("polygon") == 0) ||
                     (qName.compareToIgnoreCase("gml:polygon") == 0))) {
@@ -925,62 +1544,59 @@ public class GMLReader extends DefaultHandler implements JUMPReader {
     }
 
     /**
-     *  Parse a bunch of points - stick them in pointList. Handles 2d and 3d.
+     *  If the tag holds a list of coordinates, get the coordinateScanner
+     *  ready to parse it as it is read (see #characters). Handles 2d and 3d.
      *
-     *@param  ptString         string containing a bunch of coordinates
-     *@param  geometryFactory  JTS point/coordinate factory
-     */
-    private void parsePoints(String ptString, GeometryFactory geometryFactory) {
-        String aPoint;
-        StringTokenizer stokenizerPoint;
-        Coordinate coord = new Coordinate();
-        int dim;
-        String numb;
-        StringBuffer sb;
-        int t;
-        char ch;
-
-        //remove \n and \r and replace with spaces
-        sb = new StringBuffer(ptString);
-
-        for (t = 0; t < sb.length(); t++) {
-            ch = sb.charAt(t);
-
-            if ((ch == '\n') || (ch == '\r')) {
-                sb.setCharAt(t, ' ');
+     *@param  qName  the tag
+     *@param  atts   its attributes: cs, ts and decimal for gml:coordinates,
+     *      srsDimension (or dimension) for gml:posList
+     */
+    private void startCoordinates(String qName, Attributes atts) {
+        if ((qName.compareToIgnoreCase("COORDINATES") == 0) ||
+                (qName.compareToIgnoreCase("gml:coordinates") == 0)) {
+            coordinateScanner.startCoordinates(separator(atts, "cs", ','),
+                separator(atts, "ts", ' '), separator(atts, "decimal", '.'));
+            scanningCoordinates = true;
+        } else if ((qName.compareToIgnoreCase("gml:posList") == 0) ||
+                (qName.compareToIgnoreCase("posList") == 0)) {
+            String dimension = atts.getValue("srsDimension");
+
+            if (dimension == null) {
+                dimension = atts.getValue("dimension");
             }
+
+            coordinateScanner.startPositions((dimension == null) ? 2
+                                                                 : Integer.parseInt(dimension.trim()));
+            scanningCoordinates = true;
+        } else if ((qName.compareToIgnoreCase("gml:pos") == 0) ||
+                (qName.compareToIgnoreCase("pos") == 0)) {
+            coordinateScanner.startPositions(0);
+            scanningCoordinates = true;
         }
+    }
 
-        StringTokenizer stokenizer = new StringTokenizer(new String(sb), " ",
-                false);
+    private static char separator(Attributes atts, String name, char defaultSeparator) {
+        String separator = atts.getValue(name);
 
-        while (stokenizer.hasMoreElements()) {
-            //have a point in memory - handle the single point
-            aPoint = stokenizer.nextToken();
-            stokenizerPoint = new StringTokenizer(aPoint, ",", false);
-            coord.x = coord.y = coord.z = Double.NaN;
-            dim = 0;
+        if ((separator == null) || (separator.length() == 0)) {
+            return defaultSeparator;
+        }
 
-            while (stokenizerPoint.hasMoreElements()) {
-                numb = stokenizerPoint.nextToken();
+        if (separator.length() > 1) {
+            throw new IllegalArgumentException("GML error - the " + name +
+                " attribute must be a single character, got '" + separator + "'");
+        }
 
-                if (dim == 0) {
-                    coord.x = Double.parseDouble(numb);
-                } else if (dim == 1) {
-                    coord.y = Double.parseDouble(numb);
-                } else if (dim == 2) {
-                    coord.z = Double.parseDouble(numb);
-                }
+        return separator.charAt(0);
+    }
 
-                dim++;
-            }
-            if ( (coord.x != coord.x) || (coord.y != coord.y) ) //one (x,y) is NaN
-            {
-                throw new IllegalArgumentException("GML error - coordinate list isnt valid GML. Watch your spaces and commas!");
-            }
-            pointList.add(coord); //remember it
-            coord = new Coordinate();
-            stokenizerPoint = null;
+    /**
+     *  Add the points the coordinateScanner has parsed to pointList.
+     */
+    private void endCoordinates() {
+        if (scanningCoordinates) {
+            coordinateScanner.end(pointList);
+            scanningCoordinates = false;
         }
     }
 
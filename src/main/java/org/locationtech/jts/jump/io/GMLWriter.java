@@ -38,6 +38,7 @@ import org.locationtech.jts.jump.feature.*;
 
 import java.io.BufferedWriter;
 import java.io.FileReader;
+import java.io.IOException;
 
 import java.lang.reflect.Array;
 
@@ -82,6 +83,16 @@ import java.util.Iterator;
  *    gmlWriter.setOutputTemplate( GMLOutputTemplate);
  *    gmlWriter.write( <writer>, <stream name>);
  * </pre>
+ * To write features one at a time, as they are read or made, instead of
+ * from a FeatureCollection:
+ * <pre>
+ *    gmlWriter.open( FeatureSchema, DriverProperties);
+ *    gmlWriter.append( Feature);
+ *    ...
+ *    gmlWriter.close();
+ * </pre>
+ * The geometries are written straight to the output, without building a
+ * String for each (see {@link GMLGeometryWriter}).
  * <br>
 
  * Also, the function "makeOutputTemplate()" is useful for
@@ -108,12 +119,25 @@ public class GMLWriter implements JUMPWriter {
     public static String standard_geom = "geometry";
     public static String standard_feature = "feature";
     public static String standard_featureCollection = "featureCollection";
+    private static final int TOKEN_COLUMN = 0;
+    private static final int TOKEN_GEOMETRY = 1;
+    private static final int TOKEN_GEOMETRY_TYPE = 2;
     private GMLOutputTemplate outputTemplate = null;
     private GMLGeometryWriter geometryWriter = new GMLGeometryWriter();
 
+    //The output template's tokens, worked out by #open
+    private String[] featureTexts;
+    private int[] tokenTypes;
+    private String[] tokenColumns;
+
+    //Where #append writes to, between #open and #close
+    private BufferedWriter out = null;
+    private boolean closeWriter = false;
+
     /** constructor**/
     public GMLWriter() {
         geometryWriter.setLinePrefix("                ");
+        geometryWriter.setMaximumCoordinatesPerLine(1);
     }
 
     /**
@@ -122,6 +146,46 @@ public class GMLWriter implements JUMPWriter {
      * @param dp specify the 'OuputFile' and 'OuputTemplateFile'
      */
     public void write(FeatureCollection featureCollection, DriverProperties dp)
+        throws IllegalParametersException, Exception {
+        open(featureCollection.getFeatureSchema(), dp);
+        write(featureCollection);
+    }
+
+    /**
+     * Actual evaluator/writer - you should have already called setOutputTemplate
+     *@param featureCollection features to write
+     *@param writer - where to send the output to
+     */
+    public void write(FeatureCollection featureCollection, java.io.Writer writer)
+        throws Exception {
+        open(writer);
+        write(featureCollection);
+    }
+
+    private void write(FeatureCollection featureCollection)
+        throws Exception {
+        try {
+            for (Iterator t = featureCollection.iterator(); t.hasNext();) {
+                append((Feature) t.next());
+            }
+        } catch (Exception e) {
+            abort();
+            throw e;
+        }
+
+        close();
+    }
+
+    /**
+     * Creates the file and writes the header, after which features can be
+     * written one at a time with #append and the file finished with #close,
+     * so that the features need not all be in memory at once.
+     *
+     * @param featureSchema schema of the features that will be appended,
+     *      from which the output template is made if dp has no 'TemplateFile'
+     * @param dp specify the 'OuputFile' and 'OuputTemplateFile'
+     */
+    public void open(FeatureSchema featureSchema, DriverProperties dp)
         throws IllegalParametersException, Exception {
         GMLOutputTemplate gmlTemplate;
         String outputFname;
@@ -139,7 +203,7 @@ public class GMLWriter implements JUMPWriter {
 
         if (dp.getProperty("TemplateFile") == null) {
             //we're going create the output template
-            gmlTemplate = GMLWriter.makeOutputTemplate(featureCollection.getFeatureSchema());
+            gmlTemplate = GMLWriter.makeOutputTemplate(featureSchema);
         } else {
             // load the template
             java.io.Reader r;
@@ -150,60 +214,164 @@ public class GMLWriter implements JUMPWriter {
             r.close();
         }
 
-        //have a template and FC.  Write it!
+        //have a template.  Write it!
         setOutputTemplate(gmlTemplate);
 
-        java.io.Writer w;
+        java.io.Writer w = new java.io.FileWriter(outputFname);
+
+        try {
+            open(w);
+        } catch (Exception e) {
+            w.close();
+            throw e;
+        }
 
-        w = new java.io.BufferedWriter(new java.io.FileWriter(outputFname));
-        this.write(featureCollection, w);
-        w.close();
+        closeWriter = true;
     }
 
     /**
-     * Actual evaluator/writer - you should have already called setOutputTemplate
-     *@param featureCollection features to write
+     * Writes the header to the writer, after which features can be written
+     * one at a time with #append. #close writes the footer but leaves the
+     * writer open. You should have already called setOutputTemplate.
      *@param writer - where to send the output to
      */
-    public void write(FeatureCollection featureCollection, java.io.Writer writer)
-        throws Exception {
-        BufferedWriter buffWriter;
-        Feature f;
-        String pre;
-        String token;
-
+    public void open(java.io.Writer writer) throws Exception {
         if (outputTemplate == null) {
             throw new Exception(
                 "attempt to write GML w/o specifying the output template");
         }
 
-        buffWriter = new BufferedWriter(writer);
+        compileTemplate();
+        out = new BufferedWriter(writer);
+        closeWriter = false;
+        out.write(outputTemplate.headerText);
+    }
 
-        buffWriter.write(outputTemplate.headerText);
+    /**
+     * Returns a FeatureSink that opens this writer with the schema it is
+     * given (see #open(FeatureSchema, DriverProperties)) and appends the
+     * features it receives. Call #close once all the features have been
+     * written.
+     */
+    public FeatureSink toSink(final DriverProperties dp) {
+        return new FeatureSink() {
+                public void start(FeatureSchema featureSchema)
+                    throws Exception {
+                    open(featureSchema, dp);
+                }
 
-        for (Iterator t = featureCollection.iterator(); t.hasNext();) {
-            f = (Feature) t.next();
+                public void add(Feature feature) throws Exception {
+                    append(feature);
+                }
+            };
+    }
 
-            for (int u = 0; u < outputTemplate.featureText.size(); u++) {
-                String evaled;
-                pre = (String) outputTemplate.featureText.get(u);
-                token = (String) outputTemplate.codingText.get(u);
-                buffWriter.write(pre);
-                evaled = evaluateToken(f, token);
+    /**
+     * Writes a feature.
+     */
+    public void append(Feature f) throws Exception {
+        for (int u = 0; u < tokenTypes.length; u++) {
+            out.write(featureTexts[u]);
+
+            switch (tokenTypes[u]) {
+            case TOKEN_COLUMN:
 
-                if (evaled == null) {
-                    evaled = "";
+                String value = toString(f, tokenColumns[u]);
+
+                if (value != null) {
+                    //need to ensure that the output is XML okay
+                    writeXML(value);
                 }
 
-                buffWriter.write(evaled);
+                break;
+
+            case TOKEN_GEOMETRY:
+                geometryWriter.write(f.getGeometry(), out);
+
+                break;
+
+            case TOKEN_GEOMETRY_TYPE:
+                out.write(f.getGeometry().getGeometryType());
+
+                break;
             }
+        }
+
+        out.write(outputTemplate.featureTextfooter);
+        out.write("\n");
+    }
+
+    /**
+     * Writes the footer and flushes the output; closes the file if it was
+     * opened by #open(FeatureSchema, DriverProperties).
+     */
+    public void close() throws IOException {
+        out.write(outputTemplate.footerText);
+
+        if (closeWriter) {
+            out.close();
+        } else {
+            out.flush();
+        }
+
+        out = null;
+    }
 
-            buffWriter.write(outputTemplate.featureTextfooter);
-            buffWriter.write("\n");
+    //Closes a file that could not be finished, without writing the footer
+    private void abort() throws IOException {
+        if (closeWriter && (out != null)) {
+            out.close();
         }
 
-        buffWriter.write(outputTemplate.footerText);
-        buffWriter.flush();
+        out = null;
+    }
+
+    /**
+     * Writes the string, converting characters that would upset XML as
+     * #safeXML does.
+     */
+    private void writeXML(String s) throws IOException {
+        int start = 0;
+
+        for (int t = 0; t < s.length(); t++) {
+            String entity;
+
+            switch (s.charAt(t)) {
+            case '<':
+                entity = "&lt;";
+
+                break;
+
+            case '>':
+                entity = "&gt;";
+
+                break;
+
+            case '&':
+                entity = "&amp;";
+
+                break;
+
+            case '\'':
+                entity = "&apos;";
+
+                break;
+
+            case '"':
+                entity = "&quot;";
+
+                break;
+
+            default:
+                continue;
+            }
+
+            out.write(s, start, t - start);
+            out.write(entity);
+            start = t + 1;
+        }
+
+        out.write(s, start, s.length() - start);
     }
 
     /**
@@ -250,15 +418,23 @@ public class GMLWriter implements JUMPWriter {
     }
 
     /**
-     *takes a token and replaces it with its value (ie. geometry or column)
-     * @param f feature to take geometry or column value from
-     *@token token to evaluate - "column","geometry" or "geometrytype"
+     * Works out once, rather than for every feature, what each token of the
+     * output template stands for - "column","geometry" or "geometrytype"
      */
-    private String evaluateToken(Feature f, String token)
-        throws Exception, ParseException {
-        String column;
+    private void compileTemplate() throws ParseException {
+        int count = outputTemplate.featureText.size();
+        featureTexts = new String[count];
+        tokenTypes = new int[count];
+        tokenColumns = new String[count];
+
+        for (int u = 0; u < count; u++) {
+            featureTexts[u] = (String) outputTemplate.featureText.get(u);
+            compileToken(u, (String) outputTemplate.codingText.get(u));
+        }
+    }
+
+    private void compileToken(int u, String token) throws ParseException {
         String cmd;
-        String result;
         int index;
 
         //token = token.toLowerCase();
@@ -280,25 +456,12 @@ public class GMLWriter implements JUMPWriter {
         }
 
         if (cmd.equalsIgnoreCase("column")) {
-            column = token.substring(6);
-            column = column.trim();
-
-            //  System.out.println("column = " + column);
-            result = toString(f, column);
-
-            //need to ensure that the output is XML okay
-            result = safeXML(result);
-
-            return result;
+            tokenTypes[u] = TOKEN_COLUMN;
+            tokenColumns[u] = token.substring(6).trim();
         } else if (cmd.equalsIgnoreCase("geometry")) {
-            // MD - testing new GMLGeometryWriter
-            geometryWriter.setMaximumCoordinatesPerLine(1);
-
-            return geometryWriter.write(f.getGeometry());
-
-            //return Geometry2GML(f.getGeometry());
+            tokenTypes[u] = TOKEN_GEOMETRY;
         } else if (cmd.equalsIgnoreCase("geometrytype")) {
-            return f.getGeometry().getGeometryType();
+            tokenTypes[u] = TOKEN_GEOMETRY_TYPE;
         } else {
             throw new ParseException("couldn't understand token '" + token +
                 "' in the output template");
@@ -77,6 +77,20 @@ import org.locationtech.jts.jump.feature.FeatureCollection;
  *      InputTemplateFile)
  *    </td>
  *  </tr>
+ *  <tr>
+ *    <td>SpillToDisk</td>
+ *    <td>
+ *      'true' to read the features into a {@link DiskFeatureCollection}
+ *      rather than onto the heap (see {@link GMLReader})
+ *    </td>
+ *  </tr>
+ *  <tr>
+ *    <td>Parallel</td>
+ *    <td>
+ *      'true' to parse the file with one thread per processor, or the
+ *      number of threads to use (see {@link GMLReader})
+ *    </td>
+ *  </tr>
  * </table>
  * <br>
  * <br>
@@ -111,4 +125,22 @@ public class JMLReader implements JUMPReader {
 
         return gmlReader.read(dp);
     }
+
+    /**
+     * Read a JML file, passing each feature to the sink as soon as it has
+     * been parsed, so that the file need not fit in memory.
+     *
+     *@param dp 'InputFile' or 'DefaultValue' for the input JML file
+     *@see GMLReader#read(DriverProperties, FeatureSink)
+     */
+    public void read(DriverProperties dp, FeatureSink sink)
+        throws IllegalParametersException, Exception {
+        if ((dp.getProperty("File") == null) &&
+                (dp.getProperty("DefaultValue") == null)) {
+            throw new IllegalParametersException(
+                "call to JMLReader.read() has DataProperties w/o a InputFile specified");
+        }
+
+        new GMLReader().read(dp, sink);
+    }
 }
@@ -38,7 +38,11 @@
 
 package org.locationtech.jts.jump.io;
 
+import java.io.IOException;
+
+import org.locationtech.jts.jump.feature.Feature;
 import org.locationtech.jts.jump.feature.FeatureCollection;
+import org.locationtech.jts.jump.feature.FeatureSchema;
 
 
 /**
@@ -67,6 +71,9 @@ import org.locationtech.jts.jump.feature.FeatureCollection;
  * </p>
  */
 public class JMLWriter implements JUMPWriter {
+    //The writer between #open and #close
+    private GMLWriter streamWriter = null;
+
     /** Creates new JMLWriter */
     public JMLWriter() {
     }
@@ -96,4 +103,55 @@ public class JMLWriter implements JUMPWriter {
 
         gmlWriter.write(featureCollection, dp);
     }
+
+    /**
+     * Creates the JML file and writes its header, after which features can
+     * be written one at a time with #append and the file finished with
+     * #close, so that the features need not all be in memory at once.
+     * @param featureSchema schema of the features that will be appended
+     * @param dp 'OutputFile' or 'DefaultValue' to specify what file to write.
+     * @see GMLWriter#open(FeatureSchema, DriverProperties)
+     */
+    public void open(FeatureSchema featureSchema, DriverProperties dp)
+        throws IllegalParametersException, Exception {
+        streamWriter = new GMLWriter();
+        streamWriter.open(featureSchema, dp);
+    }
+
+    /**
+     * Writes a feature to the file opened by #open.
+     */
+    public void append(Feature feature) throws Exception {
+        streamWriter.append(feature);
+    }
+
+    /**
+     * Finishes the file opened by #open.
+     */
+    public void close() throws IOException {
+        streamWriter.close();
+        streamWriter = null;
+    }
+
+    /**
+     * Returns a FeatureSink that opens the JML file with the schema it is
+     * given and appends the features it receives, so that a file can be
+     * converted to JML without reading it into memory:
+     * <pre>
+     *   new GMLReader().read(gmlProperties, writer.toSink(jmlProperties));
+     *   writer.close();
+     * </pre>
+     */
+    public FeatureSink toSink(final DriverProperties dp) {
+        return new FeatureSink() {
+                public void start(FeatureSchema featureSchema)
+                    throws Exception {
+                    open(featureSchema, dp);
+                }
+
+                public void add(Feature feature) throws Exception {
+                    append(feature);
+                }
+            };
+    }
 }
@@ -0,0 +1,153 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.io;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.jump.feature.*;
+
+
+/**
+ * A read-only Feature decoded from a record of a FeatureCollection that keeps
+ * its Features in a file. Such a collection decodes a record again once its
+ * Feature has dropped out of the cache, so the ID, #equals and #hashCode
+ * belong to the record rather than to the object: the Feature found in a
+ * selection or a spatial index still matches the one decoded later.
+ * <p>
+ * The setters throw an UnsupportedOperationException, as a change would be
+ * lost when the record is decoded again. #clone returns a modifiable
+ * BasicFeature.</p>
+ */
+class RecordFeature implements Feature {
+    private FeatureCollection collection;
+    private int record;
+    private long id;
+    private Object[] attributes;
+
+    /**
+     * @param collection the collection the record belongs to
+     * @param record the (zero-based) number of the record in the collection
+     * @param id the ID of the record, the same every time it is decoded
+     * @param attributes the decoded values, in the order of the schema of
+     *      the collection
+     */
+    RecordFeature(FeatureCollection collection, int record, long id, Object[] attributes) {
+        this.collection = collection;
+        this.record = record;
+        this.id = id;
+        this.attributes = attributes;
+    }
+
+    public void setAttributes(Object[] attributes) {
+        throw new UnsupportedOperationException("Features read from a file cannot be modified");
+    }
+
+    public void setSchema(FeatureSchema schema) {
+        throw new UnsupportedOperationException("Features read from a file cannot be modified");
+    }
+
+    public long getID() {
+        return id;
+    }
+
+    public void setAttribute(int attributeIndex, Object newAttribute) {
+        throw new UnsupportedOperationException("Features read from a file cannot be modified");
+    }
+
+    public void setAttribute(String attributeName, Object newAttribute) {
+        throw new UnsupportedOperationException("Features read from a file cannot be modified");
+    }
+
+    public void setGeometry(Geometry geometry) {
+        throw new UnsupportedOperationException("Features read from a file cannot be modified");
+    }
+
+    public Object getAttribute(int i) {
+        return attributes[i];
+    }
+
+    public Object getAttribute(String name) {
+        return attributes[getSchema().getAttributeIndex(name)];
+    }
+
+    public String getString(int attributeIndex) {
+        Object result = getAttribute(attributeIndex);
+
+        return (result != null) ? result.toString() : "";
+    }
+
+    public int getInteger(int attributeIndex) {
+        return ((Integer) getAttribute(attributeIndex)).intValue();
+    }
+
+    public double getDouble(int attributeIndex) {
+        return ((Double) getAttribute(attributeIndex)).doubleValue();
+    }
+
+    public String getString(String attributeName) {
+        return getString(getSchema().getAttributeIndex(attributeName));
+    }
+
+    public Geometry getGeometry() {
+        return (Geometry) attributes[getSchema().getGeometryIndex()];
+    }
+
+    public FeatureSchema getSchema() {
+        return collection.getFeatureSchema();
+    }
+
+    public Object clone() {
+        return clone(true);
+    }
+
+    public Feature clone(boolean deep) {
+        return AbstractBasicFeature.clone(this, deep);
+    }
+
+    public Object[] getAttributes() {
+        return attributes.clone();
+    }
+
+    public int compareTo(Object o) {
+        return AbstractBasicFeature.compare(this, (Feature) o);
+    }
+
+    public boolean equals(Object o) {
+        return (o instanceof RecordFeature) && (((RecordFeature) o).record == record) &&
+        (((RecordFeature) o).collection == collection);
+    }
+
+    public int hashCode() {
+        return record ^ System.identityHashCode(collection);
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+package org.locationtech.jts.jump.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.*;
+
+import org.geotools.dbffile.DbfFile;
+import org.geotools.shapefile.MappedShapefile;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.jump.feature.*;
+
+
+/**
+ * A read-only FeatureCollection over a memory-mapped Shapefile. Features are
+ * decoded from the file when they are asked for; only the most recently used
+ * ones are kept on the heap. A Feature decoded again after dropping out of
+ * the cache is a different object, but it has the same ID and is equal to
+ * the earlier one, so selections and indexes keep matching it.
+ * <p>
+ * Features cannot be added or removed, and the Features themselves cannot be
+ * modified (an Exception is thrown).
+ * @see ShapefileReader
+ */
+public class ShapefileFeatureCollection implements FeatureCollection, Closeable {
+    /** The default number of decoded Features kept on the heap */
+    public static final int DEFAULT_CACHE_SIZE = 10000;
+
+    private MappedShapefile shapefile;
+    private DbfFile dbf;
+    private int[] columns;
+    private FeatureSchema featureSchema;
+    private GeometryFactory geometryFactory;
+    private int[] records;
+    private long firstID;
+    private Envelope envelope;
+    private Map cache;
+    private List features = new FeatureList();
+
+    /**
+     * Creates a ShapefileFeatureCollection over all records of the given files.
+     * @param shapefile the geometries
+     * @param dbf the attributes, or null if there is no .dbf file
+     * @param featureSchema GEOMETRY followed by the dbf columns
+     * @param cacheSize the number of decoded Features to keep on the heap
+     */
+    public ShapefileFeatureCollection(MappedShapefile shapefile, DbfFile dbf,
+        FeatureSchema featureSchema, GeometryFactory geometryFactory,
+        int cacheSize) {
+        this(shapefile, dbf, null, featureSchema, geometryFactory, null, cacheSize);
+    }
+
+    /**
+     * Creates a ShapefileFeatureCollection over some of the records of the
+     * given files, holding only some of the dbf columns.
+     * @param columns the (zero-based) dbf columns of the attributes after
+     *      GEOMETRY in the schema, or null for all columns; the other columns
+     *      are never decoded
+     * @param records the (zero-based) record numbers of the features, in
+     *      file order, or null for all records
+     * @see MappedShapefile#query(Envelope)
+     */
+    public ShapefileFeatureCollection(MappedShapefile shapefile, DbfFile dbf,
+        int[] columns, FeatureSchema featureSchema,
+        GeometryFactory geometryFactory, int[] records, final int cacheSize) {
+        this.shapefile = shapefile;
+        this.records = records;
+        this.dbf = dbf;
+        if (columns == null && dbf != null) {
+            columns = new int[dbf.getNumFields()];
+            for (int y = 0; y < columns.length; y++) {
+                columns[y] = y;
+            }
+        }
+        this.columns = columns;
+        this.featureSchema = featureSchema;
+        this.geometryFactory = geometryFactory;
+        firstID = FeatureUtil.nextIDs(size());
+        cache = new LinkedHashMap(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public FeatureSchema getFeatureSchema() {
+        return featureSchema;
+    }
+
+    /**
+     * Returns the bounds stored in the Shapefile header, or if only some of
+     * the records are used, the bounds stored in those records.
+     */
+    public synchronized Envelope getEnvelope() {
+        if (envelope == null) {
+            if (isEmpty()) {
+                envelope = new Envelope();
+            } else if (records == null) {
+                envelope = new Envelope(shapefile.getHeader().getBounds());
+            } else {
+                envelope = new Envelope();
+                try {
+                    for (int i = 0; i < records.length; i++) {
+                        shapefile.expandToInclude(records[i], envelope);
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+        return new Envelope(envelope);
+    }
+
+    public int size() {
+        return records == null ? shapefile.getNumRecords() : records.length;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns a read-only List that decodes its Features on demand.
+     */
+    public List getFeatures() {
+        return features;
+    }
+
+    public Iterator iterator() {
+        return features.iterator();
+    }
+
+    /**
+     * Returns the Feature at the given index (zero-based).
+     */
+    public synchronized Feature getFeature(int index) {
+        int record = records == null ? index : records[index];
+        Integer key = new Integer(record);
+        Feature feature = (Feature) cache.get(key);
+        if (feature == null) {
+            try {
+                feature = readFeature(index, record);
+            } catch (Exception e) {
+                throw new RuntimeException("Error reading record " + (record + 1) +
+                    " of " + shapefile.getFile(), e);
+            }
+            cache.put(key, feature);
+        }
+        return feature;
+    }
+
+    private Feature readFeature(int index, int record) throws Exception {
+        Object[] attributes = new Object[featureSchema.getAttributeCount()];
+        if (dbf != null) {
+            for (int y = 0; y < columns.length; y++) {
+                attributes[y + 1] = dbf.ParseRecordColumn(record, columns[y]);
+            }
+        }
+        attributes[0] = shapefile.readGeometry(record, geometryFactory);
+        return new RecordFeature(this, index, firstID + index, attributes);
+    }
+
+    public List query(Envelope envelope) {
+        if (!envelope.intersects(getEnvelope())) {
+            return new ArrayList();
+        }
+        ArrayList queryResult = new ArrayList();
+        try {
+            for (int i = 0; i < size(); i++) {
+                // test the bounds stored in the record before decoding it
+                int record = records == null ? i : records[i];
+                if (shapefile.intersects(record, envelope)) {
+                    queryResult.add(getFeature(i));
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return queryResult;
+    }
+
+    /**
+     * Closes the underlying .shp and .dbf files.
+     */
+    public void close() throws IOException {
+        shapefile.close();
+        if (dbf != null) {
+            dbf.close();
+        }
+    }
+
+    public void add(Feature feature) {
+        throw new UnsupportedOperationException("Shapefile is read-only");
+    }
+
+    public void addAll(Collection features) {
+        throw new UnsupportedOperationException("Shapefile is read-only");
+    }
+
+    public void removeAll(Collection features) {
+        throw new UnsupportedOperationException("Shapefile is read-only");
+    }
+
+    public void remove(Feature feature) {
+        throw new UnsupportedOperationException("Shapefile is read-only");
+    }
+
+    public void clear() {
+        throw new UnsupportedOperationException("Shapefile is read-only");
+    }
+
+    public Collection remove(Envelope env) {
+        throw new UnsupportedOperationException("Shapefile is read-only");
+    }
+
+    private class FeatureList extends AbstractList implements RandomAccess {
+        public Object get(int index) {
+            return getFeature(index);
+        }
+
+        public int size() {
+            return ShapefileFeatureCollection.this.size();
+        }
+    }
+}
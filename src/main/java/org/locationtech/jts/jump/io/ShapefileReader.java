@@ -37,15 +37,20 @@
 package org.locationtech.jts.jump.io;
 
 import org.locationtech.jts.geom.*;
+import org.locationtech.jts.geom.impl.PackedCoordinateSequenceFactory;
 
 import org.locationtech.jts.jump.feature.*;
 
 import org.geotools.dbffile.DbfFile;
 
+import org.geotools.shapefile.MappedShapefile;
 import org.geotools.shapefile.Shapefile;
+import org.geotools.shapefile.ShapefileIndex;
 
 import java.io.*;
 
+import java.nio.charset.Charset;
+
 /**
  * ShapefileReader is a {@link JUMPReader} specialized to read Shapefiles.
  *
@@ -75,6 +80,86 @@ import java.io.*;
  *    </tr>
  *
  *    <tr>
+ *      <td>Attributes</td>
+ *      <td>
+ *         Comma separated names of the .dbf columns to read (ignoring
+ *         case). The FeatureSchema only holds GEOMETRY and these columns,
+ *         in the given order; the other columns are never decoded.
+ *         Defaults to all columns.
+ *      </td>
+ *    </tr>
+ *
+ *    <tr>
+ *      <td>BoundingBox</td>
+ *      <td>
+ *         'minx,miny,maxx,maxy' - only read the records whose bounding
+ *         box intersects this envelope. Other records are skipped
+ *         without decoding their geometry or attributes. If a spatial
+ *         index built by {@link ShapefileIndex} lies beside the .shp
+ *         file, only the matching records are read at all.
+ *      </td>
+ *    </tr>
+ *
+ *    <tr>
+ *      <td>Charset</td>
+ *      <td>
+ *         Character set of the text in the .dbf file. Defaults to the
+ *         contents of the .cpg file beside the .shp file, or the platform
+ *         default if there is none.
+ *      </td>
+ *    </tr>
+ *
+ *    <tr>
+ *      <td>MemoryMapped</td>
+ *      <td>
+ *         'true' to memory-map the .shp file and return a read-only
+ *         {@link ShapefileFeatureCollection} that decodes features on
+ *         demand, using the .shx file for random access. Ignored for
+ *         compressed files.
+ *      </td>
+ *    </tr>
+ *
+ *    <tr>
+ *      <td>Parallel</td>
+ *      <td>
+ *         'true' to decode the geometries with one thread per processor, or
+ *         the number of threads to use. The features are the same, and in
+ *         the same order, as when read by a single thread. Ignored for
+ *         compressed files and together with MemoryMapped.
+ *      </td>
+ *    </tr>
+ *
+ *    <tr>
+ *      <td>PackedCoordinates</td>
+ *      <td>
+ *         'true' to store the coordinates of each geometry in a single
+ *         <code>double[]</code> (a PackedCoordinateSequence) instead of
+ *         one Coordinate object per vertex, which takes considerably less
+ *         memory for large files. Z values are kept, M values are not.
+ *      </td>
+ *    </tr>
+ *
+ *    <tr>
+ *      <td>CompactFeatures</td>
+ *      <td>
+ *         'true' to create {@link CompactFeature}s, which keep numeric
+ *         attributes as primitives and share equal strings, instead of
+ *         BasicFeatures. Ignored together with MemoryMapped.
+ *      </td>
+ *    </tr>
+ *
+ *    <tr>
+ *      <td>Columnar</td>
+ *      <td>
+ *         'true' to return a read-only {@link ColumnarFeatureCollection},
+ *         which stores each attribute as a column and the coordinates of
+ *         all geometries in one array. Takes the least memory of all, for
+ *         layers that are only viewed and analysed. Ignored together with
+ *         MemoryMapped.
+ *      </td>
+ *    </tr>
+ *
+ *    <tr>
  *      <td colspan='2'>
  *         Uses a modified version of geotools to do the .dbf and .shp
  *         file reading.  If you are reading from a .zip file, the dbf
@@ -124,67 +209,317 @@ public class ShapefileReader implements JUMPReader {
         String fnameWithoutExtention = fname.substring(0, loc); // ie. "hills.shp" -> "hills"
         String dbfFileName = path + fnameWithoutExtention + ".dbf";
 
+        String compressedFname = dp.getProperty("CompressedFile");
+        GeometryFactory factory = createGeometryFactory(dp);
+        Envelope filter = getBoundingBox(dp);
+
+        if (isMemoryMapped(dp, compressedFname)) {
+            MappedShapefile mappedShape = new MappedShapefile(new File(shpfileName));
+            DbfFile mydbf = null;
+
+            try {
+                mydbf = getDbfFile(dbfFileName, null);
+                setCharset(mydbf, dp, path + fnameWithoutExtention + ".cpg");
+                int[] columns = getColumns(mydbf, dp);
+                int[] records = filter == null ? null : mappedShape.query(filter);
+
+                return new ShapefileFeatureCollection(mappedShape, mydbf, columns,
+                    createFeatureSchema(mydbf, columns), factory, records,
+                    ShapefileFeatureCollection.DEFAULT_CACHE_SIZE);
+            } catch (Exception e) {
+                // the collection owns the files once it is created
+                mappedShape.close();
+                if (mydbf != null) {
+                    mydbf.close();
+                }
+                throw e;
+            }
+        }
+
         //okay, have .shp and .dbf file paths, lets start
         // install Shapefile and DbfFile
-        Shapefile myshape = getShapefile(shpfileName, dp.getProperty("CompressedFile"));
-        DbfFile mydbf = getDbfFile(dbfFileName, dp.getProperty("CompressedFile"));
-        GeometryFactory factory = new GeometryFactory();
-        GeometryCollection collection = myshape.read(factory);
-        FeatureSchema fs = new FeatureSchema();
+        int parallelism = getParallelism(dp, compressedFname);
+        Geometry[] geometries;
 
-        // fill in schema
-        fs.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+        if ((parallelism > 1) || hasSpatialIndex(shpfileName, compressedFname, filter)) {
+            geometries = readGeometries(new File(shpfileName), factory, filter, parallelism);
+        } else {
+            Shapefile myshape = getShapefile(shpfileName, compressedFname);
+            geometries = myshape.readGeometries(factory, filter);
+        }
+
+        DbfFile mydbf = getDbfFile(dbfFileName, compressedFname);
+        setCharset(mydbf, dp, path + fnameWithoutExtention + ".cpg");
+        int[] columns = getColumns(mydbf, dp);
+        FeatureSchema fs = createFeatureSchema(mydbf, columns);
 
-        FeatureCollection featureCollection = null;
+        FeatureCollection featureCollection = createFeatureCollection(fs, factory, dp);
+        FeatureLoader loader = new FeatureLoader(featureCollection, count(geometries));
+        CompactFeatureFactory featureFactory = "true".equalsIgnoreCase(dp.getProperty(
+                "CompactFeatures")) ? new CompactFeatureFactory(fs) : null;
 
         if ( mydbf == null ) {
             // handle shapefiles without dbf files.
-            featureCollection = new FeatureDataset(fs);
+            for (int x = 0; x < geometries.length; x++) {
+                Geometry geo = geometries[x];
 
-            int numGeometries = collection.getNumGeometries();
+                if (geo == null) {
+                    continue; // outside the bounding box
+                }
 
-            for (int x = 0; x < numGeometries; x++) {
-                Feature feature = new BasicFeature(fs);
-                Geometry geo = collection.getGeometryN(x);
+                Feature feature = createFeature(fs, featureFactory);
 
                 feature.setGeometry(geo);
-                featureCollection.add(feature);
+                loader.add(feature);
+                geometries[x] = null; // a ColumnarFeatureCollection keeps a copy
             }
         } else {
             // There is a DBF file so we have to associate the attributes in
             // the DBF file with the features.
-            int numfields = mydbf.getNumFields();
-
-            for (int j = 0; j < numfields; j++) {
-                AttributeType type = AttributeType.toAttributeType(mydbf.getFieldType(j));
-                fs.addAttribute( mydbf.getFieldName(j), type );
-            }
+            for (int x = 0; x < mydbf.getLastRec(); x++) {
+                Geometry geo = geometries[x];
 
-            featureCollection = new FeatureDataset(fs);
+                if (geo == null) {
+                    continue; // outside the bounding box
+                }
 
-            for (int x = 0; x < mydbf.getLastRec(); x++) {
-                Feature feature = new BasicFeature(fs);
-                Geometry geo = collection.getGeometryN(x);
-                StringBuffer s = mydbf.GetDbfRec(x);
+                Feature feature = createFeature(fs, featureFactory);
 
-                for (int y = 0; y < numfields; y++) {
-                    feature.setAttribute(y + 1, mydbf.ParseRecordColumn(s, y));
+                for (int y = 0; y < columns.length; y++) {
+                    feature.setAttribute(y + 1, mydbf.ParseRecordColumn(x, columns[y]));
                 }
 
                 feature.setGeometry(geo);
-                featureCollection.add(feature);
+                loader.add(feature);
+                geometries[x] = null; // a ColumnarFeatureCollection keeps a copy
             }
 
             mydbf.close();
             deleteTmpDbf(); // delete dbf file if it was decompressed
         }
 
+        loader.flush();
+
+        if (featureCollection instanceof ColumnarFeatureCollection) {
+            ((ColumnarFeatureCollection) featureCollection).trimToSize();
+        }
+
         System.gc();
 
         return featureCollection;
     }
 
 
+    /**
+     * Returns the schema of the features: GEOMETRY followed by the columns of
+     * the .dbf file (if any).
+     */
+    protected FeatureSchema createFeatureSchema(DbfFile mydbf) {
+        return createFeatureSchema(mydbf, getAllColumns(mydbf));
+    }
+
+    /**
+     * Creates a FeatureSchema with GEOMETRY followed by the given .dbf columns.
+     * @param columns the numbers of the columns, see {@link #getColumns}
+     */
+    protected FeatureSchema createFeatureSchema(DbfFile mydbf, int[] columns) {
+        FeatureSchema fs = new FeatureSchema();
+
+        // fill in schema
+        fs.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+
+        for (int j = 0; j < columns.length; j++) {
+            AttributeType type = AttributeType.toAttributeType(mydbf.getFieldType(columns[j]));
+            fs.addAttribute( mydbf.getFieldName(columns[j]), type );
+        }
+
+        return fs;
+    }
+
+    /**
+     * Returns the numbers of the .dbf columns named in the Attributes
+     * property, or of all columns if it is not set.
+     */
+    protected int[] getColumns(DbfFile mydbf, DriverProperties dp)
+        throws IllegalParametersException {
+        String attributes = dp.getProperty("Attributes");
+
+        if ((attributes == null) || (attributes.trim().length() == 0)) {
+            return getAllColumns(mydbf);
+        }
+
+        String[] names = attributes.split(",");
+        int[] columns = new int[names.length];
+
+        for (int j = 0; j < names.length; j++) {
+            columns[j] = (mydbf == null) ? -1 : mydbf.getFieldIndex(names[j]);
+
+            if (columns[j] == -1) {
+                throw new IllegalParametersException(
+                    "No attribute '" + names[j].trim() + "' in the .dbf file");
+            }
+        }
+
+        return columns;
+    }
+
+    private int[] getAllColumns(DbfFile mydbf) {
+        int numfields = (mydbf == null) ? 0 : mydbf.getNumFields();
+        int[] columns = new int[numfields];
+
+        for (int j = 0; j < numfields; j++) {
+            columns[j] = j;
+        }
+
+        return columns;
+    }
+
+    /**
+     * Returns the envelope of the 'BoundingBox' property, or null if it
+     * isn't set.
+     */
+    protected Envelope getBoundingBox(DriverProperties dp)
+        throws IllegalParametersException {
+        String bbox = dp.getProperty("BoundingBox");
+
+        if ((bbox == null) || (bbox.trim().length() == 0)) {
+            return null;
+        }
+
+        String[] values = bbox.split(",");
+
+        if (values.length != 4) {
+            throw new IllegalParametersException(
+                "BoundingBox must be 'minx,miny,maxx,maxy', got '" + bbox + "'");
+        }
+
+        try {
+            return new Envelope(Double.parseDouble(values[0].trim()),
+                Double.parseDouble(values[2].trim()),
+                Double.parseDouble(values[1].trim()),
+                Double.parseDouble(values[3].trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalParametersException(
+                "BoundingBox must be 'minx,miny,maxx,maxy', got '" + bbox + "'");
+        }
+    }
+
+    //Sized for the geometries inside the bounding box, so that adding the
+    //features does not grow the collection
+    private FeatureCollection createFeatureCollection(FeatureSchema fs, GeometryFactory factory,
+        DriverProperties dp) {
+        if ("true".equalsIgnoreCase(dp.getProperty("Columnar"))) {
+            return new ColumnarFeatureCollection(fs, factory);
+        }
+
+        return new FeatureDataset(fs);
+    }
+
+    /**
+     * Returns the number of geometries inside the bounding box, which is the
+     * number of features the collection will hold.
+     */
+    private static int count(Geometry[] geometries) {
+        int count = 0;
+
+        for (int x = 0; x < geometries.length; x++) {
+            if (geometries[x] != null) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private Feature createFeature(FeatureSchema fs, CompactFeatureFactory featureFactory) {
+        return (featureFactory == null) ? new BasicFeature(fs) : featureFactory.createFeature();
+    }
+
+    /**
+     * Returns the factory to build the geometries with, which uses packed
+     * coordinate sequences if the 'PackedCoordinates' property is 'true'.
+     */
+    protected GeometryFactory createGeometryFactory(DriverProperties dp) {
+        if ("true".equalsIgnoreCase(dp.getProperty("PackedCoordinates"))) {
+            return new GeometryFactory(PackedCoordinateSequenceFactory.DOUBLE_FACTORY);
+        }
+
+        return new GeometryFactory();
+    }
+
+    private boolean isMemoryMapped(DriverProperties dp, String compressedFname) {
+        boolean compressed = (compressedFname != null) && (compressedFname.length() > 0);
+
+        return !compressed && "true".equalsIgnoreCase(dp.getProperty("MemoryMapped"));
+    }
+
+    /**
+     * Returns whether the records in the filter can be found with a spatial
+     * index instead of reading the whole file.
+     */
+    private boolean hasSpatialIndex(String shpfileName, String compressedFname, Envelope filter) {
+        boolean compressed = (compressedFname != null) && (compressedFname.length() > 0);
+
+        return !compressed && (filter != null) &&
+            ShapefileIndex.getIndexFile(new File(shpfileName)).exists();
+    }
+
+    /**
+     * Returns the number of threads to decode geometries with: the 'Parallel'
+     * property, or all processors if it is 'true'. Compressed files are
+     * always read by one thread.
+     */
+    private int getParallelism(DriverProperties dp, String compressedFname)
+        throws IllegalParametersException {
+        boolean compressed = (compressedFname != null) && (compressedFname.length() > 0);
+        String parallel = dp.getProperty("Parallel");
+
+        if (compressed || (parallel == null) || (parallel.trim().length() == 0) ||
+                "false".equalsIgnoreCase(parallel.trim())) {
+            return 1;
+        }
+
+        if ("true".equalsIgnoreCase(parallel.trim())) {
+            return Runtime.getRuntime().availableProcessors();
+        }
+
+        try {
+            return Math.max(1, Integer.parseInt(parallel.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalParametersException(
+                "Parallel must be 'true', 'false' or a number of threads, got '" + parallel + "'");
+        }
+    }
+
+    /**
+     * Decodes the geometries of a .shp file on a number of threads, like
+     * {@link Shapefile#readGeometries}: there is one element per record,
+     * which is null if the record is outside the filter. The records in the
+     * filter are found with the spatial index, if there is one.
+     */
+    protected Geometry[] readGeometries(File shpFile, GeometryFactory factory,
+        Envelope filter, int parallelism) throws Exception {
+        MappedShapefile mappedShape = new MappedShapefile(shpFile);
+
+        try {
+            if (filter == null) {
+                return mappedShape.readGeometries(null, factory, parallelism);
+            }
+
+            int[] records = mappedShape.query(filter);
+            Geometry[] found = mappedShape.readGeometries(records, factory, parallelism);
+            Geometry[] geometries = new Geometry[mappedShape.getNumRecords()];
+
+            for (int i = 0; i < records.length; i++) {
+                geometries[records[i]] = found[i];
+            }
+
+            return geometries;
+        } finally {
+            mappedShape.close();
+        }
+    }
+
     protected Shapefile getShapefile(String shpfileName, String compressedFname)
         throws Exception {
         InputStream in = CompressedFile.openFile(shpfileName,compressedFname);
@@ -236,9 +571,50 @@ public class ShapefileReader implements JUMPReader {
     }
 
 
+    /**
+     * Sets the character set of the text in the .dbf file from the 'Charset'
+     * property or the .cpg file.
+     */
+    protected void setCharset(DbfFile mydbf, DriverProperties dp, String cpgFileName)
+        throws Exception {
+        if (mydbf == null) {
+            return;
+        }
+
+        String charsetName = dp.getProperty("Charset");
+
+        if ((charsetName == null) && new File(cpgFileName).exists()) {
+            BufferedReader in = new BufferedReader(new FileReader(cpgFileName));
+
+            try {
+                String line = in.readLine();
+                charsetName = (line == null) ? null : line.trim();
+            } finally {
+                in.close();
+            }
+
+            // code pages are often given as just a number, e.g. "1252"
+            if ((charsetName != null) && charsetName.matches("[0-9]+")) {
+                charsetName = Charset.isSupported("windows-" + charsetName)
+                    ? ("windows-" + charsetName) : ("cp" + charsetName);
+            }
+
+            if ((charsetName != null) && !Charset.isSupported(charsetName)) {
+                charsetName = null;
+            }
+        }
+
+        if ((charsetName != null) && (charsetName.length() > 0)) {
+            mydbf.setCharset(Charset.forName(charsetName));
+        }
+    }
+
     private void deleteTmpDbf() {
         if (delete_this_tmp_dbf != null) {
-            delete_this_tmp_dbf.delete();
+            // can fail while the file is still memory-mapped (on Windows)
+            if (!delete_this_tmp_dbf.delete()) {
+                delete_this_tmp_dbf.deleteOnExit();
+            }
             delete_this_tmp_dbf = null;
         }
     }
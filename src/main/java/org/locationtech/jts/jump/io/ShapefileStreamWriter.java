@@ -0,0 +1,513 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+package org.locationtech.jts.jump.io;
+
+import org.locationtech.jts.geom.*;
+
+import org.locationtech.jts.jump.feature.*;
+
+import org.geotools.dbffile.DbfFieldDef;
+import org.geotools.dbffile.DbfFileWriter;
+
+import org.geotools.shapefile.ShapeHandler;
+import org.geotools.shapefile.Shapefile;
+import org.geotools.shapefile.ShapefileHeader;
+
+import java.io.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import java.util.Vector;
+
+
+/**
+ * Writes a Shapefile one feature at a time, so that the memory used does not
+ * depend on the number of features written:
+ * <pre>
+ *   ShapefileStreamWriter writer = new ShapefileStreamWriter();
+ *   writer.open(featureSchema, new DriverProperties("/data/hills.shp"));
+ *   while (...) {
+ *       writer.append(feature);
+ *   }
+ *   writer.close();
+ * </pre>
+ * The .shp, .shx and .dbf records are written as the features arrive; the
+ * file lengths, record count, shape type and bounds in the headers are
+ * filled in by {@link #close()}.
+ *
+ * <p>
+ *  DataProperties for open(FeatureSchema, DriverProperties):<br><br>
+ * </p>
+ *
+ * <table border='1' cellspacing='0' cellpadding='4'>
+ *   <tr>
+ *     <th>Parameter</th><th>Meaning</th>
+ *   </tr>
+ *   <tr>
+ *     <td>File or DefaultValue</td>
+ *     <td>File name for the output .shp file</td>
+ *   </tr>
+ *   <tr>
+ *     <td>ShapeType</td>
+ *     <td>
+ *        Dimentionality of the Shapefile - 'xy', 'xym' or 'xyz'. Defaults
+ *        to 'xyz' if the first geometry written has a Z coordinate.
+ *     </td>
+ *   </tr>
+ *   <tr>
+ *     <td>GeometryType</td>
+ *     <td>
+ *        'point', 'line' or 'polygon'. Defaults to the type of the first
+ *        geometry written; features appended before that are written with
+ *        a NULL shape.
+ *     </td>
+ *   </tr>
+ *   <tr>
+ *     <td>StringLength</td>
+ *     <td>
+ *        Width of the dbf columns for STRING attributes in bytes, at most
+ *        255 (the default). Longer values are an error.
+ *     </td>
+ *   </tr>
+ *   <tr>
+ *     <td>Charset</td>
+ *     <td>
+ *        Character set to encode the text in the .dbf file with, which is
+ *        also written to a .cpg file beside it. By default the low byte of
+ *        each character is written and there is no .cpg file.
+ *     </td>
+ *   </tr>
+ * </table>
+ *
+ * <p>
+ * Geometries are normalized like {@link ShapefileWriter} does: geometries
+ * that don't match the type of the Shapefile are written as empty
+ * (NULL) geometries.
+ * </p>
+ */
+public class ShapefileStreamWriter {
+    /** The GeometryType values, indexed by the generic types of ShapefileWriter */
+    static final String[] GEOMETRY_TYPES = { null, "point", "line", "polygon" };
+
+    private static final int HEADER_WORDS = 50; // 100 byte header
+
+    private FeatureSchema featureSchema;
+    private File shpFile;
+    private File shxFile;
+    private File dbfFile;
+    private File cpgFile;
+    private EndianDataOutputStream shp;
+    private EndianDataOutputStream shx;
+    private DbfFileWriter dbf;
+    private DbfFieldDef[] fields;
+    private Charset charset; // null to write the low byte of each char
+    private Vector DBFrow = new Vector();
+
+    private int shapeFileDimentions; // 0 until known
+    private int geometryType; // 0 until known
+    private ShapeHandler handler;
+    private Envelope bounds = new Envelope();
+    private int numRecords = 0;
+    private int pos = HEADER_WORDS; // position in the .shp file in WORDS
+
+    /** Creates new ShapefileStreamWriter */
+    public ShapefileStreamWriter() {
+    }
+
+    /**
+     * Creates the .shp, .shx and .dbf files and writes their headers.
+     *
+     * @param featureSchema schema of the features that will be appended
+     * @param dp 'File' or 'DefaultValue' to specify where to write, see the
+     *      class comment for the other properties
+     */
+    public void open(FeatureSchema featureSchema, DriverProperties dp)
+        throws IllegalParametersException, Exception {
+        int stringLength = 255;
+
+        if (dp.getProperty("StringLength") != null) {
+            try {
+                stringLength = Integer.parseInt(dp.getProperty("StringLength").trim());
+            } catch (NumberFormatException e) {
+                stringLength = -1;
+            }
+
+            if ((stringLength < 1) || (stringLength > 255)) {
+                throw new IllegalParametersException(
+                    "StringLength must be a number from 1 to 255, got '" +
+                    dp.getProperty("StringLength") + "'");
+            }
+        }
+
+        int[] stringLengths = new int[featureSchema.getAttributeCount()];
+
+        for (int t = 0; t < stringLengths.length; t++) {
+            stringLengths[t] = stringLength;
+        }
+
+        open(featureSchema, dp, stringLengths);
+    }
+
+    /**
+     * Returns a FeatureSink that opens this writer with the schema it is
+     * given and appends the features it receives, so that a file can be
+     * converted to a Shapefile without reading it into memory:
+     * <pre>
+     *   new JMLReader().read(jmlProperties, writer.toSink(shpProperties));
+     *   writer.close();
+     * </pre>
+     *
+     * @param dp where and how to write, as for #open(FeatureSchema, DriverProperties)
+     */
+    public FeatureSink toSink(final DriverProperties dp) {
+        return new FeatureSink() {
+                public void start(FeatureSchema featureSchema)
+                    throws Exception {
+                    open(featureSchema, dp);
+                }
+
+                public void add(Feature feature) throws Exception {
+                    append(feature);
+                }
+            };
+    }
+
+    /**
+     * Like {@link #open(FeatureSchema, DriverProperties)}, with the width of
+     * each STRING attribute given by attribute index.
+     */
+    void open(FeatureSchema featureSchema, DriverProperties dp, int[] stringLengths)
+        throws IllegalParametersException, Exception {
+        String shpfileName = dp.getProperty("File");
+
+        if (shpfileName == null) {
+            shpfileName = dp.getProperty("DefaultValue");
+        }
+
+        if (shpfileName == null) {
+            throw new IllegalParametersException("no output filename specified");
+        }
+
+        int loc = shpfileName.lastIndexOf(".");
+
+        if (loc == -1) {
+            throw new IllegalParametersException("Filename must end in '.shp'");
+        }
+
+        String fnameWithoutExtention = shpfileName.substring(0, loc); // ie. "/data1/hills.shp" -> "/data1/hills"
+
+        shapeFileDimentions = getShapeFileDimentions(dp);
+        geometryType = getGeometryType(dp);
+        charset = getCharset(dp);
+
+        this.featureSchema = featureSchema;
+        fields = ShapefileWriter.createFieldDefs(featureSchema, stringLengths);
+
+        shpFile = new File(shpfileName);
+        shxFile = new File(fnameWithoutExtention + ".shx");
+        dbfFile = new File(fnameWithoutExtention + ".dbf");
+        cpgFile = null;
+
+        try {
+            // the headers are written again by close(), when their contents are known
+            ShapefileHeader header = new ShapefileHeader(Shapefile.NULL, bounds,
+                    HEADER_WORDS, HEADER_WORDS);
+            shp = new EndianDataOutputStream(new BufferedOutputStream(
+                        new FileOutputStream(shpFile)));
+            header.write(shp);
+            shx = new EndianDataOutputStream(new BufferedOutputStream(
+                        new FileOutputStream(shxFile)));
+            header.writeToIndex(shx);
+            dbf = new DbfFileWriter(dbfFile.getPath());
+            dbf.setCharset(charset);
+            dbf.writeHeader(fields, 0);
+
+            if (charset != null) {
+                cpgFile = new File(fnameWithoutExtention + ".cpg");
+
+                Writer cpg = new OutputStreamWriter(new FileOutputStream(cpgFile), "US-ASCII");
+
+                try {
+                    cpg.write(charset.name());
+                } finally {
+                    cpg.close();
+                }
+            }
+        } catch (Exception e) {
+            deleteFiles();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the files that were created so far and deletes them, so that a
+     * failed #open does not leave half written files behind.
+     */
+    private void deleteFiles() {
+        if (shp != null) {
+            closeQuietly(shp);
+            shpFile.delete();
+        }
+
+        if (shx != null) {
+            closeQuietly(shx);
+            shxFile.delete();
+        }
+
+        if (dbf != null) {
+            try {
+                dbf.close();
+            } catch (IOException e) {
+                // deleted anyway
+            }
+
+            dbfFile.delete();
+        }
+
+        if (cpgFile != null) {
+            cpgFile.delete();
+        }
+
+        shp = shx = null;
+        dbf = null;
+    }
+
+    private static void closeQuietly(EndianDataOutputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            // deleted anyway
+        }
+    }
+
+    /**
+     * Returns the character set named by the 'Charset' property, or null
+     * if there is none.
+     */
+    static Charset getCharset(DriverProperties dp)
+        throws IllegalParametersException {
+        String charsetName = dp.getProperty("Charset");
+
+        if ((charsetName == null) || (charsetName.trim().length() == 0)) {
+            return null;
+        }
+
+        try {
+            return Charset.forName(charsetName.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalParametersException("Charset '" + charsetName +
+                "' is not supported");
+        }
+    }
+
+    /**
+     * Returns the number of bytes the text takes in the .dbf file.
+     */
+    static int getByteLength(String s, Charset charset) {
+        return (charset == null) ? s.length() : s.getBytes(charset).length;
+    }
+
+    private int getShapeFileDimentions(DriverProperties dp)
+        throws IllegalParametersException {
+        String st = dp.getProperty("ShapeType");
+
+        if (st == null) {
+            return 0;
+        } else if (st.equalsIgnoreCase("xy")) {
+            return 2;
+        } else if (st.equalsIgnoreCase("xym")) {
+            return 3;
+        } else if (st.equalsIgnoreCase("xymz")) {
+            return 4;
+        } else if (st.equalsIgnoreCase("xyzm")) {
+            return 4;
+        } else if (st.equalsIgnoreCase("xyz")) {
+            return 4;
+        } else {
+            throw new IllegalParametersException(
+                "ShapefileWriter.write() - dataproperties has a 'ShapeType' that isnt 'xy', 'xym', or 'xymz'");
+        }
+    }
+
+    private int getGeometryType(DriverProperties dp)
+        throws IllegalParametersException {
+        String gt = dp.getProperty("GeometryType");
+
+        if (gt == null) {
+            return 0;
+        }
+
+        for (int t = 1; t < GEOMETRY_TYPES.length; t++) {
+            if (GEOMETRY_TYPES[t].equalsIgnoreCase(gt.trim())) {
+                return t;
+            }
+        }
+
+        throw new IllegalParametersException(
+            "GeometryType must be 'point', 'line' or 'polygon', got '" + gt + "'");
+    }
+
+    /**
+     * Writes the geometry and attributes of a feature.
+     */
+    public void append(Feature feature) throws Exception {
+        // check the attributes before anything is written, so that a feature
+        // that is rejected leaves the three files in step
+        ShapefileWriter.fillDbfRow(feature, featureSchema, DBFrow);
+
+        for (int i = 0; i < fields.length; i++) {
+            if ((fields[i].fieldtype == 'C') &&
+                    (getByteLength((String) DBFrow.get(i), charset) > fields[i].fieldlen)) {
+                throw new Exception("ShapefileStreamWriter: attribute '" +
+                    fields[i].fieldname.toString().trim() + "' is longer than " +
+                    fields[i].fieldlen + " bytes");
+            }
+        }
+
+        Geometry geom = feature.getGeometry();
+
+        if ((handler == null) && (geometryType == 0)) {
+            geometryType = ShapefileWriter.getGeometryType(geom);
+        }
+
+        Geometry body = null;
+
+        if (geometryType != 0) {
+            // a Multipoint, Multilinestring or Multipolygon with the rings in the correct order
+            body = ShapefileWriter.makeSHAPEGeometry(geom, geometryType);
+
+            if (handler == null) {
+                if (shapeFileDimentions == 0) {
+                    shapeFileDimentions = new ShapefileWriter().guessCoorinateDims(body);
+                }
+
+                handler = Shapefile.getShapeHandler(body, shapeFileDimentions);
+            }
+        }
+
+        int length = (body == null) ? 2 : handler.getLength(body); // in WORDS
+
+        shx.writeIntBE(pos);
+        shx.writeIntBE(length);
+
+        shp.writeIntBE(numRecords + 1);
+        shp.writeIntBE(length);
+
+        if (body == null) {
+            shp.writeIntLE(Shapefile.NULL);
+        } else {
+            handler.write(body, shp);
+            bounds.expandToInclude(body.getEnvelopeInternal());
+        }
+
+        pos += (4 + length);
+
+        dbf.writeRecord(DBFrow);
+        numRecords++;
+    }
+
+    /**
+     * Returns the number of features written so far.
+     */
+    public int getNumFeatures() {
+        return numRecords;
+    }
+
+    /**
+     * Finishes the files: closes them and fills in their headers. Does
+     * nothing if the files are not open.
+     */
+    public void close() throws IOException {
+        if ((shp == null) && (shx == null) && (dbf == null)) {
+            return;
+        }
+
+        try {
+            if (shp != null) {
+                shp.close();
+            }
+        } finally {
+            shp = null;
+
+            try {
+                if (shx != null) {
+                    shx.close();
+                }
+            } finally {
+                shx = null;
+
+                try {
+                    if (dbf != null) {
+                        dbf.close();
+                    }
+                } finally {
+                    dbf = null;
+                }
+            }
+        }
+
+        int shapeType = (handler == null) ? Shapefile.NULL : handler.getShapeType();
+        ShapefileHeader header = new ShapefileHeader(shapeType, bounds, pos,
+                HEADER_WORDS + (4 * numRecords));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EndianDataOutputStream out = new EndianDataOutputStream(bytes);
+        header.write(out);
+        out.flush();
+        overwrite(shpFile, 0, ByteBuffer.wrap(bytes.toByteArray()));
+
+        bytes.reset();
+        header.writeToIndex(out);
+        out.flush();
+        overwrite(shxFile, 0, ByteBuffer.wrap(bytes.toByteArray()));
+
+        ByteBuffer count = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        count.putInt(0, numRecords);
+        overwrite(dbfFile, 4, count); // number of records in the dbf header
+    }
+
+    private void overwrite(File file, long position, ByteBuffer buffer)
+        throws IOException {
+        FileChannel channel = new RandomAccessFile(file, "rw").getChannel();
+
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -38,13 +38,10 @@ import org.locationtech.jts.jump.feature.*;
 
 import org.geotools.dbffile.DbfFieldDef;
 import org.geotools.dbffile.DbfFile;
-import org.geotools.dbffile.DbfFileWriter;
-
-import org.geotools.shapefile.Shapefile;
 
 import java.io.*;
 
-import java.net.URL;
+import java.nio.charset.Charset;
 
 import java.util.*;
 
@@ -74,6 +71,13 @@ import java.util.*;
  *          'xyzm' are the same as 'xyz' 
  *       </td>
  *   </tr>
+ *   <tr>
+ *       <td>Charset</td>
+ *       <td>
+ *          Character set to encode the .dbf text with, also written to a
+ *          .cpg file. Defaults to the low byte of each character.
+ *       </td>
+ *   </tr>
  * </table><br>
  *
  * <p>
@@ -197,6 +201,11 @@ import java.util.*;
  *    Shapefile Spec</a>
  * </p>
  *
+ * <p>
+ *  To write features as they are produced, without holding them all in
+ *  a FeatureCollection, use {@link ShapefileStreamWriter}.
+ * </p>
+ *
  *  @todo The link referencing the DBF format specification is broken - fix it!
  **/
 public class ShapefileWriter implements JUMPWriter {
@@ -215,17 +224,10 @@ public class ShapefileWriter implements JUMPWriter {
     public void write(FeatureCollection featureCollection, DriverProperties dp)
         throws IllegalParametersException, Exception {
         String shpfileName;
-        String dbffname;
-        String shxfname;
-
-        String path;
         String fname;
-        String fname_withoutextention;
         int shapeType;
         int loc;
 
-        GeometryCollection gc;
-
         shpfileName = dp.getProperty("File");
 
         if (shpfileName == null) {
@@ -247,7 +249,6 @@ public class ShapefileWriter implements JUMPWriter {
                 File.separatorChar +
                 "' in your shape file name. This you're probably using the unix (or dos) one.");
         } else {
-            path = shpfileName.substring(0, loc + 1); // ie. "/data1/hills.shp" -> "/data1/"
             fname = shpfileName.substring(loc + 1); // ie. "/data1/hills.shp" -> "hills.shp"
         }
 
@@ -257,51 +258,56 @@ public class ShapefileWriter implements JUMPWriter {
             throw new IllegalParametersException("Filename must end in '.shp'");
         }
 
-        fname_withoutextention = fname.substring(0, loc); // ie. "hills.shp" -> "hills."
-        dbffname = path + fname_withoutextention + ".dbf";
+        int geomtype = findBestGeometryType(featureCollection);
 
-        writeDbf(featureCollection, dbffname);
-
-        // this gc will be a collection of either multi-points, multi-polygons, or multi-linestrings
-        // polygons will have the rings in the correct order
-        gc = makeSHAPEGeometryCollection(featureCollection);
+        if (geomtype == 0) {
+            throw new Exception(
+                "Could not determine shapefile type - data is either all GeometryCollections or empty");
+        }
 
-        shapeType = 2; //x,y
+        // the stream writer can't look ahead, so tell it what the whole
+        // collection holds
+        DriverProperties streamProperties = new DriverProperties();
+        streamProperties.putAll(dp);
+        streamProperties.set("GeometryType",
+            ShapefileStreamWriter.GEOMETRY_TYPES[geomtype]);
 
-        if (dp.getProperty("ShapeType") != null) {
-            String st = dp.getProperty("ShapeType");
+        if (dp.getProperty("ShapeType") == null) {
+            shapeType = 2; //x,y
 
-            if (st.equalsIgnoreCase("xy")) {
-                shapeType = 2;
-            } else if (st.equalsIgnoreCase("xym")) {
-                shapeType = 3;
-            } else if (st.equalsIgnoreCase("xymz")) {
-                shapeType = 4;
-            } else if (st.equalsIgnoreCase("xyzm")) {
-                shapeType = 4;
-            } else if (st.equalsIgnoreCase("xyz")) {
-                shapeType = 4;
-            } else {
-                throw new IllegalParametersException(
-                    "ShapefileWriter.write() - dataproperties has a 'ShapeType' that isnt 'xy', 'xym', or 'xymz'");
-            }
-        } else {
-            if (gc.getNumGeometries() > 0) {
-                shapeType = guessCoorinateDims(gc.getGeometryN(0));
+            if (featureCollection.size() > 0) {
+                Geometry first = ((Feature) featureCollection.getFeatures().get(0)).getGeometry();
+                shapeType = guessCoorinateDims(makeSHAPEGeometry(first, geomtype));
             }
+
+            streamProperties.set("ShapeType", (shapeType == 4) ? "xyz" : "xy");
         }
 
-        URL url = new URL("file", "localhost", shpfileName);
-        Shapefile myshape = new Shapefile(url);
-        myshape.write(gc, shapeType);
+        FeatureSchema fs = featureCollection.getFeatureSchema();
+        Charset charset = ShapefileStreamWriter.getCharset(dp);
+        int[] stringLengths = new int[fs.getAttributeCount()];
 
-        shxfname = path + fname_withoutextention + ".shx";
+        for (int t = 0; t < fs.getAttributeCount(); t++) {
+            if (fs.getAttributeType(t) == AttributeType.STRING) {
+                stringLengths[t] = findMaxStringLength(featureCollection, t, charset);
 
-        BufferedOutputStream in = new BufferedOutputStream(new FileOutputStream(
-                    shxfname));
-        EndianDataOutputStream sfile = new EndianDataOutputStream(in);
+                if (stringLengths[t] > 255) {
+                    throw new Exception(
+                        "ShapefileWriter does not support strings longer than 255 bytes");
+                }
+            }
+        }
+
+        ShapefileStreamWriter writer = new ShapefileStreamWriter();
+        writer.open(fs, streamProperties, stringLengths);
 
-        myshape.writeIndex(gc, sfile, shapeType);
+        try {
+            for (Iterator i = featureCollection.iterator(); i.hasNext();) {
+                writer.append((Feature) i.next());
+            }
+        } finally {
+            writer.close();
+        }
     }
 
     /**
@@ -324,28 +330,19 @@ public class ShapefileWriter implements JUMPWriter {
     }
 
     /**
-     * Write a dbf file with the information from the featureCollection.
-     * @param featureCollection column data from collection
-     * @param fname name of the dbf file to write to
+     * Returns the dbf columns for the (non geometry) attributes of the schema.
+     * @param fs schema of the features
+     * @param stringLengths the width of each STRING attribute, by attribute index
      */
-    void writeDbf(FeatureCollection featureCollection, String fname)
+    static DbfFieldDef[] createFieldDefs(FeatureSchema fs, int[] stringLengths)
         throws Exception {
-        DbfFileWriter dbf;
-        FeatureSchema fs;
-        int t;
-        int f;
-        int u;
-        int num;
-
-        fs = featureCollection.getFeatureSchema();
-
         // -1 because one of the columns is geometry
         DbfFieldDef[] fields = new DbfFieldDef[fs.getAttributeCount() - 1];
 
         // dbf column type and size
-        f = 0;
+        int f = 0;
 
-        for (t = 0; t < fs.getAttributeCount(); t++) {
+        for (int t = 0; t < fs.getAttributeCount(); t++) {
             AttributeType columnType = fs.getAttributeType(t);
             String columnName = fs.getAttributeName(t);
 
@@ -356,14 +353,7 @@ public class ShapefileWriter implements JUMPWriter {
                 fields[f] = new DbfFieldDef(columnName, 'N', 33, 16);
                 f++;
             } else if (columnType == AttributeType.STRING) {
-                int maxlength = findMaxStringLength(featureCollection, t);
-
-                if (maxlength > 255) {
-                    throw new Exception(
-                        "ShapefileWriter does not support strings longer than 255 characters");
-                }
-
-                fields[f] = new DbfFieldDef(columnName, 'C', maxlength, 0);
+                fields[f] = new DbfFieldDef(columnName, 'C', stringLengths[t], 0);
                 f++;
             } else if (columnType == AttributeType.DATE) {
                 fields[f] = new DbfFieldDef(columnName, 'D', 8, 0);
@@ -376,82 +366,75 @@ public class ShapefileWriter implements JUMPWriter {
             }
         }
 
-        // write header
-        dbf = new DbfFileWriter(fname);
-        dbf.writeHeader(fields, featureCollection.size());
-
-        //write rows
-        num = featureCollection.size();
-
-        List features = featureCollection.getFeatures();
+        return fields;
+    }
 
-        for (t = 0; t < num; t++) {
-            //System.out.println("dbf: record "+t);
-            Feature feature = (Feature) features.get(t);
-            Vector DBFrow = new Vector();
+    /**
+     * Fills <code>DBFrow</code> with the dbf values of the (non geometry)
+     * attributes of the feature, replacing what it held before.
+     */
+    static void fillDbfRow(Feature feature, FeatureSchema fs, Vector DBFrow) {
+        DBFrow.clear();
 
-            //make data for each column in this feature (row)
-            for (u = 0; u < fs.getAttributeCount(); u++) {
-                AttributeType columnType = fs.getAttributeType(u);
+        //make data for each column in this feature (row)
+        for (int u = 0; u < fs.getAttributeCount(); u++) {
+            AttributeType columnType = fs.getAttributeType(u);
 
-                if (columnType == AttributeType.INTEGER) {
-                    Object a = feature.getAttribute(u);
+            if (columnType == AttributeType.INTEGER) {
+                Object a = feature.getAttribute(u);
 
-                    if (a == null) {
-                        DBFrow.add(new Integer(0));
-                    } else {
-                        DBFrow.add((Integer) a);
-                    }
-                } else if (columnType == AttributeType.DOUBLE) {
-                    Object a = feature.getAttribute(u);
+                if (a == null) {
+                    DBFrow.add(new Integer(0));
+                } else {
+                    DBFrow.add((Integer) a);
+                }
+            } else if (columnType == AttributeType.DOUBLE) {
+                Object a = feature.getAttribute(u);
 
-                    if (a == null) {
-                        DBFrow.add(new Double(0.0));
-                    } else {
-                        DBFrow.add((Double) a);
-                    }
-                } else if (columnType == AttributeType.DATE) {
-                    Object a = feature.getAttribute(u);
-                    if (a == null) {
-                        DBFrow.add("");
-                    } else {
-                        DBFrow.add(DbfFile.DATE_PARSER.format((Date)a));
-                    }                    
-                } else if (columnType == AttributeType.STRING) {
-                    Object a = feature.getAttribute(u);
+                if (a == null) {
+                    DBFrow.add(new Double(0.0));
+                } else {
+                    DBFrow.add((Double) a);
+                }
+            } else if (columnType == AttributeType.DATE) {
+                Object a = feature.getAttribute(u);
+                if (a == null) {
+                    DBFrow.add("");
+                } else {
+                    DBFrow.add(DbfFile.getDateParser().format((Date)a));
+                }                    
+            } else if (columnType == AttributeType.STRING) {
+                Object a = feature.getAttribute(u);
 
-                    if (a == null) {
-                        DBFrow.add(new String(""));
+                if (a == null) {
+                    DBFrow.add(new String(""));
+                } else {
+                    // MD 16 jan 03 - added some defensive programming
+                    if (a instanceof String) {
+                        DBFrow.add(a);
                     } else {
-                        // MD 16 jan 03 - added some defensive programming
-                        if (a instanceof String) {
-                            DBFrow.add(a);
-                        } else {
-                            DBFrow.add(a.toString());
-                        }
+                        DBFrow.add(a.toString());
                     }
                 }
             }
-
-            dbf.writeRecord(DBFrow);
         }
-
-        dbf.close();
     }
 
     /**
      *look at all the data in the column of the featurecollection, and find the largest string!
      *@param fc features to look at
      *@param attributeNumber which of the column to test.
+     *@param charset how the strings are encoded, or null for one byte per
+     *  character; the length is in bytes
      */
-    int findMaxStringLength(FeatureCollection fc, int attributeNumber) {
+    int findMaxStringLength(FeatureCollection fc, int attributeNumber, Charset charset) {
         int l;
         int maxlen = 0;
         Feature f;
 
         for (Iterator i = fc.iterator(); i.hasNext();) {
             f = (Feature) i.next();
-            l = f.getString(attributeNumber).length();
+            l = ShapefileStreamWriter.getByteLength(f.getString(attributeNumber), charset);
 
             if (l > maxlen) {
                 maxlen = l;
@@ -472,34 +455,43 @@ public class ShapefileWriter implements JUMPWriter {
      *@param fc feature collection containing tet geometries.
      **/
     int findBestGeometryType(FeatureCollection fc) {
-        Geometry geom;
-
         for (Iterator i = fc.iterator(); i.hasNext();) {
-            geom = ((Feature) i.next()).getGeometry();
+            int geomtype = getGeometryType(((Feature) i.next()).getGeometry());
 
-            if (geom instanceof Point) {
-                return 1;
+            if (geomtype != 0) {
+                return geomtype;
             }
+        }
 
-            if (geom instanceof MultiPoint) {
-                return 1;
-            }
+        return 0;
+    }
 
-            if (geom instanceof Polygon) {
-                return 3;
-            }
+    /**
+     * Returns the generic type of a geometry, see {@link #findBestGeometryType}.
+     */
+    static int getGeometryType(Geometry geom) {
+        if (geom instanceof Point) {
+            return 1;
+        }
 
-            if (geom instanceof MultiPolygon) {
-                return 3;
-            }
+        if (geom instanceof MultiPoint) {
+            return 1;
+        }
 
-            if (geom instanceof LineString) {
-                return 2;
-            }
+        if (geom instanceof Polygon) {
+            return 3;
+        }
 
-            if (geom instanceof MultiLineString) {
-                return 2;
-            }
+        if (geom instanceof MultiPolygon) {
+            return 3;
+        }
+
+        if (geom instanceof LineString) {
+            return 2;
+        }
+
+        if (geom instanceof MultiLineString) {
+            return 2;
         }
 
         return 0;
@@ -508,7 +500,7 @@ public class ShapefileWriter implements JUMPWriter {
     /**
      *  reverses the order of points in lr (is CW -> CCW or CCW->CW)
      */
-    LinearRing reverseRing(LinearRing lr) {
+    static LinearRing reverseRing(LinearRing lr) {
         int numPoints = lr.getNumPoints();
         Coordinate[] newCoords = new Coordinate[numPoints];
 
@@ -523,7 +515,7 @@ public class ShapefileWriter implements JUMPWriter {
     * make sure outer ring is CCW and holes are CW
      *@param p polygon to check
      */
-    Polygon makeGoodSHAPEPolygon(Polygon p) {
+    static Polygon makeGoodSHAPEPolygon(Polygon p) {
         LinearRing outer;
         LinearRing[] holes = new LinearRing[p.getNumInteriorRing()];
         Coordinate[] coords;
@@ -553,7 +545,7 @@ public class ShapefileWriter implements JUMPWriter {
     * make sure outer ring is CCW and holes are CW for all the polygons in the Geometry
      *@param mp set of polygons to check
      */
-    MultiPolygon makeGoodSHAPEMultiPolygon(MultiPolygon mp) {
+    static MultiPolygon makeGoodSHAPEMultiPolygon(MultiPolygon mp) {
         MultiPolygon result;
         Polygon[] ps = new Polygon[mp.getNumGeometries()];
 
@@ -592,63 +584,67 @@ public class ShapefileWriter implements JUMPWriter {
         List features = fc.getFeatures();
 
         for (int t = 0; t < features.size(); t++) {
-            Geometry geom;
-            geom = ((Feature) features.get(t)).getGeometry();
-
-            switch (geomtype) {
-            case 1: //point
-
-                if ((geom instanceof Point)) {
-                    //good!
-                    Point[] p = new Point[1];
-                    p[0] = (Point) geom;
-
-                    allGeoms[t] = new MultiPoint(p, new PrecisionModel(), 0);
-                } else if (geom instanceof MultiPoint) {
-                    allGeoms[t] = geom;
-                } else {
-                    allGeoms[t] = new MultiPoint(null, new PrecisionModel(), 0);
-                }
-
-                break;
+            allGeoms[t] = makeSHAPEGeometry(((Feature) features.get(t)).getGeometry(),
+                    geomtype);
+        }
 
-            case 2: //line
+        result = new GeometryCollection(allGeoms, new PrecisionModel(), 0);
 
-                if ((geom instanceof LineString)) {
-                    LineString[] l = new LineString[1];
-                    l[0] = (LineString) geom;
+        return result;
+    }
 
-                    allGeoms[t] = new MultiLineString(l, new PrecisionModel(), 0);
-                } else if (geom instanceof MultiLineString) {
-                    allGeoms[t] = geom;
-                } else {
-                    allGeoms[t] = new MultiLineString(null,
-                            new PrecisionModel(), 0);
-                }
+    /**
+     * Returns the geometry as a Multipoint, Multilinestring or Multipolygon
+     * (with the rings in the correct order) of the given generic type, or an
+     * empty one of that type if the geometry doesn't match it.
+     *@param geom geometry of a feature
+     *@param geomtype 1 - point, 2 - line or 3 - polygon
+     */
+    static Geometry makeSHAPEGeometry(Geometry geom, int geomtype) {
+        switch (geomtype) {
+        case 1: //point
+
+            if ((geom instanceof Point)) {
+                //good!
+                Point[] p = new Point[1];
+                p[0] = (Point) geom;
+
+                return new MultiPoint(p, new PrecisionModel(), 0);
+            } else if (geom instanceof MultiPoint) {
+                return geom;
+            } else {
+                return new MultiPoint(null, new PrecisionModel(), 0);
+            }
 
-                break;
+        case 2: //line
 
-            case 3: //polygon
+            if ((geom instanceof LineString)) {
+                LineString[] l = new LineString[1];
+                l[0] = (LineString) geom;
 
-                if (geom instanceof Polygon) {
-                    //good!
-                    Polygon[] p = new Polygon[1];
-                    p[0] = (Polygon) geom;
+                return new MultiLineString(l, new PrecisionModel(), 0);
+            } else if (geom instanceof MultiLineString) {
+                return geom;
+            } else {
+                return new MultiLineString(null, new PrecisionModel(), 0);
+            }
 
-                    allGeoms[t] = makeGoodSHAPEMultiPolygon(new MultiPolygon(
-                                p, new PrecisionModel(), 0));
-                } else if (geom instanceof MultiPolygon) {
-                    allGeoms[t] = makeGoodSHAPEMultiPolygon((MultiPolygon) geom);
-                } else {
-                    allGeoms[t] = new MultiPolygon(null, new PrecisionModel(), 0);
-                }
+        case 3: //polygon
 
-                break;
+            if (geom instanceof Polygon) {
+                //good!
+                Polygon[] p = new Polygon[1];
+                p[0] = (Polygon) geom;
+
+                return makeGoodSHAPEMultiPolygon(new MultiPolygon(p,
+                        new PrecisionModel(), 0));
+            } else if (geom instanceof MultiPolygon) {
+                return makeGoodSHAPEMultiPolygon((MultiPolygon) geom);
+            } else {
+                return new MultiPolygon(null, new PrecisionModel(), 0);
             }
         }
 
-        result = new GeometryCollection(allGeoms, new PrecisionModel(), 0);
-
-        return result;
+        return null;
     }
 }
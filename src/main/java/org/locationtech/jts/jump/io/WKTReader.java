@@ -35,6 +35,18 @@ package org.locationtech.jts.jump.io;
 
 import java.io.*;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.io.ParseException;
 import org.locationtech.jts.jump.feature.*;
@@ -63,13 +75,32 @@ import org.locationtech.jts.jump.feature.*;
  *     <td>File name (a .zip or .gz) with a .jml/.xml/.gml inside
  *         (specified by File)</td>
  *   </tr>
+ *   <tr>
+ *     <td>Parallel</td>
+ *     <td>
+ *        'true' to parse the geometries with one thread per processor, or
+ *        the number of threads to use. The features are the same, and in
+ *        the same order, as when read by a single thread.
+ *     </td>
+ *   </tr>
  * </table> <br>
  *</p>
  *
+ * The geometries may be laid out in any way, for example one per line,
+ * separated by whitespace; '#' starts a comment that runs to the end of the
+ * line. The input is read once: the text of each geometry is cut out by
+ * following its parentheses, and then parsed by the JTS WKTReader. To
+ * handle each feature as soon as it is parsed, pass a {@link FeatureSink}
+ * to #read(DriverProperties, FeatureSink) or #read(Reader, FeatureSink), or
+ * use #iterator(Reader).
  */
 public class WKTReader implements JUMPReader {
+    //Geometries (or chars) each thread parses at a time when reading in parallel
+    private static final int BATCH_SIZE = 1000;
+    private static final int BATCH_CHARS = 1 << 20;
     private GeometryFactory geometryFactory = new GeometryFactory();
     private org.locationtech.jts.io.WKTReader wktReader = new org.locationtech.jts.io.WKTReader(geometryFactory);
+    private int parallelism = 1;
 
     /**constructor**/
     public WKTReader() {
@@ -81,8 +112,20 @@ public class WKTReader implements JUMPReader {
      */
     public FeatureCollection read(DriverProperties dp)
         throws IllegalParametersException, Exception {
-        FeatureCollection fc;
+        FeatureDataset fc = new FeatureDataset(createFeatureSchema());
+        FeatureLoader loader = new FeatureLoader(fc, 0);
+        read(dp, loader);
+        loader.flush();
+
+        return fc;
+    }
 
+    /**
+     * Reads the file specified in the DriverProperties (see #read(DriverProperties))
+     * and passes each feature to the sink as soon as it has been parsed.
+     */
+    public void read(DriverProperties dp, FeatureSink sink)
+        throws IllegalParametersException, Exception {
         String inputFname;
         boolean isCompressed;
         Reader fileReader;
@@ -100,6 +143,8 @@ public class WKTReader implements JUMPReader {
                 "call to WKTReader.read() has DataProperties w/o a InputFile specified");
         }
 
+        setParallelism(dp);
+
         if (isCompressed) {
             fileReader = new InputStreamReader(CompressedFile.openFile(
                         inputFname, dp.getProperty("CompressedFile")));
@@ -108,77 +153,481 @@ public class WKTReader implements JUMPReader {
         }
 
         try {
-            BufferedReader bufferedReader = new BufferedReader(fileReader);
-
-            try {
-                fc = read(bufferedReader);
-            } finally {
-                bufferedReader.close();
-            }
+            read(fileReader, sink);
         } finally {
             fileReader.close();
         }
-
-        return fc;
     }
 
     /**
      * Reads in the actual WKT geometries
-     *@param reader where to read the geometries from
+     *@param reader where to read the geometries from; it is closed afterwards
      */
     public FeatureCollection read(Reader reader) throws Exception {
-        FeatureSchema featureSchema = new FeatureSchema();
-        featureSchema.addAttribute("Geometry", AttributeType.GEOMETRY);
-
-        FeatureCollection featureCollection = new FeatureDataset(featureSchema);
-        BufferedReader bufferedReader = new BufferedReader(reader);
+        FeatureDataset featureCollection = new FeatureDataset(createFeatureSchema());
+        FeatureLoader loader = new FeatureLoader(featureCollection, 0);
 
         try {
-            while (!isAtEndOfFile(bufferedReader)) {
-                featureCollection.add(nextFeature(bufferedReader, featureSchema));
-            }
+            read(reader, loader);
+            loader.flush();
         } finally {
-            bufferedReader.close();
+            reader.close();
         }
 
         return featureCollection;
     }
 
     /**
-     * returns true if at the end of the file.
+     * Reads the WKT geometries and passes a feature for each to the sink as
+     * soon as it has been parsed, so that they need not all be in memory at
+     * once.
+     *@param reader where to read the geometries from; it is not closed
+     *@param sink receives the schema (a single Geometry attribute) and then
+     *      the features
      */
-    private boolean isAtEndOfFile(BufferedReader bufferedReader)
-        throws IOException, ParseException {
-        bufferedReader.mark(1000);
+    public void read(Reader reader, FeatureSink sink) throws Exception {
+        FeatureSchema featureSchema = createFeatureSchema();
+        GeometryTexts texts = new GeometryTexts(reader);
 
+        sink.start(featureSchema);
+
+        if (parallelism > 1) {
+            readInParallel(texts, sink, featureSchema);
+
+            return;
+        }
+
+        int count = 0;
+
+        for (String text = texts.next(); text != null; text = texts.next()) {
+            sink.add(toFeature(parse(wktReader, text, ++count), featureSchema));
+        }
+    }
+
+    /**
+     * Parses the text of the n-th geometry (counting from 1). Because the
+     * JTS WKTReader only sees that text, the line number in its error
+     * messages is within the geometry, so the geometry is numbered too.
+     */
+    private static Geometry parse(org.locationtech.jts.io.WKTReader wktReader,
+        String text, int n) throws ParseException {
         try {
-            StreamTokenizer tokenizer = new StreamTokenizer(bufferedReader);
-            int type = tokenizer.nextToken();
+            return wktReader.read(text);
+        } catch (ParseException e) {
+            throw new ParseException(e.getMessage() + " in geometry " + n);
+        }
+    }
 
-            if (type == StreamTokenizer.TT_EOF) {
-                return true;
-            }
+    /**
+     * Returns the features of the WKT geometries one at a time: each geometry
+     * is read and parsed when the Iterator gets to it. I/O and parse errors
+     * are thrown as RuntimeExceptions.
+     *@param reader where to read the geometries from; it is not closed
+     */
+    public Iterator iterator(final Reader reader) {
+        final FeatureSchema featureSchema = createFeatureSchema();
+        final GeometryTexts texts = new GeometryTexts(reader);
+
+        return new Iterator() {
+                private String nextText = null;
+                private boolean atEnd = false;
+                private int count = 0;
+
+                public boolean hasNext() {
+                    if ((nextText == null) && !atEnd) {
+                        try {
+                            nextText = texts.next();
+                        } catch (Exception e) {
+                            throw new RuntimeException("Error reading WKT: " +
+                                e.getMessage(), e);
+                        }
+
+                        atEnd = (nextText == null);
+                    }
+
+                    return nextText != null;
+                }
 
-            if (type == StreamTokenizer.TT_WORD) {
-                return false;
+                public Object next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+
+                    String text = nextText;
+                    nextText = null;
+                    count++;
+
+                    try {
+                        return toFeature(parse(wktReader, text, count),
+                            featureSchema);
+                    } catch (ParseException e) {
+                        throw new RuntimeException("Error reading WKT: " +
+                            e.getMessage(), e);
+                    }
+                }
+
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+    }
+
+    /**
+     * Sets the number of threads that parse the geometries. The geometries
+     * are cut out of the input in the calling thread and parsed in batches,
+     * and the features come out in the order of the input. 1 (the default)
+     * parses them in the calling thread.
+     */
+    public void setParallelism(int threads) {
+        parallelism = Math.max(1, threads);
+    }
+
+    private void setParallelism(DriverProperties dp)
+        throws IllegalParametersException {
+        String parallel = dp.getProperty("Parallel");
+
+        if ((parallel == null) || (parallel.trim().length() == 0)) {
+            return;
+        }
+
+        if ("false".equalsIgnoreCase(parallel.trim())) {
+            setParallelism(1);
+        } else if ("true".equalsIgnoreCase(parallel.trim())) {
+            setParallelism(Runtime.getRuntime().availableProcessors());
+        } else {
+            try {
+                setParallelism(Integer.parseInt(parallel.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalParametersException(
+                    "Parallel must be 'true', 'false' or a number of threads, got '" +
+                    parallel + "'");
             }
+        }
+    }
+
+    /**
+     * Parses batches of geometries on #parallelism threads, at most two
+     * batches per thread ahead of the sink, and passes the features to the
+     * sink in the order of the input.
+     */
+    private void readInParallel(GeometryTexts texts, FeatureSink sink,
+        FeatureSchema featureSchema) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        LinkedList parsing = new LinkedList();
+        boolean atEnd = false;
+        int count = 0;
 
-            throw new ParseException(
-                "Expected word or end-of-file but encountered StreamTokenizer type " +
-                type);
+        //An error in the input is thrown once the geometries before it have
+        //gone to the sink, as when reading in one thread
+        Exception inputError = null;
+
+        try {
+            while (true) {
+                while (!atEnd && (parsing.size() < (2 * parallelism))) {
+                    List batch;
+
+                    try {
+                        batch = texts.next(BATCH_SIZE, BATCH_CHARS);
+                    } catch (Exception e) {
+                        inputError = e;
+                        batch = new ArrayList();
+                    }
+
+                    if (batch.isEmpty()) {
+                        atEnd = true;
+                    } else {
+                        parsing.add(executor.submit(batchParser(batch, count)));
+                        count += batch.size();
+                    }
+                }
+
+                if (parsing.isEmpty()) {
+                    if (inputError != null) {
+                        throw inputError;
+                    }
+
+                    return;
+                }
+
+                ParsedBatch parsed;
+
+                try {
+                    parsed = (ParsedBatch) ((Future) parsing.removeFirst()).get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+
+                    throw (Error) e.getCause();
+                }
+
+                //Features are made here rather than in the batches, so that
+                //their IDs follow the order of the input
+                for (int i = 0; i < parsed.count; i++) {
+                    sink.add(toFeature(parsed.geometries[i], featureSchema));
+                }
+
+                if (parsed.error != null) {
+                    throw parsed.error;
+                }
+            }
         } finally {
-            bufferedReader.reset();
+            executor.shutdownNow();
         }
     }
 
+    //before is the number of geometries in the batches before this one
+    private Callable batchParser(final List batch, final int before) {
+        return new Callable() {
+                public Object call() {
+                    org.locationtech.jts.io.WKTReader batchReader = new org.locationtech.jts.io.WKTReader(geometryFactory);
+                    ParsedBatch parsed = new ParsedBatch(batch.size());
+
+                    try {
+                        for (; parsed.count < parsed.geometries.length; parsed.count++) {
+                            parsed.geometries[parsed.count] = parse(batchReader,
+                                    (String) batch.get(parsed.count),
+                                    before + parsed.count + 1);
+                        }
+                    } catch (ParseException e) {
+                        parsed.error = e;
+                    }
+
+                    return parsed;
+                }
+            };
+    }
+
     /**
-     * Reads 1 feature
+     * The geometries of a batch up to the first one that cannot be parsed,
+     * so that those before it still go to the sink, as when reading in one
+     * thread.
      */
-    private Feature nextFeature(Reader reader, FeatureSchema featureSchema)
-        throws ParseException {
+    private static class ParsedBatch {
+        Geometry[] geometries;
+        int count = 0;
+        ParseException error = null;
+
+        ParsedBatch(int size) {
+            geometries = new Geometry[size];
+        }
+    }
+
+    private FeatureSchema createFeatureSchema() {
+        FeatureSchema featureSchema = new FeatureSchema();
+        featureSchema.addAttribute("Geometry", AttributeType.GEOMETRY);
+
+        return featureSchema;
+    }
+
+    private Feature toFeature(Geometry geometry, FeatureSchema featureSchema) {
         Feature feature = new BasicFeature(featureSchema);
-        feature.setGeometry(wktReader.read(reader));
+        feature.setGeometry(geometry);
 
         return feature;
     }
+
+    /**
+     * Cuts the text of one geometry after another out of a Reader, reading
+     * each char once: a geometry is a tag (with a Z, M or ZM) followed by
+     * EMPTY or by a list in balanced parentheses. Whitespace and comments
+     * between geometries are skipped. Malformed text is passed on for the
+     * JTS WKTReader to report.
+     */
+    private static class GeometryTexts {
+        private Reader reader;
+        private char[] buffer = new char[8192];
+        private int position = 0;
+        private int limit = 0;
+        private StringBuilder text = new StringBuilder();
+        private int count = 0;
+        private Exception error = null;
+
+        GeometryTexts(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * Returns the text of the next geometry, or null at the end of the
+         * input.
+         */
+        String next() throws IOException, ParseException {
+            int c = skipWhitespace(read());
+
+            if (c == -1) {
+                return null;
+            }
+
+            if (!Character.isLetter((char) c)) {
+                throw new ParseException(
+                    "Expected word or end-of-file but encountered '" +
+                    (char) c + "' after " + count + " geometries");
+            }
+
+            text.setLength(0);
+
+            while (true) {
+                int wordStart = text.length();
+
+                while ((c != -1) && isWordChar(c)) {
+                    text.append((char) c);
+                    c = read();
+                }
+
+                if (((text.length() - wordStart) == 5) &&
+                        text.substring(wordStart).equalsIgnoreCase("EMPTY")) {
+                    break;
+                }
+
+                c = skipWhitespace(c);
+
+                if (c == '(') {
+                    appendList();
+                    count++;
+
+                    return text.toString();
+                }
+
+                if (c == -1) {
+                    break;
+                }
+
+                if (!isWordChar(c)) {
+                    //Let the JTS WKTReader report what it found
+                    text.append(' ').append((char) c);
+                    c = -1;
+
+                    break;
+                }
+
+                text.append(' ');
+            }
+
+            unread(c);
+            count++;
+
+            return text.toString();
+        }
+
+        /**
+         * Returns the texts of the next geometries, up to the given number of
+         * geometries or (roughly) chars; an empty List at the end of the
+         * input.
+         */
+        List next(int maxGeometries, int maxChars) throws Exception {
+            if (error != null) {
+                throw error;
+            }
+
+            List texts = new ArrayList();
+            int chars = 0;
+
+            try {
+                while ((texts.size() < maxGeometries) && (chars < maxChars)) {
+                    String next = next();
+
+                    if (next == null) {
+                        break;
+                    }
+
+                    texts.add(next);
+                    chars += next.length();
+                }
+            } catch (Exception e) {
+                if (texts.isEmpty()) {
+                    throw e;
+                }
+
+                //Return the geometries before the error first, as #next would
+                error = e;
+            }
+
+            return texts;
+        }
+
+        //Appends the '(' just read and everything up to the matching ')'
+        private void appendList() throws IOException {
+            int depth = 1;
+            text.append('(');
+
+            while (depth > 0) {
+                int c = read();
+
+                if (c == -1) {
+                    return;
+                }
+
+                if (c == '#') {
+                    c = skipComment();
+
+                    if (c == -1) {
+                        return;
+                    }
+                }
+
+                text.append((char) c);
+
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                }
+            }
+        }
+
+        //Returns the first char, from c on, that is not whitespace or in a comment
+        private int skipWhitespace(int c) throws IOException {
+            while (true) {
+                if (c == '#') {
+                    c = skipComment();
+                }
+
+                if ((c == -1) || (c > ' ')) {
+                    return c;
+                }
+
+                c = read();
+            }
+        }
+
+        //Returns the char that ends the comment (a line break), or -1
+        private int skipComment() throws IOException {
+            int c = read();
+
+            while ((c != -1) && (c != '\n') && (c != '\r')) {
+                c = read();
+            }
+
+            return c;
+        }
+
+        //As in the tokenizer of the JTS WKTReader
+        private static boolean isWordChar(int c) {
+            return ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) ||
+            ((c >= '0') && (c <= '9')) || (c == '-') || (c == '+') ||
+            (c == '.') || ((c >= (128 + 32)) && (c <= 255));
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+
+                if (limit <= 0) {
+                    limit = 0;
+
+                    return -1;
+                }
+            }
+
+            return buffer[position++];
+        }
+
+        //Puts back the char last returned by #read
+        private void unread(int c) {
+            if (c != -1) {
+                position--;
+            }
+        }
+    }
 }
@@ -31,6 +31,7 @@
  */
 package org.locationtech.jts.jump.io.datasource;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.Collection;
 
@@ -55,6 +56,12 @@ public abstract class StandardReaderWriterFileDataSource
 
     public static final String INPUT_TEMPLATE_FILE_KEY = "Input Template File";
 
+    /**
+     * GML and JML files larger than this fraction of the maximum heap size
+     * are read into a DiskFeatureCollection instead of onto the heap.
+     */
+    public static final double SPILL_TO_DISK_FRACTION_OF_HEAP = 0.25;
+
     public StandardReaderWriterFileDataSource(
         JUMPReader reader,
         JUMPWriter writer,
@@ -107,6 +114,22 @@ public abstract class StandardReaderWriterFileDataSource
         };
     }
 
+    /**
+     * Sets the SpillToDisk property of GMLReader if the file is too large to
+     * be read onto the heap comfortably, unless it has been set already.
+     * @see #SPILL_TO_DISK_FRACTION_OF_HEAP
+     */
+    static DriverProperties spillLargeFileToDisk(DriverProperties dp) {
+        if ((dp.getProperty("SpillToDisk") == null) &&
+                (dp.getProperty(FILE_KEY) != null) &&
+                (new File(dp.getProperty(FILE_KEY)).length() >
+                    (Runtime.getRuntime().maxMemory() * SPILL_TO_DISK_FRACTION_OF_HEAP))) {
+            dp.set("SpillToDisk", "true");
+        }
+
+        return dp;
+    }
+
     public static Collection toEndings(String[] extensions) {
         return CollectionUtil.collect(Arrays.asList(extensions), new Block() {
             public Object yield(Object extension) {
@@ -119,6 +142,10 @@ public abstract class StandardReaderWriterFileDataSource
         public JML() {
             super(new JMLReader(), new JMLWriter(), new String[] { "jml" });
         }
+
+        protected DriverProperties getReaderDriverProperties() {
+            return spillLargeFileToDisk(super.getReaderDriverProperties());
+        }
     }
 
     public static class WKT extends ClassicReaderWriterFileDataSource {
@@ -144,7 +171,7 @@ public abstract class StandardReaderWriterFileDataSource
             super(createGMLReader(), createGMLWriter(), StandardReaderWriterFileDataSource.GML_EXTENSIONS);
         }
         protected DriverProperties getReaderDriverProperties() {
-            return super.getReaderDriverProperties().set(
+            return spillLargeFileToDisk(super.getReaderDriverProperties()).set(
                 "TemplateFile",
                 (String) getProperties().get(StandardReaderWriterFileDataSource.INPUT_TEMPLATE_FILE_KEY));
         }
@@ -70,8 +70,17 @@ import javax.swing.table.TableCellEditor;
  * in FlexibleDateParser.txt).
  */
 public class FlexibleDateParser {
-    private static Collection lenientFormatters = null;
-    private static Collection unlenientFormatters = null;
+    //SimpleDateFormat is not thread-safe, and readers parse dates in several
+    //threads, so each thread parses with its own copies of the formatters:
+    //the unlenient ones, then the lenient ones
+    private static final ThreadLocal threadFormatters = new ThreadLocal() {
+        protected Object initialValue() {
+            return new Collection[] {
+                copy(Formatters.UNLENIENT), copy(Formatters.LENIENT)
+            };
+        }
+    };
+
     //CellEditor used to be a static field CELL_EDITOR, but I was getting
     //problems calling it from ESETextField (it simply didn't appear).
     //The problems vanished when I turned it into a static class. I didn't
@@ -126,7 +135,7 @@ public class FlexibleDateParser {
 
     private boolean verbose = false;
 
-    private Collection sortByComplexity(Collection patterns) {
+    private static Collection sortByComplexity(Collection patterns) {
         //Least complex to most complex. [Jon Aquino]
         TreeSet sortedPatterns = new TreeSet(new Comparator() {
             public int compare(Object o1, Object o2) {
@@ -160,19 +169,11 @@ public class FlexibleDateParser {
     }
 
     private Collection lenientFormatters() {
-        if (lenientFormatters == null) {
-            load();
-        }
-
-        return lenientFormatters;
+        return ((Collection[]) threadFormatters.get())[1];
     }
 
     private Collection unlenientFormatters() {
-        if (unlenientFormatters == null) {
-            load();
-        }
-
-        return unlenientFormatters;
+        return ((Collection[]) threadFormatters.get())[0];
     }
 
     /**
@@ -269,14 +270,22 @@ public class FlexibleDateParser {
         }
     }
 
-    private void load() {
-        if (lenientFormatters == null) {
+    /**
+     * The formatters for the patterns in FlexibleDateParser.txt, which are
+     * loaded once, when the first date is parsed. They are only copied, never
+     * used to parse.
+     */
+    private static class Formatters {
+        static final Collection UNLENIENT;
+        static final Collection LENIENT;
+
+        static {
+            Collection patterns = new ArrayList();
             InputStream inputStream =
-                getClass().getResourceAsStream("FlexibleDateParser.txt");
+                FlexibleDateParser.class.getResourceAsStream("FlexibleDateParser.txt");
 
             try {
                 try {
-                    Collection patterns = new ArrayList();
                     int index = 0;
                     for (Iterator i = FileUtil.getContents(inputStream).iterator();
                         i.hasNext();
@@ -294,19 +303,29 @@ public class FlexibleDateParser {
                         patterns.add(new Pattern(line, index));
                         index++;
                     }
-
-                    unlenientFormatters = toFormatters(false, patterns);
-                    lenientFormatters = toFormatters(true, patterns);
                 } finally {
                     inputStream.close();
                 }
             } catch (IOException e) {
                 Assert.shouldNeverReachHere(e.toString());
             }
+
+            UNLENIENT = toFormatters(false, patterns);
+            LENIENT = toFormatters(true, patterns);
         }
     }
 
-    private Collection toFormatters(boolean lenient, Collection patterns) {
+    private static Collection copy(Collection formatters) {
+        ArrayList copies = new ArrayList(formatters.size());
+
+        for (Iterator i = formatters.iterator(); i.hasNext();) {
+            copies.add(((SimpleDateFormat) i.next()).clone());
+        }
+
+        return copies;
+    }
+
+    private static Collection toFormatters(boolean lenient, Collection patterns) {
         ArrayList formatters = new ArrayList();
         //Sort from least complex to most complex; otherwise, ddMMMyyyy 
         //instead of MMMd will match "May 15". [Jon Aquino]
@@ -0,0 +1,112 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.util.feature;
+
+import org.locationtech.jts.jump.feature.AttributeAccessor;
+import org.locationtech.jts.jump.feature.Feature;
+
+
+/**
+ * Accumulates Statistics of a numeric attribute. Null values are counted but
+ * otherwise skipped.
+ */
+public class AttributeStatistics implements FeatureAccumulator {
+    private AttributeAccessor accessor;
+    private Statistics statistics;
+    private long nullCount = 0;
+
+    /**
+     * Creates an AttributeStatistics for the attribute with the given name.
+     */
+    public AttributeStatistics(String attributeName) {
+        this(new AttributeAccessor(attributeName), new Statistics());
+    }
+
+    /**
+     * Creates an AttributeStatistics for the attribute with the given name
+     * that also builds a histogram.
+     * @see Statistics#Statistics(double, double, int)
+     */
+    public AttributeStatistics(String attributeName, double histogramMin,
+        double histogramMax, int binCount) {
+        this(new AttributeAccessor(attributeName),
+            new Statistics(histogramMin, histogramMax, binCount));
+    }
+
+    private AttributeStatistics(AttributeAccessor accessor, Statistics statistics) {
+        this.accessor = accessor;
+        this.statistics = statistics;
+    }
+
+    /**
+     * @throws ClassCastException if the value is not a Number
+     */
+    public void add(Feature feature) {
+        Object value = accessor.getAttribute(feature);
+
+        if (value == null) {
+            nullCount++;
+
+            return;
+        }
+
+        statistics.add(((Number) value).doubleValue());
+    }
+
+    public FeatureAccumulator newAccumulator() {
+        //the accessor can be shared between threads
+        return new AttributeStatistics(accessor, statistics.newStatistics());
+    }
+
+    public void merge(FeatureAccumulator other) {
+        AttributeStatistics otherStatistics = (AttributeStatistics) other;
+        statistics.merge(otherStatistics.statistics);
+        nullCount += otherStatistics.nullCount;
+    }
+
+    public String getAttributeName() {
+        return accessor.getAttributeName();
+    }
+
+    /**
+     * Returns the statistics of the non-null values.
+     */
+    public Statistics getStatistics() {
+        return statistics;
+    }
+
+    public long getNullCount() {
+        return nullCount;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.util.feature;
+
+import org.locationtech.jts.jump.feature.Feature;
+
+
+/**
+ * Accumulates something about each Feature of a collection, for example
+ * statistics of an attribute. The Features may be split into parts which are
+ * accumulated by separate accumulators (see #newAccumulator), possibly in
+ * different threads, and then merged.
+ * @see FeatureStatistics#accumulate
+ */
+public interface FeatureAccumulator {
+    public void add(Feature feature);
+
+    /**
+     * Returns an empty accumulator of the same kind, which can be merged into
+     * this one.
+     */
+    public FeatureAccumulator newAccumulator();
+
+    /**
+     * Adds what another accumulator (created by #newAccumulator) has
+     * accumulated to this one. The other accumulator's Features come after
+     * this one's.
+     */
+    public void merge(FeatureAccumulator other);
+}
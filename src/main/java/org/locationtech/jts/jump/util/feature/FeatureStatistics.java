@@ -32,39 +32,159 @@
 
 package org.locationtech.jts.jump.util.feature;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import org.locationtech.jts.jump.feature.AttributeType;
+import org.locationtech.jts.jump.feature.ColumnarFeatureCollection;
 import org.locationtech.jts.jump.feature.Feature;
 import org.locationtech.jts.jump.feature.FeatureCollection;
 
 /** 
  * Computes Feature Statistics for a {@link FeatureCollection}.
+ * <p>
+ * The Features of large collections are accumulated in parallel, split
+ * between the threads of the common ForkJoinPool.</p>
  */
 public class FeatureStatistics {
+    //Below this many Features a part is not split further
+    private static final int SPLIT_SIZE = 4096;
+
+    /**
+     * Returns the minimum and maximum of a numeric attribute, or {0, 0} if
+     * the collection is empty or holds only nulls.
+     * <p>
+     * Null values are skipped and any Number is accepted, including the
+     * Integers of an INTEGER attribute. Earlier versions only accepted
+     * Doubles, and failed on a null or an Integer value.</p>
+     */
     public static double[] minMaxValue(FeatureCollection fc, String col) {
-        double[] minMax = new double[] { 0.0, 0.0 };
-        int adjDistanceIndex = -1;
+        if (fc instanceof ColumnarFeatureCollection) {
+            return minMaxValue((ColumnarFeatureCollection) fc, col);
+        }
+
+        Statistics statistics = attributeStatistics(fc, col).getStatistics();
+
+        if (statistics.getCount() == 0) {
+            return new double[] { 0.0, 0.0 };
+        }
+
+        return new double[] { statistics.getMin(), statistics.getMax() };
+    }
 
+    /**
+     * Computes the count, minimum, maximum, mean and standard deviation of a
+     * numeric attribute in one pass.
+     */
+    public static AttributeStatistics attributeStatistics(FeatureCollection fc, String col) {
+        return (AttributeStatistics) accumulate(fc, new AttributeStatistics(col));
+    }
+
+    /**
+     * Computes the statistics of a numeric attribute, including a histogram,
+     * in one pass.
+     * @see Statistics#Statistics(double, double, int)
+     */
+    public static AttributeStatistics attributeStatistics(FeatureCollection fc,
+        String col, double histogramMin, double histogramMax, int binCount) {
+        return (AttributeStatistics) accumulate(fc,
+            new AttributeStatistics(col, histogramMin, histogramMax, binCount));
+    }
+
+    /**
+     * Computes the vertex, hole and component counts, areas and lengths of
+     * the Geometries in one pass.
+     */
+    public static GeometryStatistics geometryStatistics(FeatureCollection fc) {
+        return (GeometryStatistics) accumulate(fc, new GeometryStatistics());
+    }
+
+    /**
+     * Adds all the Features of the collection to the accumulator. Large
+     * collections are split into parts that are accumulated in parallel by
+     * accumulators from FeatureAccumulator#newAccumulator, and then merged
+     * into the given one, in order.
+     * @return the given accumulator
+     */
+    public static FeatureAccumulator accumulate(FeatureCollection fc,
+        FeatureAccumulator accumulator) {
         List features = fc.getFeatures();
 
-        for (int i = 0; i < features.size(); i++) {
-            Feature f = (Feature) features.get(i);
+        if ((features.size() <= SPLIT_SIZE) || !(features instanceof RandomAccess)) {
+            for (Iterator i = features.iterator(); i.hasNext();) {
+                accumulator.add((Feature) i.next());
+            }
+        } else {
+            ForkJoinPool.commonPool().invoke(new AccumulateAction(features, 0,
+                    features.size(), accumulator));
+        }
+
+        return accumulator;
+    }
+
+    /**
+     * Reads the values straight from the column instead of through a Feature
+     * per row.
+     */
+    private static double[] minMaxValue(ColumnarFeatureCollection fc, String col) {
+        double[] minMax = new double[] { 0.0, 0.0 };
+        int index = fc.getFeatureSchema().getAttributeIndex(col);
+        boolean integer = fc.getFeatureSchema().getAttributeType(index) == AttributeType.INTEGER;
+        boolean first = true;
 
-            if (adjDistanceIndex == -1) {
-                adjDistanceIndex = f.getSchema().getAttributeIndex(col);
+        for (int i = 0; i < fc.size(); i++) {
+            if (fc.isNull(i, index)) {
+                continue;
             }
 
-            double adjDistance = f.getDouble(adjDistanceIndex);
+            double value = integer ? fc.getInteger(i, index) : fc.getDouble(i, index);
 
-            if ((i == 0) || (adjDistance < minMax[0])) {
-                minMax[0] = adjDistance;
+            if (first || (value < minMax[0])) {
+                minMax[0] = value;
             }
 
-            if ((i == 0) || (adjDistance > minMax[1])) {
-                minMax[1] = adjDistance;
+            if (first || (value > minMax[1])) {
+                minMax[1] = value;
             }
+
+            first = false;
         }
 
         return minMax;
     }
+
+    private static class AccumulateAction extends RecursiveAction {
+        private List features;
+        private int start;
+        private int end;
+        private FeatureAccumulator accumulator;
+
+        AccumulateAction(List features, int start, int end, FeatureAccumulator accumulator) {
+            this.features = features;
+            this.start = start;
+            this.end = end;
+            this.accumulator = accumulator;
+        }
+
+        protected void compute() {
+            if ((end - start) <= SPLIT_SIZE) {
+                for (int i = start; i < end; i++) {
+                    accumulator.add((Feature) features.get(i));
+                }
+
+                return;
+            }
+
+            int middle = (start + end) >>> 1;
+            AccumulateAction second = new AccumulateAction(features, middle, end,
+                    accumulator.newAccumulator());
+            second.fork();
+            new AccumulateAction(features, start, middle, accumulator).compute();
+            second.join();
+            accumulator.merge(second.accumulator);
+        }
+    }
 }
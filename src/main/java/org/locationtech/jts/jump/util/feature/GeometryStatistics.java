@@ -0,0 +1,124 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.util.feature;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryCollection;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.jump.feature.Feature;
+
+
+/**
+ * Accumulates Statistics of the vertex count, hole count, component count,
+ * area and length of the Geometries of Features.
+ */
+public class GeometryStatistics implements FeatureAccumulator {
+    private Statistics vertexCounts = new Statistics();
+    private Statistics holeCounts = new Statistics();
+    private Statistics componentCounts = new Statistics();
+    private Statistics areas = new Statistics();
+    private Statistics lengths = new Statistics();
+
+    public GeometryStatistics() {
+    }
+
+    public void add(Feature feature) {
+        add(feature.getGeometry());
+    }
+
+    public void add(Geometry g) {
+        vertexCounts.add(g.getNumPoints());
+        holeCounts.add(holeCount(g));
+        componentCounts.add(componentCount(g));
+        areas.add(g.getArea());
+        lengths.add(g.getLength());
+    }
+
+    public FeatureAccumulator newAccumulator() {
+        return new GeometryStatistics();
+    }
+
+    public void merge(FeatureAccumulator other) {
+        GeometryStatistics otherStatistics = (GeometryStatistics) other;
+        vertexCounts.merge(otherStatistics.vertexCounts);
+        holeCounts.merge(otherStatistics.holeCounts);
+        componentCounts.merge(otherStatistics.componentCounts);
+        areas.merge(otherStatistics.areas);
+        lengths.merge(otherStatistics.lengths);
+    }
+
+    /**
+     * Returns the number of Geometries added.
+     */
+    public long getCount() {
+        return vertexCounts.getCount();
+    }
+
+    public Statistics getVertexCounts() {
+        return vertexCounts;
+    }
+
+    public Statistics getHoleCounts() {
+        return holeCounts;
+    }
+
+    public Statistics getComponentCounts() {
+        return componentCounts;
+    }
+
+    public Statistics getAreas() {
+        return areas;
+    }
+
+    public Statistics getLengths() {
+        return lengths;
+    }
+
+    /**
+     * Returns the number of holes of a Polygon; other Geometries count as
+     * having none.
+     */
+    public static int holeCount(Geometry g) {
+        // this needs work - need to recurse into geometries
+        return (g instanceof Polygon) ? ((Polygon) g).getNumInteriorRing() : 0;
+    }
+
+    /**
+     * Returns the number of elements of a GeometryCollection; other
+     * Geometries count as a single component.
+     */
+    public static int componentCount(Geometry g) {
+        return (g instanceof GeometryCollection) ? g.getNumGeometries() : 1;
+    }
+}
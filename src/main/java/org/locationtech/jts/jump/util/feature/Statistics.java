@@ -0,0 +1,225 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.util.feature;
+
+import java.io.Serializable;
+
+
+/**
+ * Accumulates the count, minimum, maximum, sum, mean and standard deviation
+ * of a series of values, and optionally a histogram of them. Two Statistics
+ * can be merged, so that parts of a series can be accumulated separately (by
+ * different threads, for example) and combined afterwards.
+ * <p>
+ * A Statistics is not thread-safe; give each thread its own.</p>
+ */
+public class Statistics implements Serializable {
+    private static final long serialVersionUID = -2406284379105264539L;
+    private long count = 0;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private double sum = 0;
+
+    //Running mean and sum of squared differences from it (Welford), which
+    //lose less precision than a sum of squares
+    private double mean = 0;
+    private double m2 = 0;
+
+    private double histogramMin;
+    private double histogramMax;
+    private long[] bins = null;
+
+    /**
+     * Creates a Statistics without a histogram.
+     */
+    public Statistics() {
+    }
+
+    /**
+     * Creates a Statistics that also counts the values in each of
+     * <code>binCount</code> equal bins between <code>histogramMin</code> and
+     * <code>histogramMax</code>. Values outside this range are not counted
+     * in any bin; <code>histogramMax</code> itself falls in the last bin.
+     */
+    public Statistics(double histogramMin, double histogramMax, int binCount) {
+        if (binCount < 1) {
+            throw new IllegalArgumentException("Bin count must be positive: " + binCount);
+        }
+
+        this.histogramMin = histogramMin;
+        this.histogramMax = histogramMax;
+        bins = new long[binCount];
+    }
+
+    /**
+     * Returns an empty Statistics with the same histogram bins as this one.
+     */
+    public Statistics newStatistics() {
+        return (bins == null) ? new Statistics()
+                              : new Statistics(histogramMin, histogramMax, bins.length);
+    }
+
+    public void add(double value) {
+        if (count == 0) {
+            min = value;
+            max = value;
+        } else {
+            if (value < min) {
+                min = value;
+            }
+
+            if (value > max) {
+                max = value;
+            }
+        }
+
+        count++;
+        sum += value;
+
+        double delta = value - mean;
+        mean += (delta / count);
+        m2 += (delta * (value - mean));
+
+        if (bins != null) {
+            int bin = bin(value);
+
+            if (bin != -1) {
+                bins[bin]++;
+            }
+        }
+    }
+
+    private int bin(double value) {
+        if ((value < histogramMin) || (value > histogramMax)) {
+            return -1;
+        }
+
+        if (histogramMax == histogramMin) {
+            return 0;
+        }
+
+        int bin = (int) (((value - histogramMin) / (histogramMax - histogramMin)) * bins.length);
+
+        return Math.min(bin, bins.length - 1);
+    }
+
+    /**
+     * Adds the values accumulated by another Statistics, which must have the
+     * same histogram bins, to this one.
+     */
+    public void merge(Statistics other) {
+        if ((bins == null) != (other.bins == null) ||
+                ((bins != null) &&
+                ((bins.length != other.bins.length) ||
+                (histogramMin != other.histogramMin) ||
+                (histogramMax != other.histogramMax)))) {
+            throw new IllegalArgumentException("Histogram bins differ");
+        }
+
+        if (other.count == 0) {
+            return;
+        }
+
+        if (count == 0) {
+            min = other.min;
+            max = other.max;
+        } else {
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        mean += ((delta * other.count) / total);
+        m2 += (other.m2 + ((((delta * delta) * count) * other.count) / total));
+        count = total;
+        sum += other.sum;
+
+        if (bins != null) {
+            for (int i = 0; i < bins.length; i++) {
+                bins[i] += other.bins[i];
+            }
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the smallest value, or NaN if there are no values.
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the largest value, or NaN if there are no values.
+     */
+    public double getMax() {
+        return max;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Returns the mean of the values, or 0 if there are none.
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * Returns the (population) standard deviation of the values, or 0 if
+     * there are none.
+     */
+    public double getStandardDeviation() {
+        return (count == 0) ? 0 : Math.sqrt(m2 / count);
+    }
+
+    /**
+     * Returns the number of values in each histogram bin, or null if this
+     * Statistics has no histogram.
+     */
+    public long[] getHistogram() {
+        return (bins == null) ? null : bins.clone();
+    }
+
+    public String toString() {
+        return "count=" + count + ", min=" + min + ", max=" + max + ", mean=" + mean +
+        ", stddev=" + getStandardDeviation();
+    }
+}
@@ -36,6 +36,7 @@ import org.locationtech.jts.util.Assert;
 
 import org.locationtech.jts.jump.coordsys.CoordinateSystemRegistry;
 import org.locationtech.jts.jump.feature.FeatureCollection;
+import org.locationtech.jts.jump.feature.IndexedFeatureDataset;
 import org.locationtech.jts.jump.io.datasource.*;
 import org.locationtech.jts.jump.io.datasource.Connection;
 import org.locationtech.jts.jump.task.TaskMonitor;
@@ -130,8 +131,8 @@ public class LoadDatasetPlugIn extends ThreadedBasePlugIn {
             Connection connection = dataSourceQuery.getDataSource()
                                                    .getConnection();
             try {
-                FeatureCollection dataset = dataSourceQuery.getDataSource().installCoordinateSystem(connection.executeQuery(dataSourceQuery.getQuery(),
-                        exceptions, monitor), CoordinateSystemRegistry.instance(context.getWorkbenchContext().getBlackboard()));
+                FeatureCollection dataset = IndexedFeatureDataset.index(dataSourceQuery.getDataSource().installCoordinateSystem(connection.executeQuery(dataSourceQuery.getQuery(),
+                        exceptions, monitor), CoordinateSystemRegistry.instance(context.getWorkbenchContext().getBlackboard())));
                 if (dataset != null) {
                     context.getLayerManager()
                            .addLayer(chooseCategory(context),
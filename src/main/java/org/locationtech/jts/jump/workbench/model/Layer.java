@@ -32,7 +32,11 @@
 package org.locationtech.jts.jump.workbench.model;
 
 import java.awt.Color;
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.swing.SwingUtilities;
 
@@ -40,6 +44,7 @@ import org.locationtech.jts.util.Assert;
 import org.locationtech.jts.jump.feature.FeatureCollection;
 import org.locationtech.jts.jump.feature.FeatureCollectionWrapper;
 import org.locationtech.jts.jump.feature.FeatureDataset;
+import org.locationtech.jts.jump.feature.IndexedFeatureDataset;
 import org.locationtech.jts.jump.io.datasource.DataSourceQuery;
 import org.locationtech.jts.jump.util.Blackboard;
 import org.locationtech.jts.jump.workbench.ui.plugin.AddNewLayerPlugIn;
@@ -284,12 +289,25 @@ public class Layer extends AbstractLayerable implements LayerManagerProxy {
      * viewing the LayerManager is closed (i.e. internal frame's responsibility). To conserve
      * memory, if layers are frequently added and removed from the LayerManager,
      * parties may want to call #dispose themselves rather than waiting for the internal
-     * frame to be closed.
+     * frame to be closed. A FeatureCollection backed by files, like a
+     * DiskFeatureCollection, is closed, which releases its files.
      */
     public void dispose() {
+        FeatureCollection featureCollection = (featureCollectionWrapper != null)
+            ? featureCollectionWrapper.getUltimateWrappee() : null;
+
         //Don't just call FeatureCollection#removeAll, because it may be a database
         //table, and we don't want to delete its contents! [Jon Aquino]
         setFeatureCollection(AddNewLayerPlugIn.createBlankFeatureCollection());
+
+        if (featureCollection instanceof Closeable) {
+            try {
+                ((Closeable) featureCollection).close();
+            } catch (IOException e) {
+                Logger.getLogger(Layer.class.getName()).log(Level.WARNING,
+                    "Could not close the features of layer " + getName(), e);
+            }
+        }
     }
 
     public void removeStyle(Style p) {
@@ -400,8 +418,7 @@ public class Layer extends AbstractLayerable implements LayerManagerProxy {
                     layer = currentLayer();
 
                     if (layer != null) {
-                        features = new ArrayList(layer.getFeatureCollectionWrapper()
-                                                      .getFeatures());
+                        features = layer.getFeatureCollectionWrapper().snapshot();
                         categoryName = layer.getName();
                         visible = layer.isVisible();
                     }
@@ -439,6 +456,20 @@ public class Layer extends AbstractLayerable implements LayerManagerProxy {
         }
     }
 
+    /**
+     * Like #tryToInvalidateEnvelope(Layer), but if the underlying feature
+     * collection is an IndexedFeatureDataset only the given features (whose
+     * geometries were modified) are re-indexed.
+     */
+    public static void tryToInvalidateEnvelope(Layer layer, Collection modifiedFeatures) {
+        if (layer.getFeatureCollectionWrapper().getUltimateWrappee() instanceof IndexedFeatureDataset) {
+            ((IndexedFeatureDataset) layer.getFeatureCollectionWrapper()
+                                          .getUltimateWrappee()).geometryModified(modifiedFeatures);
+        } else {
+            tryToInvalidateEnvelope(layer);
+        }
+    }
+
     public DataSourceQuery getDataSourceQuery() {
         return dataSourceQuery;
     }
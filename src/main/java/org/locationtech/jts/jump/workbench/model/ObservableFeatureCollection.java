@@ -91,6 +91,11 @@ public class ObservableFeatureCollection extends FeatureCollectionWrapper {
         fireFeaturesAdded(features);
     }
 
+    public void addAll(Collection features, int sizeHint) {
+        super.addAll(features, sizeHint);
+        fireFeaturesAdded(features);
+    }
+
     public void removeAll(Collection features) {
         super.removeAll(features);
         fireFeaturesRemoved(features);
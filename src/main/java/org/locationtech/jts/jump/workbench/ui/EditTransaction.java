@@ -358,7 +358,7 @@ public class EditTransaction {
             }
         }
 
-        Layer.tryToInvalidateEnvelope(layer);
+        Layer.tryToInvalidateEnvelope(layer, modifiedFeatures);
         //Important to fire the feature-removed event first (before the feature-added
         //and feature-modified events) so that any selections that need to be cleared
         //get cleared. [Jon Aquino]
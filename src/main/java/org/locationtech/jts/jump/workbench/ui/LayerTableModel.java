@@ -82,9 +82,9 @@ public class LayerTableModel extends ColumnBasedTableModel {
         protected abstract void setValue(Object value, Feature feature);
     }
 
-    private Column fidColumn = new MyColumn("FID", Integer.class) {
+    private Column fidColumn = new MyColumn("FID", Long.class) {
         protected Object getValue(Feature feature) {
-            return new Integer(feature.getID());
+            return new Long(feature.getID());
         }
 
         protected void setValue(Object value, Feature feature) {
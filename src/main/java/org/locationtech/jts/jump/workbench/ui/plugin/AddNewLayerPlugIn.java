@@ -37,8 +37,8 @@ import org.locationtech.jts.jump.workbench.plugin.PlugInContext;
 import org.locationtech.jts.jump.workbench.ui.cursortool.editing.EditingPlugIn;
 import org.locationtech.jts.jump.feature.AttributeType;
 import org.locationtech.jts.jump.feature.FeatureCollection;
-import org.locationtech.jts.jump.feature.FeatureDataset;
 import org.locationtech.jts.jump.feature.FeatureSchema;
+import org.locationtech.jts.jump.feature.IndexedFeatureDataset;
 
 import java.util.Collection;
 
@@ -50,7 +50,7 @@ public class AddNewLayerPlugIn extends AbstractPlugIn {
     public static FeatureCollection createBlankFeatureCollection() {
         FeatureSchema featureSchema = new FeatureSchema();
         featureSchema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
-        return new FeatureDataset(featureSchema);
+        return new IndexedFeatureDataset(featureSchema);
     }
 
     public boolean execute(PlugInContext context) throws Exception {
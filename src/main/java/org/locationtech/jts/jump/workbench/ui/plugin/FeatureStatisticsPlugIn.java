@@ -33,12 +33,9 @@
 
 package org.locationtech.jts.jump.workbench.ui.plugin;
 
-import java.util.Iterator;
+import java.util.ArrayList;
 
-import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.geom.GeometryCollection;
-import org.locationtech.jts.geom.Polygon;
 import org.locationtech.jts.jump.workbench.model.Layer;
 import org.locationtech.jts.jump.workbench.model.StandardCategoryNames;
 import org.locationtech.jts.jump.workbench.plugin.AbstractPlugIn;
@@ -49,6 +46,9 @@ import org.locationtech.jts.jump.feature.Feature;
 import org.locationtech.jts.jump.feature.FeatureDataset;
 import org.locationtech.jts.jump.feature.FeatureSchema;
 import org.locationtech.jts.jump.util.StringUtil;
+import org.locationtech.jts.jump.util.feature.FeatureAccumulator;
+import org.locationtech.jts.jump.util.feature.FeatureStatistics;
+import org.locationtech.jts.jump.util.feature.GeometryStatistics;
 
 
 /**
@@ -106,45 +106,50 @@ public class FeatureStatisticsPlugIn extends AbstractPlugIn {
 
     private void featureStatistics(final Layer layer, PlugInContext context) {
         FeatureSchema statsSchema = getStatisticsSchema();
-        FeatureDataset statsFC = new FeatureDataset(statsSchema);
+        StatisticsFeatures statsFeatures = (StatisticsFeatures) FeatureStatistics.accumulate(
+                layer.getFeatureCollectionWrapper(), new StatisticsFeatures(statsSchema));
+        FeatureDataset statsFC = new FeatureDataset(statsFeatures.features, statsSchema);
 
-        for (Iterator i = layer.getFeatureCollectionWrapper().iterator(); i.hasNext();) {
-            Feature f = (Feature) i.next();
-            Geometry g = f.getGeometry();
-            double area = g.getArea();
-            double length = g.getLength();
-
-            // these both need work - need to recurse into geometries
-            int comps = 1;
-
-            if (g instanceof GeometryCollection) {
-                comps = ((GeometryCollection) g).getNumGeometries();
-            }
+        Layer statsLayer = context.addLayer(StandardCategoryNames.QA,
+                "Statistics-" + layer.getName(), statsFC);
+        statsLayer.setStyles(layer.cloneStyles());
+    }
 
-            Coordinate[] pts = g.getCoordinates();
-            int holes = 0;
+    /**
+     * Creates a statistics Feature for each Feature, so that they can be
+     * created in parallel.
+     */
+    private static class StatisticsFeatures implements FeatureAccumulator {
+        private FeatureSchema statsSchema;
+        private ArrayList features = new ArrayList();
 
-            if (g instanceof Polygon) {
-                holes = ((Polygon) g).getNumInteriorRing();
-            }
+        StatisticsFeatures(FeatureSchema statsSchema) {
+            this.statsSchema = statsSchema;
+        }
 
+        public void add(Feature f) {
+            Geometry g = f.getGeometry();
             Feature statsf = new BasicFeature(statsSchema);
 
             // this aliases the geometry of the input feature, but this shouldn't matter,
             // since if geometries are edited they should be completely replaced
-            statsf.setAttribute("GEOMETRY", g);
-            statsf.setAttribute(nPtsAttr, new Integer(pts.length));
-            statsf.setAttribute(nHolesAttr, new Integer(holes));
-            statsf.setAttribute(nCompsAttr, new Integer(comps));
-            statsf.setAttribute(areaAttr, new Double(area));
-            statsf.setAttribute(lengthAttr, new Double(length));
-            statsf.setAttribute(typeAttr,
-                removeGeometryPackage(g.getClass().getName()));
-            statsFC.add(statsf);
+            //by index, in the order of #getStatisticsSchema
+            statsf.setAttribute(0, g);
+            statsf.setAttribute(1, new Integer(g.getNumPoints()));
+            statsf.setAttribute(2, new Integer(GeometryStatistics.holeCount(g)));
+            statsf.setAttribute(3, new Integer(GeometryStatistics.componentCount(g)));
+            statsf.setAttribute(4, new Double(g.getArea()));
+            statsf.setAttribute(5, new Double(g.getLength()));
+            statsf.setAttribute(6, removeGeometryPackage(g.getClass().getName()));
+            features.add(statsf);
         }
 
-        Layer statsLayer = context.addLayer(StandardCategoryNames.QA,
-                "Statistics-" + layer.getName(), statsFC);
-        statsLayer.setStyles(layer.cloneStyles());
+        public FeatureAccumulator newAccumulator() {
+            return new StatisticsFeatures(statsSchema);
+        }
+
+        public void merge(FeatureAccumulator other) {
+            features.addAll(((StatisticsFeatures) other).features);
+        }
     }
 }
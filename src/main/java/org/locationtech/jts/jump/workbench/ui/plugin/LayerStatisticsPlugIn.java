@@ -33,17 +33,13 @@
 
 package org.locationtech.jts.jump.workbench.ui.plugin;
 
-import java.util.Iterator;
-
-import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Envelope;
-import org.locationtech.jts.geom.Geometry;
-import org.locationtech.jts.geom.GeometryCollection;
-import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.jump.util.feature.FeatureStatistics;
+import org.locationtech.jts.jump.util.feature.GeometryStatistics;
+import org.locationtech.jts.jump.util.feature.Statistics;
 import org.locationtech.jts.jump.workbench.model.Layer;
 import org.locationtech.jts.jump.workbench.plugin.AbstractPlugIn;
 import org.locationtech.jts.jump.workbench.plugin.PlugInContext;
-import org.locationtech.jts.jump.feature.Feature;
 import org.locationtech.jts.jump.workbench.ui.HTMLFrame;
 
 
@@ -62,12 +58,14 @@ public class LayerStatisticsPlugIn extends AbstractPlugIn {
         out.createNewDocument();
         out.addHeader(1, "Layer Statistics");
 
-        LayerStatistics totalStats = new LayerStatistics();
+        GeometryStatistics totalStats = new GeometryStatistics();
         Envelope totalEnv = new Envelope();
 
         for (int i = 0; i < selectedLayers.length; i++) {
             Layer layer = selectedLayers[i];
-            LayerStatistics ls = layerStatistics(layer, totalStats);
+            GeometryStatistics ls = FeatureStatistics.geometryStatistics(
+                    layer.getFeatureCollectionWrapper());
+            totalStats.merge(ls);
 
             out.addHeader(2, "Layer: " + layer.getName());
 
@@ -87,162 +85,104 @@ public class LayerStatisticsPlugIn extends AbstractPlugIn {
         return true;
     }
 
-    private LayerStatistics layerStatistics(final Layer layer,
-        LayerStatistics totalStats) {
-        LayerStatistics ls = new LayerStatistics();
-
-        for (Iterator i = layer.getFeatureCollectionWrapper().iterator(); i.hasNext();) {
-            Feature f = (Feature) i.next();
-            Geometry g = f.getGeometry();
-            double area = g.getArea();
-            double length = g.getLength();
-
-            // these both need work - need to recurse into geometries
-            int comps = 1;
-
-            if (g instanceof GeometryCollection) {
-                comps = ((GeometryCollection) g).getNumGeometries();
-            }
-
-            Coordinate[] pts = g.getCoordinates();
-            int holes = 0;
-
-            if (g instanceof Polygon) {
-                holes = ((Polygon) g).getNumInteriorRing();
-            }
-
-            ls.addFeature(pts.length, holes, comps, area, length);
-            totalStats.addFeature(pts.length, holes, comps, area, length);
-        }
-
-        return ls;
+    public void output(GeometryStatistics ls, HTMLFrame out) {
+        output(ls.getCount(), ls.getVertexCounts(), ls.getHoleCounts(),
+            ls.getComponentCounts(), ls.getAreas(), ls.getLengths(), out);
     }
 
+    /**
+     * @deprecated use #output(GeometryStatistics, HTMLFrame)
+     */
+    @Deprecated
     public void output(LayerStatistics ls, HTMLFrame out) {
+        output(ls.vertexCounts.getCount(), ls.vertexCounts, ls.holeCounts,
+            ls.componentCounts, ls.areas, ls.lengths, out);
+    }
+
+    private void output(long count, Statistics vertexCounts, Statistics holeCounts,
+        Statistics componentCounts, Statistics areas, Statistics lengths, HTMLFrame out) {
         //=========  Output  ===============
-        out.addField("# Features:", ls.featureCount + "");
+        out.addField("# Features:", count + "");
 
         out.append("<table border='1'>");
         out.append(
             "<tr><td bgcolor=#CCCCCC>&nbsp;</td><td  bgcolor=#CCCCCC align='center'> Min </td><td  bgcolor=#CCCCCC align='center'> Max </td><td  bgcolor=#CCCCCC align='center'> Avg </td><td  bgcolor=#CCCCCC align='center'> Total </td></tr>");
-        out.append("<tr><td bgcolor=#CCCCCC> Pts </td><td align='right'>" +
-            ls.minCoord + "</td><td align='right'>" + ls.maxCoord +
-            "</td><td align='right'>" + ls.avgCoord() +
-            "</td><td align='right'>" + ls.totalCoord + "</td></tr>");
-        out.append("<tr><td bgcolor=#CCCCCC> Holes </td><td align='right'>" +
-            ls.minHoles + "</td><td align='right'>" + ls.maxHoles +
-            "</td><td align='right'>" + ls.avgHoles() +
-            "</td><td align='right'>" + ls.totalHoles + "</td></tr>");
-        out.append(
-            "<tr><td bgcolor=#CCCCCC> Components </td><td align='right'>" +
-            ls.minComp + "</td><td align='right'>" + ls.maxComp +
-            "</td><td align='right'>" + ls.avgComp() +
-            "</td><td align='right'>" + ls.totalComp + "</td></tr>");
-        out.append("<tr><td bgcolor=#CCCCCC> Area </td><td align='right'>" +
-            ls.minArea + "</td><td align='right'>" + ls.maxArea +
-            "</td><td align='right'>" + ls.avgArea() +
-            "</td><td align='right'>" + ls.totalArea + "</td></tr>");
-        out.append("<tr><td bgcolor=#CCCCCC> Length </td><td align='right'>" +
-            ls.minLength + "</td><td align='right'>" + ls.maxLength +
-            "</td><td align='right'>" + ls.avgLength() +
-            "</td><td align='right'>" + ls.totalLength + "</td></tr>");
+        outputCounts("Pts", vertexCounts, out);
+        outputCounts("Holes", holeCounts, out);
+        outputCounts("Components", componentCounts, out);
+        outputMeasures("Area", areas, out);
+        outputMeasures("Length", lengths, out);
         out.append("</table>");
     }
 
-    public class LayerStatistics {
-        boolean isFirst = true;
-        int minCoord = 0;
-        int maxCoord = 0;
-        int totalCoord = 0;
-        int minComp = 0;
-        int maxComp = 0;
-        int totalComp = 0;
-        int minHoles = 0;
-        int maxHoles = 0;
-        int totalHoles = 0;
-        double minArea = 0.0;
-        double maxArea = 0.0;
-        double totalArea = 0.0;
-        double minLength = 0.0;
-        double maxLength = 0.0;
-        double totalLength = 0.0;
-        int featureCount = 0;
-
-        public void addFeature(int coordCount, int holeCount, int compCount,
-            double area, double length) {
-            featureCount++;
-
-            if (isFirst || (coordCount < minCoord)) {
-                minCoord = coordCount;
-            }
-
-            if (isFirst || (coordCount > maxCoord)) {
-                maxCoord = coordCount;
-            }
-
-            totalCoord += coordCount;
-
-            if (isFirst || (holeCount < minHoles)) {
-                minHoles = holeCount;
-            }
-
-            if (isFirst || (holeCount > maxHoles)) {
-                maxHoles = holeCount;
-            }
-
-            totalHoles += holeCount;
-
-            if (isFirst || (compCount < minComp)) {
-                minComp = compCount;
-            }
-
-            if (isFirst || (compCount > maxComp)) {
-                maxComp = compCount;
-            }
+    private void outputCounts(String name, Statistics s, HTMLFrame out) {
+        if (s.getCount() == 0) {
+            outputRow(name, "0", "0", 0.0, "0", out);
 
-            totalComp += compCount;
+            return;
+        }
 
-            if (isFirst || (area < minArea)) {
-                minArea = area;
-            }
+        outputRow(name, (long) s.getMin() + "", (long) s.getMax() + "", s.getMean(),
+            (long) s.getSum() + "", out);
+    }
 
-            if (isFirst || (area > maxArea)) {
-                maxArea = area;
-            }
+    private void outputMeasures(String name, Statistics s, HTMLFrame out) {
+        if (s.getCount() == 0) {
+            outputRow(name, "0.0", "0.0", 0.0, "0.0", out);
 
-            totalArea += area;
+            return;
+        }
 
-            if (isFirst || (length < minLength)) {
-                minLength = length;
-            }
+        outputRow(name, s.getMin() + "", s.getMax() + "", s.getMean(), s.getSum() + "", out);
+    }
 
-            if (isFirst || (length > maxLength)) {
-                maxLength = length;
-            }
+    private void outputRow(String name, String min, String max, double avg,
+        String total, HTMLFrame out) {
+        out.append("<tr><td bgcolor=#CCCCCC> " + name + " </td><td align='right'>" +
+            min + "</td><td align='right'>" + max + "</td><td align='right'>" + avg +
+            "</td><td align='right'>" + total + "</td></tr>");
+    }
 
-            totalLength += length;
+    /**
+     * Statistics of the Features of a layer, added one at a time.
+     * @deprecated use {@link GeometryStatistics}, which can also be computed
+     *      in parallel with FeatureStatistics#geometryStatistics
+     */
+    @Deprecated
+    public class LayerStatistics {
+        Statistics vertexCounts = new Statistics();
+        Statistics holeCounts = new Statistics();
+        Statistics componentCounts = new Statistics();
+        Statistics areas = new Statistics();
+        Statistics lengths = new Statistics();
 
-            isFirst = false;
+        public void addFeature(int coordCount, int holeCount, int compCount,
+            double area, double length) {
+            vertexCounts.add(coordCount);
+            holeCounts.add(holeCount);
+            componentCounts.add(compCount);
+            areas.add(area);
+            lengths.add(length);
         }
 
         public double avgCoord() {
-            return (featureCount == 0) ? 0.0 : (totalCoord / featureCount);
+            return vertexCounts.getMean();
         }
 
         public double avgHoles() {
-            return (featureCount == 0) ? 0.0 : (totalHoles / featureCount);
+            return holeCounts.getMean();
         }
 
         public double avgComp() {
-            return (featureCount == 0) ? 0.0 : (totalComp / featureCount);
+            return componentCounts.getMean();
         }
 
         public double avgArea() {
-            return (featureCount == 0) ? 0.0 : (totalArea / featureCount);
+            return areas.getMean();
         }
 
         public double avgLength() {
-            return (featureCount == 0) ? 0.0 : (totalLength / featureCount);
+            return lengths.getMean();
         }
     }
 }
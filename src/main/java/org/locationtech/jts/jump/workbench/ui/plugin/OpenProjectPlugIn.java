@@ -44,6 +44,7 @@ import org.locationtech.jts.jump.workbench.plugin.PlugInContext;
 import org.locationtech.jts.jump.workbench.plugin.ThreadedBasePlugIn;
 import org.locationtech.jts.jump.coordsys.CoordinateSystemRegistry;
 import org.locationtech.jts.jump.feature.FeatureCollection;
+import org.locationtech.jts.jump.feature.IndexedFeatureDataset;
 import org.locationtech.jts.jump.io.datasource.Connection;
 import org.locationtech.jts.jump.io.datasource.DataSource;
 import org.locationtech.jts.jump.task.TaskMonitor;
@@ -157,7 +158,7 @@ public class OpenProjectPlugIn extends ThreadedBasePlugIn {
         throws Exception {
         Connection connection = dataSource.getConnection();
         try {
-            return dataSource.installCoordinateSystem(connection.executeQuery(query, monitor), registry);
+            return IndexedFeatureDataset.index(dataSource.installCoordinateSystem(connection.executeQuery(query, monitor), registry));
         } finally {
             connection.close();
         }
@@ -33,6 +33,7 @@
 
 package org.locationtech.jts.jump.workbench.ui.plugin;
 
+import org.locationtech.jts.jump.workbench.model.Layer;
 import org.locationtech.jts.jump.workbench.model.Layerable;
 import org.locationtech.jts.jump.workbench.plugin.AbstractPlugIn;
 import org.locationtech.jts.jump.workbench.plugin.EnableCheckFactory;
@@ -55,6 +56,12 @@ public class RemoveSelectedLayersPlugIn extends AbstractPlugIn {
     public void remove(Layerable[] selectedLayers) {
         for (int i = 0; i < selectedLayers.length; i++) {
             selectedLayers[i].getLayerManager().remove(selectedLayers[i]);
+
+            //Removing a layer cannot be undone, so release its data now rather
+            //than when the task frame is closed
+            if (selectedLayers[i] instanceof Layer) {
+                ((Layer) selectedLayers[i]).dispose();
+            }
         }
 
         //Don't call LayerManager#setFiringEvents and
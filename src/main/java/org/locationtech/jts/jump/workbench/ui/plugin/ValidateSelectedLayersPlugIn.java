@@ -125,7 +125,9 @@ public class ValidateSelectedLayersPlugIn extends AbstractPlugIn
     private void initFeatureSchema() {
         schema = new FeatureSchema();
         schema.addAttribute(ERROR, AttributeType.STRING);
-        schema.addAttribute(SOURCE_FID, AttributeType.INTEGER);
+        //Feature IDs are 64-bit, and handed out in blocks, so they can outgrow
+        //an INTEGER column long before 2^31 features exist
+        schema.addAttribute(SOURCE_FID, AttributeType.OBJECT);
         schema.addAttribute(GEOMETRY, AttributeType.GEOMETRY);
     }
 
@@ -264,8 +266,7 @@ public class ValidateSelectedLayersPlugIn extends AbstractPlugIn
     private Feature toFeature(ValidationError error, Layer sourceLayer,
         Geometry geometry) {
         Feature ringFeature = new BasicFeature(schema);
-        ringFeature.setAttribute(SOURCE_FID,
-            new Integer(error.getFeature().getID()));
+        ringFeature.setAttribute(SOURCE_FID, new Long(error.getFeature().getID()));
         ringFeature.setAttribute(ERROR, error.getMessage());
         ringFeature.setGeometry(geometry);
 
@@ -65,6 +65,12 @@ public abstract class FeatureCollectionRenderer implements Renderer {
         return count;
     }
 
+    /**
+     * Returns the features to paint for each layer. The features are painted
+     * in a background thread, so the collections must not be modified
+     * afterwards: return new collections (such as query results), or
+     * snapshots (see FeatureCollectionWrapper#snapshot).
+     */
     protected abstract Map layerToFeaturesMap();
 
     protected abstract Collection styles();
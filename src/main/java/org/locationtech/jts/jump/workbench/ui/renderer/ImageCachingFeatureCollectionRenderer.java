@@ -42,8 +42,10 @@ public class ImageCachingFeatureCollectionRenderer
             return;
         }
         style.initialize(layer);
-        //new ArrayList to avoid ConcurrentModificationException. [Jon Aquino]
-        for (Iterator i = new ArrayList(features).iterator(); i.hasNext();) {
+        //No copy is needed to avoid a ConcurrentModificationException: the
+        //collections from FeatureCollectionRenderer#layerToFeaturesMap are
+        //not modified while they are painted
+        for (Iterator i = features.iterator(); i.hasNext();) {
             final Feature feature = (Feature) i.next();
             if (cancelled) {
                 break;
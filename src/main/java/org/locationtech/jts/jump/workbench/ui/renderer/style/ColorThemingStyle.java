@@ -39,6 +39,7 @@ import java.util.Map;
 
 import org.locationtech.jts.jump.workbench.model.Layer;
 import org.locationtech.jts.util.Assert;
+import org.locationtech.jts.jump.feature.AttributeAccessor;
 import org.locationtech.jts.jump.feature.Feature;
 import org.locationtech.jts.jump.feature.FeatureSchema;
 import org.locationtech.jts.jump.workbench.ui.GUIUtil;
@@ -102,13 +103,14 @@ public class ColorThemingStyle implements Style {
         //Attribute name will be null if a layer has only a spatial attribute. [Jon Aquino]
         //If we can't find an attribute with this name, just use the
         //defaultStyle. The attribute may have been deleted. [Jon Aquino]
+        Object attribute =
+            attributeAccessor != null && attributeAccessor.hasAttribute(feature)
+                ? attributeAccessor.getAttribute(feature)
+                : null;
         BasicStyle style =
-            attributeName != null
-                && feature.getSchema().hasAttribute(attributeName)
-                && feature.getAttribute(attributeName) != null
-                    ? (BasicStyle) attributeValueToBasicStyleMap.get(
-                        trimIfString(feature.getAttribute(attributeName)))
-                    : defaultStyle;
+            attribute != null
+                ? (BasicStyle) attributeValueToBasicStyleMap.get(trimIfString(attribute))
+                : defaultStyle;
         return style == null ? defaultStyle : style;
     }
 
@@ -122,6 +124,9 @@ public class ColorThemingStyle implements Style {
 
     private String attributeName;
 
+    //Looks up the attribute index once per schema rather than per Feature
+    private AttributeAccessor attributeAccessor;
+
     public Object clone() {
         try {
             ColorThemingStyle clone = (ColorThemingStyle) super.clone();
@@ -170,6 +175,7 @@ public class ColorThemingStyle implements Style {
 
     public void setAttributeName(String attributeName) {
         this.attributeName = attributeName;
+        this.attributeAccessor = attributeName == null ? null : new AttributeAccessor(attributeName);
     }
 
     public Map getAttributeValueToBasicStyleMap() {
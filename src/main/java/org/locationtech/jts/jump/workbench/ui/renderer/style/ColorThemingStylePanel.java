@@ -37,6 +37,7 @@ import org.locationtech.jts.jump.workbench.plugin.AbstractPlugIn;
 import org.locationtech.jts.jump.workbench.plugin.EnableCheck;
 import org.locationtech.jts.jump.workbench.plugin.MultiEnableCheck;
 import org.locationtech.jts.jump.workbench.plugin.PlugInContext;
+import org.locationtech.jts.jump.feature.AttributeAccessor;
 import org.locationtech.jts.jump.feature.Feature;
 import org.locationtech.jts.jump.util.CollectionUtil;
 import org.locationtech.jts.jump.util.Range;
@@ -789,13 +790,15 @@ public class ColorThemingStylePanel extends JPanel implements StylePanel {
 
     private SortedSet getNonNullAttributeValues() {
         TreeSet values = new TreeSet();
+        AttributeAccessor accessor = new AttributeAccessor(getAttributeName());
 
         for (Iterator i = layer.getFeatureCollectionWrapper().getFeatures()
                                .iterator(); i.hasNext();) {
             Feature feature = (Feature) i.next();
+            Object value = accessor.getAttribute(feature);
 
-            if (feature.getAttribute(getAttributeName()) != null) {
-                values.add(ColorThemingStyle.trimIfString(feature.getAttribute(getAttributeName())));
+            if (value != null) {
+                values.add(ColorThemingStyle.trimIfString(value));
             }
         }
 
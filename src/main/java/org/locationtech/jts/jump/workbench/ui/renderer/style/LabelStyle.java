@@ -43,6 +43,7 @@ import org.locationtech.jts.geom.*;
 import org.locationtech.jts.index.quadtree.Quadtree;
 import org.locationtech.jts.jump.workbench.model.Layer;
 import org.locationtech.jts.util.Assert;
+import org.locationtech.jts.jump.feature.AttributeAccessor;
 import org.locationtech.jts.jump.feature.Feature;
 import org.locationtech.jts.jump.geom.Angle;
 import org.locationtech.jts.jump.geom.CoordUtil;
@@ -66,6 +67,10 @@ public class LabelStyle implements Style {
     private String attribute = LabelStyle.FID_COLUMN;
     private String angleAttribute = ""; //"" means no angle attribute [Jon Aquino]
     private String heightAttribute = ""; //"" means no height attribute [Jon Aquino]
+    //Look up the attribute indexes once per schema rather than per Feature
+    private AttributeAccessor attributeAccessor = new AttributeAccessor(attribute);
+    private AttributeAccessor angleAttributeAccessor = new AttributeAccessor(angleAttribute);
+    private AttributeAccessor heightAttributeAccessor = new AttributeAccessor(heightAttribute);
     private boolean enabled = false;
     private Color color = Color.black;
     private Font font = new Font("Dialog", Font.PLAIN, FONT_BASE_SIZE);
@@ -85,7 +90,7 @@ public class LabelStyle implements Style {
         Object attribute =
             getAttribute().equals(LabelStyle.FID_COLUMN)
                 ? (f.getID() + "")
-                : f.getAttribute(getAttribute());
+                : attributeAccessor.getAttribute(f);
         if ((attribute == null) || (attribute.toString().length() == 0)) {
             return;
         }
@@ -101,18 +106,24 @@ public class LabelStyle implements Style {
             attribute.toString(),
             viewport.getScale(),
             labelCentreInViewSpace,
-            angle(f, getAngleAttribute(), spec.angle),
-            height(f, getHeightAttribute(), getHeight()),
+            angle(f, angleAttributeAccessor, spec.angle),
+            height(f, heightAttributeAccessor, getHeight()),
             spec.linear);
     }
     public static double angle(
         Feature feature,
         String angleAttributeName,
         double defaultAngle) {
-        if (angleAttributeName.equals("")) {
+        return angle(feature, new AttributeAccessor(angleAttributeName), defaultAngle);
+    }
+    private static double angle(
+        Feature feature,
+        AttributeAccessor angleAttributeAccessor,
+        double defaultAngle) {
+        if (angleAttributeAccessor.getAttributeName().equals("")) {
             return defaultAngle;
         }
-        Object angleAttribute = feature.getAttribute(angleAttributeName);
+        Object angleAttribute = angleAttributeAccessor.getAttribute(feature);
         if (angleAttribute == null) {
             return defaultAngle;
         }
@@ -168,10 +179,16 @@ public class LabelStyle implements Style {
         Feature feature,
         String heightAttributeName,
         double defaultHeight) {
-        if (heightAttributeName.equals("")) {
+        return height(feature, new AttributeAccessor(heightAttributeName), defaultHeight);
+    }
+    private static double height(
+        Feature feature,
+        AttributeAccessor heightAttributeAccessor,
+        double defaultHeight) {
+        if (heightAttributeAccessor.getAttributeName().equals("")) {
             return defaultHeight;
         }
-        Object heightAttribute = feature.getAttribute(heightAttributeName);
+        Object heightAttribute = heightAttributeAccessor.getAttribute(feature);
         if (heightAttribute == null) {
             return defaultHeight;
         }
@@ -353,12 +370,15 @@ public class LabelStyle implements Style {
     }
     public void setAttribute(String attribute) {
         this.attribute = attribute;
+        this.attributeAccessor = new AttributeAccessor(attribute);
     }
     public void setAngleAttribute(String angleAttribute) {
         this.angleAttribute = angleAttribute;
+        this.angleAttributeAccessor = new AttributeAccessor(angleAttribute);
     }
     public void setHeightAttribute(String heightAttribute) {
         this.heightAttribute = heightAttribute;
+        this.heightAttributeAccessor = new AttributeAccessor(heightAttribute);
     }
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
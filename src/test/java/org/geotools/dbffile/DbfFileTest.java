@@ -0,0 +1,284 @@
+package org.geotools.dbffile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Checks that parsing a column straight from the mapped file
+ * (ParseRecordColumn(row, col)) gives the same values as parsing the record
+ * read by GetDbfRec, including for malformed numbers, and that text is
+ * decoded with the charset of the file.
+ */
+public class DbfFileTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // name, type, length, decimals
+    private static final Object[][] FIELDS = new Object[][] {
+        { "NAME", "C", new Integer(10), new Integer(0) },
+        { "COUNT", "N", new Integer(8), new Integer(0) },
+        { "AMOUNT", "N", new Integer(10), new Integer(3) },
+        { "RATIO", "F", new Integer(12), new Integer(4) },
+        { "DAY", "D", new Integer(8), new Integer(0) }
+    };
+
+    private static final String[][] ODD_ROWS = new String[][] {
+        { "Alpha", "42", "3.250", "1.5", "20240131" },
+        { "", "", "", "", "" },
+        { "  padded", "-17", "-0.125", "1e5", "00000000" },
+        { "x", "+5", "********", "  -.5", "19991231" },
+        { "y", "99999999", "12345.678", "1.23456789", "" },
+        { "z", "abc", "5.", ".5", "" },
+        { "1 2", "1 2", "-", "+", "" },
+        { "w", "-0", "0.1", "NaN", "" },
+        { "v", "  7  ", "1.2.3", "9999999.9999", "" }
+    };
+
+    @Test
+    public void testOddValues() throws Exception {
+        DbfFile dbf = new DbfFile(writeDbf(ODD_ROWS).getPath());
+
+        try {
+            assertSameValues(dbf);
+            assertEquals(new Integer(42), dbf.ParseRecordColumn(0, 1));
+            assertEquals(new Integer(0), dbf.ParseRecordColumn(5, 1));
+            assertEquals(new Double(Double.NaN), dbf.ParseRecordColumn(3, 2));
+            assertEquals(new Double(-0.5), dbf.ParseRecordColumn(3, 3));
+            assertNull(dbf.ParseRecordColumn(1, 4));
+        } finally {
+            dbf.close();
+        }
+    }
+
+    @Test
+    public void testRandomNumbers() throws Exception {
+        Random random = new Random(3);
+        String[][] rows = new String[2000][];
+
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new String[] {
+                    "row " + i, "" + (random.nextInt(20000000) - 10000000),
+                    format(random.nextDouble() * 200000 - 100000, random.nextInt(4)),
+                    format(random.nextDouble() * 20000 - 10000, random.nextInt(7)),
+                    "20" + (10 + random.nextInt(20)) + "0" + (1 + random.nextInt(9)) + "1" +
+                    random.nextInt(10)
+                };
+        }
+
+        DbfFile dbf = new DbfFile(writeDbf(rows).getPath());
+
+        try {
+            assertSameValues(dbf);
+        } finally {
+            dbf.close();
+        }
+    }
+
+    @Test
+    public void testDatesOnSeveralThreads() throws Exception {
+        Random random = new Random(7);
+        String[][] rows = new String[5000][];
+
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = new String[] {
+                    "row " + i, "" + i, "0", "0",
+                    "" + (1900 + random.nextInt(200)) + format2(1 + random.nextInt(12)) +
+                    format2(1 + random.nextInt(28))
+                };
+        }
+
+        final DbfFile dbf = new DbfFile(writeDbf(rows).getPath());
+
+        try {
+            final Object[] expected = new Object[rows.length];
+
+            for (int i = 0; i < rows.length; i++) {
+                expected[i] = dbf.ParseRecordColumn(i, 4);
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            List results = new ArrayList();
+
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(new Callable() {
+                        public Object call() throws Exception {
+                            for (int i = 0; i < expected.length; i++) {
+                                assertEquals("row " + i, expected[i], dbf.ParseRecordColumn(i, 4));
+                            }
+
+                            return null;
+                        }
+                    }));
+            }
+
+            try {
+                for (int t = 0; t < results.size(); t++) {
+                    ((Future) results.get(t)).get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+        } finally {
+            dbf.close();
+        }
+    }
+
+    private static String format2(int i) {
+        return (i < 10) ? ("0" + i) : ("" + i);
+    }
+
+    private static String format(double d, int decimals) {
+        return new java.math.BigDecimal(d).setScale(decimals, java.math.BigDecimal.ROUND_HALF_UP)
+                                          .toPlainString();
+    }
+
+    /**
+     * Reads every column of every row in a random order (which moves the
+     * sequential reader of GetDbfRec around) and in file order.
+     */
+    private void assertSameValues(DbfFile dbf) throws Exception {
+        int rows = dbf.getLastRec();
+        int[] order = new int[2 * rows];
+        Random random = new Random(5);
+
+        for (int i = 0; i < rows; i++) {
+            order[i] = random.nextInt(rows);
+            order[rows + i] = i;
+        }
+
+        for (int i = 0; i < order.length; i++) {
+            StringBuffer record = dbf.GetDbfRec(order[i]);
+
+            for (int col = 0; col < dbf.getNumFields(); col++) {
+                assertEquals("row " + order[i] + " column " + col,
+                    dbf.ParseRecordColumn(record, col), dbf.ParseRecordColumn(order[i], col));
+            }
+        }
+    }
+
+    @Test
+    public void testCharset() throws Exception {
+        String[] names = new String[] { "Zoë", "Straße", "€ 5", "plain" };
+        Charset[] charsets = new Charset[] {
+                Charset.forName("UTF-8"), Charset.forName("ISO-8859-15")
+            };
+
+        for (int c = 0; c < charsets.length; c++) {
+            File file = new File(folder.getRoot(), "text" + c + ".dbf");
+            DbfFileWriter writer = new DbfFileWriter(file.getPath());
+            writer.setCharset(charsets[c]);
+            writer.writeHeader(new DbfFieldDef[] { new DbfFieldDef("NAME", 'C', 10, 0) },
+                names.length);
+
+            for (int i = 0; i < names.length; i++) {
+                Vector row = new Vector();
+                row.add(names[i]);
+                writer.writeRecord(row);
+            }
+
+            writer.close();
+
+            DbfFile dbf = new DbfFile(file.getPath());
+
+            try {
+                dbf.setCharset(charsets[c]);
+
+                for (int i = 0; i < names.length; i++) {
+                    assertEquals(names[i], ((String) dbf.ParseRecordColumn(i, 0)).trim());
+                }
+            } finally {
+                dbf.close();
+            }
+        }
+    }
+
+    /**
+     * Writes a .dbf file with the FIELDS and the given text of each value,
+     * numbers right aligned and text left aligned, as dBase does.
+     */
+    private File writeDbf(String[][] rows) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int recordLength = 1;
+
+        for (int i = 0; i < FIELDS.length; i++) {
+            recordLength += ((Integer) FIELDS[i][2]).intValue();
+        }
+
+        bytes.write(3);
+        bytes.write(new byte[] { 124, 1, 1 });
+        writeLE(bytes, rows.length, 4);
+        writeLE(bytes, 32 + (32 * FIELDS.length) + 1, 2);
+        writeLE(bytes, recordLength, 2);
+        bytes.write(new byte[20]);
+
+        for (int i = 0; i < FIELDS.length; i++) {
+            byte[] name = new byte[11];
+            byte[] text = ((String) FIELDS[i][0]).getBytes("US-ASCII");
+            System.arraycopy(text, 0, name, 0, text.length);
+            bytes.write(name);
+            bytes.write(((String) FIELDS[i][1]).charAt(0));
+            bytes.write(new byte[4]);
+            bytes.write(((Integer) FIELDS[i][2]).intValue());
+            bytes.write(((Integer) FIELDS[i][3]).intValue());
+            bytes.write(new byte[14]);
+        }
+
+        bytes.write(0x0d);
+
+        for (int r = 0; r < rows.length; r++) {
+            bytes.write(' ');
+
+            for (int i = 0; i < FIELDS.length; i++) {
+                int length = ((Integer) FIELDS[i][2]).intValue();
+                StringBuffer value = new StringBuffer(rows[r][i]);
+                boolean text = FIELDS[i][1].equals("C") || FIELDS[i][1].equals("D");
+
+                while (value.length() < length) {
+                    if (text) {
+                        value.append(' ');
+                    } else {
+                        value.insert(0, ' ');
+                    }
+                }
+
+                bytes.write(value.toString().getBytes("US-ASCII"));
+            }
+        }
+
+        bytes.write(0x1a);
+
+        File file = folder.newFile();
+        FileOutputStream out = new FileOutputStream(file);
+
+        try {
+            bytes.writeTo(out);
+        } finally {
+            out.close();
+        }
+
+        return file;
+    }
+
+    private static void writeLE(ByteArrayOutputStream bytes, int value, int length) {
+        for (int i = 0; i < length; i++) {
+            bytes.write((value >> (8 * i)) & 0xff);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.geotools.shapefile;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.jump.feature.SampleFeatures;
+import org.locationtech.jts.jump.io.DriverProperties;
+import org.locationtech.jts.jump.io.ShapefileWriter;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Checks that a query through the packed R-tree in the .rtx file finds the
+ * same records as testing the bounds of every record.
+ */
+public class ShapefileIndexTest {
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static File polygons;
+    private static File points;
+
+    @BeforeClass
+    public static void writeShapefiles() throws Exception {
+        polygons = new File(folder.getRoot(), "polygons.shp");
+        new ShapefileWriter().write(SampleFeatures.createPolygons(5000, 2),
+            new DriverProperties(polygons.getPath()));
+        points = new File(folder.getRoot(), "points.shp");
+        new ShapefileWriter().write(SampleFeatures.createPoints(3000, 2),
+            new DriverProperties(points.getPath()));
+    }
+
+    @Test
+    public void testQueryMatchesFullScan() throws Exception {
+        File[] files = new File[] { polygons, points };
+        int[] capacities = new int[] { 2, 3, 16, 100 };
+
+        for (int f = 0; f < files.length; f++) {
+            for (int c = 0; c < capacities.length; c++) {
+                MappedShapefile shapefile = new MappedShapefile(files[f]);
+
+                try {
+                    ShapefileIndex.write(shapefile, capacities[c]);
+
+                    ShapefileIndex index = ShapefileIndex.open(shapefile);
+                    assertNotNull(index);
+
+                    try {
+                        assertSameRecords(shapefile, index);
+                    } finally {
+                        index.close();
+                    }
+                } finally {
+                    shapefile.close();
+                }
+            }
+        }
+    }
+
+    private void assertSameRecords(MappedShapefile shapefile, ShapefileIndex index)
+        throws Exception {
+        Random random = new Random(4);
+
+        for (int i = 0; i < 300; i++) {
+            double x = (random.nextDouble() * 1200) - 100;
+            double y = (random.nextDouble() * 1200) - 100;
+            double size = (i % 10 == 0) ? 0 : (random.nextDouble() * random.nextDouble() * 500);
+            Envelope envelope = new Envelope(x, x + size, y, y + size);
+            assertTrue(envelope.toString(),
+                Arrays.equals(scan(shapefile, envelope), index.query(envelope)));
+        }
+
+        Envelope all = new Envelope(-1, 1001, -1, 1001);
+        assertEquals(shapefile.getNumRecords(), index.query(all).length);
+        assertEquals(0, index.query(new Envelope(2000, 3000, 2000, 3000)).length);
+    }
+
+    private static int[] scan(MappedShapefile shapefile, Envelope envelope)
+        throws Exception {
+        int[] records = new int[shapefile.getNumRecords()];
+        int count = 0;
+
+        for (int i = 0; i < shapefile.getNumRecords(); i++) {
+            if (shapefile.intersects(i, envelope)) {
+                records[count++] = i;
+            }
+        }
+
+        int[] result = new int[count];
+        System.arraycopy(records, 0, result, 0, count);
+
+        return result;
+    }
+
+    @Test
+    public void testMappedShapefileUsesIndex() throws Exception {
+        MappedShapefile shapefile = new MappedShapefile(polygons);
+
+        try {
+            ShapefileIndex.write(shapefile);
+        } finally {
+            shapefile.close();
+        }
+
+        MappedShapefile indexed = new MappedShapefile(polygons);
+
+        try {
+            Envelope envelope = new Envelope(200, 450, 100, 300);
+            assertTrue(Arrays.equals(scan(indexed, envelope), indexed.query(envelope)));
+        } finally {
+            indexed.close();
+        }
+    }
+
+    @Test
+    public void testOutOfDateIndexIsIgnored() throws Exception {
+        MappedShapefile shapefile = new MappedShapefile(points);
+
+        try {
+            ShapefileIndex.write(shapefile);
+            assertTrue(ShapefileIndex.getIndexFile(points).setLastModified(
+                    points.lastModified() - 10000));
+            assertNull(ShapefileIndex.open(shapefile));
+        } finally {
+            shapefile.close();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.feature;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import static org.junit.Assert.*;
+
+public class AbstractBasicFeatureTest {
+
+    @Test
+    public void testSerializationKeepsID() throws Exception {
+        FeatureSchema schema = SampleFeatures.createSchema();
+        BasicFeature feature = (BasicFeature) SampleFeatures.createPoints(1, 3).iterator().next();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(feature);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        Feature copy = (Feature) in.readObject();
+
+        assertEquals(feature.getID(), copy.getID());
+        assertEquals(schema.getAttributeCount(), copy.getSchema().getAttributeCount());
+        SampleFeatures.assertSameFeature(feature, copy);
+    }
+
+    /**
+     * int-id-feature.ser was written before the ID became a long.
+     */
+    @Test
+    public void testReadIntID() throws Exception {
+        InputStream stream = getClass().getResourceAsStream("int-id-feature.ser");
+        ObjectInputStream in = new ObjectInputStream(stream);
+        Feature feature = (Feature) in.readObject();
+        in.close();
+
+        assertEquals(42, feature.getID());
+        assertEquals("old", feature.getAttribute("NAME"));
+        assertTrue(feature.getGeometry().equalsExact(
+                new GeometryFactory().createPoint(new Coordinate(1, 2))));
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.feature;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.WKTReader;
+
+import static org.junit.Assert.*;
+
+public class ColumnarFeatureCollectionTest {
+
+    private static final String[] WKT = {
+        "POINT (1 2)",
+        "POINT Z (1 2 3)",
+        "POINT EMPTY",
+        "LINESTRING (0 0, 10 10, 20 0)",
+        "LINESTRING Z (0 0 1, 10 10 2)",
+        "LINEARRING (0 0, 10 0, 10 10, 0 0)",
+        "POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0), (2 2, 4 2, 4 4, 2 2))",
+        "POLYGON EMPTY",
+        "MULTIPOINT ((1 1), (2 2))",
+        "MULTILINESTRING ((0 0, 1 1), (2 2, 3 3))",
+        "MULTIPOLYGON (((0 0, 1 0, 1 1, 0 0)), ((5 5, 6 5, 6 6, 5 5)))",
+        "GEOMETRYCOLLECTION (POINT (1 1), LINESTRING (0 0, 1 1), GEOMETRYCOLLECTION (POINT (3 3)))",
+        "GEOMETRYCOLLECTION EMPTY"
+    };
+
+    @Test
+    public void testRoundTrip() {
+        FeatureDataset polygons = SampleFeatures.createPolygons(500, 3);
+        ColumnarFeatureCollection columnar = new ColumnarFeatureCollection(polygons);
+        SampleFeatures.assertSameFeatures(polygons, columnar);
+
+        for (int row = 0; row < columnar.size(); row++) {
+            Feature feature = polygons.getFeature(row);
+            assertEquals(feature.getInteger(2), columnar.getInteger(row, 2));
+            assertEquals(feature.getDouble(3), columnar.getDouble(row, 3), 0);
+            assertFalse(columnar.isNull(row, 2));
+        }
+
+        assertEquals(polygons.getEnvelope(), columnar.getEnvelope());
+    }
+
+    @Test
+    public void testGeometryTypes() throws Exception {
+        FeatureSchema schema = new FeatureSchema();
+        schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+
+        FeatureDataset features = new FeatureDataset(schema);
+
+        for (int i = 0; i < WKT.length; i++) {
+            Feature feature = new BasicFeature(schema);
+            feature.setGeometry(new WKTReader().read(WKT[i]));
+            features.add(feature);
+        }
+
+        ColumnarFeatureCollection columnar = new ColumnarFeatureCollection(features);
+
+        for (int i = 0; i < WKT.length; i++) {
+            Geometry expected = features.getFeature(i).getGeometry();
+            Geometry actual = columnar.getGeometry(i);
+            assertEquals(WKT[i], expected.getGeometryType(), actual.getGeometryType());
+            assertTrue(WKT[i] + " became " + actual, expected.equalsExact(actual));
+            assertEquals(WKT[i], expected.getCoordinate() == null ? Double.NaN
+                : expected.getCoordinate().getZ(),
+                actual.getCoordinate() == null ? Double.NaN : actual.getCoordinate().getZ(), 0);
+        }
+    }
+
+    @Test
+    public void testNullsAndMismatches() {
+        FeatureSchema schema = SampleFeatures.createSchema();
+        schema.addAttribute("DAY", AttributeType.DATE);
+        schema.addAttribute("OTHER", AttributeType.OBJECT);
+
+        Object[][] rows = {
+            { null, null, null, null, null, null },
+            { null, "a", new Integer(1), new Double(1.5), new Date(86400000L), "x" },
+            { null, new Integer(4), "not a number", new Integer(3), "yesterday", new Double(2) },
+            { null, "a", new Integer(Integer.MIN_VALUE), new Double(Double.NaN), new Date(0), null }
+        };
+
+        ColumnarFeatureCollection columnar = new ColumnarFeatureCollection(schema);
+
+        for (int i = 0; i < rows.length; i++) {
+            Feature feature = new BasicFeature(schema);
+            feature.setAttributes(rows[i]);
+            columnar.add(feature);
+        }
+
+        for (int i = 0; i < rows.length; i++) {
+            assertArrayEquals(rows[i], columnar.getFeature(i).getAttributes());
+
+            for (int j = 1; j < rows[i].length; j++) {
+                assertEquals(rows[i][j], columnar.getAttribute(i, j));
+                assertEquals(rows[i][j] == null, columnar.isNull(i, j));
+            }
+        }
+
+        assertTrue(columnar.getEnvelope().isNull());
+    }
+
+    @Test
+    public void testFailedAddLeavesNoMismatches() throws Exception {
+        FeatureSchema schema = new FeatureSchema();
+        schema.addAttribute("COUNT", AttributeType.INTEGER);
+        schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+
+        ColumnarFeatureCollection columnar = new ColumnarFeatureCollection(schema);
+
+        //The COUNT mismatches, then the geometry cannot be written
+        Feature broken = new BasicFeature(schema);
+        broken.setAttributes(new Object[] { "not a number", "not a geometry" });
+
+        try {
+            columnar.add(broken);
+            fail();
+        } catch (ClassCastException e) {
+        }
+
+        Feature feature = new BasicFeature(schema);
+        feature.setAttributes(new Object[] {
+                new Integer(5), new WKTReader().read("POINT (1 2)")
+            });
+        columnar.add(feature);
+
+        assertEquals(1, columnar.size());
+        assertEquals(new Integer(5), columnar.getAttribute(0, 0));
+        assertEquals(5, columnar.getInteger(0, 0));
+        assertFalse(columnar.isNull(0, 0));
+    }
+
+    @Test
+    public void testQuery() {
+        FeatureDataset points = SampleFeatures.createPoints(1000, 8);
+        ColumnarFeatureCollection columnar = new ColumnarFeatureCollection(points);
+        Random random = new Random(1);
+
+        for (int i = 0; i < 50; i++) {
+            double x = random.nextDouble() * 1000;
+            double y = random.nextDouble() * 1000;
+            Envelope envelope = new Envelope(x, x + (random.nextDouble() * 200), y,
+                    y + (random.nextDouble() * 200));
+            SampleFeatures.assertSameFeatures(points.query(envelope), columnar.query(envelope));
+        }
+    }
+
+    @Test
+    public void testRowsKeepTheirID() {
+        FeatureDataset points = SampleFeatures.createPoints(10000, 4);
+        ColumnarFeatureCollection columnar = new ColumnarFeatureCollection(points);
+        HashSet ids = new HashSet();
+
+        for (int row = 0; row < columnar.size(); row++) {
+            Feature feature = columnar.getFeature(row);
+            assertEquals(columnar.getID(row), feature.getID());
+            assertEquals(feature, columnar.getFeature(row));
+            assertEquals(feature.hashCode(), columnar.getFeature(row).hashCode());
+            assertTrue(ids.add(new Long(feature.getID())));
+        }
+
+        assertFalse(columnar.getFeature(0).equals(new ColumnarFeatureCollection(points).getFeature(0)));
+    }
+
+    @Test
+    public void testReadOnly() {
+        ColumnarFeatureCollection columnar = new ColumnarFeatureCollection(SampleFeatures.createPoints(3, 1));
+        Feature feature = columnar.getFeature(0);
+
+        try {
+            feature.setAttribute(1, "changed");
+            fail();
+        } catch (UnsupportedOperationException e) {
+        }
+
+        try {
+            columnar.remove(feature);
+            fail();
+        } catch (UnsupportedOperationException e) {
+        }
+
+        Feature clone = (Feature) feature.clone();
+        clone.setAttribute(1, "changed");
+        assertEquals("changed", clone.getAttribute(1));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        ColumnarFeatureCollection columnar = new ColumnarFeatureCollection(SampleFeatures.createPolygons(100, 6));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(columnar);
+        out.close();
+
+        ColumnarFeatureCollection copy = (ColumnarFeatureCollection) new ObjectInputStream(
+                new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        SampleFeatures.assertSameFeatures(columnar, copy);
+        assertEquals(columnar.getID(99), copy.getID(99));
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.feature;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Iterator;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CompactFeatureTest {
+
+    @Test
+    public void testRoundTrip() {
+        FeatureDataset features = SampleFeatures.createPolygons(300, 5);
+        CompactFeatureFactory factory = new CompactFeatureFactory(features.getFeatureSchema());
+
+        for (Iterator i = features.iterator(); i.hasNext();) {
+            Feature feature = (Feature) i.next();
+            CompactFeature compact = factory.createFeature();
+            compact.setAttributes(feature.getAttributes());
+            SampleFeatures.assertSameFeature(feature, compact);
+            assertEquals(feature.getInteger(2), compact.getInteger(2));
+            assertEquals(feature.getDouble(3), compact.getDouble(3), 0);
+        }
+
+        //There are only 10 names and 10 suffixes in the sample
+        assertTrue(factory.getDictionarySize() <= 100);
+    }
+
+    @Test
+    public void testNullsAndMismatches() {
+        CompactFeature feature = new CompactFeatureFactory(SampleFeatures.createSchema()).createFeature();
+
+        for (int i = 0; i < 4; i++) {
+            assertNull(feature.getAttribute(i));
+        }
+
+        feature.setAttribute("COUNT", "not a number");
+        feature.setAttribute("VALUE", new Integer(3));
+        feature.setAttribute("NAME", new Double(1.5));
+        assertEquals("not a number", feature.getAttribute("COUNT"));
+        assertEquals(new Integer(3), feature.getAttribute("VALUE"));
+        assertEquals(new Double(1.5), feature.getAttribute("NAME"));
+
+        feature.setAttribute("COUNT", new Integer(-7));
+        feature.setAttribute("VALUE", new Double(-0.0));
+        assertEquals(new Integer(-7), feature.getAttribute("COUNT"));
+        assertEquals(new Double(-0.0), feature.getAttribute("VALUE"));
+
+        feature.setAttribute("COUNT", null);
+        feature.setAttribute("VALUE", null);
+        assertNull(feature.getAttribute("COUNT"));
+        assertNull(feature.getAttribute("VALUE"));
+    }
+
+    @Test
+    public void testManyNumericAttributes() {
+        FeatureSchema schema = new FeatureSchema();
+        schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+
+        for (int i = 0; i < 150; i++) {
+            schema.addAttribute("N" + i, ((i % 2) == 0) ? AttributeType.INTEGER : AttributeType.DOUBLE);
+        }
+
+        Random random = new Random(11);
+        Object[] attributes = new Object[schema.getAttributeCount()];
+
+        for (int i = 1; i < attributes.length; i++) {
+            if (random.nextInt(4) == 0) {
+                continue;
+            }
+
+            attributes[i] = (schema.getAttributeType(i) == AttributeType.INTEGER)
+                ? (Object) new Integer(random.nextInt()) : new Double(random.nextGaussian());
+        }
+
+        CompactFeature feature = new CompactFeatureFactory(schema).createFeature();
+        feature.setAttributes(attributes);
+        assertArrayEquals(attributes, feature.getAttributes());
+    }
+
+    @Test
+    public void testSetSchemaKeepsValues() {
+        FeatureSchema schema = SampleFeatures.createSchema();
+        CompactFeature feature = new CompactFeatureFactory(schema).createFeature();
+        Object[] attributes = ((Feature) SampleFeatures.createPoints(1, 2).iterator().next()).getAttributes();
+        feature.setAttributes(attributes);
+
+        FeatureSchema newSchema = new FeatureSchema();
+        newSchema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+        newSchema.addAttribute("NAME", AttributeType.STRING);
+        newSchema.addAttribute("COUNT", AttributeType.DOUBLE);
+        feature.setSchema(newSchema);
+
+        assertSame(newSchema, feature.getSchema());
+        assertSame(attributes[0], feature.getGeometry());
+        assertEquals(attributes[1], feature.getAttribute(1));
+        assertEquals(attributes[2], feature.getAttribute(2));
+        assertEquals(3, feature.getAttributes().length);
+    }
+
+    @Test
+    public void testSetSchemaSharesFactory() {
+        CompactFeatureFactory factory = new CompactFeatureFactory(SampleFeatures.createSchema());
+        CompactFeature a = factory.createFeature();
+        CompactFeature b = factory.createFeature();
+
+        FeatureSchema newSchema = new FeatureSchema();
+        newSchema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+        newSchema.addAttribute("STREET", AttributeType.STRING);
+        a.setSchema(newSchema);
+        b.setSchema(newSchema);
+        a.setAttribute(1, new String("Dorpsstraat"));
+        b.setAttribute(1, new String("Dorpsstraat"));
+
+        assertSame(a.getAttribute(1), b.getAttribute(1));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        FeatureDataset features = SampleFeatures.createPoints(20, 9);
+        CompactFeatureFactory factory = new CompactFeatureFactory(features.getFeatureSchema());
+        CompactFeature[] compact = new CompactFeature[features.size()];
+
+        for (int i = 0; i < compact.length; i++) {
+            compact[i] = factory.createFeature();
+            compact[i].setAttributes(features.getFeature(i).getAttributes());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(compact);
+        out.close();
+        CompactFeature[] copies = (CompactFeature[]) new ObjectInputStream(new ByteArrayInputStream(
+                    bytes.toByteArray())).readObject();
+
+        for (int i = 0; i < compact.length; i++) {
+            assertEquals(compact[i].getID(), copies[i].getID());
+            SampleFeatures.assertSameFeature(compact[i], copies[i]);
+        }
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.feature;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.jump.workbench.model.ObservableFeatureCollection;
+
+import static org.junit.Assert.*;
+
+public class FeatureDatasetTest {
+    private static final GeometryFactory factory = new GeometryFactory();
+
+    @Test
+    public void testEnvelopeWhileEditing() {
+        Random random = new Random(21);
+        FeatureSchema schema = SampleFeatures.createSchema();
+        FeatureDataset dataset = new FeatureDataset(schema);
+
+        for (int step = 0; step < 2000; step++) {
+            int action = random.nextInt(20);
+
+            if (action < 8) {
+                dataset.add(createPoint(schema, random));
+            } else if (action < 10) {
+                ArrayList added = new ArrayList();
+
+                for (int i = random.nextInt(5); i > 0; i--) {
+                    added.add(createPoint(schema, random));
+                }
+
+                dataset.addAll(added);
+            } else if ((action < 16) && !dataset.isEmpty()) {
+                dataset.remove(dataset.getFeature(random.nextInt(dataset.size())));
+            } else if ((action < 18) && !dataset.isEmpty()) {
+                ArrayList removed = new ArrayList();
+
+                for (int i = random.nextInt(5); i > 0; i--) {
+                    removed.add(dataset.getFeature(random.nextInt(dataset.size())));
+                }
+
+                dataset.removeAll(removed);
+            } else if (action == 18) {
+                int x = random.nextInt(10);
+                int y = random.nextInt(10);
+                dataset.remove(new Envelope(x, x + 2, y, y + 2));
+            } else if (random.nextInt(10) == 0) {
+                dataset.clear();
+            }
+
+            //Only look at the envelope now and then, so that it is updated
+            //over several changes
+            if (random.nextInt(3) == 0) {
+                assertEquals("step " + step, computeEnvelope(dataset), dataset.getEnvelope());
+            }
+        }
+    }
+
+    @Test
+    public void testBulkLoadFiresOneEventPerBatch() {
+        Random random = new Random(18);
+        FeatureSchema schema = SampleFeatures.createSchema();
+        FeatureDataset dataset = new FeatureDataset(schema);
+        ObservableFeatureCollection observable = new ObservableFeatureCollection(dataset);
+        final int[] events = new int[1];
+        observable.add(new ObservableFeatureCollection.Listener() {
+                public void featuresAdded(Collection features) {
+                    events[0]++;
+                }
+
+                public void featuresRemoved(Collection features) {
+                }
+            });
+
+        //The envelope is kept up to date while loading once it is cached
+        dataset.getEnvelope();
+
+        List expected = new ArrayList();
+
+        for (int batch = 0; batch < 3; batch++) {
+            List features = new ArrayList();
+
+            for (int i = 0; i < 5000; i++) {
+                features.add(createPoint(schema, random));
+            }
+
+            observable.addAll(features, 15000);
+            expected.addAll(features);
+        }
+
+        assertEquals(3, events[0]);
+        assertEquals(expected, dataset.getFeatures());
+        assertEquals(computeEnvelope(dataset), dataset.getEnvelope());
+    }
+
+    @Test
+    public void testEnvelopeAfterRemovingBoundaryFeatures() {
+        FeatureSchema schema = SampleFeatures.createSchema();
+        FeatureDataset dataset = new FeatureDataset(schema);
+        Feature a = createPoint(schema, 0, 0);
+        Feature b = createPoint(schema, 0, 5);
+        Feature c = createPoint(schema, 10, 10);
+        dataset.add(a);
+        dataset.add(b);
+        dataset.add(c);
+        assertEquals(new Envelope(0, 10, 0, 10), dataset.getEnvelope());
+
+        //a is not the only Feature at minx
+        dataset.remove(a);
+        assertEquals(new Envelope(0, 10, 5, 10), dataset.getEnvelope());
+
+        dataset.remove(c);
+        assertEquals(new Envelope(0, 0, 5, 5), dataset.getEnvelope());
+
+        dataset.clear();
+        assertTrue(dataset.getEnvelope().isNull());
+
+        dataset.add(c);
+        assertEquals(new Envelope(10, 10, 10, 10), dataset.getEnvelope());
+    }
+
+    @Test
+    public void testSnapshotsWhileEditing() {
+        checkSnapshotsWhileEditing(new FeatureDataset(SampleFeatures.createSchema()));
+    }
+
+    @Test
+    public void testIndexedSnapshotsWhileEditing() {
+        checkSnapshotsWhileEditing(new IndexedFeatureDataset(SampleFeatures.createSchema()));
+    }
+
+    private void checkSnapshotsWhileEditing(FeatureDataset dataset) {
+        Random random = new Random(22);
+        FeatureSchema schema = dataset.getFeatureSchema();
+        List live = dataset.getFeatures();
+        ArrayList snapshots = new ArrayList();
+        ArrayList copies = new ArrayList();
+
+        //Enough Features for several segments
+        for (int i = 0; i < 5000; i++) {
+            dataset.add(createPoint(schema, random));
+        }
+
+        for (int step = 0; step < 300; step++) {
+            int action = random.nextInt(10);
+
+            if (action < 3) {
+                for (int i = random.nextInt(600); i > 0; i--) {
+                    dataset.add(createPoint(schema, random));
+                }
+            } else if ((action < 7) && !dataset.isEmpty()) {
+                for (int i = random.nextInt(600); (i > 0) && !dataset.isEmpty(); i--) {
+                    dataset.remove(dataset.getFeature(random.nextInt(dataset.size())));
+                }
+            } else if ((action < 9) && !dataset.isEmpty()) {
+                ArrayList removed = new ArrayList();
+
+                for (int i = random.nextInt(50); i > 0; i--) {
+                    removed.add(dataset.getFeature(random.nextInt(dataset.size())));
+                }
+
+                dataset.removeAll(removed);
+            } else if (random.nextInt(5) == 0) {
+                dataset.clear();
+            }
+
+            List snapshot = dataset.snapshot();
+            assertSame(snapshot, dataset.snapshot());
+            assertEquals(new ArrayList(live), snapshot);
+            snapshots.add(snapshot);
+            copies.add(new ArrayList(snapshot));
+        }
+
+        for (int i = 0; i < snapshots.size(); i++) {
+            List snapshot = (List) snapshots.get(i);
+            List copy = (List) copies.get(i);
+            assertEquals(copy.size(), snapshot.size());
+
+            for (int j = 0; j < copy.size(); j++) {
+                assertSame(copy.get(j), snapshot.get(j));
+            }
+
+            assertEquals(copy, snapshot);
+        }
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        checkIteratorRemove(new FeatureDataset(SampleFeatures.createSchema()));
+        checkIteratorRemove(new IndexedFeatureDataset(SampleFeatures.createSchema()));
+    }
+
+    private void checkIteratorRemove(FeatureDataset dataset) {
+        Random random = new Random(24);
+        ArrayList expected = new ArrayList();
+
+        for (int i = 0; i < 3000; i++) {
+            dataset.add(createPoint(dataset.getFeatureSchema(), random));
+        }
+
+        dataset.getEnvelope();
+        expected.addAll(dataset.getFeatures());
+
+        Iterator j = expected.iterator();
+
+        for (Iterator i = dataset.iterator(); i.hasNext();) {
+            Feature feature = (Feature) i.next();
+            assertSame(j.next(), feature);
+
+            //Take out every Feature on the right-hand side, and a few others
+            if ((feature.getGeometry().getCoordinate().x == 11) || (random.nextInt(4) == 0)) {
+                i.remove();
+                j.remove();
+            }
+        }
+
+        assertFalse(j.hasNext());
+        assertEquals(expected, dataset.getFeatures());
+        assertEquals(computeEnvelope(dataset), dataset.getEnvelope());
+        assertEquals(10, dataset.getEnvelope().getMaxX(), 0);
+        assertEquals(new HashSet(expected),
+            new HashSet(dataset.query(new Envelope(0, 11, 0, 11))));
+
+        try {
+            Iterator i = dataset.iterator();
+            i.next();
+            i.remove();
+            i.remove();
+            fail();
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    @Test
+    public void testRemoveAll() {
+        checkRemoveAll(new FeatureDataset(SampleFeatures.createSchema()));
+        checkRemoveAll(new IndexedFeatureDataset(SampleFeatures.createSchema()));
+    }
+
+    //Removes a few Features at a time, which are removed by index, and many
+    //at a time, which makes removeAll refill the list
+    private void checkRemoveAll(FeatureDataset dataset) {
+        Random random = new Random(25);
+        ArrayList expected = new ArrayList();
+
+        for (int i = 0; i < 10000; i++) {
+            dataset.add(createPoint(dataset.getFeatureSchema(), random));
+        }
+
+        dataset.getEnvelope();
+        expected.addAll(dataset.getFeatures());
+
+        int[] counts = new int[] { 1, 3, 9, 1, 2000, 5, 1 };
+
+        for (int step = 0; step < counts.length; step++) {
+            List snapshot = dataset.snapshot();
+            ArrayList copy = new ArrayList(snapshot);
+            ArrayList removed = new ArrayList();
+
+            for (int i = 0; i < counts[step]; i++) {
+                removed.add(expected.get(random.nextInt(expected.size())));
+            }
+
+            dataset.removeAll(removed);
+            expected.removeAll(removed);
+            assertEquals("step " + step, expected, dataset.getFeatures());
+            assertEquals("step " + step, computeEnvelope(dataset), dataset.getEnvelope());
+            assertEquals("step " + step, new HashSet(expected),
+                new HashSet(dataset.query(new Envelope(0, 11, 0, 11))));
+            assertEquals(copy, snapshot);
+        }
+    }
+
+    @Test
+    public void testSnapshotCannotBeModified() {
+        FeatureDataset dataset = SampleFeatures.createPoints(10, 1);
+        List snapshot = dataset.snapshot();
+
+        try {
+            snapshot.remove(0);
+            fail();
+        } catch (UnsupportedOperationException e) {
+        }
+
+        try {
+            snapshot.add(dataset.getFeature(0));
+            fail();
+        } catch (UnsupportedOperationException e) {
+        }
+
+        assertEquals(10, dataset.size());
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        FeatureDataset dataset = SampleFeatures.createPolygons(3000, 23);
+        dataset.getEnvelope();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(dataset);
+        out.close();
+        FeatureDataset copy = (FeatureDataset) new ObjectInputStream(new ByteArrayInputStream(
+                    bytes.toByteArray())).readObject();
+
+        SampleFeatures.assertSameFeatures(dataset, copy);
+        assertEquals(dataset.getEnvelope(), copy.getEnvelope());
+        copy.remove(copy.getFeature(0));
+        assertEquals(computeEnvelope(copy), copy.getEnvelope());
+    }
+
+    /**
+     * feature-dataset.ser was written when the Features were kept in an
+     * ArrayList and the envelope could not be updated incrementally.
+     */
+    @Test
+    public void testReadOldForm() throws Exception {
+        ObjectInputStream in = new ObjectInputStream(getClass().getResourceAsStream(
+                    "feature-dataset.ser"));
+        FeatureDataset dataset = (FeatureDataset) in.readObject();
+        in.close();
+
+        assertEquals(3, dataset.size());
+        assertEquals("old 2", dataset.getFeature(2).getString("NAME"));
+        assertEquals(new Envelope(0, 2, 0, 4), dataset.getEnvelope());
+        dataset.remove(dataset.getFeature(2));
+        assertEquals(new Envelope(0, 1, 0, 2), dataset.getEnvelope());
+    }
+
+    private static Envelope computeEnvelope(FeatureDataset dataset) {
+        Envelope envelope = new Envelope();
+
+        for (Iterator i = dataset.iterator(); i.hasNext();) {
+            envelope.expandToInclude(((Feature) i.next()).getGeometry().getEnvelopeInternal());
+        }
+
+        return envelope;
+    }
+
+    //Points on a small grid, so that many of them lie on the same side of
+    //the envelope
+    private static Feature createPoint(FeatureSchema schema, Random random) {
+        return createPoint(schema, random.nextInt(12), random.nextInt(12));
+    }
+
+    private static Feature createPoint(FeatureSchema schema, double x, double y) {
+        Feature feature = new BasicFeature(schema);
+        feature.setGeometry(factory.createPoint(new Coordinate(x, y)));
+
+        return feature;
+    }
+}
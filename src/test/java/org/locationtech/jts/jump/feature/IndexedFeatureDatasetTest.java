@@ -0,0 +1,224 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.feature;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.util.AffineTransformation;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Checks that IndexedFeatureDataset#query returns the same Features, in the
+ * same order, as FeatureDataset#query while Features are added, removed
+ * and moved.
+ */
+public class IndexedFeatureDatasetTest {
+    @Test
+    public void testBulkLoadedQuery() {
+        FeatureDataset plain = SampleFeatures.createPolygons(3000, 5);
+        FeatureCollection indexed = IndexedFeatureDataset.index(plain);
+        assertTrue(indexed instanceof IndexedFeatureDataset);
+        assertSameQueries(plain, indexed, new Random(1));
+        assertSame(indexed, IndexedFeatureDataset.index(indexed));
+    }
+
+    @Test
+    public void testQueryWhileEditing() {
+        Random random = new Random(9);
+        List pool = SampleFeatures.createPolygons(2000, 6).getFeatures();
+        FeatureDataset plain = new FeatureDataset(SampleFeatures.createSchema());
+        IndexedFeatureDataset indexed = new IndexedFeatureDataset(SampleFeatures.createSchema());
+        List added = new ArrayList();
+        List notAdded = new ArrayList(pool);
+
+        for (int step = 0; step < 400; step++) {
+            int operation = random.nextInt(10);
+
+            if ((operation < 4) && !notAdded.isEmpty()) {
+                //add a few, one at a time or all at once
+                List features = take(notAdded, 1 + random.nextInt(20), random);
+                added.addAll(features);
+
+                if (operation == 0) {
+                    plain.addAll(features);
+                    indexed.addAll(features);
+                } else {
+                    for (int i = 0; i < features.size(); i++) {
+                        plain.add((Feature) features.get(i));
+                        indexed.add((Feature) features.get(i));
+                    }
+                }
+            } else if ((operation < 6) && !added.isEmpty()) {
+                List features = take(added, 1 + random.nextInt(10), random);
+                notAdded.addAll(features);
+
+                if (operation == 4) {
+                    plain.removeAll(features);
+                    indexed.removeAll(features);
+                } else {
+                    for (int i = 0; i < features.size(); i++) {
+                        plain.remove((Feature) features.get(i));
+                        indexed.remove((Feature) features.get(i));
+                    }
+                }
+            } else if ((operation < 9) && !added.isEmpty()) {
+                List features = new ArrayList();
+
+                for (int i = 0; i < 5; i++) {
+                    Feature feature = (Feature) added.get(random.nextInt(added.size()));
+                    move(feature, random);
+                    features.add(feature);
+                }
+
+                plain.invalidateEnvelope();
+
+                if (operation < 8) {
+                    indexed.geometryModified(features);
+                } else {
+                    indexed.invalidateEnvelope();
+                }
+            } else if (random.nextInt(20) == 0) {
+                notAdded.addAll(added);
+                added.clear();
+                plain.clear();
+                indexed.clear();
+            }
+
+            assertEquals(plain.size(), indexed.size());
+            assertSameQueries(plain, indexed, random);
+        }
+    }
+
+    @Test
+    public void testEqualFeatures() {
+        List pool = SampleFeatures.createPolygons(40, 8).getFeatures();
+        FeatureDataset plain = new FeatureDataset(SampleFeatures.createSchema());
+        IndexedFeatureDataset indexed = new IndexedFeatureDataset(SampleFeatures.createSchema());
+
+        //Pairs of distinct Features that are equal, with different geometries
+        for (int i = 0; i < pool.size(); i++) {
+            Feature feature = new KeyedFeature(i / 2);
+            feature.setGeometry(((Feature) pool.get(i)).getGeometry());
+            plain.add(feature);
+            indexed.add(feature);
+        }
+
+        Envelope all = plain.getEnvelope();
+        indexed.query(all); //builds the index
+        assertSameObjects(plain.query(all), indexed.query(all));
+
+        //Removes the first Feature of the pair, whichever one is passed
+        for (int i = 0; i < 10; i++) {
+            Feature second = (Feature) plain.query(all).get(i + 1);
+            plain.remove(second);
+            indexed.remove(second);
+            assertSameObjects(plain.query(all), indexed.query(all));
+        }
+
+        //Removes both Features of each pair
+        List removed = plain.query(all).subList(20, 30);
+        plain.removeAll(new ArrayList(removed));
+        indexed.removeAll(new ArrayList(removed));
+        assertSameObjects(plain.query(all), indexed.query(all));
+        assertEquals(plain.size(), indexed.size());
+    }
+
+    private static void assertSameObjects(List expected, List actual) {
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame("feature " + i, expected.get(i), actual.get(i));
+        }
+    }
+
+    /**
+     * A Feature that is equal to the other KeyedFeatures with the same key,
+     * as RecordFeatures are equal when they are for the same record.
+     */
+    private static class KeyedFeature extends BasicFeature {
+        private int key;
+
+        KeyedFeature(int key) {
+            super(SampleFeatures.createSchema());
+            this.key = key;
+        }
+
+        public boolean equals(Object o) {
+            return (o instanceof KeyedFeature) && (((KeyedFeature) o).key == key);
+        }
+
+        public int hashCode() {
+            return key;
+        }
+    }
+
+    private static List take(List from, int count, Random random) {
+        List taken = new ArrayList();
+
+        while ((taken.size() < count) && !from.isEmpty()) {
+            taken.add(from.remove(random.nextInt(from.size())));
+        }
+
+        return taken;
+    }
+
+    private static void move(Feature feature, Random random) {
+        Geometry moved = (Geometry) feature.getGeometry().clone();
+        moved.apply(AffineTransformation.translationInstance((random.nextDouble() * 200) -
+                100, (random.nextDouble() * 200) - 100));
+        moved.geometryChanged();
+        feature.setGeometry(moved);
+    }
+
+    private static void assertSameQueries(FeatureCollection plain,
+        FeatureCollection indexed, Random random) {
+        assertEquals(plain.getEnvelope(), indexed.getEnvelope());
+
+        for (int i = 0; i < 10; i++) {
+            double x = (random.nextDouble() * 1200) - 100;
+            double y = (random.nextDouble() * 1200) - 100;
+            double size = random.nextDouble() * 300;
+            Envelope envelope = new Envelope(x, x + size, y, y + size);
+            assertEquals(envelope.toString(), plain.query(envelope), indexed.query(envelope));
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.feature;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.locationtech.jts.geom.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+/**
+ * Creates reproducible Features for the tests, and compares
+ * FeatureCollections read in different ways.
+ */
+public class SampleFeatures {
+    private static final String[] NAMES = new String[] {
+        "Amsterdam", "Utrecht", "Den Haag", "Groningen", "Maastricht", "Zwolle"
+    };
+
+    private static final GeometryFactory factory = new GeometryFactory();
+
+    /**
+     * Returns a schema with GEOMETRY, NAME (STRING), COUNT (INTEGER) and
+     * VALUE (DOUBLE).
+     */
+    public static FeatureSchema createSchema() {
+        FeatureSchema schema = new FeatureSchema();
+        schema.addAttribute("GEOMETRY", AttributeType.GEOMETRY);
+        schema.addAttribute("NAME", AttributeType.STRING);
+        schema.addAttribute("COUNT", AttributeType.INTEGER);
+        schema.addAttribute("VALUE", AttributeType.DOUBLE);
+
+        return schema;
+    }
+
+    /**
+     * Returns the given number of Features with polygons (some with holes,
+     * some of them multipolygons) spread over a 1000 by 1000 square.
+     */
+    public static FeatureDataset createPolygons(int count, long seed) {
+        Random random = new Random(seed);
+        FeatureDataset dataset = new FeatureDataset(createSchema());
+
+        for (int i = 0; i < count; i++) {
+            Polygon polygon = createPolygon(random);
+            Geometry geometry = polygon;
+
+            if ((i % 7) == 3) {
+                geometry = factory.createMultiPolygon(new Polygon[] {
+                    polygon, createPolygon(random)
+                });
+            }
+
+            dataset.add(createFeature(dataset.getFeatureSchema(), geometry, i, random));
+        }
+
+        return dataset;
+    }
+
+    /**
+     * Returns the given number of Features with points spread over a 1000
+     * by 1000 square.
+     */
+    public static FeatureDataset createPoints(int count, long seed) {
+        Random random = new Random(seed);
+        FeatureDataset dataset = new FeatureDataset(createSchema());
+
+        for (int i = 0; i < count; i++) {
+            Point point = factory.createPoint(new Coordinate(round(random.nextDouble() * 1000),
+                        round(random.nextDouble() * 1000)));
+            dataset.add(createFeature(dataset.getFeatureSchema(), point, i, random));
+        }
+
+        return dataset;
+    }
+
+    private static Feature createFeature(FeatureSchema schema, Geometry geometry, int i,
+        Random random) {
+        Feature feature = new BasicFeature(schema);
+        feature.setGeometry(geometry);
+        feature.setAttribute("NAME", NAMES[random.nextInt(NAMES.length)] + " " + (i % 10));
+        feature.setAttribute("COUNT", new Integer(random.nextInt(100000) - 50000));
+        feature.setAttribute("VALUE", new Double(round(random.nextDouble() * 10000)));
+
+        return feature;
+    }
+
+    private static Polygon createPolygon(Random random) {
+        double x = round(random.nextDouble() * 990);
+        double y = round(random.nextDouble() * 990);
+        double size = 2 + round(random.nextDouble() * 8);
+        LinearRing shell = createSquare(x, y, size, false);
+
+        if (random.nextBoolean()) {
+            return factory.createPolygon(shell);
+        }
+
+        return factory.createPolygon(shell, new LinearRing[] {
+            createSquare(x + (size / 4), y + (size / 4), size / 2, true)
+        });
+    }
+
+    //Shells are clockwise and holes counter-clockwise, as in a Shapefile
+    private static LinearRing createSquare(double x, double y, double size, boolean hole) {
+        Coordinate[] coordinates = new Coordinate[] {
+            new Coordinate(x, y), new Coordinate(x, y + size),
+            new Coordinate(x + size, y + size), new Coordinate(x + size, y),
+            new Coordinate(x, y)
+        };
+
+        if (hole) {
+            CoordinateArrays.reverse(coordinates);
+        }
+
+        return factory.createLinearRing(coordinates);
+    }
+
+    private static double round(double d) {
+        return Math.round(d * 1000) / 1000.0;
+    }
+
+    /**
+     * Checks that the collections hold equal Features in the same order:
+     * exactly equal geometries and equal attribute values.
+     */
+    public static void assertSameFeatures(FeatureCollection expected,
+        FeatureCollection actual) {
+        assertSameFeatures(expected.getFeatures(), actual.getFeatures());
+    }
+
+    /**
+     * Checks that the lists hold equal Features in the same order.
+     */
+    public static void assertSameFeatures(List expected, List actual) {
+        assertEquals("number of features", expected.size(), actual.size());
+
+        Iterator j = actual.iterator();
+
+        for (Iterator i = expected.iterator(); i.hasNext();) {
+            assertSameFeature((Feature) i.next(), (Feature) j.next());
+        }
+    }
+
+    /**
+     * Checks that the Features have exactly equal geometries and equal
+     * attribute values.
+     */
+    public static void assertSameFeature(Feature expected, Feature actual) {
+        FeatureSchema schema = expected.getSchema();
+        assertEquals(schema.getAttributeCount(), actual.getSchema().getAttributeCount());
+
+        for (int i = 0; i < schema.getAttributeCount(); i++) {
+            if (schema.getAttributeType(i) == AttributeType.GEOMETRY) {
+                assertTrue("expected " + expected.getGeometry() + " but was " +
+                    actual.getGeometry(),
+                    expected.getGeometry().equalsExact(actual.getGeometry()));
+            } else {
+                assertEquals(schema.getAttributeName(i), expected.getAttribute(i),
+                    actual.getAttribute(i));
+            }
+        }
+    }
+}
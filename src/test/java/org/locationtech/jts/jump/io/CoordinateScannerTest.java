@@ -0,0 +1,174 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.io;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Coordinate;
+
+import static org.junit.Assert.*;
+
+public class CoordinateScannerTest {
+    private static final String[] NUMBERS = {
+        "0", "-0", "+0", "0.0", "-0.0", "1", "-1", "+1", "1.", ".5", "-.5", "00012.5000",
+        "0.1", "0.2", "0.3", "123456.789", "-98765.4321", "155000.123456",
+        "9007199254740991", "9007199254740992", "9007199254740993", "12345678901234567890",
+        "0.000000000000000000000001", "1e22", "1e23", "1E-22", "1e-23", "1.5e+3",
+        "2.5E-3", "1e308", "1e-320", "1e999", "4.9e-324", "1.7976931348623157e308",
+        "1234567890123456e-5", "0.1234567890123456789", "3.141592653589793",
+        "NaN", "Infinity", "-Infinity", "0x1p3", "1.5d", "2f"
+    };
+
+    private static final String[] NOT_NUMBERS = {
+        "", "-", ".", "e5", "1e", "1e+", "1.2.3", "1,5", "abc", "1e5x"
+    };
+
+    @Test
+    public void testParseDouble() {
+        for (int i = 0; i < NUMBERS.length; i++) {
+            assertParsesLikeDouble(NUMBERS[i]);
+        }
+    }
+
+    @Test
+    public void testParseRandomDoubles() {
+        Random random = new Random(24);
+
+        for (int i = 0; i < 50000; i++) {
+            double d;
+
+            switch (i % 4) {
+            case 0:
+                //A coordinate with a fixed number of decimals
+                d = Math.round(random.nextDouble() * 1e9) / Math.pow(10, random.nextInt(9));
+
+                break;
+
+            case 1:
+                d = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(30) - 15);
+
+                break;
+
+            case 2:
+                d = Double.longBitsToDouble(random.nextLong());
+
+                break;
+
+            default:
+                d = random.nextInt();
+            }
+
+            assertParsesLikeDouble(Double.toString(d));
+
+            //The plain form of an arbitrary double can be hundreds of digits long
+            if ((i % 4) != 2) {
+                assertParsesLikeDouble(new BigDecimal(d).toPlainString());
+                assertParsesLikeDouble(String.format(Locale.US, "%.6f", d));
+            }
+        }
+    }
+
+    @Test
+    public void testNotNumbers() {
+        for (int i = 0; i < NOT_NUMBERS.length; i++) {
+            try {
+                CoordinateScanner.parseDouble(NOT_NUMBERS[i].toCharArray(),
+                    NOT_NUMBERS[i].length());
+                fail(NOT_NUMBERS[i]);
+            } catch (NumberFormatException e) {
+            }
+        }
+    }
+
+    @Test
+    public void testBuffersSplitAnywhere() {
+        String body = " 155000.5,463000.25 155001,463001.125,12\\n\\t-0.5,1e3 ";
+        body = body.replace("\\n", "\n").replace("\\t", "\t");
+
+        List expected = new ArrayList();
+        expected.add(new Coordinate(155000.5, 463000.25));
+        expected.add(new Coordinate(155001, 463001.125, 12));
+        expected.add(new Coordinate(-0.5, 1000));
+
+        CoordinateScanner scanner = new CoordinateScanner();
+        char[] chars = body.toCharArray();
+
+        for (int split = 0; split <= chars.length; split++) {
+            scanner.startCoordinates(',', ' ', '.');
+            scanner.scan(chars, 0, split);
+            scanner.scan(chars, split, chars.length - split);
+
+            List coordinates = new ArrayList();
+            scanner.end(coordinates);
+            assertEquals(expected.size(), coordinates.size());
+
+            for (int i = 0; i < expected.size(); i++) {
+                assertTrue("split at " + split,
+                    ((Coordinate) expected.get(i)).equals3D((Coordinate) coordinates.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void testPositions() {
+        String body = "1 2 3 4.5\n5 6";
+        CoordinateScanner scanner = new CoordinateScanner();
+        scanner.startPositions(2);
+        scanner.scan(body.toCharArray(), 0, body.length());
+
+        List coordinates = new ArrayList();
+        scanner.end(coordinates);
+        assertEquals(3, coordinates.size());
+        assertEquals(new Coordinate(3, 4.5), coordinates.get(1));
+
+        scanner.startPositions(3);
+        scanner.scan(body.toCharArray(), 0, body.length());
+
+        coordinates.clear();
+        scanner.end(coordinates);
+        assertEquals(2, coordinates.size());
+        assertTrue(new Coordinate(4.5, 5, 6).equals3D((Coordinate) coordinates.get(1)));
+    }
+
+    private static void assertParsesLikeDouble(String s) {
+        double expected = Double.parseDouble(s);
+        double actual = CoordinateScanner.parseDouble(s.toCharArray(), s.length());
+        assertEquals(s, Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual));
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.io;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Test;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.jump.feature.*;
+
+import static org.junit.Assert.*;
+
+public class DiskFeatureCollectionTest {
+    private DiskFeatureCollection disk;
+
+    @After
+    public void close() throws Exception {
+        if (disk != null) {
+            disk.close();
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        FeatureDataset polygons = SampleFeatures.createPolygons(1000, 12);
+        disk = new DiskFeatureCollection(polygons.getFeatureSchema());
+        disk.addAll(polygons.getFeatures());
+
+        SampleFeatures.assertSameFeatures(polygons, disk);
+        assertEquals(polygons.getEnvelope(), disk.getEnvelope());
+    }
+
+    @Test
+    public void testValues() throws Exception {
+        FeatureSchema schema = SampleFeatures.createSchema();
+        schema.addAttribute("DAY", AttributeType.DATE);
+        schema.addAttribute("OTHER", AttributeType.OBJECT);
+        disk = new DiskFeatureCollection(schema);
+
+        Object[][] rows = {
+            { null, null, null, null, null, null },
+            { null, "Zoë", new Integer(-1), new Double(0.1), new Date(86400000L), new Long(5) },
+            { null, new Integer(4), "not a number", new Double(Double.NaN), "yesterday", null }
+        };
+
+        for (int i = 0; i < rows.length; i++) {
+            Feature feature = new BasicFeature(schema);
+            feature.setAttributes(rows[i]);
+            disk.add(feature);
+        }
+
+        for (int i = 0; i < rows.length; i++) {
+            assertArrayEquals(rows[i], disk.getFeature(i).getAttributes());
+        }
+    }
+
+    @Test
+    public void testQuery() throws Exception {
+        FeatureDataset points = SampleFeatures.createPoints(3000, 13);
+        disk = new DiskFeatureCollection(points.getFeatureSchema());
+        disk.addAll(points.getFeatures());
+        Random random = new Random(2);
+
+        for (int i = 0; i < 50; i++) {
+            double x = random.nextDouble() * 1000;
+            double y = random.nextDouble() * 1000;
+            Envelope envelope = new Envelope(x, x + (random.nextDouble() * 200), y,
+                    y + (random.nextDouble() * 200));
+            SampleFeatures.assertSameFeatures(points.query(envelope), disk.query(envelope));
+        }
+    }
+
+    @Test
+    public void testFeaturesStayEqualAfterEviction() throws Exception {
+        FeatureDataset points = SampleFeatures.createPoints(5000, 14);
+        disk = new DiskFeatureCollection(points.getFeatureSchema(), new GeometryFactory(),
+                null, 10);
+        disk.addAll(points.getFeatures());
+
+        List selection = disk.query(new Envelope(0, 500, 0, 500));
+        HashSet selected = new HashSet(selection);
+        HashSet ids = new HashSet();
+        int found = 0;
+
+        //Decoded again, as only the last 10 Features are cached
+        for (int i = 0; i < disk.size(); i++) {
+            Feature feature = disk.getFeature(i);
+            assertTrue(ids.add(new Long(feature.getID())));
+
+            if (selected.contains(feature)) {
+                found++;
+            }
+        }
+
+        assertEquals(selection.size(), found);
+
+        Feature feature = (Feature) selection.get(0);
+        Feature again = (Feature) disk.query(feature.getGeometry().getEnvelopeInternal()).get(0);
+        assertNotSame(feature, again);
+        assertEquals(feature, again);
+        assertEquals(feature.getID(), again.getID());
+    }
+
+    @Test
+    public void testFeaturesAreReadOnly() throws Exception {
+        disk = new DiskFeatureCollection(SampleFeatures.createSchema());
+        disk.addAll(SampleFeatures.createPoints(2, 15).getFeatures());
+        Feature feature = disk.getFeature(0);
+
+        try {
+            feature.setAttribute("NAME", "changed");
+            fail();
+        } catch (UnsupportedOperationException e) {
+        }
+
+        Feature clone = (Feature) feature.clone();
+        clone.setAttribute("NAME", "changed");
+        assertEquals("changed", clone.getString("NAME"));
+        assertFalse("changed".equals(disk.getFeature(0).getString("NAME")));
+    }
+}
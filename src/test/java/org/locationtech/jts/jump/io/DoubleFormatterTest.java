@@ -0,0 +1,110 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.io;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DoubleFormatterTest {
+    private static final double[] NUMBERS = {
+        0, -0.0, 1, -1, 0.1, 0.2, 0.3, 0.1 + 0.2, 1e-3, 0.00099999, 9999999.999,
+        1e7, 1e7 - 0.5, 123456.789, -98765.4321, 155000.123456, 463000.5,
+        1.0 / 3, 2.0 / 3, Math.PI, Math.E, 4.35, 0.015, 1234567.0000001,
+        Double.MIN_VALUE, Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY,
+        Double.NEGATIVE_INFINITY, 1e22, 1e-22
+    };
+
+    @Test
+    public void testFormat() {
+        DoubleFormatter formatter = new DoubleFormatter();
+
+        for (int i = 0; i < NUMBERS.length; i++) {
+            assertFormatsLikeDouble(formatter, NUMBERS[i]);
+        }
+    }
+
+    @Test
+    public void testFormatRandomDoubles() {
+        DoubleFormatter formatter = new DoubleFormatter();
+        Random random = new Random(25);
+
+        for (int i = 0; i < 300000; i++) {
+            double d;
+
+            switch (i % 4) {
+            case 0:
+                //A coordinate with a fixed number of decimals
+                d = Math.round(random.nextDouble() * 1e9) / Math.pow(10, random.nextInt(9));
+
+                break;
+
+            case 1:
+                d = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(12) - 4);
+
+                break;
+
+            case 2:
+                d = Double.longBitsToDouble(random.nextLong());
+
+                break;
+
+            default:
+                //Sums and products of coordinates, which are rarely short decimals
+                d = (random.nextInt(100000) / 100.0) * (random.nextInt(1000) / 10.0);
+            }
+
+            assertFormatsLikeDouble(formatter, d);
+        }
+    }
+
+    @Test
+    public void testOffset() {
+        DoubleFormatter formatter = new DoubleFormatter();
+        char[] buffer = new char[3 * DoubleFormatter.MAX_LENGTH];
+        int end = formatter.format(155000.25, buffer, 0);
+        buffer[end++] = ',';
+        end = formatter.format(-1e-9, buffer, end);
+        assertEquals("155000.25,-1.0E-9", new String(buffer, 0, end));
+    }
+
+    private static void assertFormatsLikeDouble(DoubleFormatter formatter, double d) {
+        char[] buffer = new char[DoubleFormatter.MAX_LENGTH + 5];
+        int end = formatter.format(d, buffer, 5);
+        assertTrue(end - 5 <= DoubleFormatter.MAX_LENGTH);
+        assertEquals(Double.toString(d), new String(buffer, 5, end - 5));
+    }
+}
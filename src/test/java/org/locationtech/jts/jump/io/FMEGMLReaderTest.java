@@ -0,0 +1,105 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.jump.feature.*;
+
+import static org.junit.Assert.*;
+
+public class FMEGMLReaderTest {
+    private static final String[] NAMES = new String[] { "Zoë", "Straße", "naïve façade" };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testEncodingDeclaration() throws Exception {
+        String[] charsets = new String[] { "UTF-8", "ISO-8859-1" };
+
+        for (int c = 0; c < charsets.length; c++) {
+            File file = new File(folder.getRoot(), charsets[c] + ".xml");
+            Writer out = new OutputStreamWriter(new FileOutputStream(file), charsets[c]);
+
+            try {
+                out.write(createFMEGML(charsets[c]));
+            } finally {
+                out.close();
+            }
+
+            FeatureCollection read = new FMEGMLReader().read(new DriverProperties(
+                        file.getPath()));
+            assertEquals(charsets[c], NAMES.length, read.size());
+
+            for (int i = 0; i < NAMES.length; i++) {
+                Feature feature = (Feature) read.getFeatures().get(i);
+                assertEquals(charsets[c], NAMES[i], feature.getString("NAME"));
+                assertEquals(new Coordinate(i, 2 * i), feature.getGeometry().getCoordinate());
+            }
+        }
+    }
+
+    private static String createFMEGML(String charset) {
+        StringBuffer text = new StringBuffer();
+        text.append("<?xml version=\"1.0\" encoding=\"" + charset + "\"?>\n");
+        text.append("<dataset xmlns:fme=\"http://www.safe.com/xml/namespaces/fmegml\"" +
+            " xmlns:gml=\"http://www.opengis.net/gml\">\n");
+        text.append("<schemaFeatures>\n<gml:featureMember>\n<Feature>\n");
+        text.append("<featureType>places</featureType>\n");
+        text.append("<property fme:name=\"NAME\">fme_char(40)</property>\n");
+        text.append("</Feature>\n</gml:featureMember>\n</schemaFeatures>\n");
+        text.append("<dataFeatures>\n");
+
+        for (int i = 0; i < NAMES.length; i++) {
+            text.append("<gml:featureMember>\n<Feature>\n");
+            text.append("<featureType>places</featureType>\n");
+            text.append("<property fme:name=\"NAME\">" + NAMES[i] + "</property>\n");
+            text.append("<gml:PointProperty><gml:Point><gml:coordinates>" + i + "," +
+                (2 * i) + "</gml:coordinates></gml:Point></gml:PointProperty>\n");
+            text.append("</Feature>\n</gml:featureMember>\n");
+        }
+
+        text.append("</dataFeatures>\n</dataset>\n");
+
+        return text.toString();
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.locationtech.jts.jump.feature.*;
+
+import static org.junit.Assert.*;
+
+public class GMLReaderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testParallelReadMatchesSerialRead() throws Exception {
+        FeatureCollection written = createFeatures();
+        File file = write(written);
+
+        FeatureCollection serial = read(file, "false", false);
+        assertEquals(written.size(), serial.size());
+        assertDatesRead(written, serial);
+
+        for (int threads = 2; threads <= 8; threads *= 2) {
+            FeatureCollection parallel = read(file, "" + threads, false);
+            SampleFeatures.assertSameFeatures(serial, parallel);
+        }
+    }
+
+    @Test
+    public void testParallelReadToDisk() throws Exception {
+        File file = write(createFeatures());
+        FeatureCollection serial = read(file, "false", false);
+        DiskFeatureCollection parallel = (DiskFeatureCollection) read(file, "4", true);
+
+        try {
+            SampleFeatures.assertSameFeatures(serial, parallel);
+        } finally {
+            parallel.close();
+        }
+    }
+
+    @Test
+    public void testSpillToDiskAppliesToOneRead() throws Exception {
+        File file = write(createFeatures());
+        GMLReader reader = new GMLReader();
+        DiskFeatureCollection spilled = (DiskFeatureCollection) reader.read(new DriverProperties(
+                    file.getPath()).set("SpillToDisk", "true"));
+        spilled.close();
+
+        assertTrue(reader.read(new DriverProperties(file.getPath())) instanceof FeatureDataset);
+    }
+
+    @Test
+    public void testSink() throws Exception {
+        File file = write(createFeatures());
+        FeatureCollection serial = read(file, "false", false);
+        final FeatureDataset received = new FeatureDataset(serial.getFeatureSchema());
+        DriverProperties dp = new DriverProperties(file.getPath());
+        dp.set("Parallel", "4");
+
+        createReader().read(dp, new FeatureSink() {
+                public void start(FeatureSchema schema) {
+                }
+
+                public void add(Feature feature) {
+                    received.add(feature);
+                }
+            });
+
+        SampleFeatures.assertSameFeatures(serial, received);
+    }
+
+    @Test
+    public void testEncodingDeclaration() throws Exception {
+        String[] names = new String[] { "Zoë", "Straße", "naïve façade" };
+        String[] charsets = new String[] { "UTF-8", "ISO-8859-1" };
+        FeatureSchema schema = SampleFeatures.createSchema();
+        FeatureDataset features = new FeatureDataset(schema);
+        List polygons = SampleFeatures.createPolygons(300, 4).getFeatures();
+
+        for (int i = 0; i < polygons.size(); i++) {
+            Feature feature = ((Feature) polygons.get(i)).clone(true);
+            feature.setAttribute("NAME", names[i % names.length] + " " + i);
+            features.add(feature);
+        }
+
+        GMLWriter writer = new GMLWriter();
+        writer.setOutputTemplate(GMLWriter.makeOutputTemplate(schema));
+
+        StringWriter text = new StringWriter();
+        writer.write(features, text);
+
+        for (int c = 0; c < charsets.length; c++) {
+            File file = new File(folder.getRoot(), charsets[c] + ".jml");
+            Writer out = new OutputStreamWriter(new FileOutputStream(file), charsets[c]);
+
+            try {
+                out.write(text.toString().replaceFirst("encoding='UTF-8'",
+                        "encoding='" + charsets[c] + "'"));
+            } finally {
+                out.close();
+            }
+
+            FeatureCollection serial = read(file, "false", false);
+            FeatureCollection parallel = read(file, "4", false);
+            assertEquals(features.size(), serial.size());
+
+            for (int i = 0; i < features.size(); i++) {
+                String name = ((Feature) features.getFeatures().get(i)).getString("NAME");
+                assertEquals(charsets[c], name,
+                    ((Feature) serial.getFeatures().get(i)).getString("NAME"));
+                assertEquals(charsets[c], name,
+                    ((Feature) parallel.getFeatures().get(i)).getString("NAME"));
+            }
+        }
+    }
+
+    private FeatureCollection createFeatures() {
+        FeatureDataset polygons = SampleFeatures.createPolygons(500, 31);
+        FeatureSchema schema = SampleFeatures.createSchema();
+        schema.addAttribute("DAY", AttributeType.DATE);
+
+        FeatureDataset features = new FeatureDataset(schema);
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2001, Calendar.JANUARY, 1);
+
+        for (Iterator i = polygons.iterator(); i.hasNext();) {
+            Feature polygon = (Feature) i.next();
+            Feature feature = new BasicFeature(schema);
+
+            for (int j = 0; j < polygon.getSchema().getAttributeCount(); j++) {
+                feature.setAttribute(j, polygon.getAttribute(j));
+            }
+
+            calendar.add(Calendar.DAY_OF_MONTH, 3);
+            feature.setAttribute("DAY", calendar.getTime());
+            features.add(feature);
+        }
+
+        return features;
+    }
+
+    private File write(FeatureCollection features) throws Exception {
+        File file = new File(folder.getRoot(), "features.jml");
+        new JMLWriter().write(features, new DriverProperties(file.getPath()));
+
+        return file;
+    }
+
+    private static FeatureCollection read(File file, String parallel, boolean spillToDisk)
+        throws Exception {
+        DriverProperties dp = new DriverProperties(file.getPath());
+        dp.set("Parallel", parallel);
+        dp.set("SpillToDisk", "" + spillToDisk);
+
+        return createReader().read(dp);
+    }
+
+    private static GMLReader createReader() {
+        //Split even a small file into many chunks
+        GMLReader reader = new GMLReader();
+        reader.setChunkSize(4096);
+
+        return reader;
+    }
+
+    private static void assertDatesRead(FeatureCollection written, FeatureCollection read) {
+        List writtenFeatures = written.getFeatures();
+        List readFeatures = read.getFeatures();
+        int day = written.getFeatureSchema().getAttributeIndex("DAY");
+
+        for (int i = 0; i < writtenFeatures.size(); i++) {
+            assertEquals(((Feature) writtenFeatures.get(i)).getAttribute(day),
+                ((Feature) readFeatures.get(i)).getAttribute(day));
+            assertTrue(((Feature) readFeatures.get(i)).getAttribute(day) instanceof Date);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.io;
+
+import java.io.File;
+import java.util.List;
+
+import org.geotools.dbffile.DbfFile;
+import org.geotools.shapefile.MappedShapefile;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.jump.feature.*;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Checks that the memory-mapped, parallel, bounding box and column
+ * selecting ways of reading a Shapefile give the same Features as a plain
+ * sequential read.
+ */
+public class ShapefileReaderTest {
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static File shpFile;
+    private static FeatureCollection sequential;
+
+    @BeforeClass
+    public static void writeShapefile() throws Exception {
+        shpFile = new File(folder.getRoot(), "polygons.shp");
+        new ShapefileWriter().write(SampleFeatures.createPolygons(3000, 1),
+            new DriverProperties(shpFile.getPath()));
+        sequential = read(new DriverProperties(shpFile.getPath()));
+    }
+
+    /**
+     * Reads Shapefiles with M values, which the handlers skip.
+     */
+    @Test
+    public void testMeasures() throws Exception {
+        GeometryFactory factory = new GeometryFactory();
+        FeatureDataset polygons = SampleFeatures.createPolygons(500, 2);
+        FeatureDataset points = SampleFeatures.createPoints(600, 3);
+        FeatureDataset lines = new FeatureDataset(polygons.getFeatureSchema());
+        FeatureDataset multiPoints = new FeatureDataset(points.getFeatureSchema());
+
+        for (int i = 0; i < 200; i++) {
+            Feature line = polygons.getFeature(i).clone(false);
+            line.setGeometry(factory.createLineString(line.getGeometry().getCoordinates()));
+            lines.add(line);
+
+            Feature multiPoint = points.getFeature(3 * i).clone(false);
+            multiPoint.setGeometry(factory.createMultiPoint(new Point[] {
+                        (Point) points.getFeature(3 * i).getGeometry(),
+                        (Point) points.getFeature((3 * i) + 1).getGeometry(),
+                        (Point) points.getFeature((3 * i) + 2).getGeometry()
+                    }));
+            multiPoints.add(multiPoint);
+        }
+
+        FeatureDataset[] datasets = new FeatureDataset[] { polygons, lines, multiPoints };
+        String[] modes = new String[] { null, "Parallel", "MemoryMapped" };
+
+        for (int d = 0; d < datasets.length; d++) {
+            File file = new File(folder.getRoot(), "measures" + d + ".shp");
+            new ShapefileWriter().write(datasets[d],
+                new DriverProperties(file.getPath()).set("ShapeType", "xym"));
+
+            for (int m = 0; m < modes.length; m++) {
+                DriverProperties dp = new DriverProperties(file.getPath());
+
+                if (modes[m] != null) {
+                    dp.set(modes[m], modes[m].equals("Parallel") ? "2" : "true");
+                }
+
+                FeatureCollection read = read(dp);
+
+                try {
+                    assertEquals(datasets[d].size(), read.size());
+
+                    for (int i = 0; i < read.size(); i++) {
+                        Feature expected = datasets[d].getFeature(i);
+                        Feature actual = (Feature) read.getFeatures().get(i);
+                        assertTrue("dataset " + d + ", mode " + modes[m] + ", feature " + i,
+                            expected.getGeometry().equalsExact(actual.getGeometry()));
+                        assertEquals(expected.getAttribute("COUNT"), actual.getAttribute("COUNT"));
+                    }
+                } finally {
+                    if (read instanceof ShapefileFeatureCollection) {
+                        ((ShapefileFeatureCollection) read).close();
+                    }
+                }
+            }
+        }
+    }
+
+    private static FeatureCollection read(DriverProperties dp) throws Exception {
+        return new ShapefileReader().read(dp);
+    }
+
+    @Test
+    public void testSequentialRead() throws Exception {
+        List written = SampleFeatures.createPolygons(3000, 1).getFeatures();
+        assertEquals(written.size(), sequential.size());
+
+        for (int i = 0; i < written.size(); i++) {
+            Feature expected = (Feature) written.get(i);
+            Feature actual = (Feature) sequential.getFeatures().get(i);
+            assertTrue(expected.getGeometry().equalsExact(actual.getGeometry()));
+            //.dbf text is padded to the width of the column
+            assertEquals(expected.getString("NAME"), actual.getString("NAME").trim());
+            assertEquals(expected.getAttribute("COUNT"), actual.getAttribute("COUNT"));
+            assertEquals(expected.getAttribute("VALUE"), actual.getAttribute("VALUE"));
+        }
+    }
+
+    @Test
+    public void testMemoryMapped() throws Exception {
+        FeatureCollection mapped = read(new DriverProperties(shpFile.getPath()).set(
+                    "MemoryMapped", "true"));
+
+        try {
+            assertTrue(mapped instanceof ShapefileFeatureCollection);
+            SampleFeatures.assertSameFeatures(sequential, mapped);
+            assertEquals(sequential.getEnvelope(), mapped.getEnvelope());
+        } finally {
+            ((ShapefileFeatureCollection) mapped).close();
+        }
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        SampleFeatures.assertSameFeatures(sequential,
+            read(new DriverProperties(shpFile.getPath()).set("Parallel", "3")));
+    }
+
+    @Test
+    public void testBoundingBox() throws Exception {
+        Envelope box = new Envelope(100, 400, 100, 300);
+        List expected = sequential.query(box);
+        assertTrue(expected.size() > 0);
+        assertTrue(expected.size() < sequential.size());
+
+        String[] modes = new String[] { null, "Parallel", "MemoryMapped" };
+
+        for (int i = 0; i < modes.length; i++) {
+            DriverProperties dp = new DriverProperties(shpFile.getPath()).set(
+                    "BoundingBox", "100,100,400,300");
+
+            if (modes[i] != null) {
+                dp.set(modes[i], modes[i].equals("Parallel") ? "2" : "true");
+            }
+
+            FeatureCollection filtered = read(dp);
+            SampleFeatures.assertSameFeatures(expected, filtered.getFeatures());
+
+            if (filtered instanceof ShapefileFeatureCollection) {
+                ((ShapefileFeatureCollection) filtered).close();
+            }
+        }
+    }
+
+    @Test
+    public void testAttributes() throws Exception {
+        String[] modes = new String[] { null, "Parallel", "MemoryMapped" };
+
+        for (int m = 0; m < modes.length; m++) {
+            DriverProperties dp = new DriverProperties(shpFile.getPath()).set(
+                    "Attributes", "value,Name");
+
+            if (modes[m] != null) {
+                dp.set(modes[m], modes[m].equals("Parallel") ? "2" : "true");
+            }
+
+            FeatureCollection selected = read(dp);
+            FeatureSchema schema = selected.getFeatureSchema();
+            assertEquals(3, schema.getAttributeCount());
+            assertEquals("VALUE", schema.getAttributeName(1));
+            assertEquals("NAME", schema.getAttributeName(2));
+            assertEquals(sequential.size(), selected.size());
+
+            for (int i = 0; i < sequential.size(); i++) {
+                Feature expected = (Feature) sequential.getFeatures().get(i);
+                Feature actual = (Feature) selected.getFeatures().get(i);
+                assertTrue(expected.getGeometry().equalsExact(actual.getGeometry()));
+                assertEquals(expected.getAttribute("VALUE"), actual.getAttribute(1));
+                assertEquals(expected.getAttribute("NAME"), actual.getAttribute(2));
+            }
+
+            if (selected instanceof ShapefileFeatureCollection) {
+                ((ShapefileFeatureCollection) selected).close();
+            }
+        }
+    }
+
+    @Test
+    public void testMappedFeaturesStayEqualAfterEviction() throws Exception {
+        ShapefileFeatureCollection mapped = new ShapefileFeatureCollection(
+                new MappedShapefile(shpFile),
+                new DbfFile(shpFile.getPath().replaceAll("shp$", "dbf")),
+                sequential.getFeatureSchema(), new GeometryFactory(), 10);
+
+        try {
+            Feature first = mapped.getFeature(0);
+            Feature second = mapped.getFeature(1);
+
+            for (int i = 0; i < mapped.size(); i++) {
+                mapped.getFeature(i);
+            }
+
+            Feature again = mapped.getFeature(0);
+            assertNotSame(first, again);
+            assertEquals(first, again);
+            assertEquals(first.hashCode(), again.hashCode());
+            assertEquals(first.getID(), again.getID());
+            assertFalse(first.equals(second));
+            assertTrue(first.getID() != second.getID());
+            assertTrue(mapped.getFeatures().contains(first));
+
+            try {
+                again.setAttribute("NAME", "changed");
+                fail("Features of a Shapefile should be read-only");
+            } catch (UnsupportedOperationException e) {
+            }
+
+            Feature clone = (Feature) again.clone();
+            clone.setAttribute("NAME", "changed");
+            assertEquals("changed", clone.getAttribute("NAME"));
+        } finally {
+            mapped.close();
+        }
+    }
+}
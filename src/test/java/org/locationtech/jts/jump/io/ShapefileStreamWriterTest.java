@@ -0,0 +1,278 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.io;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.jump.feature.*;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Checks that ShapefileStreamWriter, and ShapefileWriter which uses it,
+ * write the same bytes as the ShapefileWriter from before the stream writer
+ * existed. The files in the baseline directory were written by that writer
+ * from SampleFeatures.createPolygons(200, 7) and createPoints(100, 7).
+ */
+public class ShapefileStreamWriterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testShapefileWriterMatchesBaseline() throws Exception {
+        File polygons = new File(folder.getRoot(), "polygons.shp");
+        new ShapefileWriter().write(SampleFeatures.createPolygons(200, 7),
+            new DriverProperties(polygons.getPath()));
+        assertSameFiles("polygons", polygons);
+
+        File points = new File(folder.getRoot(), "points.shp");
+        new ShapefileWriter().write(SampleFeatures.createPoints(100, 7),
+            new DriverProperties(points.getPath()));
+        assertSameFiles("points", points);
+    }
+
+    @Test
+    public void testStreamWriterMatchesBaseline() throws Exception {
+        File polygons = new File(folder.getRoot(), "polygons.shp");
+        stream(SampleFeatures.createPolygons(200, 7), polygons, "polygon");
+        assertSameFiles("polygons", polygons);
+
+        File points = new File(folder.getRoot(), "points.shp");
+        stream(SampleFeatures.createPoints(100, 7), points, "point");
+        assertSameFiles("points", points);
+    }
+
+    private void stream(FeatureCollection features, File shpFile, String geometryType)
+        throws Exception {
+        FeatureSchema schema = features.getFeatureSchema();
+        int[] stringLengths = new int[schema.getAttributeCount()];
+
+        for (int i = 0; i < stringLengths.length; i++) {
+            if (schema.getAttributeType(i) == AttributeType.STRING) {
+                stringLengths[i] = new ShapefileWriter().findMaxStringLength(features, i, null);
+            }
+        }
+
+        ShapefileStreamWriter writer = new ShapefileStreamWriter();
+        writer.open(schema,
+            new DriverProperties(shpFile.getPath()).set("GeometryType", geometryType)
+                                                   .set("ShapeType", "xy"), stringLengths);
+
+        for (Iterator i = features.iterator(); i.hasNext();) {
+            writer.append((Feature) i.next());
+        }
+
+        writer.close();
+        assertEquals(features.size(), writer.getNumFeatures());
+    }
+
+    private void assertSameFiles(String baseline, File shpFile) throws Exception {
+        String base = shpFile.getPath().substring(0, shpFile.getPath().length() - 4);
+        assertSameBytes(baseline + ".shp", new File(base + ".shp"), false);
+        assertSameBytes(baseline + ".shx", new File(base + ".shx"), false);
+        assertSameBytes(baseline + ".dbf", new File(base + ".dbf"), true);
+    }
+
+    private void assertSameBytes(String baseline, File file, boolean dbf)
+        throws Exception {
+        byte[] expected = Files.readAllBytes(new File(getClass()
+                                                          .getResource("baseline/" + baseline)
+                                                          .toURI()).toPath());
+        byte[] actual = Files.readAllBytes(file.toPath());
+
+        if (dbf) {
+            //Bytes 1 to 3 of a .dbf file hold the date it was written
+            System.arraycopy(expected, 1, actual, 1, 3);
+        }
+
+        assertTrue(baseline + " differs", Arrays.equals(expected, actual));
+    }
+
+    @Test
+    public void testCharset() throws Exception {
+        FeatureSchema schema = SampleFeatures.createSchema();
+        String[] names = new String[] { "Zoë", "Ĳsselmeer", "€ 5", "plain" };
+        File shpFile = new File(folder.getRoot(), "utf8.shp");
+        ShapefileStreamWriter writer = new ShapefileStreamWriter();
+        writer.open(schema,
+            new DriverProperties(shpFile.getPath()).set("Charset", "UTF-8")
+                                                   .set("StringLength", "10"));
+
+        for (int i = 0; i < names.length; i++) {
+            writer.append(createFeature(schema, names[i]));
+        }
+
+        //Ten characters, but more than ten bytes in UTF-8
+        try {
+            writer.append(createFeature(schema, "ëëëëëëëëëë"));
+            fail("Expected the value to be too long");
+        } catch (Exception e) {
+            assertTrue(e.getMessage(), e.getMessage().indexOf("longer than 10 bytes") != -1);
+        }
+
+        writer.close();
+        assertTrue(new File(folder.getRoot(), "utf8.cpg").exists());
+
+        FeatureCollection read = new ShapefileReader().read(new DriverProperties(
+                    shpFile.getPath()));
+        assertEquals(names.length, read.size());
+
+        for (int i = 0; i < names.length; i++) {
+            assertEquals(names[i], ((Feature) read.getFeatures().get(i)).getString("NAME").trim());
+        }
+    }
+
+    @Test
+    public void testRejectedFeatureKeepsFilesConsistent() throws Exception {
+        FeatureSchema schema = SampleFeatures.createSchema();
+        File shpFile = new File(folder.getRoot(), "rejected.shp");
+        ShapefileStreamWriter writer = new ShapefileStreamWriter();
+        FeatureSink sink = writer.toSink(new DriverProperties(shpFile.getPath()));
+        sink.start(schema);
+        sink.add(createFeature(schema, "first"));
+
+        char[] tooLong = new char[256];
+        Arrays.fill(tooLong, 'x');
+
+        try {
+            sink.add(createFeature(schema, new String(tooLong)));
+            fail("Expected the value to be too long");
+        } catch (Exception e) {
+            assertTrue(e.getMessage(), e.getMessage().indexOf("longer than 255 bytes") != -1);
+        }
+
+        sink.add(createFeature(schema, "second"));
+        writer.close();
+        assertEquals(2, writer.getNumFeatures());
+
+        //The headers must agree with the records in all three files
+        ByteBuffer shp = ByteBuffer.wrap(Files.readAllBytes(shpFile.toPath()));
+        assertEquals(shp.capacity(), 2 * shp.getInt(24));
+
+        ByteBuffer shx = ByteBuffer.wrap(Files.readAllBytes(new File(folder.getRoot(),
+                        "rejected.shx").toPath()));
+        assertEquals(100 + (2 * 8), shx.capacity());
+        assertEquals(shx.capacity(), 2 * shx.getInt(24));
+
+        ByteBuffer dbf = ByteBuffer.wrap(Files.readAllBytes(new File(folder.getRoot(),
+                        "rejected.dbf").toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(2, dbf.getInt(4));
+
+        FeatureCollection read = new ShapefileReader().read(new DriverProperties(
+                    shpFile.getPath()));
+        assertEquals(2, read.size());
+        assertEquals("first", ((Feature) read.getFeatures().get(0)).getString("NAME").trim());
+        assertEquals("second", ((Feature) read.getFeatures().get(1)).getString("NAME").trim());
+    }
+
+    @Test
+    public void testShapefileWriterSizesColumnsInBytes() throws Exception {
+        FeatureSchema schema = SampleFeatures.createSchema();
+        FeatureDataset features = new FeatureDataset(schema);
+        features.add(createFeature(schema, "ëëëëë"));
+        features.add(createFeature(schema, "abcdefg"));
+
+        File shpFile = new File(folder.getRoot(), "sized.shp");
+        new ShapefileWriter().write(features,
+            new DriverProperties(shpFile.getPath()).set("Charset", "UTF-8"));
+
+        FeatureCollection read = new ShapefileReader().read(new DriverProperties(
+                    shpFile.getPath()));
+        assertEquals("ëëëëë", ((Feature) read.getFeatures().get(0)).getString("NAME").trim());
+        assertEquals("abcdefg", ((Feature) read.getFeatures().get(1)).getString("NAME").trim());
+    }
+
+    @Test
+    public void testFailedOpenDeletesFiles() throws Exception {
+        //A directory where the .dbf file should go makes #open fail after
+        //the .shp and .shx files have been created
+        assertTrue(folder.newFolder("broken.dbf").isDirectory());
+
+        File shpFile = new File(folder.getRoot(), "broken.shp");
+        ShapefileStreamWriter writer = new ShapefileStreamWriter();
+
+        try {
+            writer.open(SampleFeatures.createSchema(), new DriverProperties(shpFile.getPath()));
+            fail("Expected the .dbf file to be impossible to create");
+        } catch (Exception e) {
+        }
+
+        //Closing after a failed open, as a finally block would, does nothing
+        writer.close();
+        assertFalse(shpFile.exists());
+        assertFalse(new File(folder.getRoot(), "broken.shx").exists());
+        assertTrue(new File(folder.getRoot(), "broken.dbf").isDirectory());
+    }
+
+    @Test
+    public void testCloseWithoutOpen() throws Exception {
+        new ShapefileStreamWriter().close();
+    }
+
+    @Test
+    public void testCloseTwice() throws Exception {
+        File shpFile = new File(folder.getRoot(), "twice.shp");
+        ShapefileStreamWriter writer = new ShapefileStreamWriter();
+        writer.open(SampleFeatures.createSchema(), new DriverProperties(shpFile.getPath()));
+        writer.append(createFeature(SampleFeatures.createSchema(), "once"));
+        writer.close();
+        writer.close();
+
+        FeatureCollection read = new ShapefileReader().read(new DriverProperties(
+                    shpFile.getPath()));
+        assertEquals(1, read.size());
+    }
+
+    private static Feature createFeature(FeatureSchema schema, String name) {
+        Feature feature = new BasicFeature(schema);
+        feature.setGeometry(new GeometryFactory().createPoint(new Coordinate(1, 2)));
+        feature.setAttribute("NAME", name);
+        feature.setAttribute("COUNT", new Integer(1));
+        feature.setAttribute("VALUE", new Double(2.5));
+
+        return feature;
+    }
+}
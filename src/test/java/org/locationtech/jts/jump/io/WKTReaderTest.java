@@ -0,0 +1,173 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.io;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.jump.feature.*;
+
+import static org.junit.Assert.*;
+
+public class WKTReaderTest {
+    private static final String[] EXTRA = {
+        "POINT EMPTY", "POINT Z (1 2 3)", "LINESTRING (0 0, 10 10)",
+        "MULTIPOINT ((1 1), (2 2))",
+        "GEOMETRYCOLLECTION (POINT (1 1), LINESTRING (0 0, 1 1))"
+    };
+
+    @Test
+    public void testParallelReadMatchesSerialRead() throws Exception {
+        List geometries = createGeometries();
+        String wkt = toWKT(geometries);
+
+        FeatureCollection serial = new WKTReader().read(new StringReader(wkt));
+        assertEquals(geometries.size(), serial.size());
+
+        for (int i = 0; i < geometries.size(); i++) {
+            assertTrue("geometry " + i, ((Geometry) geometries.get(i)).equalsExact(
+                    ((Feature) serial.getFeatures().get(i)).getGeometry()));
+        }
+
+        for (int threads = 2; threads <= 8; threads *= 2) {
+            WKTReader reader = new WKTReader();
+            reader.setParallelism(threads);
+            SampleFeatures.assertSameFeatures(serial, reader.read(new StringReader(wkt)));
+        }
+    }
+
+    @Test
+    public void testIterator() throws Exception {
+        String wkt = toWKT(createGeometries());
+        FeatureCollection serial = new WKTReader().read(new StringReader(wkt));
+        List iterated = new ArrayList();
+
+        for (Iterator i = new WKTReader().iterator(new StringReader(wkt)); i.hasNext();) {
+            iterated.add(i.next());
+        }
+
+        SampleFeatures.assertSameFeatures(serial.getFeatures(), iterated);
+    }
+
+    /**
+     * With an error in the input, the features before it reach the sink and
+     * the same exception is thrown, however many threads parse.
+     */
+    @Test
+    public void testErrorInParallelRead() throws Exception {
+        List geometries = createGeometries();
+        StringBuffer wkt = new StringBuffer(toWKT(geometries.subList(0, 2500)));
+        wkt.append("POLYGON ((0 0, 1 1, oops))\n");
+        wkt.append(toWKT(geometries.subList(2500, 3000)));
+
+        List serialFeatures = new ArrayList();
+        String serialMessage = readUntilError(new WKTReader(), wkt.toString(), serialFeatures);
+        assertEquals(2500, serialFeatures.size());
+        assertTrue(serialMessage, serialMessage.endsWith("in geometry 2501"));
+
+        WKTReader reader = new WKTReader();
+        reader.setParallelism(4);
+
+        List parallelFeatures = new ArrayList();
+        assertEquals(serialMessage, readUntilError(reader, wkt.toString(), parallelFeatures));
+        SampleFeatures.assertSameFeatures(serialFeatures, parallelFeatures);
+    }
+
+    private static String readUntilError(WKTReader reader, String wkt, final List features)
+        throws Exception {
+        try {
+            reader.read(new StringReader(wkt),
+                new FeatureSink() {
+                    public void start(FeatureSchema schema) {
+                    }
+
+                    public void add(Feature feature) {
+                        features.add(feature);
+                    }
+                });
+            fail();
+
+            return null;
+        } catch (ParseException e) {
+            return e.getMessage();
+        }
+    }
+
+    private static List createGeometries() throws Exception {
+        List geometries = new ArrayList();
+
+        for (Iterator i = SampleFeatures.createPolygons(3500, 41).iterator(); i.hasNext();) {
+            geometries.add(((Feature) i.next()).getGeometry());
+        }
+
+        org.locationtech.jts.io.WKTReader reader = new org.locationtech.jts.io.WKTReader();
+
+        for (int i = 0; i < EXTRA.length; i++) {
+            geometries.add(700 * (i + 1), reader.read(EXTRA[i]));
+        }
+
+        return geometries;
+    }
+
+    //Lays the geometries out in several ways, with comments in between
+    private static String toWKT(List geometries) {
+        StringBuffer wkt = new StringBuffer("# generated\n");
+
+        for (int i = 0; i < geometries.size(); i++) {
+            String text = geometries.get(i).toString();
+
+            switch (i % 3) {
+            case 0:
+                wkt.append(text).append('\n');
+
+                break;
+
+            case 1:
+                wkt.append(text.replaceAll(", ", ",\n  ")).append("  # comment (with a paren\n");
+
+                break;
+
+            default:
+                wkt.append(text).append(' ');
+            }
+        }
+
+        return wkt.toString();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI 
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ * 
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ * 
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.util;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FlexibleDateParserTest {
+    private static final String[] DATES = {
+        "2020-05-04", "20200504", "04.05.2020", "12/31/1999", "31/12/1999",
+        "2020-05-04 13:14:15", "15-Mar-2003", "2003.03.15", "2003/03/15 10:20",
+        "2003-03-15T10:20:30", "March 15, 2003", "13:45"
+    };
+
+    @Test
+    public void testParse() throws Exception {
+        FlexibleDateParser parser = new FlexibleDateParser();
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2020, Calendar.MAY, 4);
+        assertEquals(calendar.getTime(), parser.parse("2020-05-04", false));
+        assertEquals(calendar.getTime(), parser.parse("04.05.2020", false));
+        assertNull(parser.parse(" ", false));
+
+        try {
+            parser.parse("not a date", true);
+            fail();
+        } catch (ParseException e) {
+        }
+    }
+
+    /**
+     * One parser used by several threads at the same time gives the same
+     * dates as when used by one thread.
+     */
+    @Test
+    public void testParseInParallel() throws Exception {
+        final FlexibleDateParser parser = new FlexibleDateParser();
+        final Date[] expected = new Date[DATES.length];
+
+        for (int i = 0; i < DATES.length; i++) {
+            expected[i] = parser.parse(DATES[i], false);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List results = new ArrayList();
+
+            for (int thread = 0; thread < 8; thread++) {
+                final int offset = thread;
+                results.add(executor.submit(new Callable() {
+                        public Object call() throws Exception {
+                            for (int i = 0; i < (200 * DATES.length); i++) {
+                                int j = (i + offset) % DATES.length;
+                                assertEquals(DATES[j], expected[j],
+                                    parser.parse(DATES[j], false));
+                            }
+
+                            return null;
+                        }
+                    }));
+            }
+
+            for (int i = 0; i < results.size(); i++) {
+                ((Future) results.get(i)).get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * The Unified Mapping Platform (JUMP) is an extensible, interactive GUI
+ * for visualizing and manipulating spatial features with geometry and attributes.
+ *
+ * Copyright (C) 2003 Vivid Solutions
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License
+ * as published by the Free Software Foundation; either version 2
+ * of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place - Suite 330, Boston, MA  02111-1307, USA.
+ *
+ * For more information, contact:
+ *
+ * Vivid Solutions
+ * Suite #1A
+ * 2328 Government Street
+ * Victoria BC  V8T 5G5
+ * Canada
+ *
+ * (250)385-6040
+ * www.vividsolutions.com
+ */
+
+
+package org.locationtech.jts.jump.util.feature;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.junit.Test;
+
+import org.locationtech.jts.jump.feature.Feature;
+import org.locationtech.jts.jump.feature.FeatureDataset;
+import org.locationtech.jts.jump.feature.SampleFeatures;
+
+import static org.junit.Assert.*;
+
+
+/**
+ * Checks that statistics accumulated in parallel parts and merged equal
+ * those accumulated one Feature at a time.
+ */
+public class FeatureStatisticsTest {
+    //Several times FeatureStatistics.SPLIT_SIZE, so that the parts are split
+    //and merged a few levels deep
+    private static final int FEATURE_COUNT = 20000;
+
+    @Test
+    public void testParallelAttributeStatistics() {
+        FeatureDataset dataset = SampleFeatures.createPolygons(FEATURE_COUNT, 11);
+        setNulls(dataset, "VALUE", 10);
+        assertTrue(dataset.getFeatures() instanceof RandomAccess);
+
+        AttributeStatistics parallel = FeatureStatistics.attributeStatistics(dataset,
+                "VALUE", 0, 10000, 20);
+        AttributeStatistics serial = (AttributeStatistics) serial(dataset,
+                new AttributeStatistics("VALUE", 0, 10000, 20));
+
+        assertEquals(serial.getNullCount(), parallel.getNullCount());
+        assertEquals(FEATURE_COUNT / 10, parallel.getNullCount());
+        assertSameStatistics(serial.getStatistics(), parallel.getStatistics());
+    }
+
+    @Test
+    public void testParallelGeometryStatistics() {
+        FeatureDataset dataset = SampleFeatures.createPolygons(FEATURE_COUNT, 12);
+        GeometryStatistics parallel = FeatureStatistics.geometryStatistics(dataset);
+        GeometryStatistics serial = (GeometryStatistics) serial(dataset,
+                new GeometryStatistics());
+
+        assertEquals(FEATURE_COUNT, parallel.getCount());
+        assertSameStatistics(serial.getVertexCounts(), parallel.getVertexCounts());
+        assertSameStatistics(serial.getHoleCounts(), parallel.getHoleCounts());
+        assertSameStatistics(serial.getComponentCounts(), parallel.getComponentCounts());
+        assertSameStatistics(serial.getAreas(), parallel.getAreas());
+        assertSameStatistics(serial.getLengths(), parallel.getLengths());
+    }
+
+    @Test
+    public void testMerge() {
+        Statistics all = new Statistics(-10, 10, 4);
+        Statistics first = all.newStatistics();
+        Statistics second = all.newStatistics();
+        Statistics empty = all.newStatistics();
+
+        for (int i = 0; i < 1000; i++) {
+            double value = ((i * 37) % 41) - 20.5;
+            all.add(value);
+            ((i < 300) ? first : second).add(value);
+        }
+
+        first.merge(empty);
+        empty.merge(first);
+        empty.merge(second);
+        first.merge(second);
+        assertSameStatistics(all, first);
+        assertSameStatistics(all, empty);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentBins() {
+        new Statistics(0, 10, 4).merge(new Statistics(0, 10, 5));
+    }
+
+    @Test
+    public void testMinMaxValue() {
+        FeatureDataset dataset = SampleFeatures.createPolygons(FEATURE_COUNT, 13);
+        setNulls(dataset, "COUNT", 3);
+
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+
+        for (Iterator i = dataset.getFeatures().iterator(); i.hasNext();) {
+            Integer value = (Integer) ((Feature) i.next()).getAttribute("COUNT");
+
+            if (value != null) {
+                min = Math.min(min, value.intValue());
+                max = Math.max(max, value.intValue());
+            }
+        }
+
+        double[] minMax = FeatureStatistics.minMaxValue(dataset, "COUNT");
+        assertEquals(min, minMax[0], 0);
+        assertEquals(max, minMax[1], 0);
+
+        setNulls(dataset, "COUNT", 1);
+        minMax = FeatureStatistics.minMaxValue(dataset, "COUNT");
+        assertEquals(0, minMax[0], 0);
+        assertEquals(0, minMax[1], 0);
+    }
+
+    private static void setNulls(FeatureDataset dataset, String attributeName, int every) {
+        List features = dataset.getFeatures();
+
+        for (int i = 0; i < features.size(); i += every) {
+            ((Feature) features.get(i)).setAttribute(attributeName, null);
+        }
+    }
+
+    private static FeatureAccumulator serial(FeatureDataset dataset,
+        FeatureAccumulator accumulator) {
+        for (Iterator i = dataset.getFeatures().iterator(); i.hasNext();) {
+            accumulator.add((Feature) i.next());
+        }
+
+        return accumulator;
+    }
+
+    //The sums and means are added up in a different order, so they may
+    //differ in the last few digits
+    private static void assertSameStatistics(Statistics expected, Statistics actual) {
+        assertEquals(expected.getCount(), actual.getCount());
+        assertEquals(expected.getMin(), actual.getMin(), 0);
+        assertEquals(expected.getMax(), actual.getMax(), 0);
+        assertEquals(expected.getSum(), actual.getSum(), 1E-9 * Math.abs(expected.getSum()));
+        assertEquals(expected.getMean(), actual.getMean(),
+            1E-9 * Math.abs(expected.getMean()));
+        assertEquals(expected.getStandardDeviation(), actual.getStandardDeviation(),
+            1E-9 * expected.getStandardDeviation());
+        assertArrayEquals(expected.getHistogram(), actual.getHistogram());
+    }
+}